@@ -37,7 +37,8 @@ public @interface LoopTranslation {
 
   /**
    * Enumerates the available translation options for enhanced for loops.
-   * FAST_ENUMERATION is the default style emitted by the translator.
+   * FAST_ENUMERATION is the default style emitted by the translator, except
+   * for the lists described under INDEXED.
    */
   enum LoopStyle {
     /*
@@ -53,7 +54,21 @@ public @interface LoopTranslation {
      *   ...
      * }
      */
-    FAST_ENUMERATION
+    FAST_ENUMERATION,
+    /*
+     * id<JavaUtilList> l__ = expr;
+     * int32_t n__ = [l__ size];
+     * for (int32_t i__ = 0; i__ < n__; i__++) {
+     *   id var = [l__ getWithInt:i__];
+     *   ...
+     * }
+     *
+     * Only valid for java.util.List expressions. This style is used by default
+     * for ImmutableList, Stack and Vector expressions, unless the loop body
+     * may modify the Stack or Vector: it makes calls other than read-only
+     * List methods of the list, or uses its variable any other way.
+     */
+    INDEXED
   }
 
   LoopStyle value();
@@ -16,9 +16,9 @@ package com.google.devtools.cyclefinder;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
-import com.google.common.io.Files;
 import com.google.devtools.j2objc.ast.CompilationUnit;
-import com.google.devtools.j2objc.file.RegularInputFile;
+import com.google.devtools.j2objc.file.JarCache;
+import com.google.devtools.j2objc.pipeline.IncompatibleSourceStripper;
 import com.google.devtools.j2objc.translate.LambdaTypeElementAdder;
 import com.google.devtools.j2objc.translate.OuterReferenceResolver;
 import com.google.devtools.j2objc.util.ErrorUtil;
@@ -33,6 +33,8 @@ import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -133,33 +135,6 @@ public class CycleFinder {
     return NameList.createFromFiles(restrictToFiles, options.fileUtil().getCharset().name());
   }
 
-  private File stripIncompatible(
-      List<String> sourceFileNames, Parser parser) throws IOException {
-    File strippedDir = null;
-    for (int i = 0; i < sourceFileNames.size(); i++) {
-      String fileName = sourceFileNames.get(i);
-      RegularInputFile file = new RegularInputFile(fileName);
-      String source = options.fileUtil().readFile(file);
-      if (!source.contains("J2ObjCIncompatible")) {
-        continue;
-      }
-      if (strippedDir == null) {
-        strippedDir = Files.createTempDir();
-        parser.prependSourcepathEntry(strippedDir.getPath());
-      }
-      Parser.ParseResult parseResult = parser.parseWithoutBindings(file, source);
-      String qualifiedName = parseResult.mainTypeName();
-      parseResult.stripIncompatibleSource();
-      String relativePath = qualifiedName.replace('.', File.separatorChar) + ".java";
-      File strippedFile = new File(strippedDir, relativePath);
-      Files.createParentDirs(strippedFile);
-      Files.asCharSink(strippedFile, options.fileUtil().getCharset())
-          .write(parseResult.getSource());
-      sourceFileNames.set(i, strippedFile.getPath());
-    }
-    return strippedDir;
-  }
-
   public void constructGraph() throws IOException {
     Parser parser = createParser();
     NameList suppressList =
@@ -169,7 +144,12 @@ public class CycleFinder {
         new GraphBuilder(suppressList, options.externalAnnotations());
 
     List<String> sourceFiles = options.getSourceFiles();
-    File strippedDir = stripIncompatible(sourceFiles, parser);
+    IncompatibleSourceStripper stripper = new IncompatibleSourceStripper(parser);
+    stripper.stripSourcePaths(sourceFiles);
+    File strippedDir = stripper.getStrippedSourcesDir();
+    if (strippedDir != null) {
+      parser.prependSourcepathEntry(strippedDir.getPath());
+    }
 
     Parser.Handler handler = new Parser.Handler() {
       @Override
@@ -183,6 +163,7 @@ public class CycleFinder {
 
     FileUtil.deleteTempDir(strippedDir);
     parser.close();
+    JarCache.closeAll();
 
     if (ErrorUtil.errorCount() > 0) {
       return;
@@ -193,9 +174,28 @@ public class CycleFinder {
   }
 
   public List<List<Edge>> findCycles() {
-    for (ReferenceGraph component :
-        referenceGraph.getStronglyConnectedComponents(getSeedNodes(referenceGraph))) {
-      handleStronglyConnectedComponent(component);
+    List<ReferenceGraph> components =
+        referenceGraph.getStronglyConnectedComponents(getSeedNodes(referenceGraph));
+    // The components are independent, so their cycles are found in parallel and
+    // then added in the order the components were found.
+    List<List<List<Edge>>> componentCycles;
+    if (options.jobs() > 1 && components.size() > 1) {
+      ForkJoinPool pool = new ForkJoinPool(options.jobs());
+      try {
+        componentCycles = pool.submit(() -> components.parallelStream()
+            .map(this::findComponentCycles)
+            .collect(Collectors.toList())).join();
+      } finally {
+        pool.shutdown();
+      }
+    } else {
+      componentCycles = new ArrayList<>();
+      for (ReferenceGraph component : components) {
+        componentCycles.add(findComponentCycles(component));
+      }
+    }
+    for (List<List<Edge>> componentCycle : componentCycles) {
+      cycles.addAll(componentCycle);
     }
     return cycles;
   }
@@ -213,20 +213,25 @@ public class CycleFinder {
     return seedNodes;
   }
 
-  private void handleStronglyConnectedComponent(ReferenceGraph subgraph) {
-    // Make sure to find at least one cycle for each type in the SCC.
+  private List<List<Edge>> findComponentCycles(ReferenceGraph subgraph) {
+    // Make sure to find at least one cycle for each type in the SCC, up to the
+    // maximum number of cycles per component.
+    List<List<Edge>> componentCycles = new ArrayList<>();
     Set<TypeNode> unusedTypes = Sets.newHashSet(subgraph.getNodes());
-    while (!unusedTypes.isEmpty()) {
+    while (!unusedTypes.isEmpty()
+        && componentCycles.size() < options.maxCyclesPerComponent()) {
       TypeNode root = Iterables.getFirst(unusedTypes, null);
       assert root != null;
       List<Edge> cycle = subgraph.findShortestCycle(root);
-      if (shouldAddCycle(cycle)) {
-        cycles.add(cycle);
+      if (!cycle.isEmpty() && shouldAddCycle(cycle)) {
+        componentCycles.add(cycle);
       }
+      unusedTypes.remove(root);
       for (Edge e : cycle) {
         unusedTypes.remove(e.getOrigin());
       }
     }
+    return componentCycles;
   }
 
   public ReferenceGraph getReferenceGraph() {
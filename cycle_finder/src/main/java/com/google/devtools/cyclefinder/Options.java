@@ -58,6 +58,7 @@ class Options extends com.google.devtools.j2objc.Options {
   private final List<String> restrictToListFiles = Lists.newArrayList();
   private List<String> sourceFiles = Lists.newArrayList();
   private boolean printReferenceGraph = false;
+  private int maxCyclesPerComponent = Integer.MAX_VALUE;
 
   public List<String> getSourceFiles() {
     return sourceFiles;
@@ -103,6 +104,15 @@ class Options extends com.google.devtools.j2objc.Options {
      printReferenceGraph = true;
   }
 
+  public int maxCyclesPerComponent() {
+    return maxCyclesPerComponent;
+  }
+
+  @VisibleForTesting
+  public void setMaxCyclesPerComponent(int maxCyclesPerComponent) {
+    this.maxCyclesPerComponent = maxCyclesPerComponent;
+  }
+
   @VisibleForTesting
   public void setClasspath(String classpath) {
     fileUtil().getClassPathEntries().addAll(Arrays.asList(classpath.split(":")));
@@ -163,6 +173,19 @@ class Options extends com.google.devtools.j2objc.Options {
           usage("--sourcefilelist requires an argument");
         }
         options.addManifest(iter.next());
+      } else if (arg.equals("--max-cycles-per-component")) {
+        if (!iter.hasNext()) {
+          usage("--max-cycles-per-component requires an argument");
+        }
+        String value = iter.next();
+        try {
+          options.maxCyclesPerComponent = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+          usage("invalid --max-cycles-per-component argument: " + value);
+        }
+        if (options.maxCyclesPerComponent < 1) {
+          usage("--max-cycles-per-component must be at least 1");
+        }
       } else if (arg.equals("--print-reference-graph")) {
         options.printReferenceGraph = true;
       } else if (arg.equals("-version")) {
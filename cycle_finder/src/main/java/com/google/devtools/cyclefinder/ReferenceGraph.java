@@ -18,9 +18,11 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.SetMultimap;
 import java.io.PrintStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -59,31 +61,33 @@ public class ReferenceGraph {
   }
 
   /**
-   * Runs a version of Dijkstra's algorithm to find a tight cycle in the given
-   * strongly connected component.
+   * Runs a breadth-first search to find a tight cycle through the given node of
+   * a strongly connected component. Returns an empty list if there is none.
    */
   public List<Edge> findShortestCycle(TypeNode root) {
     Map<TypeNode, Edge> backlinks = new HashMap<>();
+    // Nodes are marked visited when first reached, so each is only searched once.
     Set<TypeNode> visited = new HashSet<>();
-    List<TypeNode> toVisit = Lists.newArrayList(root);
-    outer: while (true) {
-      List<TypeNode> visitNext = new ArrayList<>();
-      for (TypeNode source : toVisit) {
-        visited.add(source);
-        for (Edge e : edges.get(source)) {
-          TypeNode target = e.getTarget();
-          if (!visited.contains(target)) {
-            visitNext.add(target);
-            backlinks.put(target, e);
-          } else if (target.equals(root)) {
-            backlinks.put(root, e);
-            break outer;
-          }
+    visited.add(root);
+    Deque<TypeNode> toVisit = new ArrayDeque<>();
+    toVisit.add(root);
+    outer: while (!toVisit.isEmpty()) {
+      TypeNode source = toVisit.remove();
+      for (Edge e : edges.get(source)) {
+        TypeNode target = e.getTarget();
+        if (target.equals(root)) {
+          backlinks.put(root, e);
+          break outer;
+        } else if (visited.add(target)) {
+          toVisit.add(target);
+          backlinks.put(target, e);
         }
       }
-      toVisit = visitNext;
     }
     List<Edge> cycle = new ArrayList<>();
+    if (!backlinks.containsKey(root)) {
+      return cycle;
+    }
     TypeNode curNode = root;
     while (!curNode.equals(root) || cycle.size() == 0) {
       Edge nextEdge = backlinks.get(curNode);
@@ -93,7 +97,8 @@ public class ReferenceGraph {
     return Lists.newArrayList(Lists.reverse(cycle));
   }
 
-  private ReferenceGraph getSubgraph(Collection<TypeNode> vertices) {
+  private ReferenceGraph getSubgraph(Collection<TypeNode> componentNodes) {
+    Set<TypeNode> vertices = new HashSet<>(componentNodes);
     ReferenceGraph subgraph = new ReferenceGraph();
     for (TypeNode type : vertices) {
       for (Edge e : edges.get(type)) {
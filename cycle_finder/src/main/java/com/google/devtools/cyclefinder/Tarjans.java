@@ -16,7 +16,10 @@ package com.google.devtools.cyclefinder;
 
 import com.google.common.collect.SetMultimap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -24,16 +27,30 @@ import java.util.Set;
 /**
  * An implementation of Tarjan's strongly connected components algorithm.
  * http://en.wikipedia.org/wiki/Tarjan's_strongly_connected_components_algorithm
+ *
+ * <p>Vertices are numbered in the order they are found, and the depth-first search keeps an
+ * explicit stack instead of recursing, so that long reference chains can't overflow the stack.
  */
 class Tarjans {
 
+  private static final int UNVISITED = -1;
+
   private final SetMultimap<TypeNode, Edge> edges;
   private final Set<TypeNode> seedTypes;
   private int vIndex = 0;
-  // In case of performance issues, consider a data structure with faster .contains().
-  private ArrayList<Vertex> stack = new ArrayList<>();
-  private Map<TypeNode, Vertex> vertices = new HashMap<>();
-  private List<List<TypeNode>> stronglyConnectedComponents = new ArrayList<>();
+
+  // Vertex numbers, and the state of each vertex by number.
+  private final Map<TypeNode, Integer> vertices = new HashMap<>();
+  private final List<TypeNode> types = new ArrayList<>();
+  private int[] index = new int[16];
+  private int[] lowlink = new int[16];
+
+  // The vertices that may still be part of a component being found.
+  private int[] stack = new int[16];
+  private int stackSize = 0;
+  private final BitSet onStack = new BitSet();
+
+  private final List<List<TypeNode>> stronglyConnectedComponents = new ArrayList<>();
 
   private Tarjans(SetMultimap<TypeNode, Edge> edges, Set<TypeNode> seedTypes) {
     this.edges = edges;
@@ -49,62 +66,92 @@ class Tarjans {
 
   private void run() {
     for (TypeNode type : seedTypes) {
-      Vertex v = getVertex(type);
-      if (v.index == -1) {
+      int v = getVertex(type);
+      if (index[v] == UNVISITED) {
         visit(v);
       }
     }
   }
 
-  private void visit(Vertex v) {
-    v.index = v.lowlink = vIndex++;
-    stack.add(v);
-
-    for (Edge edge : edges.get(v.type)) {
-      Vertex w = getVertex(edge.getTarget());
-      if (w.index == -1) {
-        visit(w);
-        v.lowlink = Math.min(v.lowlink, w.lowlink);
-      } else if (stack.contains(w)) {
-        v.lowlink = Math.min(v.lowlink, w.index);
-      }
-    }
+  private void visit(int root) {
+    // The vertices being visited, and the edges of each that are left to follow.
+    int[] path = new int[16];
+    List<Iterator<Edge>> pathEdges = new ArrayList<>();
+    int depth = 0;
 
-    if (v.lowlink == v.index) {
-      int idx = stack.indexOf(v);
-      assert idx >= 0;
-      List<Vertex> stronglyConnected = stack.subList(idx, stack.size());
-      if (stronglyConnected.size() > 1) {
-        List<TypeNode> stronglyConnectedTypes = new ArrayList<>(stronglyConnected.size());
-        for (Vertex ver : stronglyConnected) {
-          stronglyConnectedTypes.add(ver.type);
+    start(root);
+    path[depth++] = root;
+    pathEdges.add(edges.get(types.get(root)).iterator());
+    while (depth > 0) {
+      int v = path[depth - 1];
+      Iterator<Edge> vEdges = pathEdges.get(depth - 1);
+      if (vEdges.hasNext()) {
+        int w = getVertex(vEdges.next().getTarget());
+        if (index[w] == UNVISITED) {
+          start(w);
+          if (depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+          }
+          path[depth++] = w;
+          pathEdges.add(edges.get(types.get(w)).iterator());
+        } else if (onStack.get(w)) {
+          lowlink[v] = Math.min(lowlink[v], index[w]);
         }
-        stronglyConnectedComponents.add(stronglyConnectedTypes);
+        continue;
+      }
+
+      // All of v's edges have been followed.
+      pathEdges.remove(--depth);
+      if (lowlink[v] == index[v]) {
+        popComponent(v);
+      }
+      if (depth > 0) {
+        int parent = path[depth - 1];
+        lowlink[parent] = Math.min(lowlink[parent], lowlink[v]);
       }
-      stronglyConnected.clear();  // Removes the sublist from stack.
     }
   }
 
-  private Vertex getVertex(TypeNode type) {
-    Vertex v = vertices.get(type);
-    if (v == null) {
-      v = new Vertex(type);
-      vertices.put(type, v);
+  private void start(int v) {
+    index[v] = lowlink[v] = vIndex++;
+    if (stackSize == stack.length) {
+      stack = Arrays.copyOf(stack, stackSize * 2);
     }
-    return v;
+    stack[stackSize++] = v;
+    onStack.set(v);
   }
 
-  private static class Vertex {
-    private int index = -1;
-    private int lowlink = -1;
-    private TypeNode type;
-
-    private Vertex(TypeNode type) {
-      this.type = type;
+  // Removes the component rooted at v from the stack.
+  private void popComponent(int v) {
+    int start = stackSize - 1;
+    while (stack[start] != v) {
+      start--;
+    }
+    if (stackSize - start > 1) {
+      List<TypeNode> stronglyConnectedTypes = new ArrayList<>(stackSize - start);
+      for (int i = start; i < stackSize; i++) {
+        stronglyConnectedTypes.add(types.get(stack[i]));
+      }
+      stronglyConnectedComponents.add(stronglyConnectedTypes);
+    }
+    for (int i = start; i < stackSize; i++) {
+      onStack.clear(stack[i]);
     }
+    stackSize = start;
+  }
 
-    public String toString() {
-      return type.toString();
+  private int getVertex(TypeNode type) {
+    Integer v = vertices.get(type);
+    if (v == null) {
+      v = types.size();
+      vertices.put(type, v);
+      types.add(type);
+      if (v == index.length) {
+        index = Arrays.copyOf(index, v * 2);
+        lowlink = Arrays.copyOf(lowlink, v * 2);
+      }
+      index[v] = UNVISITED;
     }
+    return v;
   }
 }
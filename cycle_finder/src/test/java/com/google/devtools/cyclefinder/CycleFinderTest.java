@@ -466,6 +466,37 @@ public class CycleFinderTest extends TestCase {
     assertNoCycles();
   }
 
+  public void testLongCycle() throws Exception {
+    // Long enough to overflow the stack if components were found recursively.
+    int length = 5000;
+    StringBuilder source = new StringBuilder("class A {");
+    for (int i = 0; i < length; i++) {
+      source.append(" static class C").append(i).append(" { C").append((i + 1) % length)
+          .append(" next; }");
+    }
+    addSourceFile("A.java", source.append(" }").toString());
+    Options options = new Options();
+    options.setJobs(2);
+    findCycles(options);
+    assertEquals(1, cycles.size());
+    assertEquals(length, cycles.get(0).size());
+  }
+
+  public void testMaxCyclesPerComponent() throws Exception {
+    addSourceFile("A.java", "class A { B b; C c; }");
+    addSourceFile("B.java", "class B { A a; }");
+    addSourceFile("C.java", "class C { A a; }");
+    findCycles();
+    assertEquals(2, cycles.size());
+    assertCycle("LA;", "LB;");
+    assertCycle("LA;", "LC;");
+
+    Options options = new Options();
+    options.setMaxCyclesPerComponent(1);
+    findCycles(options);
+    assertEquals(1, cycles.size());
+  }
+
   private void assertContains(String substr, String str) {
     assertTrue("Expected \"" + substr + "\" within \"" + str + "\"", str.contains(substr));
   }
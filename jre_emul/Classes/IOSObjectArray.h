@@ -121,6 +121,16 @@ __attribute__((always_inline)) inline id _Nullable IOSObjectArray_Get(
   return ALWAYS_RETAINED_AUTORELEASED_RETURN_VALUE(array->buffer_[index]);
 }
 
+/**
+ * Gets element at a specified index that the translator has proven to be in
+ * bounds, so the index isn't checked.
+ * @return the element at index.
+ */
+__attribute__((always_inline)) inline id _Nullable IOSObjectArray_GetUnchecked(
+    __unsafe_unretained IOSObjectArray *_Nonnull array, int32_t index) {
+  return ALWAYS_RETAINED_AUTORELEASED_RETURN_VALUE(array->buffer_[index]);
+}
+
 /**
  * Sets element at a specified index, functional equivalent to replaceObjectAtIndex:withObject:.
  * @throws IndexOutOfBoundsException
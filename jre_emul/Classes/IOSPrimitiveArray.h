@@ -132,6 +132,24 @@ __attribute__((always_inline)) inline bool *IOSBooleanArray_GetRef(
   return &array->buffer_[index];
 }
 
+/**
+ * @brief Return the boolean at the specified index, which the translator has
+ * proven to be in bounds.
+ */
+__attribute__((always_inline)) inline bool IOSBooleanArray_GetUnchecked(
+    __unsafe_unretained IOSBooleanArray *array, int32_t index) {
+  return array->buffer_[index];
+}
+
+/**
+ * @brief Return a pointer to the boolean at the specified index, which the
+ * translator has proven to be in bounds.
+ */
+__attribute__((always_inline)) inline bool *IOSBooleanArray_GetRefUnchecked(
+    __unsafe_unretained IOSBooleanArray *array, int32_t index) {
+  return &array->buffer_[index];
+}
+
 // ********** IOSCharArray **********
 
 /**
@@ -224,6 +242,24 @@ __attribute__((always_inline)) inline uint16_t *IOSCharArray_GetRef(
   return &array->buffer_[index];
 }
 
+/**
+ * @brief Return the char at the specified index, which the translator has
+ * proven to be in bounds.
+ */
+__attribute__((always_inline)) inline uint16_t IOSCharArray_GetUnchecked(
+    __unsafe_unretained IOSCharArray *array, int32_t index) {
+  return array->buffer_[index];
+}
+
+/**
+ * @brief Return a pointer to the char at the specified index, which the
+ * translator has proven to be in bounds.
+ */
+__attribute__((always_inline)) inline uint16_t *IOSCharArray_GetRefUnchecked(
+    __unsafe_unretained IOSCharArray *array, int32_t index) {
+  return &array->buffer_[index];
+}
+
 
 // ********** IOSByteArray **********
 
@@ -331,6 +367,24 @@ __attribute__((always_inline)) inline int8_t *IOSByteArray_GetRef(
   return &array->buffer_[index];
 }
 
+/**
+ * @brief Return the byte at the specified index, which the translator has
+ * proven to be in bounds.
+ */
+__attribute__((always_inline)) inline int8_t IOSByteArray_GetUnchecked(
+    __unsafe_unretained IOSByteArray *array, int32_t index) {
+  return array->buffer_[index];
+}
+
+/**
+ * @brief Return a pointer to the byte at the specified index, which the
+ * translator has proven to be in bounds.
+ */
+__attribute__((always_inline)) inline int8_t *IOSByteArray_GetRefUnchecked(
+    __unsafe_unretained IOSByteArray *array, int32_t index) {
+  return &array->buffer_[index];
+}
+
 
 // ********** IOSShortArray **********
 
@@ -419,6 +473,24 @@ __attribute__((always_inline)) inline int16_t *IOSShortArray_GetRef(
   return &array->buffer_[index];
 }
 
+/**
+ * @brief Return the short at the specified index, which the translator has
+ * proven to be in bounds.
+ */
+__attribute__((always_inline)) inline int16_t IOSShortArray_GetUnchecked(
+    __unsafe_unretained IOSShortArray *array, int32_t index) {
+  return array->buffer_[index];
+}
+
+/**
+ * @brief Return a pointer to the short at the specified index, which the
+ * translator has proven to be in bounds.
+ */
+__attribute__((always_inline)) inline int16_t *IOSShortArray_GetRefUnchecked(
+    __unsafe_unretained IOSShortArray *array, int32_t index) {
+  return &array->buffer_[index];
+}
+
 
 // ********** IOSIntArray **********
 
@@ -508,6 +580,24 @@ __attribute__((always_inline)) inline int32_t *IOSIntArray_GetRef(
   return &array->buffer_[index];
 }
 
+/**
+ * @brief Return the int at the specified index, which the translator has
+ * proven to be in bounds.
+ */
+__attribute__((always_inline)) inline int32_t IOSIntArray_GetUnchecked(
+    __unsafe_unretained IOSIntArray *array, int32_t index) {
+  return array->buffer_[index];
+}
+
+/**
+ * @brief Return a pointer to the int at the specified index, which the
+ * translator has proven to be in bounds.
+ */
+__attribute__((always_inline)) inline int32_t *IOSIntArray_GetRefUnchecked(
+    __unsafe_unretained IOSIntArray *array, int32_t index) {
+  return &array->buffer_[index];
+}
+
 
 // ********** IOSLongArray **********
 
@@ -597,6 +687,24 @@ __attribute__((always_inline)) inline int64_t *IOSLongArray_GetRef(
   return &array->buffer_[index];
 }
 
+/**
+ * @brief Return the long at the specified index, which the translator has
+ * proven to be in bounds.
+ */
+__attribute__((always_inline)) inline int64_t IOSLongArray_GetUnchecked(
+    __unsafe_unretained IOSLongArray *array, int32_t index) {
+  return array->buffer_[index];
+}
+
+/**
+ * @brief Return a pointer to the long at the specified index, which the
+ * translator has proven to be in bounds.
+ */
+__attribute__((always_inline)) inline int64_t *IOSLongArray_GetRefUnchecked(
+    __unsafe_unretained IOSLongArray *array, int32_t index) {
+  return &array->buffer_[index];
+}
+
 
 // ********** IOSFloatArray **********
 
@@ -685,6 +793,24 @@ __attribute__((always_inline)) inline float *IOSFloatArray_GetRef(
   return &array->buffer_[index];
 }
 
+/**
+ * @brief Return the float at the specified index, which the translator has
+ * proven to be in bounds.
+ */
+__attribute__((always_inline)) inline float IOSFloatArray_GetUnchecked(
+    __unsafe_unretained IOSFloatArray *array, int32_t index) {
+  return array->buffer_[index];
+}
+
+/**
+ * @brief Return a pointer to the float at the specified index, which the
+ * translator has proven to be in bounds.
+ */
+__attribute__((always_inline)) inline float *IOSFloatArray_GetRefUnchecked(
+    __unsafe_unretained IOSFloatArray *array, int32_t index) {
+  return &array->buffer_[index];
+}
+
 
 // ********** IOSDoubleArray **********
 
@@ -773,6 +899,24 @@ __attribute__((always_inline)) inline double *IOSDoubleArray_GetRef(
   return &array->buffer_[index];
 }
 
+/**
+ * @brief Return the double at the specified index, which the translator has
+ * proven to be in bounds.
+ */
+__attribute__((always_inline)) inline double IOSDoubleArray_GetUnchecked(
+    __unsafe_unretained IOSDoubleArray *array, int32_t index) {
+  return array->buffer_[index];
+}
+
+/**
+ * @brief Return a pointer to the double at the specified index, which the
+ * translator has proven to be in bounds.
+ */
+__attribute__((always_inline)) inline double *IOSDoubleArray_GetRefUnchecked(
+    __unsafe_unretained IOSDoubleArray *array, int32_t index) {
+  return &array->buffer_[index];
+}
+
 
 #undef PRIMITIVE_ARRAY_INTERFACE
 #undef PRIMITIVE_ARRAY_C_INTERFACE
@@ -278,6 +278,39 @@ jint JreIndexOfStr(NSString *str, NSString **values, jint size) {
   return -1;
 }
 
+jint JreIndexOfStrHashed(
+    NSString *str, const jint *hashes, NSString * const *values, jint size) {
+  if (!str) {
+    return -1;
+  }
+  // Java's String.hashCode(), which the translator computed for each value.
+  CFStringRef cfStr = (__bridge CFStringRef)str;
+  CFIndex length = CFStringGetLength(cfStr);
+  CFStringInlineBuffer buffer;
+  CFStringInitInlineBuffer(cfStr, &buffer, CFRangeMake(0, length));
+  uint32_t hash = 0;
+  for (CFIndex i = 0; i < length; i++) {
+    hash = 31 * hash + CFStringGetCharacterFromInlineBuffer(&buffer, i);
+  }
+  // Find the first value with the same hash, then compare the values with it.
+  jint low = 0;
+  jint high = size;
+  while (low < high) {
+    jint mid = (low + high) >> 1;
+    if (hashes[mid] < (jint)hash) {
+      low = mid + 1;
+    } else {
+      high = mid;
+    }
+  }
+  for (jint i = low; i < size && hashes[i] == (jint)hash; i++) {
+    if ([str isEqualToString:values[i]]) {
+      return i;
+    }
+  }
+  return -1;
+}
+
 // Counts the number of object types in a string concatenation.
 static NSUInteger CountObjectArgs(const char *types) {
   NSUInteger numObjs = 0;
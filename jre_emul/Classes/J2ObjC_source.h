@@ -122,6 +122,14 @@ typedef struct J2ObjcResourceDefinition {
           QUOTE(BUF), BUF, LEN, HASH};
 
 FOUNDATION_EXPORT int32_t JreIndexOfStr(NSString *str, NSString **values, int32_t size);
+
+/*!
+ * Returns the index of a string in a switch's case values, or -1 if it isn't
+ * one of them. The values are sorted by their Java hash codes, which are
+ * listed in the hashes array.
+ */
+FOUNDATION_EXPORT int32_t JreIndexOfStrHashed(
+    NSString *str, const int32_t *hashes, NSString * const *values, int32_t size);
 FOUNDATION_EXPORT NSString *JreEnumConstantName(IOSClass *enumClass, int32_t ordinal);
 
 /*!
@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.benchmark;
+
+import com.google.common.base.Splitter;
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.util.ErrorUtil;
+import com.google.devtools.j2objc.util.FileUtil;
+import com.google.devtools.j2objc.util.Parser;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fixed set of sources that the translator benchmarks translate, so that
+ * results are comparable across commits. By default this is a slice of the
+ * jre_emul collection and formatting sources, compiled against jre_emul.jar.
+ *
+ * <p>System properties:
+ * <ul>
+ * <li>j2objc.benchmark.root: the j2objc source root. Defaults to the Bazel
+ * workspace directory, or the current directory.
+ * <li>j2objc.benchmark.files: comma-separated sources to translate instead of
+ * the default corpus, relative to the root.
+ * <li>j2objc.benchmark.sourcepath: the sourcepath, relative to the root.
+ * <li>j2objc.benchmark.bootclasspath: the boot classpath, relative to the root.
+ * </ul>
+ */
+public final class BenchmarkCorpus {
+
+  private static final String OJLUNI = "jre_emul/android/platform/libcore/ojluni/src/main/java";
+
+  private static final String DEFAULT_FILES = String.join(",",
+      OJLUNI + "/java/util/ArrayList.java",
+      OJLUNI + "/java/util/ArrayDeque.java",
+      OJLUNI + "/java/util/Formatter.java",
+      OJLUNI + "/java/util/HashMap.java",
+      OJLUNI + "/java/util/LinkedList.java",
+      OJLUNI + "/java/util/TreeMap.java",
+      OJLUNI + "/java/util/concurrent/ConcurrentHashMap.java");
+
+  private BenchmarkCorpus() {}
+
+  public static File getRoot() {
+    String root = System.getProperty("j2objc.benchmark.root");
+    if (root == null) {
+      root = System.getenv("BUILD_WORKSPACE_DIRECTORY");
+    }
+    return new File(root != null ? root : ".");
+  }
+
+  public static List<String> getFiles() {
+    List<String> files = new ArrayList<>();
+    for (String file : Splitter.on(',').omitEmptyStrings().trimResults().split(
+        System.getProperty("j2objc.benchmark.files", DEFAULT_FILES))) {
+      files.add(new File(getRoot(), file).getAbsolutePath());
+    }
+    return files;
+  }
+
+  /**
+   * Returns options for translating the corpus, writing any output to a new
+   * temporary directory.
+   */
+  public static Options createOptions() throws IOException {
+    File root = getRoot();
+    String sourcepath = System.getProperty("j2objc.benchmark.sourcepath", OJLUNI);
+    String bootclasspath =
+        System.getProperty("j2objc.benchmark.bootclasspath", "dist/lib/jre_emul.jar");
+    Options options = new Options();
+    options.load(new String[] {
+        "-d", FileUtil.createTempDir("benchmark").getAbsolutePath(),
+        "-sourcepath", new File(root, sourcepath).getAbsolutePath(),
+        "-Xbootclasspath:" + new File(root, bootclasspath).getAbsolutePath(),
+        "-encoding", "UTF-8",
+        "-q"
+    });
+    return options;
+  }
+
+  /**
+   * Parses and converts the corpus. The parser must stay open while the
+   * units are translated, since javac completes symbols lazily. Fails if javac
+   * reports any errors, since the timings of a partial corpus are meaningless.
+   */
+  public static List<CompilationUnit> parse(Options options, Parser parser) {
+    List<CompilationUnit> units = new ArrayList<>();
+    ErrorUtil.reset();
+    parser.parseFiles(getFiles(), (path, unit) -> units.add(unit), options.getSourceVersion());
+    if (ErrorUtil.errorCount() > 0) {
+      throw new IllegalStateException(
+          "Benchmark corpus has errors: " + ErrorUtil.getErrorMessages());
+    }
+    return units;
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.benchmark;
+
+import com.google.devtools.j2objc.J2ObjC;
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.file.RegularInputFile;
+import com.google.devtools.j2objc.gen.GenerationUnit;
+import com.google.devtools.j2objc.gen.ObjectiveCHeaderGenerator;
+import com.google.devtools.j2objc.gen.ObjectiveCImplementationGenerator;
+import com.google.devtools.j2objc.pipeline.TranslationProcessor;
+import com.google.devtools.j2objc.util.FileUtil;
+import com.google.devtools.j2objc.util.Parser;
+import com.google.devtools.j2objc.util.TimeTracker;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times the header and implementation generators on the translated corpus.
+ * The generators only read their GenerationUnit, so the corpus is translated
+ * once per trial. Generated files are written to a temporary directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class GeneratorBenchmark {
+
+  private Options options;
+  private Parser parser;
+  private final List<GenerationUnit> generationUnits = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    options = BenchmarkCorpus.createOptions();
+    parser = J2ObjC.createParser(options);
+    for (CompilationUnit unit : BenchmarkCorpus.parse(options, parser)) {
+      TranslationProcessor.applyMutations(
+          unit, null, options.externalAnnotations(), TimeTracker.noop());
+      GenerationUnit genUnit = GenerationUnit.newSingleFileUnit(
+          new RegularInputFile(unit.getSourceFilePath()), options);
+      genUnit.addCompilationUnit(unit);
+      generationUnits.add(genUnit);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    parser.close();
+    FileUtil.deleteTempDir(options.fileUtil().getOutputDirectory());
+  }
+
+  @Benchmark
+  public List<GenerationUnit> headerGeneration() {
+    for (GenerationUnit unit : generationUnits) {
+      ObjectiveCHeaderGenerator.generate(unit, new HashMap<>());
+    }
+    return generationUnits;
+  }
+
+  @Benchmark
+  public List<GenerationUnit> implementationGeneration() {
+    for (GenerationUnit unit : generationUnits) {
+      ObjectiveCImplementationGenerator.generate(unit);
+    }
+    return generationUnits;
+  }
+}
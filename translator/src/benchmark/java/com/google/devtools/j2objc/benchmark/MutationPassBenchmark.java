@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.benchmark;
+
+import com.google.devtools.j2objc.J2ObjC;
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.pipeline.MutationPass;
+import com.google.devtools.j2objc.pipeline.TranslationProcessor;
+import com.google.devtools.j2objc.util.Parser;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times each tree mutation pass on its own. Before each invocation the corpus
+ * is parsed again and every earlier pass is applied, so that each pass sees
+ * the same trees it does in a translation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+public class MutationPassBenchmark {
+
+  // The passes of TranslationProcessor.getMutationPasses() without a dead code map.
+  @Param({
+    "LambdaTypeElementAdder", "ReflectionCodeDetector", "CallSiteInjector",
+    "ExternalAnnotationInjector", "OuterReferenceResolver", "RecordExpander", "GwtConverter",
+    "SerializationStripper", "NumberMethodRewriter", "ConstantBranchPruner", "Rewriter",
+    "AbstractMethodRewriter", "LambdaRewriter", "SwitchConstructRewriter",
+    "InstanceOfPatternRewriter", "EnhancedForRewriter", "VariableDeclarationHoister",
+    "ComputeVariableModifiers", "VariableRenamer", "Autoboxer", "InnerClassExtractor",
+    "DefaultMethodShimGenerator", "InitializationNormalizer", "NilCheckResolver",
+    "UnsequencedExpressionRewriter", "LabelRewriter", "VarargsRewriter", "JavaCloneWriter",
+    "OcniExtractor", "PackageInfoRewriter", "AnnotationRewriter", "EnumRewriter",
+    "DestructorGenerator", "MetadataWriter", "JavaToIOSMethodTranslator", "Functionizer",
+    "SuperMethodInvocationRewriter", "SwitchRewriter", "OperatorRewriter", "StaticVarRewriter",
+    "ArrayRewriter", "ComplexExpressionExtractor", "CastResolver", "PrivateDeclarationResolver",
+    "ObjectiveCNativeProtocolAnnotation", "ObjectiveCAdapterMethodAnnotation",
+    "ObjectiveCKmpMethodTranslator"
+  })
+  public String pass;
+
+  private Options options;
+  private List<MutationPass> passes;
+  private int passIndex;
+  private Parser parser;
+  private List<CompilationUnit> units;
+
+  @Setup(Level.Trial)
+  public void setUpTrial() throws IOException {
+    options = BenchmarkCorpus.createOptions();
+    passes = TranslationProcessor.getMutationPasses(null, options.externalAnnotations());
+    passIndex = -1;
+    for (int i = 0; i < passes.size(); i++) {
+      if (passes.get(i).getName().equals(pass)) {
+        passIndex = i;
+      }
+    }
+    if (passIndex < 0) {
+      throw new IllegalArgumentException("No mutation pass named " + pass);
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void setUpInvocation() {
+    parser = J2ObjC.createParser(options);
+    units = BenchmarkCorpus.parse(options, parser);
+    for (CompilationUnit unit : units) {
+      for (MutationPass earlierPass : passes.subList(0, passIndex)) {
+        if (earlierPass.isEnabled(unit)) {
+          earlierPass.apply(unit);
+        }
+      }
+    }
+  }
+
+  @TearDown(Level.Invocation)
+  public void tearDownInvocation() throws IOException {
+    units = null;
+    parser.close();
+  }
+
+  @Benchmark
+  public List<CompilationUnit> mutate() {
+    MutationPass mutation = passes.get(passIndex);
+    for (CompilationUnit unit : units) {
+      if (mutation.isEnabled(unit)) {
+        mutation.apply(unit);
+      }
+    }
+    return units;
+  }
+}
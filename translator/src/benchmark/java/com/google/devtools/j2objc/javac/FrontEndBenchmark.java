@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.javac;
+
+import com.google.devtools.j2objc.J2ObjC;
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.benchmark.BenchmarkCorpus;
+import com.sun.source.tree.CompilationUnitTree;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times the translator's front end on the benchmark corpus: javac parsing
+ * and attribution, and the conversion of javac's trees by
+ * {@link TreeConverter}. It is in the javac package to create javac
+ * environments the same way {@link JavacParser} does.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+public class FrontEndBenchmark {
+
+  @Benchmark
+  public List<CompilationUnitTree> parseAndAttribute(Environment state) throws IOException {
+    return state.parseAndAttribute();
+  }
+
+  @Benchmark
+  public List<CompilationUnit> treeConverter(ParsedTrees state) {
+    List<CompilationUnit> units = new ArrayList<>();
+    for (CompilationUnitTree tree : state.trees) {
+      units.add(TreeConverter.convertCompilationUnit(state.options, state.env, tree));
+    }
+    return units;
+  }
+
+  /**
+   * A new javac environment for the corpus, created before each invocation.
+   */
+  @State(Scope.Thread)
+  public static class Environment {
+
+    Options options;
+    JavacParser parser;
+    JavacEnvironment env;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+      options = BenchmarkCorpus.createOptions();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws IOException {
+      List<File> files = new ArrayList<>();
+      for (String path : BenchmarkCorpus.getFiles()) {
+        files.add(new File(path));
+      }
+      parser = (JavacParser) J2ObjC.createParser(options);
+      env = parser.createEnvironment(files, null, false);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() throws IOException {
+      env = null;
+      parser.close();
+    }
+
+    List<CompilationUnitTree> parseAndAttribute() throws IOException {
+      List<CompilationUnitTree> trees = new ArrayList<>();
+      for (CompilationUnitTree tree : env.task().parse()) {
+        trees.add(tree);
+      }
+      env.task().analyze();
+      return trees;
+    }
+  }
+
+  /**
+   * The corpus parsed and attributed before each invocation, since conversion
+   * can't be repeated on the same trees.
+   */
+  @State(Scope.Thread)
+  public static class ParsedTrees extends Environment {
+
+    List<CompilationUnitTree> trees;
+
+    @Override
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws IOException {
+      super.setUpInvocation();
+      trees = parseAndAttribute();
+    }
+  }
+}
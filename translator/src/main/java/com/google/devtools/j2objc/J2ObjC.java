@@ -19,6 +19,7 @@ package com.google.devtools.j2objc;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.devtools.j2objc.Options.TimingLevel;
+import com.google.devtools.j2objc.file.JarCache;
 import com.google.devtools.j2objc.pipeline.GenerationBatch;
 import com.google.devtools.j2objc.pipeline.InputFilePreprocessor;
 import com.google.devtools.j2objc.pipeline.ProcessingContext;
@@ -59,11 +60,20 @@ public class J2ObjC {
         : "";
   }
 
-  private static void checkErrors(boolean treatWarningsAsErrors) {
+  /**
+   * Returns the exit status for the errors reported by a translation: the
+   * number of errors, plus warnings if they are treated as errors.
+   */
+  static int getExitStatus(boolean treatWarningsAsErrors) {
     int errors = ErrorUtil.errorCount();
     if (treatWarningsAsErrors) {
       errors += ErrorUtil.warningCount();
     }
+    return errors;
+  }
+
+  private static void checkErrors(boolean treatWarningsAsErrors) {
+    int errors = getExitStatus(treatWarningsAsErrors);
     if (errors > 0) {
       System.exit(errors);
     }
@@ -131,6 +141,20 @@ public class J2ObjC {
       translationProcessor.postProcess();
 
       options.getHeaderMap().printMappings();
+      if (options.outputManifestFile() != null) {
+        try {
+          options.outputWriter().writeManifest(options.outputManifestFile());
+        } catch (IOException e) {
+          ErrorUtil.error("failed writing output manifest: " + e.getMessage());
+        }
+      }
+      if (options.profiler() != null) {
+        try {
+          options.profiler().write();
+        } catch (IOException e) {
+          ErrorUtil.error("failed writing profile: " + e.getMessage());
+        }
+      }
     } finally {
       if (parser != null) {
         try {
@@ -145,12 +169,14 @@ public class J2ObjC {
       }
       FileUtil.deleteTempDir(preProcessorTempDir);
       FileUtil.deleteTempDir(strippedSourcesDir);
+      JarCache.closeAll();
     }
   }
 
   /**
    * Entry point for tool.
-   * Initializes {@link Options}, calls {@link #run}, and exits.
+   * Initializes {@link Options}, calls {@link #run}, and exits. When started
+   * as a Bazel persistent worker, serves work requests until stdin is closed.
    *
    * @param args command-line arguments: flags and source file names
    */
@@ -158,6 +184,15 @@ public class J2ObjC {
     if (args.length == 0) {
       Options.help(true);
     }
+    if (J2ObjCWorker.isPersistentWorker(args)) {
+      try {
+        J2ObjCWorker.main(args);
+      } catch (IOException e) {
+        ErrorUtil.error(e.getMessage());
+        System.exit(1);
+      }
+      return;
+    }
     long startTime = System.currentTimeMillis();
 
     List<String> files = null;
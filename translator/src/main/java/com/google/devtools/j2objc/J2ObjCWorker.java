@@ -0,0 +1,372 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.devtools.j2objc.Options.TimingLevel;
+import com.google.devtools.j2objc.javac.JavacParser;
+import com.google.devtools.j2objc.util.ErrorUtil;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PushbackReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the translator as a Bazel persistent worker, so that a build with many
+ * translation actions only pays for JVM startup and warming the javac file
+ * managers once. Uses the JSON worker protocol: each work request is a JSON
+ * object read from stdin, and each response is written to stdout as a JSON
+ * object on its own line.
+ *
+ * <p>Requests are handled one at a time. Everything a request prints,
+ * including its errors and warnings, is returned in the response's output.
+ */
+public class J2ObjCWorker {
+
+  public static final String PERSISTENT_WORKER_FLAG = "--persistent_worker";
+
+  private final List<String> startupArgs;
+
+  /**
+   * Creates a worker. The startup args are the command-line args besides the
+   * persistent worker flag, and are prepended to each request's arguments.
+   */
+  public J2ObjCWorker(List<String> startupArgs) {
+    this.startupArgs = startupArgs;
+  }
+
+  public static boolean isPersistentWorker(String[] args) {
+    for (String arg : args) {
+      if (arg.equals(PERSISTENT_WORKER_FLAG)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Entry point when started by Bazel with the persistent worker flag.
+   */
+  public static void main(String[] args) throws IOException {
+    List<String> startupArgs = new ArrayList<>();
+    for (String arg : args) {
+      if (!arg.equals(PERSISTENT_WORKER_FLAG)) {
+        startupArgs.add(arg);
+      }
+    }
+    // Keep javac's indexes of the classpath and system modules warm across requests.
+    JavacParser.enableSharedFileManagers();
+    new J2ObjCWorker(startupArgs).run(System.in, System.out);
+    System.exit(0);
+  }
+
+  /**
+   * Handles work requests until the input is closed.
+   */
+  public void run(InputStream in, OutputStream out) throws IOException {
+    Options.disableExit();
+    PrintStream responses = new PrintStream(out, false, UTF_8.name());
+    PushbackReader reader =
+        new PushbackReader(new BufferedReader(new InputStreamReader(in, UTF_8)));
+    while (true) {
+      Object request = Json.read(reader);
+      if (request == null) {
+        break;
+      }
+      if (!(request instanceof Map)) {
+        throw new IOException("work request is not a JSON object: " + request);
+      }
+      Map<?, ?> fields = (Map<?, ?>) request;
+      List<String> args = new ArrayList<>(startupArgs);
+      Object arguments = fields.get("arguments");
+      if (arguments instanceof List) {
+        for (Object arg : (List<?>) arguments) {
+          args.add(String.valueOf(arg));
+        }
+      }
+      Object requestId = fields.get("requestId");
+
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      int exitCode;
+      try (PrintStream requestOut = new PrintStream(output, true, UTF_8.name())) {
+        exitCode = processRequest(args, requestOut);
+      }
+
+      Map<String, Object> response = new LinkedHashMap<>();
+      response.put("exitCode", exitCode);
+      response.put("output", output.toString(UTF_8.name()));
+      response.put("requestId", requestId instanceof Number ? requestId : 0);
+      responses.println(Json.write(response));
+      responses.flush();
+    }
+  }
+
+  /**
+   * Translates the files of one work request, returning the exit status that
+   * {@link J2ObjC#main} would have used. Output is redirected for the duration
+   * of the request, since stdout carries the worker responses.
+   */
+  int processRequest(List<String> args, PrintStream out) {
+    PrintStream savedOut = System.out;
+    PrintStream savedErr = System.err;
+    System.setOut(out);
+    System.setErr(out);
+    ErrorUtil.reset();
+    ErrorUtil.setErrorStream(out);
+    try {
+      long startTime = System.currentTimeMillis();
+      Options options = new Options();
+      List<String> files = options.load(args.toArray(new String[0]));
+      if (files.isEmpty()) {
+        Options.usage("no source files");
+      }
+      J2ObjC.run(files, options);
+      TimingLevel timingLevel = options.timingLevel();
+      if (timingLevel == TimingLevel.TOTAL || timingLevel == TimingLevel.ALL) {
+        out.printf("j2objc execution time: %d ms\n", System.currentTimeMillis() - startTime);
+      }
+      return J2ObjC.getExitStatus(options.treatWarningsAsErrors());
+    } catch (Options.ExitException e) {
+      return e.getStatus();
+    } catch (IOException e) {
+      ErrorUtil.error(e.getMessage());
+      return 1;
+    } catch (RuntimeException e) {
+      // Report the failure as this request's, and keep serving requests.
+      e.printStackTrace(out);
+      return 1;
+    } finally {
+      ErrorUtil.setErrorStream(savedErr);
+      System.setOut(savedOut);
+      System.setErr(savedErr);
+    }
+  }
+
+  /**
+   * A minimal JSON reader and writer for work requests and responses.
+   * Objects are read as maps, arrays as lists, and numbers as longs or
+   * doubles.
+   */
+  static class Json {
+
+    /**
+     * Reads the next value, or returns null at the end of the input. Only
+     * objects are expected at the top level, so a null value isn't ambiguous.
+     */
+    static Object read(PushbackReader in) throws IOException {
+      int c = skipWhitespace(in);
+      if (c == -1) {
+        return null;
+      }
+      in.unread(c);
+      return readValue(in);
+    }
+
+    private static Object readValue(PushbackReader in) throws IOException {
+      int c = skipWhitespace(in);
+      switch (c) {
+        case '{':
+          Map<String, Object> map = new LinkedHashMap<>();
+          c = skipWhitespace(in);
+          while (c != '}') {
+            if (c != '"') {
+              throw syntaxError(c);
+            }
+            String key = readString(in);
+            expect(in, ':');
+            map.put(key, readValue(in));
+            c = skipWhitespace(in);
+            if (c == ',') {
+              c = skipWhitespace(in);
+            } else if (c != '}') {
+              throw syntaxError(c);
+            }
+          }
+          return map;
+        case '[':
+          List<Object> list = new ArrayList<>();
+          c = skipWhitespace(in);
+          if (c == ']') {
+            return list;
+          }
+          in.unread(c);
+          while (true) {
+            list.add(readValue(in));
+            c = skipWhitespace(in);
+            if (c == ']') {
+              return list;
+            } else if (c != ',') {
+              throw syntaxError(c);
+            }
+          }
+        case '"':
+          return readString(in);
+        case 't':
+          expectWord(in, "rue");
+          return Boolean.TRUE;
+        case 'f':
+          expectWord(in, "alse");
+          return Boolean.FALSE;
+        case 'n':
+          expectWord(in, "ull");
+          return null;
+        default:
+          if (c == '-' || (c >= '0' && c <= '9')) {
+            return readNumber(in, c);
+          }
+          throw syntaxError(c);
+      }
+    }
+
+    private static String readString(PushbackReader in) throws IOException {
+      StringBuilder sb = new StringBuilder();
+      while (true) {
+        int c = in.read();
+        if (c == -1) {
+          throw syntaxError(c);
+        } else if (c == '"') {
+          return sb.toString();
+        } else if (c == '\\') {
+          c = in.read();
+          switch (c) {
+            case 'b': sb.append('\b'); break;
+            case 'f': sb.append('\f'); break;
+            case 'n': sb.append('\n'); break;
+            case 'r': sb.append('\r'); break;
+            case 't': sb.append('\t'); break;
+            case 'u':
+              char[] hex = new char[4];
+              for (int i = 0; i < 4; i++) {
+                hex[i] = (char) in.read();
+              }
+              try {
+                sb.append((char) Integer.parseInt(new String(hex), 16));
+              } catch (NumberFormatException e) {
+                throw new IOException("invalid JSON escape: \\u" + new String(hex));
+              }
+              break;
+            case '"':
+            case '\\':
+            case '/':
+              sb.append((char) c);
+              break;
+            default:
+              throw syntaxError(c);
+          }
+        } else {
+          sb.append((char) c);
+        }
+      }
+    }
+
+    private static Object readNumber(PushbackReader in, int first) throws IOException {
+      StringBuilder sb = new StringBuilder();
+      int c = first;
+      while (c != -1 && "+-.eE0123456789".indexOf(c) >= 0) {
+        sb.append((char) c);
+        c = in.read();
+      }
+      if (c != -1) {
+        in.unread(c);
+      }
+      String number = sb.toString();
+      try {
+        if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+          return Long.parseLong(number);
+        }
+        return Double.parseDouble(number);
+      } catch (NumberFormatException e) {
+        throw new IOException("invalid JSON number: " + number);
+      }
+    }
+
+    private static void expect(PushbackReader in, char expected) throws IOException {
+      int c = skipWhitespace(in);
+      if (c != expected) {
+        throw syntaxError(c);
+      }
+    }
+
+    private static void expectWord(PushbackReader in, String rest) throws IOException {
+      for (int i = 0; i < rest.length(); i++) {
+        int c = in.read();
+        if (c != rest.charAt(i)) {
+          throw syntaxError(c);
+        }
+      }
+    }
+
+    private static int skipWhitespace(PushbackReader in) throws IOException {
+      int c;
+      do {
+        c = in.read();
+      } while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+      return c;
+    }
+
+    private static IOException syntaxError(int c) {
+      return new IOException(c == -1
+          ? "unexpected end of JSON input"
+          : "unexpected character in JSON input: '" + (char) c + "'");
+    }
+
+    /**
+     * Writes a map of strings, numbers and booleans as a single-line object.
+     */
+    static String write(Map<String, Object> map) {
+      StringBuilder sb = new StringBuilder("{");
+      for (Map.Entry<String, Object> entry : map.entrySet()) {
+        if (sb.length() > 1) {
+          sb.append(',');
+        }
+        writeString(sb, entry.getKey());
+        sb.append(':');
+        Object value = entry.getValue();
+        if (value instanceof String) {
+          writeString(sb, (String) value);
+        } else {
+          sb.append(value);
+        }
+      }
+      return sb.append('}').toString();
+    }
+
+    private static void writeString(StringBuilder sb, String s) {
+      sb.append('"');
+      for (int i = 0; i < s.length(); i++) {
+        char c = s.charAt(i);
+        if (c == '"' || c == '\\') {
+          sb.append('\\').append(c);
+        } else if (c == '\n') {
+          sb.append("\\n");
+        } else if (c < 0x20) {
+          sb.append(String.format("\\u%04x", (int) c));
+        } else {
+          sb.append(c);
+        }
+      }
+      sb.append('"');
+    }
+  }
+}
@@ -26,15 +26,21 @@ import com.google.common.collect.Sets;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
 import com.google.devtools.j2objc.gen.GenerationUnit;
+import com.google.devtools.j2objc.util.ClassHierarchy;
+import com.google.devtools.j2objc.util.CodeReferenceMap;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.ExternalAnnotations;
 import com.google.devtools.j2objc.util.FileUtil;
 import com.google.devtools.j2objc.util.HeaderMap;
 import com.google.devtools.j2objc.util.Mappings;
 import com.google.devtools.j2objc.util.NameTable;
+import com.google.devtools.j2objc.util.OutputFileWriter;
 import com.google.devtools.j2objc.util.PackageInfoLookup;
 import com.google.devtools.j2objc.util.PackagePrefixes;
+import com.google.devtools.j2objc.util.PassProfiler;
+import com.google.devtools.j2objc.util.ProGuardUsageParser;
 import com.google.devtools.j2objc.util.SourceVersion;
+import com.google.devtools.j2objc.util.TranslationStatistics;
 import com.google.devtools.j2objc.util.Version;
 import java.io.File;
 import java.io.FileFilter;
@@ -83,6 +89,9 @@ public class Options {
   private EnumSet<MetadataSupport> includedMetadata =
       EnumSet.of(
           MetadataSupport.FULL, MetadataSupport.ENUM_CONSTANTS, MetadataSupport.NAME_MAPPING);
+  private boolean reachableMetadataOnly = false;
+  private File reflectionRootsFile = null;
+  private CodeReferenceMap reflectionRoots = null;
   private boolean emitWrapperMethods = true;
   private boolean extractUnsequencedModifications = true;
   private boolean docCommentsEnabled = false;
@@ -94,6 +103,7 @@ public class Options {
   private boolean swiftEnums = true;
   private boolean swiftNaming = false;
   private boolean nullMarked = false;
+  private boolean nonnullFinalFields = false;
   private TimingLevel timingLevel = TimingLevel.NONE;
   private boolean dumpAST = false;
   private String lintArgument = "-Xlint:none"; // Disable all lint warnings by default.
@@ -115,6 +125,15 @@ public class Options {
   private boolean linkProtocols = false;
   private boolean addTextSegmentAttribute = false;
   private boolean suppressHeaderClangTidyWarnings = false;
+  private int jobs = 1;
+  private int batchTranslateMaximum = 0;
+  private File translationCacheDir = null;
+  private File classHierarchyFile = null;
+  private ClassHierarchy classHierarchy = null;
+  private PassProfiler profiler = null;
+  private final TranslationStatistics statistics = new TranslationStatistics();
+  private final OutputFileWriter outputWriter = new OutputFileWriter(statistics);
+  private File outputManifestFile = null;
 
   private Mappings mappings = new Mappings();
   private FileUtil fileUtil = new FileUtil();
@@ -122,6 +141,8 @@ public class Options {
   private PackagePrefixes packagePrefixes = new PackagePrefixes(packageInfoLookup);
   private final ExternalAnnotations externalAnnotations = new ExternalAnnotations();
   private final List<String> entryClasses = new ArrayList<>();
+  // All flags and flag values, in command-line order.
+  private final List<String> flagArgs = new ArrayList<>();
 
   private SourceVersion sourceVersion = null;
 
@@ -266,6 +287,10 @@ public class Options {
   private static final Logger logger = Logger.getLogger("com.google.devtools.j2objc");
   private boolean logLevelSet = false;
 
+  // Set by a persistent worker, which reports usage errors and help requests
+  // as a failed work request instead of exiting.
+  private static volatile boolean exitDisabled = false;
+
   static {
     // Load string resources.
     URL propertiesUrl = Resources.getResource(J2ObjC.class, "J2ObjC.properties");
@@ -365,11 +390,16 @@ public class Options {
       if (!args.hasNext()) {
         usage(arg + " requires an argument");
       }
-      return args.next();
+      String value = args.next();
+      flagArgs.add(value);
+      return value;
     }
 
     private void processArg(Iterator<String> args) throws IOException {
       String arg = args.next();
+      if (arg.startsWith("-")) {
+        flagArgs.add(arg);
+      }
       if (arg.isEmpty()) {
         return;
       } else if (arg.startsWith("@")) {
@@ -457,6 +487,28 @@ public class Options {
         } catch (IllegalArgumentException e) {
           usage("invalid --timing-info argument");
         }
+      } else if (arg.equals("--jobs")) {
+        String s = getArgValue(args, arg);
+        try {
+          jobs = Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+          usage("invalid --jobs argument: " + s);
+        }
+        if (jobs < 1) {
+          usage("--jobs must be at least 1");
+        }
+        outputWriter.setThreadCount(jobs);
+      } else if (arg.equals("--profile-output")) {
+        profiler = new PassProfiler(new File(getArgValue(args, arg)));
+      } else if (arg.equals("--translation-cache")) {
+        translationCacheDir = new File(getArgValue(args, arg));
+      } else if (arg.equals("--output-manifest")) {
+        outputManifestFile = new File(getArgValue(args, arg));
+      } else if (arg.equals("--class-hierarchy")) {
+        classHierarchyFile = new File(getArgValue(args, arg));
+        classHierarchy = ClassHierarchy.load(classHierarchyFile);
+      } else if (arg.equals("--reflection-roots")) {
+        setReflectionRootsFile(new File(getArgValue(args, arg)));
       } else if (arg.equals("-v") || arg.equals("--verbose")) {
         setLogLevel(Level.FINEST);
       } else if (arg.startsWith(XBOOTCLASSPATH)) {
@@ -546,6 +598,11 @@ public class Options {
               includedMetadata.remove(MetadataSupport.NAME_MAPPING);
               break;
             }
+            case "reachable": {
+              includedMetadata.add(MetadataSupport.FULL);
+              reachableMetadataOnly = true;
+              break;
+            }
             default: {
               usage("invalid --reflection argument: " + subArg);
             }
@@ -593,6 +650,8 @@ public class Options {
         nullability = false;
       } else if (arg.equals("-Xnull-marked")) {
         nullMarked = true;
+      } else if (arg.equals("-Xnonnull-final-fields")) {
+        nonnullFinalFields = true;
       } else if (arg.startsWith("-Xlint")) {
         lintArgument = arg;
       } else if (arg.equals("-Xtranslate-bootclasspath")) {
@@ -646,7 +705,12 @@ public class Options {
       } else if (arg.equals("--enable-preview")) {
         addPlatformModuleSystemOptions(arg);
       } else if (arg.startsWith(BATCH_PROCESSING_MAX_FLAG)) {
-        // Ignore, batch processing isn't used with javac front-end.
+        String s = arg.substring(BATCH_PROCESSING_MAX_FLAG.length());
+        try {
+          batchTranslateMaximum = Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+          usage("invalid " + BATCH_PROCESSING_MAX_FLAG + " argument: " + s);
+        }
       } else if (obsoleteFlags.contains(arg)) {
         // also ignore
       } else if (arg.startsWith("-")) {
@@ -800,23 +864,57 @@ public class Options {
   public static void usage(String invalidUseMsg) {
     System.err.println("j2objc: " + invalidUseMsg);
     System.err.println(USAGE_MESSAGE);
-    System.exit(1);
+    exit(1);
   }
 
   public static void help(boolean errorExit) {
     System.err.println(HELP_MESSAGE);
     // javac exits with 2, but any non-zero value works.
-    System.exit(errorExit ? 2 : 0);
+    exit(errorExit ? 2 : 0);
   }
 
   public static void xhelp() {
     System.err.println(XHELP_MESSAGE);
-    System.exit(0);
+    exit(0);
   }
 
   public static void version() {
     System.err.println("j2objc " + Version.jarVersion(Options.class));
-    System.exit(0);
+    exit(0);
+  }
+
+  /**
+   * Thrown by the usage and help methods instead of exiting, once exits are
+   * disabled by {@link #disableExit}.
+   */
+  @SuppressWarnings("serial")
+  public static class ExitException extends RuntimeException {
+
+    private final int status;
+
+    public ExitException(int status) {
+      super("exit status " + status);
+      this.status = status;
+    }
+
+    public int getStatus() {
+      return status;
+    }
+  }
+
+  /**
+   * Makes the usage and help methods throw an {@link ExitException}, for
+   * callers that run several translations in one process.
+   */
+  public static void disableExit() {
+    exitDisabled = true;
+  }
+
+  private static void exit(int status) {
+    if (exitDisabled) {
+      throw new ExitException(status);
+    }
+    System.exit(status);
   }
 
   private List<String> getPathArgument(String argument, boolean expandAarFiles,
@@ -1111,6 +1209,38 @@ public class Options {
     }
   }
 
+  /**
+   * Returns true if only the metadata of types and members that are reachable
+   * by reflection should be generated.
+   */
+  public boolean reachableMetadataOnly() {
+    return reachableMetadataOnly;
+  }
+
+  @VisibleForTesting
+  public void setReachableMetadataOnly(boolean b) {
+    reachableMetadataOnly = b;
+  }
+
+  /**
+   * Returns the classes and members listed as reflection roots, in ProGuard
+   * usage format, or null if no roots file was specified.
+   */
+  public CodeReferenceMap reflectionRoots() {
+    return reflectionRoots;
+  }
+
+  public File reflectionRootsFile() {
+    return reflectionRootsFile;
+  }
+
+  @VisibleForTesting
+  public void setReflectionRootsFile(File file) {
+    reflectionRootsFile = file;
+    reflectionRoots = ProGuardUsageParser.parseDeadCodeFile(file);
+    reachableMetadataOnly = true;
+  }
+
   @VisibleForTesting
   public void setStripAllReflection() {
     includedMetadata = EnumSet.noneOf(MetadataSupport.class);
@@ -1225,6 +1355,15 @@ public class Options {
     nullMarked = b;
   }
 
+  public boolean nonnullFinalFields() {
+    return nonnullFinalFields;
+  }
+
+  @VisibleForTesting
+  public void setNonnullFinalFields(boolean b) {
+    nonnullFinalFields = b;
+  }
+
   public String lintArgument() {
     return lintArgument;
   }
@@ -1233,10 +1372,110 @@ public class Options {
     return timingLevel;
   }
 
+  /**
+   * The profiler that records each translation pass, or null if no profile
+   * output was requested.
+   */
+  public PassProfiler profiler() {
+    return profiler;
+  }
+
+  /**
+   * The counts of code optimized by translation passes, printed with the
+   * --timing-info output.
+   */
+  public TranslationStatistics statistics() {
+    return statistics;
+  }
+
+  @VisibleForTesting
+  public void setProfiler(PassProfiler profiler) {
+    this.profiler = profiler;
+  }
+
   public boolean dumpAST() {
     return dumpAST;
   }
 
+  public int jobs() {
+    return jobs;
+  }
+
+  @VisibleForTesting
+  public void setJobs(int n) {
+    jobs = n;
+    outputWriter.setThreadCount(n);
+  }
+
+  /**
+   * The directory of the persistent translation cache, or null if translated
+   * outputs aren't cached.
+   */
+  public File translationCacheDir() {
+    return translationCacheDir;
+  }
+
+  @VisibleForTesting
+  public void setTranslationCacheDir(File dir) {
+    translationCacheDir = dir;
+  }
+
+  public OutputFileWriter outputWriter() {
+    return outputWriter;
+  }
+
+  /**
+   * The file the hashes of all outputs are written to, or null if no manifest
+   * is written.
+   */
+  public File outputManifestFile() {
+    return outputManifestFile;
+  }
+
+  @VisibleForTesting
+  public void setOutputManifestFile(File file) {
+    outputManifestFile = file;
+  }
+
+  /**
+   * The whole-program class hierarchy used to devirtualize method calls, or
+   * null if the program isn't known to be closed.
+   */
+  public ClassHierarchy classHierarchy() {
+    return classHierarchy;
+  }
+
+  public File classHierarchyFile() {
+    return classHierarchyFile;
+  }
+
+  @VisibleForTesting
+  public void setClassHierarchyFile(File file) throws IOException {
+    classHierarchyFile = file;
+    classHierarchy = ClassHierarchy.load(file);
+  }
+
+  /**
+   * Returns the flags and flag values that were loaded, in command-line order.
+   * Source files and entry class names are not included.
+   */
+  public List<String> flagArgs() {
+    return Collections.unmodifiableList(flagArgs);
+  }
+
+  /**
+   * The maximum number of source files that are attributed by javac at one
+   * time, or zero if all sources in a batch are attributed together.
+   */
+  public int batchTranslateMaximum() {
+    return batchTranslateMaximum;
+  }
+
+  @VisibleForTesting
+  public void setBatchTranslateMaximum(int max) {
+    batchTranslateMaximum = max;
+  }
+
   public boolean reportJavadocWarnings() {
     return reportJavadocWarnings;
   }
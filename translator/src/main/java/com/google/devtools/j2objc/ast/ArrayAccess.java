@@ -24,6 +24,8 @@ public class ArrayAccess extends Expression {
 
   private final ChildLink<Expression> array = ChildLink.create(Expression.class, this);
   private final ChildLink<Expression> index = ChildLink.create(Expression.class, this);
+  // True if the index is proven to be in bounds, so it doesn't need to be checked.
+  private boolean indexInBounds = false;
 
   public ArrayAccess() {}
 
@@ -31,6 +33,7 @@ public class ArrayAccess extends Expression {
     super(other);
     array.copyFrom(other.getArray());
     index.copyFrom(other.getIndex());
+    indexInBounds = other.isIndexInBounds();
   }
 
   @Override
@@ -63,6 +66,15 @@ public class ArrayAccess extends Expression {
     return this;
   }
 
+  public boolean isIndexInBounds() {
+    return indexInBounds;
+  }
+
+  public ArrayAccess setIndexInBounds(boolean indexInBounds) {
+    this.indexInBounds = indexInBounds;
+    return this;
+  }
+
   @Override
   protected void acceptInner(TreeVisitor visitor) {
     if (visitor.visit(this)) {
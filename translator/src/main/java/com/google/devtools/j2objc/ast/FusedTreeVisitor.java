@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.ast;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Runs several visitors in a single traversal of a tree. Each node is visited
+ * by every visitor in order before its children are, and is end-visited by
+ * every visitor in order after them, so each visitor gets the same calls it
+ * would get from its own traversal, as long as the visitors don't depend on
+ * each other's changes to the nodes they visit.
+ *
+ * <p>A visitor that returns false from preVisit or visit skips that node's
+ * subtree while the others continue into it. A visitor that removes the node
+ * it is visiting hides it from the visitors after it, as if they had
+ * traversed the tree after the removal. If it is removed by visit rather than
+ * preVisit, the visitors after it have had preVisit called, so they also get
+ * postVisit, but not visit or endVisit.
+ *
+ * <p>The visitors' visit and endVisit overloads are called from preVisit and
+ * postVisit, found by the node's class the way its acceptInner method finds
+ * them, so every node type {@link TreeVisitor} declares is fused without
+ * overriding its methods here.
+ */
+public class FusedTreeVisitor extends TreeVisitor {
+
+  // How a visitor skips a subtree, which determines the calls it is still
+  // owed for the subtree's root.
+  private static final int SKIP_CHILDREN = 1;  // visit returned false: endVisit and postVisit.
+  private static final int SKIP_NODE = 2;      // preVisit returned false: postVisit.
+  private static final int SKIP_REMOVED = 3;   // Removed before preVisit: no calls.
+
+  private static final MethodType VISIT_TYPE =
+      MethodType.methodType(boolean.class, TreeVisitor.class, TreeNode.class);
+  private static final MethodType END_VISIT_TYPE =
+      MethodType.methodType(void.class, TreeVisitor.class, TreeNode.class);
+
+  // The TreeVisitor.visit and endVisit overloads called for each node class.
+  private static final ClassValue<MethodHandle> visitMethods = new ClassValue<MethodHandle>() {
+    @Override
+    protected MethodHandle computeValue(Class<?> nodeClass) {
+      return findVisitMethod("visit", boolean.class, nodeClass).asType(VISIT_TYPE);
+    }
+  };
+  private static final ClassValue<MethodHandle> endVisitMethods = new ClassValue<MethodHandle>() {
+    @Override
+    protected MethodHandle computeValue(Class<?> nodeClass) {
+      return findVisitMethod("endVisit", void.class, nodeClass).asType(END_VISIT_TYPE);
+    }
+  };
+
+  private final TreeVisitor[] visitors;
+  // The root of the subtree each visitor is skipping, or null if it is visiting.
+  private final TreeNode[] skippedRoots;
+  private final int[] skipKinds;
+
+  public FusedTreeVisitor(List<? extends TreeVisitor> visitors) {
+    this.visitors = visitors.toArray(new TreeVisitor[0]);
+    skippedRoots = new TreeNode[this.visitors.length];
+    skipKinds = new int[this.visitors.length];
+  }
+
+  // Returns the overload for the closest class of a node that TreeVisitor
+  // declares one for, which is the overload the node's acceptInner calls.
+  private static MethodHandle findVisitMethod(
+      String name, Class<?> returnType, Class<?> nodeClass) {
+    for (Class<?> c = nodeClass; c != TreeNode.class; c = c.getSuperclass()) {
+      try {
+        return MethodHandles.publicLookup()
+            .findVirtual(TreeVisitor.class, name, MethodType.methodType(returnType, c));
+      } catch (NoSuchMethodException e) {
+        // Try its superclass.
+      } catch (IllegalAccessException e) {
+        throw new AssertionError(e);
+      }
+    }
+    throw new AssertionError("TreeVisitor has no " + name + " method for " + nodeClass);
+  }
+
+  /**
+   * Calls preVisit and then visit on each visitor that is visiting the node,
+   * returning whether any of them are visiting its children.
+   */
+  @Override
+  public boolean preVisit(TreeNode node) {
+    if (!visitAll(node, v -> v.preVisit(node), SKIP_NODE, SKIP_REMOVED)) {
+      return false;
+    }
+    MethodHandle visit = visitMethods.get(node.getClass());
+    return visitAll(node, v -> {
+      try {
+        return (boolean) visit.invokeExact(v, node);
+      } catch (Throwable t) {
+        throw rethrow(t);
+      }
+    }, SKIP_CHILDREN, SKIP_NODE);
+  }
+
+  /**
+   * Calls endVisit on each visitor that visited the node, and then postVisit
+   * on each visitor that previsited it.
+   */
+  @Override
+  public void postVisit(TreeNode node) {
+    MethodHandle endVisit = endVisitMethods.get(node.getClass());
+    for (int i = 0; i < visitors.length; i++) {
+      if (skippedRoots[i] == null
+          || (skippedRoots[i] == node && skipKinds[i] == SKIP_CHILDREN)) {
+        try {
+          endVisit.invokeExact(visitors[i], node);
+        } catch (Throwable t) {
+          throw rethrow(t);
+        }
+      }
+    }
+    for (int i = 0; i < visitors.length; i++) {
+      if (skippedRoots[i] == null) {
+        visitors[i].postVisit(node);
+      } else if (skippedRoots[i] == node) {
+        if (skipKinds[i] != SKIP_REMOVED) {
+          visitors[i].postVisit(node);
+        }
+        skippedRoots[i] = null;
+      }
+    }
+  }
+
+  /**
+   * Calls visit on each visitor that is visiting the node, returning whether
+   * any of them still are.
+   */
+  private boolean visitAll(
+      TreeNode node, Predicate<TreeVisitor> visit, int skipKind, int removedSkipKind) {
+    ChildLink<? extends TreeNode> owner = node.getOwner();
+    boolean visiting = false;
+    for (int i = 0; i < visitors.length; i++) {
+      if (skippedRoots[i] != null) {
+        continue;
+      }
+      if (visit.test(visitors[i])) {
+        visiting = true;
+      } else {
+        skip(i, node, skipKind);
+      }
+      if (node.getOwner() != owner) {
+        // Detached by this visitor, so the visitors after it never see the node.
+        for (int j = i + 1; j < visitors.length; j++) {
+          if (skippedRoots[j] == null) {
+            skip(j, node, removedSkipKind);
+          }
+        }
+        break;
+      }
+    }
+    return visiting;
+  }
+
+  private void skip(int i, TreeNode node, int kind) {
+    skippedRoots[i] = node;
+    skipKinds[i] = kind;
+  }
+
+  private static RuntimeException rethrow(Throwable t) {
+    if (t instanceof RuntimeException) {
+      throw (RuntimeException) t;
+    }
+    if (t instanceof Error) {
+      throw (Error) t;
+    }
+    throw new AssertionError(t);
+  }
+}
@@ -41,6 +41,10 @@ public abstract class TreeNode {
     return owner == null ? null : owner.getParent();
   }
 
+  /* package */ ChildLink<? extends TreeNode> getOwner() {
+    return owner;
+  }
+
   /* package */ void setOwner(ChildLink<? extends TreeNode> newOwner) {
     assert owner == null || newOwner == null : "Node is already parented";
     owner = newOwner;
@@ -0,0 +1,142 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.j2objc.file;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.ByteStreams;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The jars read by a translation: the entry names of each jar, used to test
+ * whether a jar contains a file without opening it, and the most recently read
+ * jars, kept open while their files are read one by one.
+ *
+ * <p>Entries are keyed by a jar's path, size and modification time, so a jar
+ * that changes is reread. Entry names are shared by all translations in a
+ * process, such as the requests of a persistent worker; they are bounded and
+ * are released when memory runs low. Open jars are closed by {@link #closeAll}
+ * when a translation finishes.
+ */
+public final class JarCache {
+
+  private static final int MAX_INDEXED_JARS = 512;
+  private static final int MAX_OPEN_JARS = 16;
+
+  private static final Cache<String, Set<String>> entryNames =
+      CacheBuilder.newBuilder().maximumSize(MAX_INDEXED_JARS).softValues().build();
+
+  @SuppressWarnings("serial")
+  private static final Map<String, JarFile> openJars =
+      new LinkedHashMap<String, JarFile>(MAX_OPEN_JARS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JarFile> eldest) {
+          if (size() <= MAX_OPEN_JARS) {
+            return false;
+          }
+          close(eldest.getValue());
+          return true;
+        }
+      };
+
+  private JarCache() {}
+
+  /**
+   * Returns the names of the entries in a jar.
+   *
+   * @throws IOException if the jar can't be read
+   */
+  public static Set<String> getEntryNames(String jarPath) throws IOException {
+    String key = key(new File(jarPath));
+    Set<String> names = entryNames.getIfPresent(key);
+    if (names == null) {
+      try (ZipFile zipFile = new ZipFile(jarPath)) {
+        names = new HashSet<>(zipFile.size() * 4 / 3 + 1);
+        for (Enumeration<? extends ZipEntry> e = zipFile.entries(); e.hasMoreElements(); ) {
+          names.add(e.nextElement().getName());
+        }
+      }
+      entryNames.put(key, names);
+    }
+    return names;
+  }
+
+  /**
+   * Returns the contents of a jar entry, or null if the jar has no such entry.
+   *
+   * @throws IOException if the jar can't be read
+   */
+  public static byte[] readEntry(String jarPath, String entryName) throws IOException {
+    synchronized (openJars) {
+      File file = new File(jarPath);
+      String key = key(file);
+      JarFile jarFile = openJars.get(key);
+      if (jarFile == null) {
+        jarFile = new JarFile(file);
+        openJars.put(key, jarFile);
+      }
+      ZipEntry entry = jarFile.getEntry(entryName);
+      if (entry == null) {
+        return null;
+      }
+      try (InputStream entryStream = jarFile.getInputStream(entry)) {
+        return ByteStreams.toByteArray(entryStream);
+      }
+    }
+  }
+
+  /**
+   * Closes the jars kept open by {@link #readEntry}. Called when a translation
+   * finishes, so that a persistent worker doesn't hold jars that later
+   * requests may not read.
+   */
+  public static void closeAll() {
+    synchronized (openJars) {
+      for (JarFile jarFile : openJars.values()) {
+        close(jarFile);
+      }
+      openJars.clear();
+    }
+  }
+
+  @VisibleForTesting
+  public static int openJarCount() {
+    synchronized (openJars) {
+      return openJars.size();
+    }
+  }
+
+  private static String key(File file) {
+    return file.getPath() + '@' + file.lastModified() + '@' + file.length();
+  }
+
+  private static void close(JarFile jarFile) {
+    try {
+      jarFile.close();
+    } catch (IOException e) {
+      // Nothing is reading from it.
+    }
+  }
+}
@@ -13,14 +13,14 @@
  */
 package com.google.devtools.j2objc.file;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
-import java.util.jar.JarFile;
-import java.util.zip.ZipEntry;
 
 /**
  * A file inside a .jar file.
@@ -28,6 +28,8 @@ import java.util.zip.ZipEntry;
  * @author Mike Thvedt
  */
 public class JarredInputFile implements InputFile {
+  private static final String JAR_URL_PREFIX = "jar:file:";
+
   private final String jarPath;
   private final String internalPath;
 
@@ -43,42 +45,36 @@ public class JarredInputFile implements InputFile {
     this.internalPath = internalPath;
   }
 
+  /**
+   * Returns the file located by a "jar:file:<jar path>!<internal path>" URL,
+   * as returned by {@link #getOriginalLocation()}, or null if the location
+   * isn't such a URL.
+   */
+  public static JarredInputFile fromOriginalLocation(String location) {
+    int separator = location.lastIndexOf('!');
+    if (!location.startsWith(JAR_URL_PREFIX) || separator == -1) {
+      return null;
+    }
+    return new JarredInputFile(
+        location.substring(JAR_URL_PREFIX.length(), separator), location.substring(separator + 1));
+  }
+
   @Override
   public boolean exists() throws IOException {
-    try (JarFile jarFile = new JarFile(jarPath)) {
-      ZipEntry entry = jarFile.getEntry(internalPath);
-      return entry != null;
-    }
+    return JarCache.getEntryNames(jarPath).contains(internalPath);
   }
 
+  /**
+   * Returns a stream of the file's contents, which are read from the jar when
+   * the stream is opened.
+   */
   @Override
   public InputStream getInputStream() throws IOException {
-    final JarFile jarFile = new JarFile(jarPath);
-    ZipEntry entry = jarFile.getEntry(internalPath);
-    final InputStream entryStream = jarFile.getInputStream(entry);
-    return new InputStream() {
-
-      @Override
-      public int read() throws IOException {
-        return entryStream.read();
-      }
-
-      @Override
-      public int read(byte[] buffer) throws IOException {
-        return entryStream.read(buffer);
-      }
-
-      @Override
-      public int read(byte[] buffer, int byteOffset, int byteCount) throws IOException {
-        return entryStream.read(buffer, byteOffset, byteCount);
-      }
-
-      @Override
-      public void close() throws IOException {
-        entryStream.close();
-        jarFile.close();
-      }
-    };
+    byte[] contents = JarCache.readEntry(jarPath, internalPath);
+    if (contents == null) {
+      throw new FileNotFoundException(getOriginalLocation());
+    }
+    return new ByteArrayInputStream(contents);
   }
 
   @Override
@@ -93,7 +89,7 @@ public class JarredInputFile implements InputFile {
 
   @Override
   public String getOriginalLocation() {
-    return "jar:file:" + jarPath + "!" + internalPath;
+    return JAR_URL_PREFIX + jarPath + "!" + internalPath;
   }
 
   @Override
@@ -26,7 +26,9 @@ import com.google.devtools.j2objc.ast.TreeUtil;
 import com.google.devtools.j2objc.file.InputFile;
 import com.google.devtools.j2objc.util.ElementUtil;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.TreeMap;
 import javax.annotation.Nullable;
 import javax.lang.model.element.VariableElement;
@@ -59,6 +61,7 @@ public class GenerationUnit {
   private boolean hasIncompleteImplementation = false;
   private boolean hasNullabilityAnnotations = false;
   private boolean hasWeakFields = false;
+  private final List<File> outputFiles = new ArrayList<>();
   private final Options options;
 
   private enum State {
@@ -238,6 +241,22 @@ public class GenerationUnit {
     outputPath = sourceDir;
   }
 
+  /**
+   * Records a file that was written for this unit.
+   */
+  public void addOutputFile(File file) {
+    if (!outputFiles.contains(file)) {
+      outputFiles.add(file);
+    }
+  }
+
+  /**
+   * Returns the files that were written for this unit.
+   */
+  public List<File> getOutputFiles() {
+    return outputFiles;
+  }
+
   public boolean isFullyParsed() {
     return receivedUnits == numUnits;
   }
@@ -248,6 +267,11 @@ public class GenerationUnit {
 
   public void finished() {
     state = State.FINISHED;
+    // Release the generated code, since the unit's output has been written.
+    javadocBlocks.clear();
+    nativeHeaderBlocks.clear();
+    nativeImplementationBlocks.clear();
+    generatedTypes.clear();
   }
 
   /**
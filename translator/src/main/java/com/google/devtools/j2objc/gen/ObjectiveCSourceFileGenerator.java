@@ -16,7 +16,6 @@
 
 package com.google.devtools.j2objc.gen;
 
-import com.google.common.io.Files;
 import com.google.devtools.j2objc.types.Import;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.UnicodeUtils;
@@ -92,12 +91,6 @@ public abstract class ObjectiveCSourceFileGenerator extends AbstractSourceGenera
   protected void save(String path, File outputDirectory) {
     try {
       File outputFile = new File(outputDirectory, path);
-      File dir = outputFile.getParentFile();
-      if (dir != null && !dir.exists()) {
-        if (!dir.mkdirs()) {
-          ErrorUtil.warning("cannot create output directory: " + outputDirectory);
-        }
-      }
       String source = getBuilder().toString();
 
       // Make sure file ends with a new-line.
@@ -105,7 +98,9 @@ public abstract class ObjectiveCSourceFileGenerator extends AbstractSourceGenera
         source += '\n';
       }
 
-      Files.asCharSink(outputFile, unit.options().fileUtil().getCharset()).write(source);
+      unit.options().outputWriter().write(
+          outputFile, source, unit.options().fileUtil().getCharset());
+      unit.addOutputFile(outputFile);
     } catch (IOException e) {
       ErrorUtil.error(e.getMessage());
     } finally {
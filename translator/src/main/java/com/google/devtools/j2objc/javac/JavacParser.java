@@ -14,10 +14,14 @@
 
 package com.google.devtools.j2objc.javac;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.devtools.j2objc.Options;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.file.InputFile;
+import com.google.devtools.j2objc.file.JarredInputFile;
 import com.google.devtools.j2objc.file.RegularInputFile;
 import com.google.devtools.j2objc.pipeline.ProcessingContext;
 import com.google.devtools.j2objc.util.ErrorUtil;
@@ -27,25 +31,41 @@ import com.google.devtools.j2objc.util.PathClassLoader;
 import com.google.devtools.j2objc.util.SourceVersion;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
 import com.sun.source.util.SourcePositions;
+import com.sun.source.util.Trees;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.StreamTokenizer;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.processing.Processor;
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
+import javax.tools.ForwardingJavaFileManager;
 import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
 import javax.tools.JavaFileManager.Location;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
@@ -59,7 +79,25 @@ import javax.tools.ToolProvider;
  */
 public class JavacParser extends Parser {
 
-  private StandardJavaFileManager fileManager;
+  private static final Logger logger = Logger.getLogger(JavacParser.class.getName());
+
+  /** Statistics counter of the javac tasks that parsed input files. */
+  public static final String PARSE_BATCHES = "Javac parse batches";
+
+  // The file managers created by this parser that aren't shared, closed when
+  // the parser is closed or when a chunk's units are no longer used.
+  private final List<StandardJavaFileManager> openFileManagers = new ArrayList<>();
+
+  // File managers kept open across parsers once enabled by a persistent
+  // worker, so that their classpath archive indexes stay warm between work
+  // requests. Keyed by the search paths and the stamps of their archives, so
+  // a rebuilt jar gets a new file manager.
+  private static Map<String, StandardJavaFileManager> sharedFileManagers = null;
+  private static final int MAX_SHARED_FILE_MANAGERS = 4;
+
+  // The largest number of compilation units held by a single javac task,
+  // including the sourcepath files it parsed to resolve references.
+  private int peakResidentUnits = 0;
 
   public JavacParser(Options options) {
     super(options);
@@ -128,16 +166,38 @@ public class JavacParser extends Parser {
     return null;
   }
 
+  /**
+   * Keeps file managers open after their parser is closed, so later parsers
+   * with the same search paths reuse them. Only for long-running processes.
+   */
+  public static synchronized void enableSharedFileManagers() {
+    if (sharedFileManagers == null) {
+      sharedFileManagers = new LinkedHashMap<String, StandardJavaFileManager>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StandardJavaFileManager> eldest) {
+          if (size() <= MAX_SHARED_FILE_MANAGERS) {
+            return false;
+          }
+          try {
+            eldest.getValue().close();
+          } catch (IOException e) {
+            logger.fine("Failed closing file manager: " + e);
+          }
+          return true;
+        }
+      };
+    }
+  }
+
   private StandardJavaFileManager getFileManager(JavaCompiler compiler,
-      DiagnosticCollector<JavaFileObject> diagnostics) throws IOException {
-    fileManager =
-        compiler.getStandardFileManager(diagnostics, null, options.fileUtil().getCharset());
-    addPaths(StandardLocation.CLASS_PATH, classpathEntries, fileManager);
-    addPaths(StandardLocation.SOURCE_PATH, sourcepathEntries, fileManager);
-    addPaths(StandardLocation.PLATFORM_CLASS_PATH, options.getBootClasspath(), fileManager);
-    List<String> processorPathEntries = options.getProcessorPathEntries();
-    if (!processorPathEntries.isEmpty()) {
-      addPaths(StandardLocation.ANNOTATION_PROCESSOR_PATH, processorPathEntries, fileManager);
+      DiagnosticCollector<JavaFileObject> diagnostics, List<String> sourcepath)
+      throws IOException {
+    StandardJavaFileManager fileManager = getSharedFileManager(compiler, sourcepath);
+    if (fileManager == null) {
+      fileManager =
+          compiler.getStandardFileManager(diagnostics, null, options.fileUtil().getCharset());
+      openFileManagers.add(fileManager);
+      setSearchPaths(fileManager, sourcepath);
     }
     fileManager.setLocation(StandardLocation.CLASS_OUTPUT,
         Lists.newArrayList(options.fileUtil().getOutputDirectory()));
@@ -146,6 +206,54 @@ public class JavacParser extends Parser {
     return fileManager;
   }
 
+  private void setSearchPaths(StandardJavaFileManager fileManager, List<String> sourcepath)
+      throws IOException {
+    addPaths(StandardLocation.CLASS_PATH, classpathEntries, fileManager);
+    addPaths(StandardLocation.SOURCE_PATH, sourcepath, fileManager);
+    addPaths(StandardLocation.PLATFORM_CLASS_PATH, options.getBootClasspath(), fileManager);
+    List<String> processorPathEntries = options.getProcessorPathEntries();
+    if (!processorPathEntries.isEmpty()) {
+      addPaths(StandardLocation.ANNOTATION_PROCESSOR_PATH, processorPathEntries, fileManager);
+    }
+  }
+
+  private StandardJavaFileManager getSharedFileManager(
+      JavaCompiler compiler, List<String> sourcepath) throws IOException {
+    synchronized (JavacParser.class) {
+      if (sharedFileManagers == null) {
+        return null;
+      }
+      String key = Joiner.on('\0').join(
+          options.fileUtil().getCharset().name(),
+          stampPaths(classpathEntries),
+          Joiner.on(File.pathSeparatorChar).join(sourcepath),
+          stampPaths(options.getBootClasspath()),
+          stampPaths(options.getProcessorPathEntries()));
+      StandardJavaFileManager shared = sharedFileManagers.get(key);
+      if (shared == null) {
+        // Diagnostics are reported by each task, so the file manager doesn't need a listener.
+        shared = compiler.getStandardFileManager(null, null, options.fileUtil().getCharset());
+        setSearchPaths(shared, sourcepath);
+        sharedFileManagers.put(key, shared);
+      }
+      return shared;
+    }
+  }
+
+  // Returns the paths with the size and modification time of each archive.
+  private static String stampPaths(List<String> paths) {
+    StringBuilder sb = new StringBuilder();
+    for (String path : paths) {
+      File f = new File(path);
+      sb.append(path);
+      if (f.isFile()) {
+        sb.append('@').append(f.length()).append(':').append(f.lastModified());
+      }
+      sb.append(File.pathSeparatorChar);
+    }
+    return sb.toString();
+  }
+
   private void addPaths(Location location, List<String> paths, StandardJavaFileManager fileManager)
       throws IOException {
     List<File> filePaths = new ArrayList<>();
@@ -193,17 +301,189 @@ public class JavacParser extends Parser {
 
   @Override
   public void parseFiles(Collection<String> paths, Handler handler, SourceVersion sourceVersion) {
+    int maxChunkSize = options.batchTranslateMaximum();
+    if (maxChunkSize <= 0 || paths.size() <= maxChunkSize) {
+      parseFileChunk(paths, handler, null);
+      return;
+    }
+    StreamingSourcepath sourcepath = getStreamingSourcepath(paths);
+    if (sourcepath == null) {
+      ErrorUtil.warning("--batch-translate-max ignored, since an input file isn't in a"
+          + " directory matching its package; parsing all files as a single batch");
+      parseFileChunk(paths, handler, null);
+      return;
+    }
+    int nChunks = 0;
+    for (List<String> chunk : Iterables.partition(paths, maxChunkSize)) {
+      parseFileChunk(chunk, handler, sourcepath);
+      nChunks++;
+    }
+    if (logger.isLoggable(Level.INFO)) {
+      System.out.println(String.format(
+          "Parsed %d files in %d batches, peak resident ASTs: %d",
+          paths.size(), nChunks, peakResidentUnits));
+    }
+  }
+
+  /**
+   * Returns the sourcepath used when a batch is parsed in several chunks. Each
+   * chunk's javac task only compiles that chunk's files, so the roots of all
+   * the batch's files are appended to the sourcepath so that references to
+   * files in other chunks can be resolved. Only the batch's files are visible
+   * in those roots, so a chunk can't resolve a type from a sibling file that
+   * isn't an input. Returns null if a root cannot be determined because a file
+   * isn't in a directory matching its package.
+   */
+  private StreamingSourcepath getStreamingSourcepath(Collection<String> paths) {
+    Set<String> roots = new LinkedHashSet<>(sourcepathEntries);
+    Set<String> batchTypes = new HashSet<>();
+    for (String path : paths) {
+      JarredInputFile jarEntry = JarredInputFile.fromOriginalLocation(path);
+      if (jarEntry != null) {
+        roots.add(jarEntry.getAbsolutePath());
+        batchTypes.add(binaryName(jarEntry.getUnitName()));
+        continue;
+      }
+      File file = new File(path);
+      String source;
+      try {
+        source = options.fileUtil().readFile(new RegularInputFile(path));
+      } catch (IOException e) {
+        return null;
+      }
+      File root = file.getAbsoluteFile().getParentFile();
+      String pkgName = packageName(source);
+      if (pkgName != null) {
+        List<String> segments = Lists.reverse(Arrays.asList(pkgName.split("\\.")));
+        for (String segment : segments) {
+          if (root == null || !root.getName().equals(segment)) {
+            return null;
+          }
+          root = root.getParentFile();
+        }
+      }
+      if (root == null) {
+        return null;
+      }
+      roots.add(root.getPath());
+      String fileName = binaryName(file.getName());
+      batchTypes.add(pkgName != null ? pkgName + '.' + fileName : fileName);
+    }
+    List<String> addedRoots = new ArrayList<>(roots);
+    addedRoots.removeAll(sourcepathEntries);
+    return new StreamingSourcepath(new ArrayList<>(roots), addedRoots, batchTypes);
+  }
+
+  // Returns the binary name of a source file's main type from its relative path.
+  private static String binaryName(String relativePath) {
+    return relativePath.replaceFirst("\\.java$", "").replace('/', '.');
+  }
+
+  /**
+   * The sourcepath of a batch parsed in several chunks: the sourcepath entries
+   * followed by the roots added for the batch's files, which only expose the
+   * batch's files.
+   */
+  private static class StreamingSourcepath {
+    private final List<String> entries;
+    private final List<Path> addedRoots = new ArrayList<>();
+    private final Set<String> batchTypes;
+
+    StreamingSourcepath(List<String> entries, List<String> addedRoots, Set<String> batchTypes) {
+      this.entries = entries;
+      for (String root : addedRoots) {
+        this.addedRoots.add(Paths.get(root).toAbsolutePath());
+      }
+      this.batchTypes = batchTypes;
+    }
+
+    // Returns true if a sourcepath file isn't hidden by an added root.
+    boolean isVisible(JavaFileObject file, String binaryName) {
+      if (batchTypes.contains(binaryName)) {
+        return true;
+      }
+      URI uri = file.toUri();
+      for (Path root : addedRoots) {
+        boolean underRoot = "file".equals(uri.getScheme())
+            ? Paths.get(uri).startsWith(root)
+            : uri.toString().startsWith("jar:" + root.toUri() + "!");
+        if (underRoot) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Hides the sourcepath files of a batch's added roots that aren't files of
+   * the batch, so they are reported as missing as when the batch is parsed in
+   * a single javac task.
+   */
+  private static class StreamingFileManager
+      extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    private final StreamingSourcepath sourcepath;
+
+    StreamingFileManager(StandardJavaFileManager fileManager, StreamingSourcepath sourcepath) {
+      super(fileManager);
+      this.sourcepath = sourcepath;
+    }
+
+    @Override
+    public Iterable<JavaFileObject> list(Location location, String packageName,
+        Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
+      Iterable<JavaFileObject> files = super.list(location, packageName, kinds, recurse);
+      if (location != StandardLocation.SOURCE_PATH) {
+        return files;
+      }
+      return Iterables.filter(files, file ->
+          file.getKind() != JavaFileObject.Kind.SOURCE
+          || sourcepath.isVisible(file, inferBinaryName(location, file)));
+    }
+  }
+
+  // Counts the compilation units a javac task parses, whether they are input
+  // files or sourcepath files loaded to resolve references.
+  private static class ParsedUnitCounter implements TaskListener {
+    private int count = 0;
+
+    @Override
+    public void finished(TaskEvent e) {
+      if (e.getKind() == TaskEvent.Kind.PARSE) {
+        count++;
+      }
+    }
+  }
+
+  // Parses files in one javac task. The sourcepath is null unless the files
+  // are one of several chunks of a batch.
+  private void parseFileChunk(
+      Collection<String> paths, Handler handler, StreamingSourcepath sourcepath) {
     List<File> files = new ArrayList<>();
+    List<JavaFileObject> fileObjects = new ArrayList<>();
     for (String path : paths) {
-      files.add(new File(path));
+      JarredInputFile jarEntry = JarredInputFile.fromOriginalLocation(path);
+      if (jarEntry == null) {
+        files.add(new File(path));
+        continue;
+      }
+      try {
+        fileObjects.add(readJarEntry(jarEntry));
+      } catch (IOException e) {
+        ErrorUtil.error(e.getMessage());
+      }
     }
     try {
-      JavacEnvironment env = createEnvironment(files, null, false);
+      JavacEnvironment env = createEnvironment(files, fileObjects, false, sourcepath);
+      ParsedUnitCounter unitCounter = new ParsedUnitCounter();
+      env.task().addTaskListener(unitCounter);
       List<CompilationUnitTree> units = new ArrayList<>();
       for (CompilationUnitTree unit : env.task().parse()) {
         units.add(unit);
       }
       env.task().analyze();
+      peakResidentUnits = Math.max(peakResidentUnits, unitCounter.count);
+      options.statistics().increment(PARSE_BATCHES);
       processDiagnostics(env.diagnostics());
 
       if (ErrorUtil.errorCount() == 0) {
@@ -217,6 +497,14 @@ public class JavacParser extends Parser {
     } catch (IOException e) {
       ErrorUtil.fatalError(e, "javac file manager error");
     }
+    if (!handler.retainsUnits()) {
+      // Release the chunk's javac task before the next chunk is parsed.
+      try {
+        closeFileManagers();
+      } catch (IOException e) {
+        logger.fine("Failed closing file manager: " + e);
+      }
+    }
   }
 
   /**
@@ -249,6 +537,17 @@ public class JavacParser extends Parser {
     return "";
   }
 
+  /**
+   * Reads a source file in a jar into memory, so it is parsed without being
+   * extracted. The file object is named by the source's jar URL, which becomes
+   * the parsed unit's source file path.
+   */
+  private JavaFileObject readJarEntry(JarredInputFile file) throws IOException {
+    String source = options.fileUtil().readFile(file);
+    return filterJavaFileObject(
+        MemoryFileObject.createJavaFile(file.getOriginalLocation(), source));
+  }
+
   // Creates a javac environment from a memory source.
   private JavacEnvironment createEnvironment(String path, String source) throws IOException {
     List<JavaFileObject> inputFiles = new ArrayList<>();
@@ -257,11 +556,18 @@ public class JavacParser extends Parser {
   }
 
   // Creates a javac environment from a collection of files and/or file objects.
-  private JavacEnvironment createEnvironment(List<File> files, List<JavaFileObject> fileObjects,
+  @VisibleForTesting
+  JavacEnvironment createEnvironment(List<File> files, List<JavaFileObject> fileObjects,
       boolean processAnnotations) throws IOException {
+    return createEnvironment(files, fileObjects, processAnnotations, null);
+  }
+
+  private JavacEnvironment createEnvironment(List<File> files, List<JavaFileObject> fileObjects,
+      boolean processAnnotations, StreamingSourcepath sourcepath) throws IOException {
     JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
     DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
-    StandardJavaFileManager fileManager = getFileManager(compiler, diagnostics);
+    StandardJavaFileManager fileManager = getFileManager(
+        compiler, diagnostics, sourcepath != null ? sourcepath.entries : sourcepathEntries);
     List<String> javacOptions = getJavacOptions(processAnnotations);
     if (fileObjects == null) {
       fileObjects = new ArrayList<>();
@@ -269,7 +575,9 @@ public class JavacParser extends Parser {
     for (JavaFileObject jfo : fileManager.getJavaFileObjectsFromFiles(files)) {
       fileObjects.add(filterJavaFileObject(jfo));
     }
-    JavacTask task = (JavacTask) compiler.getTask(null, fileManager, diagnostics,
+    JavaFileManager taskFileManager =
+        sourcepath != null ? new StreamingFileManager(fileManager, sourcepath) : fileManager;
+    JavacTask task = (JavacTask) compiler.getTask(null, taskFileManager, diagnostics,
         javacOptions, null, fileObjects);
     return new JavacEnvironment(task, fileManager, diagnostics);
   }
@@ -284,12 +592,18 @@ public class JavacParser extends Parser {
   public Parser.ParseResult parseWithoutBindings(InputFile file, String source) {
     String path = file.getUnitName();
     try {
-      JavacEnvironment parserEnv = createEnvironment(path, source);
-      JavacTask task = parserEnv.task();
+      // Only the syntax tree is needed, so the task uses its own file manager
+      // without search paths, instead of this parser's. This allows several
+      // threads to parse sources at the same time.
+      JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+      DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+      List<JavaFileObject> inputFiles = Collections.singletonList(
+          filterJavaFileObject(MemoryFileObject.createJavaFile(path, source)));
+      JavacTask task = (JavacTask) compiler.getTask(
+          null, null, diagnostics, getJavacOptions(false), null, inputFiles);
       CompilationUnitTree unit = task.parse().iterator().next();
-      processDiagnostics(parserEnv.diagnostics());
-      return new JavacParseResult(
-          file, source, unit, parserEnv.treeUtilities().getSourcePositions());
+      processDiagnostics(diagnostics);
+      return new JavacParseResult(file, source, unit, Trees.instance(task).getSourcePositions());
     } catch (IOException e) {
       ErrorUtil.fatalError(e, path);
     }
@@ -306,11 +620,17 @@ public class JavacParser extends Parser {
     Iterator<Processor> serviceIterator = ServiceLoader.load(Processor.class, loader).iterator();
     if (serviceIterator.hasNext() || options.getProcessors() != null) {
       List<File> inputFiles = new ArrayList<>();
-      for (ProcessingContext input : inputs) {
-        inputFiles.add(new File(input.getFile().getAbsolutePath()));
-      }
+      List<JavaFileObject> inputFileObjects = new ArrayList<>();
       try {
-        JavacEnvironment env = createEnvironment(inputFiles, null, true);
+        for (ProcessingContext input : inputs) {
+          InputFile file = input.getFile();
+          if (file instanceof JarredInputFile) {
+            inputFileObjects.add(readJarEntry((JarredInputFile) file));
+          } else {
+            inputFiles.add(new File(file.getAbsolutePath()));
+          }
+        }
+        JavacEnvironment env = createEnvironment(inputFiles, inputFileObjects, true);
         env.task().parse();
         env.task().analyze();
         processDiagnostics(env.diagnostics());
@@ -329,13 +649,23 @@ public class JavacParser extends Parser {
 
   @Override
   public void close() throws IOException {
-    if (fileManager != null) {
+    closeFileManagers();
+  }
+
+  private void closeFileManagers() throws IOException {
+    List<StandardJavaFileManager> fileManagers = new ArrayList<>(openFileManagers);
+    openFileManagers.clear();
+    IOException failure = null;
+    for (StandardJavaFileManager fileManager : fileManagers) {
       try {
         fileManager.close();
-      } finally {
-        fileManager = null;
+      } catch (IOException e) {
+        failure = e;
       }
     }
+    if (failure != null) {
+      throw failure;
+    }
   }
 
   private void collectGeneratedInputs(
@@ -92,7 +92,9 @@ class MemoryFileObject implements JavaFileObject {
   public boolean isNameCompatible(String simpleName, Kind kind) {
     String baseName = simpleName + kind.extension;
     return kind.equals(getKind())
-        && (baseName.equals(path) || path.endsWith("/" + baseName));
+        && (baseName.equals(path) || path.endsWith("/" + baseName)
+            // A jar URL of a file at the root of its jar.
+            || path.endsWith("!" + baseName));
   }
 
   @Override
@@ -209,6 +209,7 @@ import com.sun.tools.javac.tree.JCTree.JCVariableDecl;
 import com.sun.tools.javac.tree.JCTree.Tag;
 import com.sun.tools.javac.util.Position;
 import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -1750,13 +1751,15 @@ public class TreeConverter {
   }
 
   private static String getPath(JavaFileObject file) {
-    String uri = file.toUri().toString();
-    if (uri.startsWith("mem:/")) {
+    URI uri = file.toUri();
+    if ("mem".equals(uri.getScheme())) {
       // MemoryFileObject needs a custom file system for URI to return the
-      // correct path, so the URI string is split instead.
-      return uri.substring(5);
+      // correct path, and its URI escapes characters such as spaces, so its
+      // name is used instead. javac may wrap the file object, so it is
+      // identified by its URI scheme.
+      return file.getName();
     }
-    return file.toUri().getPath();
+    return uri.getPath();
   }
 
   private String getTreeSource(Tree node) {
@@ -14,31 +14,66 @@
 
 package com.google.devtools.j2objc.pipeline;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.devtools.j2objc.Options;
 import com.google.devtools.j2objc.file.InputFile;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import java.io.File;
 import java.io.IOException;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
  * Looks up and queues dependencies for --build-closure.
+ *
+ * <p>Each name is looked up on a thread pool as soon as it is queued, so the
+ * lookups run while the parser converts the rest of the current batch. The
+ * queue itself is only used by the processing thread.
  */
-public class BuildClosureQueue {
+public final class BuildClosureQueue {
 
   private static final Logger logger = Logger.getLogger(BuildClosureQueue.class.getName());
   private final Options options;
 
   private final Set<String> processedNames = Sets.newHashSet();
 
-  private final Set<String> queuedNames = Sets.newLinkedHashSet();
+  // The lookup of each queued name, in the order the names were queued.
+  private final Map<String, Future<InputFile>> queuedNames = new LinkedHashMap<>();
+
+  // The names of the files in each header output directory, listed when first
+  // needed, so checking whether a header exists doesn't require a stat call.
+  private final Map<File, Set<String>> headerDirEntries = new ConcurrentHashMap<>();
+
+  private final ThreadPoolExecutor executor;
 
   public BuildClosureQueue(Options options) {
     this.options = options;
-    queuedNames.addAll(options.entryClasses());
+    // Lookups mostly wait for the file system, so more than one thread is
+    // used. Idle threads exit, so the pool doesn't need to be shut down.
+    int nThreads = Math.max(options.jobs(), 2);
+    executor = new ThreadPoolExecutor(nThreads, nThreads, 1, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), r -> {
+          Thread t = new Thread(r, "j2objc-build-closure");
+          t.setDaemon(true);
+          return t;
+        });
+    executor.allowCoreThreadTimeOut(true);
+    for (String name : options.entryClasses()) {
+      addName(name);
+    }
   }
 
   /**
@@ -46,11 +81,10 @@ public class BuildClosureQueue {
    * queue is empty.
    */
   public InputFile getNextFile() {
-    for (Iterator<String> iter = queuedNames.iterator(); iter.hasNext(); ) {
-      String name = iter.next();
-      iter.remove();
+    while (!queuedNames.isEmpty()) {
+      String name = queuedNames.keySet().iterator().next();
+      InputFile file = getLookupResult(queuedNames.remove(name));
       processedNames.add(name);
-      InputFile file = getFileForName(name);
       if (file != null) {
         return file;
       }
@@ -58,13 +92,25 @@ public class BuildClosureQueue {
     return null;
   }
 
+  /**
+   * Returns the Java source files of all queued names that need to be
+   * processed, in the order the names were queued, and empties the queue.
+   */
+  public List<InputFile> getNextFiles() {
+    List<InputFile> files = new ArrayList<>();
+    for (InputFile file = getNextFile(); file != null; file = getNextFile()) {
+      files.add(file);
+    }
+    return files;
+  }
+
   /**
    * Adds a name to the queue. The name must be the fully qualified type name
    * to search for (dot separated).
    */
   public void addName(String name) {
-    if (!processedNames.contains(name)) {
-      queuedNames.add(name);
+    if (!processedNames.contains(name) && !queuedNames.containsKey(name)) {
+      queuedNames.put(name, executor.submit(() -> getFileForName(name)));
     }
   }
 
@@ -74,7 +120,19 @@ public class BuildClosureQueue {
    */
   public void addProcessedName(String name) {
     processedNames.add(name);
-    queuedNames.remove(name);
+    Future<InputFile> lookup = queuedNames.remove(name);
+    if (lookup != null) {
+      lookup.cancel(false);
+    }
+  }
+
+  private static InputFile getLookupResult(Future<InputFile> lookup) {
+    try {
+      return Uninterruptibles.getUninterruptibly(lookup);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new AssertionError(e.getCause());
+    }
   }
 
   private InputFile getFileForName(String name) {
@@ -97,13 +155,21 @@ public class BuildClosureQueue {
     File headerSource = new File(
         options.fileUtil().getHeaderOutputDirectory(),
         name.replace('.', File.separatorChar) + ".h");
-    if (headerSource.exists() && inputFile.lastModified() < headerSource.lastModified()) {
+    if (headerExists(headerSource) && inputFile.lastModified() < headerSource.lastModified()) {
       return null;
     }
 
     return inputFile;
   }
 
+  private boolean headerExists(File header) {
+    Set<String> entries = headerDirEntries.computeIfAbsent(header.getParentFile(), dir -> {
+      String[] names = dir.list();
+      return names != null ? ImmutableSet.copyOf(names) : ImmutableSet.of();
+    });
+    return entries.contains(header.getName());
+  }
+
   private boolean findClassFile(String name) {
     InputFile f = null;
     try {
@@ -114,9 +180,9 @@ public class BuildClosureQueue {
     if (f != null) {
       return true;
     }
-    // See if it's a JRE class.
+    // See if it's a JRE class, without initializing it.
     try {
-      Class.forName(name);
+      Class.forName(name, false, BuildClosureQueue.class.getClassLoader());
       return true;
     } catch (ClassNotFoundException e) {
       // Fall-through.
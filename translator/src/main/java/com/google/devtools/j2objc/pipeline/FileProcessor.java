@@ -19,6 +19,7 @@ import com.google.common.collect.Lists;
 import com.google.devtools.j2objc.Options;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.file.InputFile;
+import com.google.devtools.j2objc.file.JarredInputFile;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.FileUtil;
 import com.google.devtools.j2objc.util.Parser;
@@ -26,6 +27,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -43,7 +45,8 @@ abstract class FileProcessor {
   private final Parser parser;
   protected final BuildClosureQueue closureQueue;
   protected final Options options;
-  private final Set<ProcessingContext> batchInputs = new HashSet<>();
+  // Ordered, so that batches split by --batch-translate-max follow the input order.
+  private final Set<ProcessingContext> batchInputs = new LinkedHashSet<>();
   private final Set<ProcessingContext> outputs = new HashSet<>();
 
   public FileProcessor(Parser parser) {
@@ -69,18 +72,29 @@ abstract class FileProcessor {
     processOutputs(outputs);
   }
 
+  /**
+   * Processes the out-of-date dependencies found by the build closure queue.
+   * All the dependencies found by a batch are parsed together in the next
+   * batch, which is split when it reaches --batch-translate-max files.
+   */
   private void processBuildClosureDependencies() {
     if (closureQueue != null) {
+      int maxBatchSize = options.batchTranslateMaximum();
       while (true) {
-        InputFile file = closureQueue.getNextFile();
-        if (file == null) {
+        List<InputFile> files = closureQueue.getNextFiles();
+        if (files.isEmpty()) {
           processBatch();
-          file = closureQueue.getNextFile();
+          files = closureQueue.getNextFiles();
         }
-        if (file == null) {
+        if (files.isEmpty()) {
           break;
         }
-        processInput(ProcessingContext.fromFile(file, options));
+        for (InputFile file : files) {
+          processInput(ProcessingContext.fromFile(file, options));
+          if (maxBatchSize > 0 && batchInputs.size() >= maxBatchSize) {
+            processBatch();
+          }
+        }
       }
     }
   }
@@ -89,6 +103,10 @@ abstract class FileProcessor {
     try {
       InputFile file = input.getFile();
 
+      if (restoreOutputs(input)) {
+        return;
+      }
+
       if (isBatchable(file)) {
         batchInputs.add(input);
         return;
@@ -108,8 +126,24 @@ abstract class FileProcessor {
     }
   }
 
+  /**
+   * Returns true if the outputs of an input were restored without needing to
+   * parse it, in which case the input is skipped.
+   */
+  protected boolean restoreOutputs(ProcessingContext input) {
+    return false;
+  }
+
+  /**
+   * Returns true if units handed to processConvertedTree are still used, so
+   * the parser must keep their javac environments open.
+   */
+  protected boolean retainsUnits() {
+    return true;
+  }
+
   protected boolean isBatchable(InputFile file) {
-    return file.getAbsolutePath().endsWith(".java");
+    return file.getUnitName().endsWith(".java");
   }
 
   private void processBatch() {
@@ -120,7 +154,8 @@ abstract class FileProcessor {
     List<String> paths = Lists.newArrayListWithCapacity(batchInputs.size());
     final Map<String, ProcessingContext> inputMap = new CanonicalPathMap(batchInputs.size());
     for (ProcessingContext input : batchInputs) {
-      String path = input.getFile().getAbsolutePath();
+      // Sources in jars are passed to the parser by their jar URL.
+      String path = input.getFile().getOriginalLocation();
       paths.add(path);
       inputMap.put(path, input);
     }
@@ -132,6 +167,11 @@ abstract class FileProcessor {
         processCompiledSource(input, unit);
         batchInputs.remove(input);
       }
+
+      @Override
+      public boolean retainsUnits() {
+        return FileProcessor.this.retainsUnits();
+      }
     };
     logger.finest("Processing batch of size " + batchInputs.size());
     parser.parseFiles(paths, handler, options.getSourceVersion());
@@ -189,6 +229,9 @@ abstract class FileProcessor {
     }
 
     private String canonicalizePath(String path) {
+      if (JarredInputFile.fromOriginalLocation(path) != null) {
+        return path;
+      }
       try {
         return new File(path).getCanonicalPath();
       } catch (IOException e) {
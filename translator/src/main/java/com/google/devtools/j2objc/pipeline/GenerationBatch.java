@@ -18,6 +18,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.devtools.j2objc.Options;
 import com.google.devtools.j2objc.file.InputFile;
+import com.google.devtools.j2objc.file.JarredInputFile;
 import com.google.devtools.j2objc.file.RegularInputFile;
 import com.google.devtools.j2objc.gen.GenerationUnit;
 import com.google.devtools.j2objc.util.ErrorUtil;
@@ -141,19 +142,29 @@ public class GenerationBatch {
       try {
         boolean containsJavaFile = false;
         Enumeration<? extends ZipEntry> enumerator = zfile.entries();
-        File tempDir = FileUtil.createTempDir(J2OBJC_TEMP_DIR_PREFIX);
-        String tempDirPath = tempDir.getAbsolutePath();
-        options.fileUtil().addTempDir(tempDirPath);
-        options.fileUtil().appendSourcePath(tempDirPath);
+        // Sources are read from the jar, which is added to the sourcepath so
+        // that they can refer to each other.
+        options.fileUtil().appendSourcePath(f.getPath());
+        File tempDir = null;
 
         while (enumerator.hasMoreElements()) {
           ZipEntry entry = enumerator.nextElement();
           String internalPath = entry.getName();
           if (internalPath.endsWith(".java")
               || (options.translateClassfiles() && internalPath.endsWith(".class"))) {
-            // Extract JAR file to a temporary directory
-            File outputFile = options.fileUtil().extractZipEntry(tempDir, zfile, entry);
-            InputFile newFile = new RegularInputFile(outputFile.getAbsolutePath(), internalPath);
+            InputFile newFile;
+            if (internalPath.endsWith(".java")) {
+              newFile = new JarredInputFile(f.getPath(), internalPath);
+            } else {
+              // Class files are converted from a class path root, so they are
+              // extracted to a temporary directory.
+              if (tempDir == null) {
+                tempDir = FileUtil.createTempDir(J2OBJC_TEMP_DIR_PREFIX);
+                options.fileUtil().addTempDir(tempDir.getAbsolutePath());
+              }
+              File outputFile = options.fileUtil().extractZipEntry(tempDir, zfile, entry);
+              newFile = new RegularInputFile(outputFile.getAbsolutePath(), internalPath);
+            }
             if (combinedUnit != null) {
               inputs.add(new ProcessingContext(newFile, combinedUnit));
             } else {
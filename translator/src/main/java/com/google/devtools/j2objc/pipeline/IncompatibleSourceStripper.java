@@ -0,0 +1,260 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import com.google.common.base.Throwables;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.file.InputFile;
+import com.google.devtools.j2objc.file.RegularInputFile;
+import com.google.devtools.j2objc.util.ErrorUtil;
+import com.google.devtools.j2objc.util.Parser;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Strips the code annotated with J2ObjCIncompatible from source files before
+ * they are compiled. This is shared by the translator, cycle_finder and
+ * tree_shaker.
+ *
+ * <p>A scan of each source's tokens selects the files that use the annotation,
+ * so only they are parsed. When more than one job is specified, the files are
+ * read, parsed and stripped in parallel. Each stripped source is written to a
+ * temporary directory, which should be prepended to the sourcepath so that
+ * javac finds it instead of the original.
+ */
+public class IncompatibleSourceStripper {
+
+  private static final Logger logger =
+      Logger.getLogger(IncompatibleSourceStripper.class.getName());
+
+  private static final String ANNOTATION_NAME = "J2ObjCIncompatible";
+
+  private final Parser parser;
+  private final Options options;
+  private File strippedSourcesDir = null;
+
+  /**
+   * A parsed source file, which is a stripped copy if the original used
+   * J2ObjCIncompatible.
+   */
+  public static class ParsedSource {
+
+    private final InputFile file;
+    private final String mainTypeName;
+    private final boolean stripped;
+
+    private ParsedSource(InputFile file, String mainTypeName, boolean stripped) {
+      this.file = file;
+      this.mainTypeName = mainTypeName;
+      this.stripped = stripped;
+    }
+
+    public InputFile getFile() {
+      return file;
+    }
+
+    public String getMainTypeName() {
+      return mainTypeName;
+    }
+
+    public boolean isStripped() {
+      return stripped;
+    }
+  }
+
+  public IncompatibleSourceStripper(Parser parser) {
+    this.parser = parser;
+    this.options = parser.options();
+  }
+
+  /**
+   * Returns the directory of the stripped sources, or null if no source was
+   * stripped.
+   */
+  public synchronized File getStrippedSourcesDir() {
+    return strippedSourcesDir;
+  }
+
+  /**
+   * Parses and strips the files that use J2ObjCIncompatible. Other files are
+   * only parsed if parseAllFiles is true.
+   *
+   * @return the parsed source of each file, in the same order, or null for a
+   *     file that wasn't parsed or couldn't be read
+   */
+  public List<ParsedSource> stripFiles(List<? extends InputFile> files, boolean parseAllFiles) {
+    List<ParsedSource> results = new ArrayList<>();
+    int nThreads = Math.min(options.jobs(), files.size());
+    if (nThreads <= 1) {
+      for (InputFile file : files) {
+        results.add(stripFile(file, parseAllFiles));
+      }
+      return results;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+    try {
+      List<Future<ParsedSource>> futures = new ArrayList<>();
+      for (InputFile file : files) {
+        futures.add(executor.submit(() -> stripFile(file, parseAllFiles)));
+      }
+      for (Future<ParsedSource> future : futures) {
+        try {
+          results.add(Uninterruptibles.getUninterruptibly(future));
+        } catch (ExecutionException e) {
+          Throwables.throwIfUnchecked(e.getCause());
+          throw new AssertionError(e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return results;
+  }
+
+  /**
+   * Replaces the path of each source file that uses J2ObjCIncompatible with
+   * the path of its stripped copy.
+   */
+  public void stripSourcePaths(List<String> paths) {
+    List<InputFile> files = new ArrayList<>();
+    for (String path : paths) {
+      files.add(new RegularInputFile(path));
+    }
+    List<ParsedSource> results = stripFiles(files, false);
+    for (int i = 0; i < paths.size(); i++) {
+      ParsedSource result = results.get(i);
+      if (result != null && result.isStripped()) {
+        paths.set(i, result.getFile().getAbsolutePath());
+      }
+    }
+  }
+
+  private ParsedSource stripFile(InputFile file, boolean parseAllFiles) {
+    try {
+      String source = options.fileUtil().readFile(file);
+      boolean doIncompatibleStripping = mayUseIncompatibleAnnotation(source);
+      if (!(parseAllFiles || doIncompatibleStripping)) {
+        // No need to parse.
+        return null;
+      }
+      Parser.ParseResult parseResult = parser.parseWithoutBindings(file, source);
+      if (parseResult == null) {
+        // The parser found and reported one or more errors.
+        return null;
+      }
+      String qualifiedName = parseResult.mainTypeName();
+      if (!doIncompatibleStripping) {
+        return new ParsedSource(file, qualifiedName, false);
+      }
+      parseResult.stripIncompatibleSource();
+      String relativePath = qualifiedName.replace('.', File.separatorChar) + ".java";
+      File strippedFile = new File(getCreatedStrippedSourcesDir(), relativePath);
+      Files.createParentDirs(strippedFile);
+      Files.asCharSink(strippedFile, options.fileUtil().getCharset())
+          .write(parseResult.getSource());
+      return new ParsedSource(
+          new RegularInputFile(strippedFile.getPath(), relativePath), qualifiedName, true);
+    } catch (IOException e) {
+      ErrorUtil.error(e.getMessage());
+      return null;
+    }
+  }
+
+  private synchronized File getCreatedStrippedSourcesDir() {
+    if (strippedSourcesDir == null) {
+      strippedSourcesDir = Files.createTempDir();
+      logger.finest("Created temp dir for stripped sources: " + strippedSourcesDir.getPath());
+    }
+    return strippedSourcesDir;
+  }
+
+  /**
+   * Returns true if a source has a J2ObjCIncompatible identifier outside of
+   * comments and literals, so it may use the annotation. Sources that only
+   * mention it in documentation don't need to be parsed.
+   */
+  static boolean mayUseIncompatibleAnnotation(String source) {
+    if (!source.contains(ANNOTATION_NAME)) {
+      return false;
+    }
+    if (source.contains("\\u")) {
+      // Unicode escapes are translated before javac reads tokens, so they can
+      // hide or form any token.
+      return true;
+    }
+    int n = source.length();
+    int i = 0;
+    while (i < n) {
+      char c = source.charAt(i);
+      if (c == '/' && source.startsWith("//", i)) {
+        i = source.indexOf('\n', i);
+        if (i < 0) {
+          return false;
+        }
+      } else if (c == '/' && source.startsWith("/*", i)) {
+        i = source.indexOf("*/", i + 2);
+        if (i < 0) {
+          return false;
+        }
+        i += 2;
+      } else if (c == '"' && source.startsWith("\"\"\"", i)) {
+        i = skipLiteral(source, i + 3, "\"\"\"");
+      } else if (c == '"' || c == '\'') {
+        i = skipLiteral(source, i + 1, String.valueOf(c));
+      } else if (Character.isJavaIdentifierStart(c)) {
+        int start = i;
+        do {
+          i++;
+        } while (i < n && Character.isJavaIdentifierPart(source.charAt(i)));
+        if (i - start == ANNOTATION_NAME.length()
+            && source.startsWith(ANNOTATION_NAME, start)) {
+          return true;
+        }
+      } else {
+        i++;
+      }
+    }
+    return false;
+  }
+
+  // Returns the index after the end of a string, character or text block
+  // literal, skipping escaped characters.
+  private static int skipLiteral(String source, int i, String terminator) {
+    int n = source.length();
+    while (i < n) {
+      char c = source.charAt(i);
+      if (c == '\\') {
+        i += 2;
+      } else if (source.startsWith(terminator, i)) {
+        return i + terminator.length();
+      } else if (c == '\n' && terminator.length() == 1) {
+        // An unterminated literal; javac reports the error.
+        return i;
+      } else {
+        i++;
+      }
+    }
+    return n;
+  }
+}
@@ -14,89 +14,57 @@
 
 package com.google.devtools.j2objc.pipeline;
 
-import com.google.common.io.Files;
 import com.google.devtools.j2objc.Options;
 import com.google.devtools.j2objc.file.InputFile;
-import com.google.devtools.j2objc.file.RegularInputFile;
-import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.Parser;
 import java.io.File;
-import java.io.IOException;
-import java.util.logging.Logger;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Preprocesses each Java file in the batch.
  */
 public class InputFilePreprocessor {
 
-  private static final Logger logger = Logger.getLogger(InputFilePreprocessor.class.getName());
-
-  private final Parser parser;
-  private File strippedSourcesDir;
+  private final IncompatibleSourceStripper stripper;
   private final Options options;
 
   public InputFilePreprocessor(Parser parser) {
-    this.parser = parser;
+    this.stripper = new IncompatibleSourceStripper(parser);
     this.options = parser.options();
   }
 
   public void processInputs(Iterable<ProcessingContext> inputs) {
+    List<ProcessingContext> sources = new ArrayList<>();
+    List<InputFile> files = new ArrayList<>();
     for (ProcessingContext input : inputs) {
-      if (input.getFile().getUnitName().endsWith(".java")) {
-        processInput(input);
+      String unitName = input.getFile().getUnitName();
+      if (unitName.endsWith(".java") && !unitName.endsWith("package-info.java")) {
+        sources.add(input);
+        files.add(input.getFile());
       }
     }
-  }
-
-  private void processInput(ProcessingContext input) {
-    try {
-      if (!input.getFile().getUnitName().endsWith("package-info.java")) {
-        processRegularSource(input);
+    // Mapping headers requires each source's main type name, so all are parsed.
+    boolean shouldMapHeaders = options.getHeaderMap().useSourceDirectories();
+    List<IncompatibleSourceStripper.ParsedSource> results =
+        stripper.stripFiles(files, shouldMapHeaders);
+    for (int i = 0; i < sources.size(); i++) {
+      IncompatibleSourceStripper.ParsedSource result = results.get(i);
+      if (result == null) {
+        continue;
+      }
+      ProcessingContext input = sources.get(i);
+      if (shouldMapHeaders) {
+        options.getHeaderMap().put(
+            result.getMainTypeName(), input.getGenerationUnit().getOutputPath() + ".h");
+      }
+      if (result.isStripped()) {
+        input.setFile(result.getFile());
       }
-    } catch (IOException e) {
-      ErrorUtil.error(e.getMessage());
     }
   }
 
   public File getStrippedSourcesDir() {
-    return strippedSourcesDir;
-  }
-
-  private File getCreatedStrippedSourcesDir() {
-    if (strippedSourcesDir == null) {
-      strippedSourcesDir = Files.createTempDir();
-      logger.finest("Created temp dir for stripped sources: " + strippedSourcesDir.getPath());
-    }
-    return strippedSourcesDir;
-  }
-
-  private void processRegularSource(ProcessingContext input) throws IOException {
-    InputFile file = input.getFile();
-    String source = options.fileUtil().readFile(file);
-    boolean shouldMapHeaders = options.getHeaderMap().useSourceDirectories();
-    boolean doIncompatibleStripping = source.contains("J2ObjCIncompatible");
-    if (!(shouldMapHeaders || doIncompatibleStripping)) {
-      // No need to parse.
-      return;
-    }
-    Parser.ParseResult parseResult = parser.parseWithoutBindings(file, source);
-    if (parseResult == null) {
-      // The parser found and reported one or more errors.
-      return;
-    }
-    String qualifiedName = parseResult.mainTypeName();
-    if (shouldMapHeaders) {
-      options.getHeaderMap().put(qualifiedName, input.getGenerationUnit().getOutputPath() + ".h");
-    }
-    if (doIncompatibleStripping) {
-      parseResult.stripIncompatibleSource();
-      File strippedDir = getCreatedStrippedSourcesDir();
-      String relativePath = qualifiedName.replace('.', File.separatorChar) + ".java";
-      File strippedFile = new File(strippedDir, relativePath);
-      Files.createParentDirs(strippedFile);
-      Files.asCharSink(strippedFile, options.fileUtil().getCharset())
-          .write(parseResult.getSource());
-      input.setFile(new RegularInputFile(strippedFile.getPath(), relativePath));
-    }
+    return stripper.getStrippedSourcesDir();
   }
 }
@@ -0,0 +1,145 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.ast.FusedTreeVisitor;
+import com.google.devtools.j2objc.ast.TreeVisitor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A named tree mutation, one of the steps of
+ * {@link TranslationProcessor#applyMutations}. The name is used for timing
+ * and profiling output.
+ *
+ * <p>A fusable pass is a single visitor traversal of the unit, which
+ * applyMutations may run in the same traversal as the fusable passes next to
+ * it (see {@link com.google.devtools.j2objc.ast.FusedTreeVisitor}). Only
+ * passes that don't depend on each other's changes may be fusable: a pass
+ * must not replace the nodes it visits before their children are visited,
+ * and must not need to see the changes the passes before it make after
+ * visiting a node's children, or the nodes the passes after it add.
+ */
+public class MutationPass {
+
+  private final String name;
+  private final Predicate<CompilationUnit> enabled;
+  private final Consumer<CompilationUnit> mutation;
+  private final Function<CompilationUnit, ? extends TreeVisitor> visitor;
+
+  private MutationPass(
+      String name,
+      Predicate<CompilationUnit> enabled,
+      Consumer<CompilationUnit> mutation,
+      Function<CompilationUnit, ? extends TreeVisitor> visitor) {
+    this.name = name;
+    this.enabled = enabled;
+    this.mutation = mutation;
+    this.visitor = visitor;
+  }
+
+  /**
+   * Returns a pass that is applied to every unit.
+   */
+  public static MutationPass of(String name, Consumer<CompilationUnit> mutation) {
+    return new MutationPass(name, unit -> true, mutation, null);
+  }
+
+  /**
+   * Returns a pass that is only applied to units for which enabled is true.
+   */
+  public static MutationPass when(
+      String name, Predicate<CompilationUnit> enabled, Consumer<CompilationUnit> mutation) {
+    return new MutationPass(name, enabled, mutation, null);
+  }
+
+  /**
+   * Returns a fusable pass that is applied to every unit by traversing it
+   * with the visitor that is created for it.
+   */
+  public static MutationPass fusable(
+      String name, Function<CompilationUnit, ? extends TreeVisitor> visitor) {
+    return new MutationPass(name, unit -> true, unit -> unit.accept(visitor.apply(unit)), visitor);
+  }
+
+  /**
+   * Returns the passes with each run of adjacent fusable passes replaced by a
+   * single pass that applies them in one traversal. A fused pass is named
+   * after its members, joined by "+".
+   */
+  public static List<MutationPass> fuseAdjacent(List<MutationPass> passes) {
+    List<MutationPass> result = new ArrayList<>();
+    int start = 0;
+    while (start < passes.size()) {
+      int end = start + 1;
+      if (passes.get(start).isFusable()) {
+        while (end < passes.size() && passes.get(end).isFusable()) {
+          end++;
+        }
+      }
+      result.add(end - start == 1 ? passes.get(start) : fuse(passes.subList(start, end)));
+      start = end;
+    }
+    return result;
+  }
+
+  private static MutationPass fuse(List<MutationPass> group) {
+    List<MutationPass> members = new ArrayList<>(group);
+    StringBuilder name = new StringBuilder();
+    for (MutationPass pass : members) {
+      name.append(name.length() > 0 ? "+" : "").append(pass.getName());
+    }
+    return fusable(name.toString(), unit -> {
+      List<TreeVisitor> visitors = new ArrayList<>();
+      for (MutationPass pass : members) {
+        visitors.add(pass.createVisitor(unit));
+      }
+      return new FusedTreeVisitor(visitors);
+    });
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public boolean isEnabled(CompilationUnit unit) {
+    return enabled.test(unit);
+  }
+
+  public boolean isFusable() {
+    return visitor != null;
+  }
+
+  /**
+   * Returns a new visitor that applies this fusable pass to a unit.
+   */
+  public TreeVisitor createVisitor(CompilationUnit unit) {
+    assert visitor != null : name + " is not fusable";
+    return visitor.apply(unit);
+  }
+
+  public void apply(CompilationUnit unit) {
+    mutation.accept(unit);
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
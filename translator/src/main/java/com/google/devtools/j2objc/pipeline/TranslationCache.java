@@ -0,0 +1,318 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.devtools.j2objc.J2ObjC;
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.ast.AbstractTypeDeclaration;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.file.InputFile;
+import com.google.devtools.j2objc.gen.GenerationUnit;
+import com.google.devtools.j2objc.types.HeaderImportCollector;
+import com.google.devtools.j2objc.types.ImplementationImportCollector;
+import com.google.devtools.j2objc.types.Import;
+import com.google.devtools.j2objc.util.ElementUtil;
+import com.google.devtools.j2objc.util.FingerprintCache;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * An on-disk cache of translated outputs. Entries are keyed by a source file's
+ * contents and the translator's flags, and record a fingerprint of each type
+ * the translated unit referenced. An entry is only reused if none of those
+ * types changed on the sourcepath or classpath, in which case the unit's
+ * generated files are restored without parsing or translating the source.
+ *
+ * <p>A unit is only cached if every source type it declares or references can
+ * be found on the sourcepath, as {@link FingerprintCache} requires. This also
+ * keeps a restored unit from hiding a type it declares in a file named for
+ * another type from the inputs that are still parsed.
+ */
+class TranslationCache {
+
+  private static final Logger logger = Logger.getLogger(TranslationCache.class.getName());
+
+  // Increment when the entry format changes, or when entries recorded by
+  // earlier versions may be invalid.
+  private static final int FORMAT_VERSION = 2;
+  private static final String ENTRY_SUFFIX = ".entry";
+
+  private final Options options;
+  private final FingerprintCache entries;
+  private final String flagsHash;
+
+  // Cache keys of the inputs that missed, so their outputs can be stored once generated.
+  private final Map<ProcessingContext, String> missedKeys = new HashMap<>();
+  private final Map<ProcessingContext, Map<String, String>> missedDependencies = new HashMap<>();
+
+  private int hits = 0;
+  private int misses = 0;
+
+  TranslationCache(Options options) {
+    this.options = options;
+    this.entries = new FingerprintCache(
+        options.fileUtil(), options.translationCacheDir(), ENTRY_SUFFIX, FORMAT_VERSION);
+    this.flagsHash = hashFlags(options);
+  }
+
+  /**
+   * Returns true if the cache can be used for an input. Only inputs that are
+   * translated into their own GenerationUnit are cached.
+   */
+  static boolean isCacheable(Options options) {
+    return options.translationCacheDir() != null
+        && !options.buildClosure()
+        && options.globalCombinedOutput() == null
+        && !options.getHeaderMap().combineSourceJars()
+        && !options.getHeaderMap().includeGeneratedSources()
+        && !options.dumpAST();
+  }
+
+  int hitCount() {
+    return hits;
+  }
+
+  int missCount() {
+    return misses;
+  }
+
+  /**
+   * Restores the outputs of an input from the cache. Returns the header
+   * includes of the restored unit, or null if the cache has no valid entry.
+   */
+  Map<String, Set<String>> restore(ProcessingContext input) {
+    String key = getKey(input.getFile(), input.getOriginalSourcePath());
+    if (key != null) {
+      Map<String, Set<String>> includes = entries.read(key, this::readEntry);
+      if (includes != null) {
+        hits++;
+        return includes;
+      }
+      missedKeys.put(input, key);
+    }
+    misses++;
+    return null;
+  }
+
+  /**
+   * Records the types referenced by a translated unit that missed the cache.
+   * Must be called after the unit's tree mutations.
+   */
+  void recordDependencies(ProcessingContext input, CompilationUnit unit) {
+    if (!missedKeys.containsKey(input)) {
+      return;
+    }
+    Map<String, Element> elements = new LinkedHashMap<>();
+    HeaderImportCollector hdrCollector =
+        new HeaderImportCollector(unit, HeaderImportCollector.Filter.INCLUDE_ALL);
+    hdrCollector.run();
+    ImplementationImportCollector implCollector = new ImplementationImportCollector(unit);
+    implCollector.run();
+    Set<Import> imports = hdrCollector.getForwardDeclarations();
+    imports.addAll(hdrCollector.getSuperTypes());
+    imports.addAll(implCollector.getImports());
+    ElementUtil elementUtil = unit.getEnv().elementUtil();
+    for (Import imp : imports) {
+      String qualifiedName = imp.getJavaQualifiedName();
+      if (qualifiedName != null) {
+        TypeElement type = elementUtil.getTypeElement(qualifiedName);
+        if (type != null) {
+          FingerprintCache.addTypeHierarchy(type, elements);
+        }
+      }
+    }
+    for (AbstractTypeDeclaration type : unit.getTypes()) {
+      FingerprintCache.addTypeHierarchy(type.getTypeElement(), elements);
+    }
+    Map<String, String> dependencies = entries.fingerprint(elements);
+    if (dependencies == null) {
+      logger.fine("Not caching " + input.getOriginalSourcePath());
+      missedKeys.remove(input);
+      return;
+    }
+    missedDependencies.put(input, dependencies);
+  }
+
+  /**
+   * Stores the generated outputs of an input that missed the cache.
+   */
+  void store(ProcessingContext input, Map<String, Set<String>> headerIncludes) {
+    String key = missedKeys.remove(input);
+    Map<String, String> dependencies = missedDependencies.remove(input);
+    if (key == null || dependencies == null) {
+      return;
+    }
+    entries.write(
+        key, dependencies, out -> writeEntry(out, input.getGenerationUnit(), headerIncludes));
+  }
+
+  void printStatistics(PrintStream out) {
+    out.println(String.format("Translation cache: %d hits, %d misses", hits, misses));
+  }
+
+  private String getKey(InputFile file, String originalSourcePath) {
+    try (InputStream in = file.getInputStream()) {
+      return Hashing.sha256().newHasher()
+          .putString(flagsHash, UTF_8)
+          .putString(file.getUnitName(), UTF_8)
+          .putString(originalSourcePath, UTF_8)
+          .putBytes(ByteStreams.toByteArray(in))
+          .hash().toString();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  // Hashes everything besides the sources that affects the translation: the
+  // translator itself, its flags and the boot classpath.
+  private static String hashFlags(Options options) {
+    Hasher hasher = Hashing.sha256().newHasher().putInt(FORMAT_VERSION);
+    FingerprintCache.addFileStamp(
+        hasher, J2ObjC.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+    for (String flag : options.flagArgs()) {
+      hasher.putString(flag, UTF_8).putByte((byte) 0);
+    }
+    for (String path : options.getBootClasspath()) {
+      FingerprintCache.addFileStamp(hasher, path);
+    }
+    // Any change to the program's class hierarchy may change which calls are devirtualized.
+    addFileContents(hasher, options.classHierarchyFile());
+    // Any change to the reflection roots may change which metadata is generated.
+    addFileContents(hasher, options.reflectionRootsFile());
+    // The flags only name the mapping and prefix files, which may change.
+    for (String path : options.getMappings().getMappingsFiles()) {
+      addFileContents(hasher, path);
+    }
+    for (String path : options.getPackagePrefixes().getPrefixesFiles()) {
+      addFileContents(hasher, path);
+    }
+    List<String> headerMappingFiles = options.getHeaderMap().getMappingFiles();
+    if (headerMappingFiles != null) {
+      for (String path : headerMappingFiles) {
+        addFileContents(hasher, path);
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  // Mapping files that aren't found are loaded as resources of the translator,
+  // which is already hashed.
+  private static void addFileContents(Hasher hasher, String path) {
+    hasher.putString(path, UTF_8);
+    File file = new File(path);
+    if (file.exists()) {
+      addFileContents(hasher, file);
+    }
+  }
+
+  private static void addFileContents(Hasher hasher, File file) {
+    if (file != null) {
+      try {
+        hasher.putBytes(Files.readAllBytes(file.toPath()));
+      } catch (IOException e) {
+        FingerprintCache.addFileStamp(hasher, file.getPath());
+      }
+    }
+  }
+
+  private void writeEntry(DataOutputStream out, GenerationUnit unit,
+      Map<String, Set<String>> headerIncludes) throws IOException {
+    out.writeInt(headerIncludes.size());
+    for (Map.Entry<String, Set<String>> entry : headerIncludes.entrySet()) {
+      out.writeUTF(entry.getKey());
+      out.writeInt(entry.getValue().size());
+      for (String include : entry.getValue()) {
+        out.writeUTF(include);
+      }
+    }
+    List<File> outputFiles = unit.getOutputFiles();
+    out.writeInt(outputFiles.size());
+    for (File file : outputFiles) {
+      boolean isHeader = isUnder(file, options.fileUtil().getHeaderOutputDirectory());
+      File root = isHeader
+          ? options.fileUtil().getHeaderOutputDirectory()
+          : options.fileUtil().getOutputDirectory();
+      if (!isUnder(file, root)) {
+        throw new IOException("Output file outside of output directories: " + file);
+      }
+      byte[] content = options.outputWriter().read(file);
+      out.writeBoolean(isHeader);
+      out.writeUTF(absolutePath(root).relativize(absolutePath(file)).toString());
+      out.writeInt(content.length);
+      out.write(content);
+    }
+  }
+
+  // Returns the entry's header includes after restoring its outputs.
+  private Map<String, Set<String>> readEntry(DataInputStream in) throws IOException {
+    Map<String, Set<String>> headerIncludes = new LinkedHashMap<>();
+    int nIncludes = in.readInt();
+    for (int i = 0; i < nIncludes; i++) {
+      String header = in.readUTF();
+      int n = in.readInt();
+      Set<String> includes = new LinkedHashSet<>();
+      for (int j = 0; j < n; j++) {
+        includes.add(in.readUTF());
+      }
+      headerIncludes.put(header, includes);
+    }
+    // Read all outputs before writing any, so a truncated entry writes nothing.
+    List<File> files = new ArrayList<>();
+    List<byte[]> contents = new ArrayList<>();
+    int nFiles = in.readInt();
+    for (int i = 0; i < nFiles; i++) {
+      File root = in.readBoolean()
+          ? options.fileUtil().getHeaderOutputDirectory()
+          : options.fileUtil().getOutputDirectory();
+      files.add(new File(root, in.readUTF()));
+      byte[] content = new byte[in.readInt()];
+      in.readFully(content);
+      contents.add(content);
+    }
+    for (int i = 0; i < nFiles; i++) {
+      options.outputWriter().write(files.get(i), contents.get(i));
+    }
+    return headerIncludes;
+  }
+
+  private static boolean isUnder(File file, File dir) {
+    return absolutePath(file).startsWith(absolutePath(dir));
+  }
+
+  private static Path absolutePath(File file) {
+    return file.toPath().toAbsolutePath().normalize();
+  }
+}
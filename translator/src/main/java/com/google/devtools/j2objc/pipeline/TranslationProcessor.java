@@ -16,6 +16,7 @@ package com.google.devtools.j2objc.pipeline;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
+import com.google.devtools.j2objc.Options.TimingLevel;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.ast.DebugASTDump;
 import com.google.devtools.j2objc.gen.GenerationUnit;
@@ -25,6 +26,7 @@ import com.google.devtools.j2objc.gen.ObjectiveCMultiHeaderGenerator;
 import com.google.devtools.j2objc.gen.ObjectiveCSegmentedHeaderGenerator;
 import com.google.devtools.j2objc.translate.AbstractMethodRewriter;
 import com.google.devtools.j2objc.translate.AnnotationRewriter;
+import com.google.devtools.j2objc.translate.ArrayBoundsCheckEliminator;
 import com.google.devtools.j2objc.translate.ArrayRewriter;
 import com.google.devtools.j2objc.translate.Autoboxer;
 import com.google.devtools.j2objc.translate.CastResolver;
@@ -48,6 +50,7 @@ import com.google.devtools.j2objc.translate.LabelRewriter;
 import com.google.devtools.j2objc.translate.LambdaRewriter;
 import com.google.devtools.j2objc.translate.LambdaTypeElementAdder;
 import com.google.devtools.j2objc.translate.LogSiteInjector;
+import com.google.devtools.j2objc.translate.LoopStringConcatRewriter;
 import com.google.devtools.j2objc.translate.MetadataWriter;
 import com.google.devtools.j2objc.translate.NilCheckResolver;
 import com.google.devtools.j2objc.translate.NumberMethodRewriter;
@@ -82,6 +85,7 @@ import com.google.devtools.j2objc.util.TimeTracker;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -99,12 +103,39 @@ public class TranslationProcessor extends FileProcessor {
   private static final Logger logger = Logger.getLogger(TranslationProcessor.class.getName());
 
   private final CodeReferenceMap deadCodeMap;
-  private final List<GenerationUnit> outputs = new ArrayList<>();
+  private final TranslationCache translationCache;
   private int processedCount = 0;
 
+  // GenerationUnits already written by this processor. With --batch-translate-max,
+  // units are generated as soon as they are fully parsed, so they can be released.
+  private final Set<GenerationUnit> generatedUnits = new HashSet<>();
+  // GenerationUnits with converted units that aren't generated yet.
+  private final Set<GenerationUnit> pendingUnits = new HashSet<>();
+  private final Map<String, Set<String>> headerIncludesMap = new HashMap<>();
+
   public TranslationProcessor(Parser parser, CodeReferenceMap deadCodeMap) {
     super(parser);
     this.deadCodeMap = deadCodeMap;
+    this.translationCache =
+        TranslationCache.isCacheable(options) ? new TranslationCache(options) : null;
+  }
+
+  @VisibleForTesting
+  TranslationCache getTranslationCache() {
+    return translationCache;
+  }
+
+  @Override
+  protected boolean restoreOutputs(ProcessingContext input) {
+    if (translationCache == null) {
+      return false;
+    }
+    Map<String, Set<String>> includes = translationCache.restore(input);
+    if (includes == null) {
+      return false;
+    }
+    headerIncludesMap.putAll(includes);
+    return true;
   }
 
   @Override
@@ -113,269 +144,335 @@ public class TranslationProcessor extends FileProcessor {
     if (logger.isLoggable(Level.INFO)) {
       System.out.println("translating " + unitName);
     }
-    TimeTracker ticker = TimeTracker.getTicker(unitName, options.timingLevel());
     if (options.dumpAST()) {
       // Dump compilation unit to an .ast output file instead of translating.
       DebugASTDump.dumpUnit(unit);
     } else {
-      applyMutations(unit, deadCodeMap, options.externalAnnotations(), ticker);
-      ticker.tick("Tree mutations");
-      ticker.printResults(System.out);
+      mutateTree(unitName, unit);
+      if (translationCache != null) {
+        translationCache.recordDependencies(input, unit);
+      }
 
       GenerationUnit genUnit = input.getGenerationUnit();
       genUnit.addCompilationUnit(unit);
-      outputs.add(genUnit);
+      pendingUnits.add(genUnit);
 
       // Add out-of-date dependencies to translation list.
       if (closureQueue != null) {
         checkDependencies(unit);
+      } else if (options.batchTranslateMaximum() > 0 && genUnit.isFullyParsed()) {
+        // Write the output now, so the unit's generated types can be released.
+        generateAndCache(input, headerIncludesMap);
+        generatedUnits.add(genUnit);
+        pendingUnits.remove(genUnit);
       }
     }
     processedCount++;
   }
 
+  @Override
+  protected boolean retainsUnits() {
+    return !pendingUnits.isEmpty();
+  }
+
+  private void mutateTree(String unitName, CompilationUnit unit) {
+    TimeTracker ticker = TimeTracker.getTicker(unitName, options);
+    applyMutations(unit, deadCodeMap, options.externalAnnotations(), ticker);
+    ticker.tick("Tree mutations");
+    ticker.printResults(System.out);
+  }
+
   @Override
   protected void processOutputs(Iterable<ProcessingContext> outputs) {
-    HashMap<String, Set<String>> headerIncludesMap = new HashMap<>();
+    try {
+      generateOutputs(outputs);
+    } finally {
+      // Outputs restored from the translation cache are also written here.
+      options.outputWriter().flush();
+    }
+  }
+
+  private void generateOutputs(Iterable<ProcessingContext> outputs) {
     for (ProcessingContext output : outputs) {
-      generateObjectiveCSource(output.getGenerationUnit(), headerIncludesMap);
+      // Several inputs may share a GenerationUnit, which must only be generated once.
+      GenerationUnit genUnit = output.getGenerationUnit();
+      if (generatedUnits.add(genUnit)) {
+        generateAndCache(output, headerIncludesMap);
+      }
     }
     checkNoIncludeCycles(headerIncludesMap);
+    generatedUnits.clear();
+    pendingUnits.clear();
+    headerIncludesMap.clear();
   }
 
   /**
-   * Translates a parsed source file, modifying the compilation unit by substituting core Java type
-   * and method references with iOS equivalents. For example, <code>java.lang.Object</code> maps to
-   * <code>NSObject</code>, and <code>java.lang.String</code> to <code>NSString</code>. The source
-   * is also modified to add support for iOS memory management, extract inner classes, etc.
+   * Generates an input's GenerationUnit, and stores its outputs in the
+   * translation cache if one is enabled.
    */
-  public static void applyMutations(
-      CompilationUnit unit,
-      CodeReferenceMap deadCodeMap,
-      ExternalAnnotations externalAnnotations,
-      TimeTracker ticker) {
-    ticker.push();
+  private void generateAndCache(ProcessingContext input, Map<String, Set<String>> includesMap) {
+    if (translationCache == null) {
+      generateObjectiveCSource(input.getGenerationUnit(), includesMap);
+      return;
+    }
+    Map<String, Set<String>> unitIncludes = new LinkedHashMap<>();
+    generateObjectiveCSource(input.getGenerationUnit(), unitIncludes);
+    includesMap.putAll(unitIncludes);
+    storeInCache(input, unitIncludes);
+  }
+
+  private void storeInCache(ProcessingContext input, Map<String, Set<String>> unitIncludes) {
+    // Diagnostics aren't cached, so only clean translations are stored. Since
+    // the counts are global, this is conservative for multi-file runs.
+    if (translationCache != null
+        && ErrorUtil.errorCount() == 0 && ErrorUtil.warningCount() == 0) {
+      translationCache.store(input, unitIncludes);
+    }
+  }
+
+  /**
+   * Returns the tree mutations that translate a parsed source file, in the
+   * order they are applied. Together they substitute core Java type and method
+   * references with iOS equivalents. For example, <code>java.lang.Object</code>
+   * maps to <code>NSObject</code>, and <code>java.lang.String</code> to
+   * <code>NSString</code>. The source is also modified to add support for iOS
+   * memory management, extract inner classes, etc.
+   */
+  public static List<MutationPass> getMutationPasses(
+      CodeReferenceMap deadCodeMap, ExternalAnnotations externalAnnotations) {
+    List<MutationPass> passes = new ArrayList<>();
 
     // Before: OuterReferenceResolver - OuterReferenceResolver needs the bindings fixed.
-    new LambdaTypeElementAdder(unit).run();
-    ticker.tick("LambdaTypeElementAdder");
+    passes.add(MutationPass.of("LambdaTypeElementAdder",
+        unit -> new LambdaTypeElementAdder(unit).run()));
 
-    DeadCodeEliminator deadCodeEliminator = new DeadCodeEliminator(unit, deadCodeMap);
     if (deadCodeMap != null) {
-      deadCodeEliminator.run();
-      ticker.tick("DeadCodeEliminator");
+      passes.add(MutationPass.of("DeadCodeEliminator",
+          unit -> new DeadCodeEliminator(unit, deadCodeMap).run()));
     }
 
-    if (unit.getEnv().options().stripReflection()
-        && unit.getEnv().options().stripReflectionErrors()) {
-      new ReflectionCodeDetector(unit).run();
-      ticker.tick("ReflectionCodeDetector");
-    }
+    passes.add(MutationPass.when("ReflectionCodeDetector",
+        unit -> unit.getEnv().options().stripReflection()
+            && unit.getEnv().options().stripReflectionErrors(),
+        unit -> new ReflectionCodeDetector(unit).run()));
 
-    LogSiteInjector logSiteInjector = new LogSiteInjector(unit);
-    if (logSiteInjector.isEnabled()) {
-      logSiteInjector.run();
-      ticker.tick("CallSiteInjector");
-    }
+    passes.add(MutationPass.when("CallSiteInjector",
+        unit -> unit.getEnv().options().injectLogSites(),
+        unit -> {
+          LogSiteInjector logSiteInjector = new LogSiteInjector(unit);
+          // Only enabled if the unit can resolve a logging API.
+          if (logSiteInjector.isEnabled()) {
+            logSiteInjector.run();
+          }
+        }));
 
-    new ExternalAnnotationInjector(unit, externalAnnotations).run();
-    ticker.tick("ExternalAnnotationInjector");
+    passes.add(MutationPass.of("ExternalAnnotationInjector",
+        unit -> new ExternalAnnotationInjector(unit, externalAnnotations).run()));
 
-    new OuterReferenceResolver(unit).run();
-    ticker.tick("OuterReferenceResolver");
+    passes.add(MutationPass.of("OuterReferenceResolver",
+        unit -> new OuterReferenceResolver(unit).run()));
 
-    new RecordExpander(unit).run();
-    ticker.tick("RecordExpander");
+    passes.add(MutationPass.of("RecordExpander", unit -> new RecordExpander(unit).run()));
 
     // Update code that has GWT references.
-    new GwtConverter(unit).run();
-    ticker.tick("GwtConverter");
+    passes.add(MutationPass.of("GwtConverter", unit -> new GwtConverter(unit).run()));
 
     // Remove serialization related members if needed.
-    new SerializationStripper(unit).run();
-    ticker.tick("SerializationStripper");
+    passes.add(MutationPass.fusable("SerializationStripper", SerializationStripper::new));
 
     // Add default equals/hashCode methods to Number subclasses, if necessary.
-    new NumberMethodRewriter(unit).run();
-    ticker.tick("NumberMethodRewriter");
+    passes.add(MutationPass.fusable("NumberMethodRewriter", NumberMethodRewriter::new));
 
     // Before: Rewriter - Pruning unreachable statements must happen before
     //   rewriting labeled break statements.
     // Before: InnerClassExtractor - Removes unreachable local classes.
-    new ConstantBranchPruner(unit).run();
-    ticker.tick("ConstantBranchPruner");
+    passes.add(MutationPass.of("ConstantBranchPruner",
+        unit -> new ConstantBranchPruner(unit).run()));
 
     // Modify AST to be more compatible with Objective C
-    new Rewriter(unit).run();
-    ticker.tick("Rewriter");
+    passes.add(MutationPass.of("Rewriter", unit -> new Rewriter(unit).run()));
 
     // Add abstract method stubs.
-    new AbstractMethodRewriter(unit, deadCodeMap).run();
-    ticker.tick("AbstractMethodRewriter");
+    passes.add(MutationPass.of("AbstractMethodRewriter",
+        unit -> new AbstractMethodRewriter(unit, deadCodeMap).run()));
 
     // Before: Autoboxer - Must generate implementations so autoboxing can be applied to result.
     // Before: InstanceOfPatternRewriter - so that there is a block where to add the
     // temporary variable declarations.
-    new LambdaRewriter(unit).run();
-    ticker.tick("LambdaRewriter");
+    passes.add(MutationPass.of("LambdaRewriter", unit -> new LambdaRewriter(unit).run()));
 
     // Before: InstanceOfPatternRewriter - to handle instanceof patterns from the switch rewrite.
-    new SwitchConstructRewriter(unit).run();
-    ticker.tick("SwitchConstructRewriter");
+    passes.add(MutationPass.of("SwitchConstructRewriter",
+        unit -> new SwitchConstructRewriter(unit).run()));
 
     // Before: VariableRenamer - VariableRenamer renames variables in a scope-aware manner.
-    new InstanceOfPatternRewriter(unit).run();
-    ticker.tick("InstanceOfPatternRewriter");
+    passes.add(MutationPass.of("InstanceOfPatternRewriter",
+        unit -> new InstanceOfPatternRewriter(unit).run()));
 
     // Before: VariableRenamer - VariableRenamer renames variables in a scope-aware manner.
     // Rewrite enhanced for loops into correct C code.
-    new EnhancedForRewriter(unit).run();
-    ticker.tick("EnhancedForRewriter");
+    passes.add(MutationPass.of("EnhancedForRewriter", unit -> new EnhancedForRewriter(unit).run()));
 
-    new VariableDeclarationHoister(unit).run();
-    ticker.tick("VariableDeclarationHoister");
+    passes.add(MutationPass.of("VariableDeclarationHoister",
+        unit -> new VariableDeclarationHoister(unit).run()));
 
-    new ComputeVariableModifiers(unit).run();
-    ticker.tick("ComputeVariableModifiers");
+    passes.add(MutationPass.of("ComputeVariableModifiers",
+        unit -> new ComputeVariableModifiers(unit).run()));
 
-    new VariableRenamer(unit).run();
-    ticker.tick("VariableRenamer");
+    passes.add(MutationPass.of("VariableRenamer", unit -> new VariableRenamer(unit).run()));
 
     // Add auto-boxing conversions.
-    new Autoboxer(unit).run();
-    ticker.tick("Autoboxer");
+    passes.add(MutationPass.of("Autoboxer", unit -> new Autoboxer(unit).run()));
 
-    new InnerClassExtractor(unit).run();
-    ticker.tick("InnerClassExtractor");
+    passes.add(MutationPass.of("InnerClassExtractor", unit -> new InnerClassExtractor(unit).run()));
 
     // Generate method shims for classes implementing interfaces that have default methods
-    new DefaultMethodShimGenerator(unit, deadCodeMap).run();
-    ticker.tick("DefaultMethodShimGenerator");
+    passes.add(MutationPass.of("DefaultMethodShimGenerator",
+        unit -> new DefaultMethodShimGenerator(unit, deadCodeMap).run()));
 
     // Normalize init statements
-    new InitializationNormalizer(unit).run();
-    ticker.tick("InitializationNormalizer");
+    passes.add(MutationPass.of("InitializationNormalizer",
+        unit -> new InitializationNormalizer(unit).run()));
+
+    // Marks array accesses in counted loops that don't need bounds checks.
+    // Before: NilCheckResolver - Matches array lengths before they are nil checked.
+    // Before: ArrayRewriter - Omits the bounds checks of the marked accesses.
+    passes.add(MutationPass.of("ArrayBoundsCheckEliminator",
+        unit -> new ArrayBoundsCheckEliminator(unit).run()));
 
     // Adds nil_chk calls wherever an expression is dereferenced.
     // After: InnerClassExtractor - Cannot handle local classes.
     // After: InitializationNormalizer
     // Before: LabelRewriter - Control flow analysis requires original Java
     //   labels.
-    new NilCheckResolver(unit).run();
-    ticker.tick("NilCheckResolver");
+    passes.add(MutationPass.of("NilCheckResolver", unit -> new NilCheckResolver(unit).run()));
 
     // Rewrites expressions that would cause unsequenced compile errors.
-    if (unit.getEnv().options().extractUnsequencedModifications()) {
-      new UnsequencedExpressionRewriter(unit).run();
-      ticker.tick("UnsequencedExpressionRewriter");
-    }
+    passes.add(MutationPass.when("UnsequencedExpressionRewriter",
+        unit -> unit.getEnv().options().extractUnsequencedModifications(),
+        unit -> new UnsequencedExpressionRewriter(unit).run()));
 
     // Rewrites labeled break and continue statements.
-    unit.accept(new LabelRewriter());
-    ticker.tick("LabelRewriter");
+    passes.add(MutationPass.fusable("LabelRewriter", unit -> new LabelRewriter()));
 
     // Before: ArrayRewriter - Adds ArrayCreation nodes.
     // Before: Functionizer - Can't rewrite function arguments.
-    new VarargsRewriter(unit).run();
-    ticker.tick("VarargsRewriter");
+    passes.add(MutationPass.fusable("VarargsRewriter", VarargsRewriter::new));
 
-    new JavaCloneWriter(unit).run();
-    ticker.tick("JavaCloneWriter");
+    passes.add(MutationPass.fusable("JavaCloneWriter", JavaCloneWriter::new));
 
-    new OcniExtractor(unit, deadCodeMap).run();
-    ticker.tick("OcniExtractor");
+    passes.add(MutationPass.of("OcniExtractor",
+        unit -> new OcniExtractor(unit, deadCodeMap).run()));
 
     // Before: AnnotationRewriter - Needs AnnotationRewriter to add the
     //   annotation metadata to the generated package-info type.
-    PackageInfoRewriter.run(unit);
-    ticker.tick("PackageInfoRewriter");
+    passes.add(MutationPass.of("PackageInfoRewriter", PackageInfoRewriter::run));
 
     // Before: DestructorGenerator - Annotation types need a destructor to
     //   release the added fields.
-    new AnnotationRewriter(unit).run();
-    ticker.tick("AnnotationRewriter");
+    passes.add(MutationPass.of("AnnotationRewriter", unit -> new AnnotationRewriter(unit).run()));
 
     // Before: Functionizer - Edits constructor invocations before they are
     //   functionized.
-    new EnumRewriter(unit).run();
-    ticker.tick("EnumRewriter");
+    passes.add(MutationPass.of("EnumRewriter", unit -> new EnumRewriter(unit).run()));
 
     // Add dealloc/finalize method(s), if necessary.  This is done
     // after inner class extraction, so that each class releases
     // only its own instance variables.
-    new DestructorGenerator(unit).run();
-    ticker.tick("DestructorGenerator");
+    passes.add(MutationPass.of("DestructorGenerator", unit -> new DestructorGenerator(unit).run()));
 
     // Before: StaticVarRewriter - Generates static variable access expressions.
-    new MetadataWriter(unit, deadCodeMap).run();
-    ticker.tick("MetadataWriter");
+    passes.add(MutationPass.of("MetadataWriter",
+        unit -> new MetadataWriter(unit, deadCodeMap).run()));
 
     // Before: Functionizer - Needs to rewrite some ClassInstanceCreation nodes
     //   before Functionizer does.
     // Before: StaticVarRewriter, OperatorRewriter - Doesn't know how to handle
     //   the hasRetainedResult flag on ClassInstanceCreation nodes.
-    new JavaToIOSMethodTranslator(unit).run();
-    ticker.tick("JavaToIOSMethodTranslator");
+    passes.add(MutationPass.of("JavaToIOSMethodTranslator",
+        unit -> new JavaToIOSMethodTranslator(unit).run()));
+
+    // Before: Functionizer - Creates StringBuilder instances.
+    // Before: OperatorRewriter - Replaces string concatenations in loops.
+    passes.add(MutationPass.of("LoopStringConcatRewriter",
+        unit -> new LoopStringConcatRewriter(unit).run()));
 
     // After: OcniExtractor - So that native methods can be correctly
     //   functionized.
-    new Functionizer(unit).run();
-    ticker.tick("Functionizer");
+    passes.add(MutationPass.of("Functionizer", unit -> new Functionizer(unit).run()));
 
     // After: Functionizer - Edits the qualifier on SuperMethodInvocation nodes.
-    new SuperMethodInvocationRewriter(unit).run();
-    ticker.tick("SuperMethodInvocationRewriter");
+    passes.add(MutationPass.of("SuperMethodInvocationRewriter",
+        unit -> new SuperMethodInvocationRewriter(unit).run()));
 
     // Before OperatorRewriter - Needs to see the case expressions before they are rewritten.
-    new SwitchRewriter(unit).run();
-    ticker.tick("SwitchRewriter");
+    passes.add(MutationPass.of("SwitchRewriter", unit -> new SwitchRewriter(unit).run()));
 
-    new OperatorRewriter(unit).run();
-    ticker.tick("OperatorRewriter");
+    passes.add(MutationPass.of("OperatorRewriter", unit -> new OperatorRewriter(unit).run()));
 
     // After: OperatorRewriter - Static load rewriting needs to happen after
     //   operator rewriting.
-    new StaticVarRewriter(unit).run();
-    ticker.tick("StaticVarRewriter");
+    passes.add(MutationPass.of("StaticVarRewriter", unit -> new StaticVarRewriter(unit).run()));
 
     // After: StaticVarRewriter, OperatorRewriter - They set the
     //   hasRetainedResult on ArrayCreation nodes.
-    new ArrayRewriter(unit).run();
-    ticker.tick("ArrayRewriter");
+    passes.add(MutationPass.of("ArrayRewriter", unit -> new ArrayRewriter(unit).run()));
 
     // Breaks up deeply nested expressions such as chained method calls.
     // Should be one of the last translations because other mutations will
     // affect how deep the expressions are.
-    unit.accept(new ComplexExpressionExtractor());
-    ticker.tick("ComplexExpressionExtractor");
+    passes.add(MutationPass.of("ComplexExpressionExtractor",
+        unit -> unit.accept(new ComplexExpressionExtractor())));
 
     // Should be one of the last translations because methods and functions
     // added in other phases may need added casts.
-    new CastResolver(unit).run();
-    ticker.tick("CastResolver");
+    passes.add(MutationPass.of("CastResolver", unit -> new CastResolver(unit).run()));
 
     // After: InnerClassExtractor, Functionizer - Expects all types to be
     //   top-level and functionizing to have occurred.
-    new PrivateDeclarationResolver(unit).run();
-    ticker.tick("PrivateDeclarationResolver");
+    passes.add(MutationPass.of("PrivateDeclarationResolver",
+        unit -> new PrivateDeclarationResolver(unit).run()));
 
     // Add native protocols after all prior translation. Occurs before
     // adapter methods that may reference those protocols.
-    new ObjectiveCNativeProtocolAnnotation(unit).run();
-    ticker.tick("ObjectiveCNativeProtocolAnnotation");
+    passes.add(MutationPass.fusable("ObjectiveCNativeProtocolAnnotation",
+        ObjectiveCNativeProtocolAnnotation::new));
 
     // After all methods are resolved and functionized, add adapter methods to
     // use their native types as annotated. Done last as the generated methods
     // do not need other processing above.
-    new ObjectiveCAdapterMethodAnnotation(unit).run();
-    ticker.tick("ObjectiveCAdapterMethodAnnotation");
+    passes.add(MutationPass.fusable("ObjectiveCAdapterMethodAnnotation",
+        ObjectiveCAdapterMethodAnnotation::new));
 
-    new ObjectiveCKmpMethodTranslator(unit).run();
-    ticker.tick("ObjectiveCKmpMethodTranslator");
+    passes.add(MutationPass.of("ObjectiveCKmpMethodTranslator",
+        unit -> new ObjectiveCKmpMethodTranslator(unit).run()));
 
     if (deadCodeMap != null) {
-      deadCodeEliminator.removeDeadClasses();
-      ticker.tick("removeDeadClasses");
+      passes.add(MutationPass.of("removeDeadClasses",
+          unit -> new DeadCodeEliminator(unit, deadCodeMap).removeDeadClasses()));
+    }
+
+    return passes;
+  }
+
+  /**
+   * Translates a parsed source file by applying each of the
+   * {@link #getMutationPasses mutation passes}. Adjacent fusable passes are
+   * applied in a single traversal, and timed together.
+   */
+  public static void applyMutations(
+      CompilationUnit unit,
+      CodeReferenceMap deadCodeMap,
+      ExternalAnnotations externalAnnotations,
+      TimeTracker ticker) {
+    ticker.push();
+
+    for (MutationPass pass :
+        MutationPass.fuseAdjacent(getMutationPasses(deadCodeMap, externalAnnotations))) {
+      if (pass.isEnabled(unit)) {
+        pass.apply(unit);
+        ticker.tick(pass.getName());
+      }
     }
 
     // Make sure we still have a valid AST.
@@ -389,7 +486,7 @@ public class TranslationProcessor extends FileProcessor {
       GenerationUnit unit, Map<String, Set<String>> headerIncludesMap) {
     assert unit.getOutputPath() != null;
     assert unit.isFullyParsed();
-    TimeTracker ticker = TimeTracker.getTicker(unit.getSourceName(), unit.options().timingLevel());
+    TimeTracker ticker = TimeTracker.getTicker(unit.getSourceName(), unit.options());
     logger.fine("Generating " + unit.getOutputPath());
     logger.finest("writing source file(s) to "
         + unit.options().fileUtil().getOutputDirectory().getAbsolutePath());
@@ -432,6 +529,13 @@ public class TranslationProcessor extends FileProcessor {
           "Translated %d %s: %d errors, %d warnings",
           nFiles, nFiles == 1 ? "file" : "files", ErrorUtil.errorCount(),
           ErrorUtil.warningCount()));
+      if (translationCache != null) {
+        translationCache.printStatistics(System.out);
+      }
+    }
+    TimingLevel timingLevel = options.timingLevel();
+    if (timingLevel == TimingLevel.TOTAL || timingLevel == TimingLevel.ALL) {
+      options.statistics().printResults(System.out);
     }
   }
 
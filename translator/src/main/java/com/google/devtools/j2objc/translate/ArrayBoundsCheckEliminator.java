@@ -0,0 +1,292 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.translate;
+
+import com.google.devtools.j2objc.ast.ArrayAccess;
+import com.google.devtools.j2objc.ast.Assignment;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.ast.Expression;
+import com.google.devtools.j2objc.ast.FieldAccess;
+import com.google.devtools.j2objc.ast.ForStatement;
+import com.google.devtools.j2objc.ast.InfixExpression;
+import com.google.devtools.j2objc.ast.NumberLiteral;
+import com.google.devtools.j2objc.ast.PostfixExpression;
+import com.google.devtools.j2objc.ast.PrefixExpression;
+import com.google.devtools.j2objc.ast.QualifiedName;
+import com.google.devtools.j2objc.ast.SimpleName;
+import com.google.devtools.j2objc.ast.TreeNode;
+import com.google.devtools.j2objc.ast.TreeUtil;
+import com.google.devtools.j2objc.ast.TreeVisitor;
+import com.google.devtools.j2objc.ast.UnitTreeVisitor;
+import com.google.devtools.j2objc.ast.VariableDeclarationExpression;
+import com.google.devtools.j2objc.ast.VariableDeclarationFragment;
+import com.google.devtools.j2objc.util.ElementUtil;
+import com.google.devtools.j2objc.util.TranslationUtil;
+import com.google.devtools.j2objc.util.TypeUtil;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+
+/**
+ * Finds array accesses whose index is always in bounds, so that ArrayRewriter
+ * can omit their bounds checks. Only counted loops over local arrays are
+ * recognized, where neither the index nor the array is assigned in the loop:
+ *
+ * <pre>
+ *   for (int i = 0; i &lt; a.length; i++) { ... a[i] ... }
+ *   for (int i = a.length - 1; i &gt;= 0; i--) { ... a[i] ... }
+ * </pre>
+ *
+ * The initial index of an ascending loop may be any non-negative constant, and
+ * the loop condition may have other operands joined with &amp;&amp;.
+ */
+public class ArrayBoundsCheckEliminator extends UnitTreeVisitor {
+
+  public ArrayBoundsCheckEliminator(CompilationUnit unit) {
+    super(unit);
+  }
+
+  @Override
+  public boolean visit(ForStatement node) {
+    VariableDeclarationFragment indexDecl = getIndexDeclaration(node);
+    if (indexDecl == null) {
+      return true;
+    }
+    VariableElement index = indexDecl.getVariableElement();
+    Expression start = TreeUtil.trimParentheses(indexDecl.getInitializer());
+    int step = getStep(node.getUpdaters().get(0), index);
+    Set<VariableElement> arrays = new HashSet<>();
+    List<Expression> conditions = new ArrayList<>();
+    addConjuncts(node.getExpression(), conditions);
+    if (step > 0 && isNonNegativeConstant(start)) {
+      // The index is at least its start, and less than the lengths it's compared with.
+      for (Expression condition : conditions) {
+        VariableElement array = getUpperBoundArray(condition, index);
+        if (array != null) {
+          arrays.add(array);
+        }
+      }
+    } else if (step < 0 && hasLowerBoundOfZero(conditions, index)) {
+      // The index is at least zero, and at most its start.
+      VariableElement array = getLastIndexArray(start);
+      if (array != null) {
+        arrays.add(array);
+      }
+    }
+    if (arrays.isEmpty() || isAssigned(node.getExpression(), index, arrays)
+        || isAssigned(node.getBody(), index, arrays)) {
+      return true;
+    }
+    node.getBody().accept(new TreeVisitor() {
+      @Override
+      public void endVisit(ArrayAccess access) {
+        VariableElement array = getLocalVariable(access.getArray());
+        if (array != null && arrays.contains(array)
+            && getLocalVariable(access.getIndex()) == index) {
+          access.setIndexInBounds(true);
+        }
+      }
+    });
+    return true;
+  }
+
+  // Returns the declaration of a loop's int index, if the loop only updates
+  // the index.
+  private static VariableDeclarationFragment getIndexDeclaration(ForStatement node) {
+    if (node.getInitializers().size() != 1 || node.getUpdaters().size() != 1
+        || node.getExpression() == null) {
+      return null;
+    }
+    Expression init = node.getInitializer(0);
+    if (!(init instanceof VariableDeclarationExpression)) {
+      return null;
+    }
+    List<VariableDeclarationFragment> fragments =
+        ((VariableDeclarationExpression) init).getFragments();
+    if (fragments.size() != 1 || fragments.get(0).getInitializer() == null) {
+      return null;
+    }
+    VariableDeclarationFragment fragment = fragments.get(0);
+    return fragment.getVariableElement().asType().getKind() == TypeKind.INT ? fragment : null;
+  }
+
+  // Returns 1 if an updater increments the index by one, -1 if it decrements
+  // it by one, and 0 otherwise. Larger steps could overflow.
+  private static int getStep(Expression updater, VariableElement index) {
+    updater = TreeUtil.trimParentheses(updater);
+    if (updater instanceof PostfixExpression) {
+      PostfixExpression postfix = (PostfixExpression) updater;
+      if (getLocalVariable(postfix.getOperand()) == index) {
+        return postfix.getOperator() == PostfixExpression.Operator.INCREMENT ? 1 : -1;
+      }
+    } else if (updater instanceof PrefixExpression) {
+      PrefixExpression prefix = (PrefixExpression) updater;
+      if (getLocalVariable(prefix.getOperand()) == index) {
+        switch (prefix.getOperator()) {
+          case INCREMENT:
+            return 1;
+          case DECREMENT:
+            return -1;
+          default:
+            return 0;
+        }
+      }
+    } else if (updater instanceof Assignment) {
+      Assignment assignment = (Assignment) updater;
+      if (getLocalVariable(assignment.getLeftHandSide()) == index
+          && isConstant(assignment.getRightHandSide(), 1)) {
+        switch (assignment.getOperator()) {
+          case PLUS_ASSIGN:
+            return 1;
+          case MINUS_ASSIGN:
+            return -1;
+          default:
+            return 0;
+        }
+      }
+    }
+    return 0;
+  }
+
+  private static void addConjuncts(Expression condition, List<Expression> conjuncts) {
+    condition = TreeUtil.trimParentheses(condition);
+    if (condition instanceof InfixExpression
+        && ((InfixExpression) condition).getOperator()
+            == InfixExpression.Operator.CONDITIONAL_AND) {
+      for (Expression operand : ((InfixExpression) condition).getOperands()) {
+        addConjuncts(operand, conjuncts);
+      }
+    } else {
+      conjuncts.add(condition);
+    }
+  }
+
+  // Returns the array whose length a condition requires the index to be less than.
+  private static VariableElement getUpperBoundArray(Expression condition, VariableElement index) {
+    if (!(condition instanceof InfixExpression)) {
+      return null;
+    }
+    InfixExpression infix = (InfixExpression) condition;
+    if (infix.getOperands().size() != 2) {
+      return null;
+    }
+    Expression lhs = infix.getOperand(0);
+    Expression rhs = infix.getOperand(1);
+    if (infix.getOperator() == InfixExpression.Operator.LESS
+        && getLocalVariable(lhs) == index) {
+      return getLengthArray(rhs);
+    } else if (infix.getOperator() == InfixExpression.Operator.GREATER
+        && getLocalVariable(rhs) == index) {
+      return getLengthArray(lhs);
+    }
+    return null;
+  }
+
+  private static boolean hasLowerBoundOfZero(List<Expression> conditions, VariableElement index) {
+    for (Expression condition : conditions) {
+      if (condition instanceof InfixExpression
+          && ((InfixExpression) condition).getOperands().size() == 2) {
+        InfixExpression infix = (InfixExpression) condition;
+        Expression lhs = infix.getOperand(0);
+        Expression rhs = infix.getOperand(1);
+        if ((infix.getOperator() == InfixExpression.Operator.GREATER_EQUALS
+                && getLocalVariable(lhs) == index && isConstant(rhs, 0))
+            || (infix.getOperator() == InfixExpression.Operator.LESS_EQUALS
+                && isConstant(lhs, 0) && getLocalVariable(rhs) == index)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // Returns the array a, if an expression is "a.length - 1".
+  private static VariableElement getLastIndexArray(Expression expr) {
+    if (expr instanceof InfixExpression) {
+      InfixExpression infix = (InfixExpression) expr;
+      if (infix.getOperator() == InfixExpression.Operator.MINUS
+          && infix.getOperands().size() == 2 && isConstant(infix.getOperand(1), 1)) {
+        return getLengthArray(infix.getOperand(0));
+      }
+    }
+    return null;
+  }
+
+  // Returns the array a, if an expression is "a.length".
+  private static VariableElement getLengthArray(Expression expr) {
+    expr = TreeUtil.trimParentheses(expr);
+    Expression array = null;
+    if (expr instanceof QualifiedName) {
+      QualifiedName name = (QualifiedName) expr;
+      if (name.getName().getIdentifier().equals("length")) {
+        array = name.getQualifier();
+      }
+    } else if (expr instanceof FieldAccess) {
+      FieldAccess access = (FieldAccess) expr;
+      if (access.getName().getIdentifier().equals("length")) {
+        array = access.getExpression();
+      }
+    }
+    if (array == null || !TypeUtil.isArray(array.getTypeMirror())) {
+      return null;
+    }
+    return getLocalVariable(array);
+  }
+
+  // Returns the local variable or parameter an expression names. Fields may be
+  // assigned by other code.
+  private static VariableElement getLocalVariable(Expression expr) {
+    expr = TreeUtil.trimParentheses(expr);
+    if (!(expr instanceof SimpleName)) {
+      return null;
+    }
+    VariableElement var = TreeUtil.getVariableElement(expr);
+    return var != null && (ElementUtil.isLocalVariable(var) || ElementUtil.isParameter(var))
+        ? var : null;
+  }
+
+  private static boolean isNonNegativeConstant(Expression expr) {
+    expr = TreeUtil.trimParentheses(expr);
+    return expr instanceof NumberLiteral
+        && expr.getTypeMirror().getKind() == TypeKind.INT
+        && ((NumberLiteral) expr).getValue().intValue() >= 0;
+  }
+
+  private static boolean isConstant(Expression expr, int value) {
+    expr = TreeUtil.trimParentheses(expr);
+    return expr instanceof NumberLiteral
+        && expr.getTypeMirror().getKind() == TypeKind.INT
+        && ((NumberLiteral) expr).getValue().intValue() == value;
+  }
+
+  // Returns true if the index or any of the arrays is assigned within a node.
+  private static boolean isAssigned(
+      TreeNode node, VariableElement index, Set<VariableElement> arrays) {
+    boolean[] assigned = new boolean[1];
+    node.accept(new TreeVisitor() {
+      @Override
+      public void endVisit(SimpleName name) {
+        VariableElement var = TreeUtil.getVariableElement(name);
+        if ((var == index || arrays.contains(var)) && TranslationUtil.isAssigned(name)) {
+          assigned[0] = true;
+        }
+      }
+    });
+    return assigned[0];
+  }
+}
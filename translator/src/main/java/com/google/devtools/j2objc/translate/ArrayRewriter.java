@@ -55,6 +55,8 @@ import javax.lang.model.type.TypeMirror;
  */
 public class ArrayRewriter extends UnitTreeVisitor {
 
+  static final String BOUNDS_CHECKS_ELIMINATED = "Array bounds checks eliminated";
+
   public ArrayRewriter(CompilationUnit unit) {
     super(unit);
   }
@@ -265,6 +267,13 @@ public class ArrayRewriter extends UnitTreeVisitor {
       funcName += "Ref";
       returnType = declaredReturnType = new PointerType(componentType);
     }
+    // Only element reads of object arrays may be unchecked: object elements are
+    // assigned with IOSObjectArray_Set, and have no unchecked reference accessor.
+    if (arrayAccessNode.isIndexInBounds()
+        && (!assignable || componentType.getKind().isPrimitive())) {
+      funcName += "Unchecked";
+      options.statistics().increment(BOUNDS_CHECKS_ELIMINATED);
+    }
     FunctionElement element = new FunctionElement(funcName, declaredReturnType, iosArrayElement)
         .addParameters(iosArrayElement.asType(), typeUtil.getInt());
     FunctionInvocation invocation = new FunctionInvocation(element, returnType);
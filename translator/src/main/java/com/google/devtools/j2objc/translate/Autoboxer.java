@@ -16,11 +16,14 @@
 
 package com.google.devtools.j2objc.translate;
 
+import com.google.common.collect.Iterables;
+import com.google.devtools.j2objc.ast.AbstractTypeDeclaration;
 import com.google.devtools.j2objc.ast.ArrayAccess;
 import com.google.devtools.j2objc.ast.ArrayCreation;
 import com.google.devtools.j2objc.ast.ArrayInitializer;
 import com.google.devtools.j2objc.ast.AssertStatement;
 import com.google.devtools.j2objc.ast.Assignment;
+import com.google.devtools.j2objc.ast.Block;
 import com.google.devtools.j2objc.ast.CastExpression;
 import com.google.devtools.j2objc.ast.ClassInstanceCreation;
 import com.google.devtools.j2objc.ast.CompilationUnit;
@@ -29,32 +32,49 @@ import com.google.devtools.j2objc.ast.ConstructorInvocation;
 import com.google.devtools.j2objc.ast.DoStatement;
 import com.google.devtools.j2objc.ast.EnumConstantDeclaration;
 import com.google.devtools.j2objc.ast.Expression;
+import com.google.devtools.j2objc.ast.ExpressionStatement;
+import com.google.devtools.j2objc.ast.ForStatement;
+import com.google.devtools.j2objc.ast.FunctionalExpression;
 import com.google.devtools.j2objc.ast.FunctionInvocation;
 import com.google.devtools.j2objc.ast.IfStatement;
 import com.google.devtools.j2objc.ast.InfixExpression;
+import com.google.devtools.j2objc.ast.LambdaExpression;
 import com.google.devtools.j2objc.ast.MethodInvocation;
+import com.google.devtools.j2objc.ast.NullLiteral;
+import com.google.devtools.j2objc.ast.NumberLiteral;
 import com.google.devtools.j2objc.ast.ParenthesizedExpression;
 import com.google.devtools.j2objc.ast.PostfixExpression;
 import com.google.devtools.j2objc.ast.PrefixExpression;
 import com.google.devtools.j2objc.ast.ReturnStatement;
 import com.google.devtools.j2objc.ast.SimpleName;
+import com.google.devtools.j2objc.ast.Statement;
 import com.google.devtools.j2objc.ast.SuperConstructorInvocation;
 import com.google.devtools.j2objc.ast.SuperMethodInvocation;
 import com.google.devtools.j2objc.ast.SwitchExpression;
 import com.google.devtools.j2objc.ast.SwitchStatement;
 import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
+import com.google.devtools.j2objc.ast.TreeVisitor;
 import com.google.devtools.j2objc.ast.Type;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
 import com.google.devtools.j2objc.ast.VariableDeclarationFragment;
+import com.google.devtools.j2objc.ast.VariableDeclarationStatement;
 import com.google.devtools.j2objc.ast.WhileStatement;
 import com.google.devtools.j2objc.types.ExecutablePair;
 import com.google.devtools.j2objc.types.FunctionElement;
+import com.google.devtools.j2objc.types.GeneratedVariableElement;
 import com.google.devtools.j2objc.types.PointerType;
+import com.google.devtools.j2objc.util.CaptureInfo;
 import com.google.devtools.j2objc.util.ElementUtil;
 import com.google.devtools.j2objc.util.NameTable;
 import com.google.devtools.j2objc.util.TypeUtil;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
@@ -66,13 +86,33 @@ import javax.lang.model.type.TypeMirror;
 /**
  * Adds support for boxing and unboxing numeric primitive values.
  *
+ * <p>Boxing allocates, so a value that is boxed only to be unboxed again is
+ * left primitive, and so are boxed locals that never escape their method: a
+ * local declared with a wrapper type whose uses are all unboxed or updated in
+ * place, such as "Integer count = map.get(k); count++;", is declared with the
+ * primitive type instead. Unboxing a value that may be null throws, so a local
+ * is only kept primitive when each value it's assigned is either a new box or
+ * unboxed by the statement that follows.
+ *
  * @author Tom Ball
  */
 public class Autoboxer extends UnitTreeVisitor {
 
+  static final String ROUND_TRIPS_ELIMINATED = "Autobox round trips eliminated";
+  static final String BOXED_LOCALS_ELIMINATED = "Boxed locals kept primitive";
+
+  private static final Logger logger = Logger.getLogger(Autoboxer.class.getName());
+
   private static final String VALUE_METHOD = "Value";
   private static final String VALUEOF_METHOD = "valueOf";
 
+  // The boxed increments, decrements and compound assignments of the unit,
+  // and the expressions they replaced.
+  private final Map<FunctionInvocation, Expression> boxedOperations = new HashMap<>();
+  // Declarations of locals with a wrapper type.
+  private final List<VariableDeclarationFragment> boxedLocals = new ArrayList<>();
+  private int roundTripCount = 0;
+
   public Autoboxer(CompilationUnit unit) {
     super(unit);
   }
@@ -130,6 +170,23 @@ public class Autoboxer extends UnitTreeVisitor {
     if (primitiveType == null) {
       return;
     }
+    Expression boxedValue = getBoxedValue(expr);
+    if (boxedValue != null) {
+      // Convert the value as boxing and then unboxing it would. A literal is
+      // only boxed with a narrower type when its value fits.
+      PrimitiveType boxedPrimitive = typeUtil.unboxedType(boxedClass.asType());
+      Expression value = TreeUtil.remove(boxedValue);
+      if (!typeUtil.isSameType(value.getTypeMirror(), boxedPrimitive)
+          && !(value instanceof NumberLiteral)) {
+        value = new CastExpression(boxedPrimitive, value);
+      }
+      if (!typeUtil.isSameType(boxedPrimitive, primitiveType)) {
+        value = new CastExpression(primitiveType, value);
+      }
+      expr.replaceWith(value);
+      roundTripCount++;
+      return;
+    }
     ExecutableElement valueMethod = ElementUtil.findMethod(
         boxedClass, TypeUtil.getName(primitiveType) + VALUE_METHOD);
     if (valueMethod == null) {
@@ -143,6 +200,38 @@ public class Autoboxer extends UnitTreeVisitor {
     invocation.setExpression(expr);
   }
 
+  /**
+   * Returns x, if an expression boxes a primitive x with "Wrapper.valueOf(x)"
+   * or "new Wrapper(x)", so that the box is never null.
+   */
+  private Expression getBoxedValue(Expression expr) {
+    ExecutableElement method;
+    List<Expression> args;
+    if (expr instanceof MethodInvocation) {
+      MethodInvocation invocation = (MethodInvocation) expr;
+      method = invocation.getExecutableElement();
+      if (!ElementUtil.isStatic(method) || !ElementUtil.getName(method).equals(VALUEOF_METHOD)) {
+        return null;
+      }
+      args = invocation.getArguments();
+    } else if (expr instanceof ClassInstanceCreation) {
+      ClassInstanceCreation creation = (ClassInstanceCreation) expr;
+      if (creation.getExpression() != null || creation.getAnonymousClassDeclaration() != null) {
+        return null;
+      }
+      method = creation.getExecutableElement();
+      args = creation.getArguments();
+    } else {
+      return null;
+    }
+    if (args.size() != 1 || !typeUtil.isBoxedType(ElementUtil.getDeclaringClass(method).asType())) {
+      return null;
+    }
+    Expression arg = args.get(0);
+    return method.getParameters().get(0).asType().getKind().isPrimitive()
+        && arg.getTypeMirror().getKind().isPrimitive() ? arg : null;
+  }
+
   private TypeElement findBoxedSuperclass(TypeMirror type) {
     while (type != null) {
       if (typeUtil.isBoxedType(type)) {
@@ -190,6 +279,7 @@ public class Autoboxer extends UnitTreeVisitor {
     invocation.addArgument(TreeUtil.remove(rhs));
     unbox(rhs);
     node.replaceWith(invocation);
+    boxedOperations.put(invocation, node);
   }
 
   private static String getAssignFunctionName(Assignment.Operator op) {
@@ -377,7 +467,21 @@ public class Autoboxer extends UnitTreeVisitor {
 
   @Override
   public void endVisit(MethodInvocation node) {
-    convertArguments(node.getExecutableElement(), node.getArguments());
+    ExecutableElement method = node.getExecutableElement();
+    convertArguments(method, node.getArguments());
+    Expression receiver = node.getExpression();
+    if (receiver != null && isValueMethod(method) && getBoxedValue(receiver) != null) {
+      // An explicit round trip, such as "Integer.valueOf(i).intValue()".
+      node.replaceWith(TreeUtil.remove(receiver));
+      unbox(receiver, (PrimitiveType) method.getReturnType());
+    }
+  }
+
+  // Returns true for the methods that unbox a wrapper, such as intValue().
+  private static boolean isValueMethod(ExecutableElement method) {
+    return !ElementUtil.isStatic(method) && method.getParameters().isEmpty()
+        && ElementUtil.getName(method).endsWith(VALUE_METHOD)
+        && method.getReturnType().getKind().isPrimitive();
   }
 
   @Override
@@ -403,7 +507,8 @@ public class Autoboxer extends UnitTreeVisitor {
     }
   }
 
-  private void rewriteBoxedPrefixOrPostfix(TreeNode node, Expression operand, String funcName) {
+  private void rewriteBoxedPrefixOrPostfix(
+      Expression node, Expression operand, String funcName) {
     TypeMirror type = operand.getTypeMirror();
     TypeMirror primitiveType = typeUtil.unboxedType(type);
     if (primitiveType == null) {
@@ -418,6 +523,7 @@ public class Autoboxer extends UnitTreeVisitor {
     invocation.addArgument(new PrefixExpression(
         pointerType, PrefixExpression.Operator.ADDRESS_OF, TreeUtil.remove(operand)));
     node.replaceWith(invocation);
+    boxedOperations.put(invocation, node);
   }
 
   @Override
@@ -459,6 +565,14 @@ public class Autoboxer extends UnitTreeVisitor {
         box(initializer, varType);
       }
     }
+    VariableElement var = node.getVariableElement();
+    TreeNode parent = node.getParent();
+    if (ElementUtil.isLocalVariable(var) && typeUtil.isBoxedType(var.asType())
+        && var.getAnnotationMirrors().isEmpty() && parent instanceof VariableDeclarationStatement
+        && ((VariableDeclarationStatement) parent).getFragments().size() == 1
+        && ((VariableDeclarationStatement) parent).getModifiers().isEmpty()) {
+      boxedLocals.add(node);
+    }
   }
 
   @Override
@@ -486,6 +600,256 @@ public class Autoboxer extends UnitTreeVisitor {
     }
   }
 
+  @Override
+  public void endVisit(CompilationUnit node) {
+    Map<VariableElement, List<SimpleName>> uses = findLocalUses(node);
+    List<VariableDeclarationFragment> primitiveLocals = new ArrayList<>();
+    for (VariableDeclarationFragment decl : boxedLocals) {
+      List<SimpleName> varUses = uses.get(decl.getVariableElement());
+      if (varUses != null && canBePrimitive(decl, varUses)) {
+        primitiveLocals.add(decl);
+      }
+    }
+    for (VariableDeclarationFragment decl : primitiveLocals) {
+      rewritePrimitiveLocal(decl, uses.get(decl.getVariableElement()));
+    }
+    options.statistics().add(ROUND_TRIPS_ELIMINATED, roundTripCount);
+    options.statistics().add(BOXED_LOCALS_ELIMINATED, primitiveLocals.size());
+    logger.fine(String.format("%s: eliminated %d autobox round trips and %d boxed locals",
+        node.getSourceFilePath(), roundTripCount, primitiveLocals.size()));
+  }
+
+  // Returns the uses of the unit's boxed locals, omitting captured locals,
+  // which lambdas and classes have already replaced with their own fields.
+  private Map<VariableElement, List<SimpleName>> findLocalUses(CompilationUnit unit) {
+    Map<VariableElement, List<SimpleName>> uses = new HashMap<>();
+    if (boxedLocals.isEmpty()) {
+      return uses;
+    }
+    for (VariableDeclarationFragment decl : boxedLocals) {
+      uses.put(decl.getVariableElement(), new ArrayList<>());
+    }
+    Set<VariableElement> capturedVars = new HashSet<>();
+    CaptureInfo captureInfo = unit.getEnv().captureInfo();
+    unit.accept(new TreeVisitor() {
+      @Override
+      public void endVisit(SimpleName node) {
+        List<SimpleName> varUses = uses.get(TreeUtil.getVariableElement(node));
+        if (varUses != null) {
+          varUses.add(node);
+        }
+      }
+
+      @Override
+      public void postVisit(TreeNode node) {
+        TypeElement type = null;
+        if (node instanceof AbstractTypeDeclaration) {
+          type = ((AbstractTypeDeclaration) node).getTypeElement();
+        } else if (node instanceof FunctionalExpression) {
+          type = ((FunctionalExpression) node).getTypeElement();
+        }
+        if (type != null) {
+          Iterables.addAll(capturedVars, captureInfo.getCapturedVars(type));
+        }
+      }
+    });
+    uses.keySet().removeAll(capturedVars);
+    return uses;
+  }
+
+  // Returns true if a boxed local never escapes, so that it can be declared
+  // with its primitive type: it's only unboxed, updated in place or assigned,
+  // and only within its own method.
+  private boolean canBePrimitive(VariableDeclarationFragment decl, List<SimpleName> uses) {
+    VariableElement var = decl.getVariableElement();
+    Statement declStmt = (Statement) decl.getParent();
+    if (decl.getInitializer() != null && !isSafeValue(decl.getInitializer(), declStmt, var)) {
+      return false;
+    }
+    for (SimpleName use : uses) {
+      if (isCaptured(use, declStmt.getParent())) {
+        return false;
+      }
+      TreeNode parent = use.getParent();
+      if (isUnboxingOf(parent, var)) {
+        continue;
+      }
+      if (parent instanceof PrefixExpression
+          && ((PrefixExpression) parent).getOperator() == PrefixExpression.Operator.ADDRESS_OF
+          && isUnboxingOf(parent.getParent(), var) && isValueDiscarded(parent.getParent())) {
+        continue;
+      }
+      if (parent instanceof Assignment) {
+        Assignment assignment = (Assignment) parent;
+        if (assignment.getOperator() == Assignment.Operator.ASSIGN
+            && assignment.getLeftHandSide() == use
+            && assignment.getParent() instanceof ExpressionStatement
+            && isSafeValue(assignment.getRightHandSide(),
+                (Statement) assignment.getParent(), var)) {
+          continue;
+        }
+      }
+      return false;
+    }
+    return true;
+  }
+
+  // Returns true if a use is in a lambda or class within the local's scope,
+  // which captures the local.
+  private static boolean isCaptured(SimpleName use, TreeNode scope) {
+    for (TreeNode node = use.getParent(); node != scope; node = node.getParent()) {
+      if (node == null || node instanceof LambdaExpression
+          || node instanceof AbstractTypeDeclaration) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isValueDiscarded(TreeNode node) {
+    TreeNode parent = node.getParent();
+    return parent instanceof ExpressionStatement
+        || (parent instanceof ForStatement && ((ForStatement) parent).getUpdaters().contains(node));
+  }
+
+  // Returns true if a value assigned to a local by a statement can be unboxed
+  // early: either it's never null, or the next statement unboxes the local
+  // before doing anything else, so that a null value throws at the same point.
+  private boolean isSafeValue(Expression value, Statement stmt, VariableElement var) {
+    if (getBoxedValue(value) != null) {
+      return true;
+    }
+    if (value instanceof NullLiteral || !(stmt.getParent() instanceof Block)) {
+      return false;
+    }
+    List<Statement> stmts = ((Block) stmt.getParent()).getStatements();
+    int i = stmts.indexOf(stmt);
+    if (i + 1 == stmts.size()) {
+      return false;
+    }
+    Expression expr = getFirstExpression(stmts.get(i + 1));
+    while (expr != null) {
+      if (isUnboxingOf(expr, var)) {
+        return true;
+      }
+      expr = getFirstEvaluated(expr);
+    }
+    return false;
+  }
+
+  private static Expression getFirstExpression(Statement stmt) {
+    if (stmt instanceof ExpressionStatement) {
+      return ((ExpressionStatement) stmt).getExpression();
+    } else if (stmt instanceof VariableDeclarationStatement) {
+      return ((VariableDeclarationStatement) stmt).getFragments().get(0).getInitializer();
+    } else if (stmt instanceof ReturnStatement) {
+      return ((ReturnStatement) stmt).getExpression();
+    } else if (stmt instanceof IfStatement) {
+      return ((IfStatement) stmt).getExpression();
+    } else if (stmt instanceof WhileStatement) {
+      return ((WhileStatement) stmt).getExpression();
+    } else if (stmt instanceof SwitchStatement) {
+      return ((SwitchStatement) stmt).getExpression();
+    }
+    return null;
+  }
+
+  // Returns the subexpression that's evaluated before the rest of an
+  // expression, if it's known.
+  private static Expression getFirstEvaluated(Expression expr) {
+    if (expr instanceof ParenthesizedExpression) {
+      return ((ParenthesizedExpression) expr).getExpression();
+    } else if (expr instanceof CastExpression) {
+      return ((CastExpression) expr).getExpression();
+    } else if (expr instanceof InfixExpression) {
+      return ((InfixExpression) expr).getOperand(0);
+    } else if (expr instanceof PrefixExpression) {
+      return ((PrefixExpression) expr).getOperand();
+    } else if (expr instanceof ConditionalExpression) {
+      return ((ConditionalExpression) expr).getExpression();
+    } else if (expr instanceof Assignment) {
+      // Naming a local has no effect, but accessing a field or array might.
+      Assignment assignment = (Assignment) expr;
+      VariableElement lhs = TreeUtil.getVariableElement(assignment.getLeftHandSide());
+      return assignment.getLeftHandSide() instanceof SimpleName && lhs != null
+          && (ElementUtil.isLocalVariable(lhs) || ElementUtil.isParameter(lhs))
+          ? assignment.getRightHandSide() : null;
+    } else if (expr instanceof MethodInvocation) {
+      MethodInvocation invocation = (MethodInvocation) expr;
+      if (!ElementUtil.isStatic(invocation.getExecutableElement())
+          && invocation.getExpression() != null) {
+        return invocation.getExpression();
+      }
+      List<Expression> args = invocation.getArguments();
+      return args.isEmpty() ? null : args.get(0);
+    }
+    return null;
+  }
+
+  // Returns true if an expression unboxes a local, either with a value method
+  // such as "intValue()", or with a boxed increment, decrement or compound
+  // assignment.
+  private boolean isUnboxingOf(TreeNode node, VariableElement var) {
+    if (node instanceof MethodInvocation) {
+      MethodInvocation invocation = (MethodInvocation) node;
+      ExecutableElement method = invocation.getExecutableElement();
+      Expression receiver = invocation.getExpression();
+      return receiver instanceof SimpleName && TreeUtil.getVariableElement(receiver) == var
+          && isValueMethod(method);
+    } else if (node instanceof FunctionInvocation && boxedOperations.containsKey(node)) {
+      Expression operand = ((PrefixExpression) ((FunctionInvocation) node).getArgument(0))
+          .getOperand();
+      return operand instanceof SimpleName && TreeUtil.getVariableElement(operand) == var;
+    }
+    return false;
+  }
+
+  private void rewritePrimitiveLocal(VariableDeclarationFragment decl, List<SimpleName> uses) {
+    VariableElement var = decl.getVariableElement();
+    PrimitiveType primitiveType = typeUtil.unboxedType(var.asType());
+    VariableElement newVar = GeneratedVariableElement.newLocalVar(
+        ElementUtil.getName(var), primitiveType, var.getEnclosingElement());
+    nameTable.setVariableName(newVar, nameTable.getVariableBaseName(var));
+    decl.setVariableElement(newVar);
+    if (decl.getInitializer() != null) {
+      unbox(decl.getInitializer());
+    }
+    for (SimpleName use : uses) {
+      TreeNode parent = use.getParent();
+      use.setElement(newVar);
+      use.setTypeMirror(primitiveType);
+      if (parent instanceof MethodInvocation) {
+        // A value method may also convert the value, as "longValue()" does.
+        TypeMirror valueType = ((MethodInvocation) parent).getTypeMirror();
+        Expression value = TreeUtil.remove(use);
+        parent.replaceWith(typeUtil.isSameType(valueType, primitiveType)
+            ? value : new CastExpression(valueType, value));
+      } else if (parent instanceof Assignment) {
+        unbox(((Assignment) parent).getRightHandSide());
+      } else {
+        FunctionInvocation invocation = (FunctionInvocation) parent.getParent();
+        invocation.replaceWith(
+            newPrimitiveOperation(boxedOperations.get(invocation), invocation, use));
+      }
+    }
+  }
+
+  // Converts a boxed increment, decrement or compound assignment back to the
+  // expression it replaced, applied to a primitive local.
+  private static Expression newPrimitiveOperation(
+      Expression original, FunctionInvocation invocation, SimpleName var) {
+    if (original instanceof PostfixExpression) {
+      return new PostfixExpression()
+          .setOperator(((PostfixExpression) original).getOperator())
+          .setOperand(TreeUtil.remove(var));
+    } else if (original instanceof PrefixExpression) {
+      return new PrefixExpression(var.getTypeMirror(),
+          ((PrefixExpression) original).getOperator(), TreeUtil.remove(var));
+    }
+    return new Assignment(TreeUtil.remove(var), TreeUtil.remove(invocation.getArgument(1)))
+        .setOperator(((Assignment) original).getOperator());
+  }
+
   private void convertArguments(ExecutableElement method, List<Expression> args) {
     List<? extends VariableElement> params = method.getParameters();
     for (int i = 0; i < args.size(); i++) {
@@ -14,22 +14,31 @@
 
 package com.google.devtools.j2objc.translate;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.devtools.j2objc.ast.Block;
+import com.google.devtools.j2objc.ast.ClassInstanceCreation;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.ast.EnhancedForStatement;
 import com.google.devtools.j2objc.ast.Expression;
 import com.google.devtools.j2objc.ast.FieldAccess;
+import com.google.devtools.j2objc.ast.ForStatement;
 import com.google.devtools.j2objc.ast.FunctionInvocation;
 import com.google.devtools.j2objc.ast.InfixExpression;
 import com.google.devtools.j2objc.ast.LabeledStatement;
 import com.google.devtools.j2objc.ast.MethodInvocation;
+import com.google.devtools.j2objc.ast.NumberLiteral;
 import com.google.devtools.j2objc.ast.PostfixExpression;
 import com.google.devtools.j2objc.ast.PrefixExpression;
+import com.google.devtools.j2objc.ast.QualifiedName;
 import com.google.devtools.j2objc.ast.SimpleName;
 import com.google.devtools.j2objc.ast.SingleVariableDeclaration;
 import com.google.devtools.j2objc.ast.Statement;
+import com.google.devtools.j2objc.ast.SuperMethodInvocation;
+import com.google.devtools.j2objc.ast.ThisExpression;
 import com.google.devtools.j2objc.ast.TreeUtil;
+import com.google.devtools.j2objc.ast.TreeVisitor;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
+import com.google.devtools.j2objc.ast.VariableDeclarationExpression;
 import com.google.devtools.j2objc.ast.VariableDeclarationStatement;
 import com.google.devtools.j2objc.ast.WhileStatement;
 import com.google.devtools.j2objc.types.ExecutablePair;
@@ -37,12 +46,14 @@ import com.google.devtools.j2objc.types.FunctionElement;
 import com.google.devtools.j2objc.types.GeneratedVariableElement;
 import com.google.devtools.j2objc.types.PointerType;
 import com.google.devtools.j2objc.util.ElementUtil;
+import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.TypeUtil;
 import com.google.j2objc.annotations.AutoreleasePool;
 import com.google.j2objc.annotations.LoopTranslation;
 import com.google.j2objc.annotations.LoopTranslation.LoopStyle;
 import java.util.List;
 import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
@@ -57,10 +68,38 @@ import javax.lang.model.type.TypeMirror;
  */
 public class EnhancedForRewriter extends UnitTreeVisitor {
 
+  // List types whose iterator() returns the elements that get(int) does, in
+  // order. Other lists, including user RandomAccess classes, may override
+  // iterator(). ArrayList isn't included, since its fast enumeration already
+  // reads its backing array directly.
+  private static final ImmutableSet<String> INDEXABLE_LIST_TYPES = ImmutableSet.of(
+      "com.google.common.collect.ImmutableList", "java.util.Stack", "java.util.Vector");
+
+  // List types that can't be modified, so their loops are always indexable.
+  private static final ImmutableSet<String> IMMUTABLE_LIST_TYPES =
+      ImmutableSet.of("com.google.common.collect.ImmutableList");
+
+  // List methods that neither modify the list nor return a view of it.
+  private static final ImmutableSet<String> READ_ONLY_LIST_METHODS = ImmutableSet.of(
+      "capacity", "contains", "containsAll", "elementAt", "equals", "firstElement", "get",
+      "getFirst", "getLast", "hashCode", "indexOf", "isEmpty", "lastElement", "lastIndexOf",
+      "peek", "search", "size", "toArray", "toString");
+
+  static final String INDEXED_LOOPS = "Indexed list loops emitted";
+
+  private int indexedLoopCount = 0;
+
   public EnhancedForRewriter(CompilationUnit unit) {
     super(unit);
   }
 
+  @Override
+  public void endVisit(CompilationUnit node) {
+    if (indexedLoopCount > 0) {
+      options.statistics().add(INDEXED_LOOPS, indexedLoopCount);
+    }
+  }
+
   @Override
   public void endVisit(EnhancedForStatement node) {
     Expression expression = node.getExpression();
@@ -71,10 +110,13 @@ public class EnhancedForRewriter extends UnitTreeVisitor {
       makeBlock(node.getBody()).setHasAutoreleasePool(true);
     }
 
+    LoopStyle loopStyle = getLoopStyle(node, loopVariable);
     if (TypeUtil.isArray(expressionType)) {
       handleArrayIteration(node);
-    } else if (emitJavaIteratorLoop(loopVariable)) {
+    } else if (loopStyle == LoopStyle.JAVA_ITERATOR) {
       convertToJavaIteratorLoop(node);
+    } else if (emitIndexedLoop(node, loopStyle)) {
+      convertToIndexedLoop(node);
     } else if (loopVariable.asType().getKind().isPrimitive()) {
       boxLoopVariable(node, expressionType, loopVariable);
     } else {
@@ -145,18 +187,190 @@ public class EnhancedForRewriter extends UnitTreeVisitor {
     replaceLoop(node, block, loop);
   }
 
-  private boolean emitJavaIteratorLoop(VariableElement loopVariable) {
+  /**
+   * Returns the loop's LoopTranslation style, or null if it has none. A style
+   * this translator doesn't know, such as one from a newer annotations jar, is
+   * reported as an error.
+   */
+  private LoopStyle getLoopStyle(EnhancedForStatement node, VariableElement loopVariable) {
     AnnotationMirror loopTranslation =
         ElementUtil.getAnnotation(loopVariable, LoopTranslation.class);
     if (loopTranslation == null) {
-      return false;
+      return null;
     }
     Object style = ElementUtil.getAnnotationValue(loopTranslation, "value");
-    if (style instanceof VariableElement
-        && ElementUtil.getName((VariableElement) style).equals(LoopStyle.JAVA_ITERATOR.name())) {
+    if (style instanceof VariableElement) {
+      String name = ElementUtil.getName((VariableElement) style);
+      for (LoopStyle loopStyle : LoopStyle.values()) {
+        if (loopStyle.name().equals(name)) {
+          return loopStyle;
+        }
+      }
+      ErrorUtil.error(node, "Unknown LoopStyle: " + name);
+    }
+    return null;
+  }
+
+  /**
+   * Returns true if the loop should be translated as an indexed loop over a
+   * list: either its LoopTranslation requests it, or it has no LoopTranslation
+   * and iterates over an indexable list type without modifying the list.
+   */
+  private boolean emitIndexedLoop(EnhancedForStatement node, LoopStyle loopStyle) {
+    TypeMirror expressionType = node.getExpression().getTypeMirror();
+    if (typeUtil.findSupertype(expressionType, "java.util.List") == null) {
+      if (loopStyle == LoopStyle.INDEXED) {
+        ErrorUtil.warning(node, "LoopStyle.INDEXED requires a java.util.List expression.");
+      }
+      return false;
+    }
+    if (loopStyle != null) {
+      return loopStyle == LoopStyle.INDEXED;
+    }
+    String typeName = TypeUtil.getQualifiedName(typeUtil.erasure(expressionType));
+    return INDEXABLE_LIST_TYPES.contains(typeName)
+        && (IMMUTABLE_LIST_TYPES.contains(typeName) || !mayModifyList(node));
+  }
+
+  /**
+   * Returns true if the loop body may modify the list. Any call, other than a
+   * read-only List method of the list's variable, may modify it through an
+   * alias, where the iterator would throw ConcurrentModificationException.
+   * Any other use of the variable may modify it or create an alias. Only
+   * lists in variables whose every use can be found are tracked.
+   */
+  private static boolean mayModifyList(EnhancedForStatement node) {
+    VariableElement list = getTrackedVariable(node.getExpression());
+    if (list == null) {
       return true;
     }
-    return false;
+    boolean[] result = new boolean[1];
+    node.getBody().accept(new TreeVisitor() {
+      @Override
+      public boolean visit(MethodInvocation invocation) {
+        Expression receiver = invocation.getExpression();
+        if (receiver == null || !list.equals(getTrackedVariable(receiver))
+            || !READ_ONLY_LIST_METHODS.contains(
+                ElementUtil.getName(invocation.getExecutableElement()))) {
+          result[0] = true;
+          return false;
+        }
+        for (Expression arg : invocation.getArguments()) {
+          arg.accept(this);
+        }
+        return false;
+      }
+
+      @Override
+      public boolean visit(SuperMethodInvocation invocation) {
+        result[0] = true;
+        return false;
+      }
+
+      @Override
+      public boolean visit(ClassInstanceCreation creation) {
+        result[0] = true;
+        return false;
+      }
+
+      @Override
+      public boolean visit(FunctionInvocation invocation) {
+        result[0] = true;
+        return false;
+      }
+
+      @Override
+      public boolean visit(FieldAccess access) {
+        if (list.equals(access.getVariableElement())) {
+          result[0] = true;
+          return false;
+        }
+        return true;
+      }
+
+      @Override
+      public boolean visit(SimpleName name) {
+        result[0] |= list.equals(name.getElement());
+        return false;
+      }
+
+      @Override
+      public boolean visit(QualifiedName name) {
+        result[0] |= list.equals(name.getElement());
+        return true;
+      }
+    });
+    return result[0];
+  }
+
+  // Returns the variable of a list expression if its uses can all be found:
+  // a local variable or parameter, a field of this object, or a static field.
+  private static VariableElement getTrackedVariable(Expression expression) {
+    expression = TreeUtil.trimParentheses(expression);
+    VariableElement var = TreeUtil.getVariableElement(expression);
+    if (var == null || !var.getKind().isField() || ElementUtil.isStatic(var)
+        || expression instanceof SimpleName
+        || (expression instanceof FieldAccess
+            && ((FieldAccess) expression).getExpression() instanceof ThisExpression)) {
+      return var;
+    }
+    // The field of another object.
+    return null;
+  }
+
+  private void convertToIndexedLoop(EnhancedForStatement node) {
+    Expression expression = node.getExpression();
+    TypeMirror expressionType = expression.getTypeMirror();
+    VariableElement loopVariable = node.getParameter().getVariableElement();
+    DeclaredType listType = typeUtil.findSupertype(expressionType, "java.util.List");
+    ExecutablePair sizeMethod = typeUtil.findMethod(listType, "size");
+    ExecutablePair getMethod = typeUtil.findMethod(listType, "get", "int");
+    assert sizeMethod != null && getMethod != null;
+    TypeMirror intType = typeUtil.getInt();
+
+    VariableElement listVariable = GeneratedVariableElement.newLocalVar(
+        "l__", expressionType, null);
+    VariableElement sizeVariable = GeneratedVariableElement.newLocalVar("n__", intType, null);
+    VariableElement indexVariable = GeneratedVariableElement.newLocalVar("i__", intType, null);
+
+    VariableDeclarationStatement listDecl =
+        new VariableDeclarationStatement(listVariable, TreeUtil.remove(expression));
+    VariableDeclarationStatement sizeDecl = new VariableDeclarationStatement(
+        sizeVariable, new MethodInvocation(sizeMethod, new SimpleName(listVariable)));
+
+    ForStatement loop = new ForStatement();
+    loop.addInitializer(new VariableDeclarationExpression(
+        indexVariable, NumberLiteral.newIntLiteral(0, typeUtil)));
+    loop.setExpression(new InfixExpression(
+        typeUtil.getBoolean(), InfixExpression.Operator.LESS, new SimpleName(indexVariable),
+        new SimpleName(sizeVariable)));
+    loop.addUpdater(new PostfixExpression(indexVariable, PostfixExpression.Operator.INCREMENT));
+    Block newLoopBody = makeBlock(TreeUtil.remove(node.getBody()));
+    loop.setBody(newLoopBody);
+
+    TypeMirror elementType = getMethod.type().getReturnType();
+    MethodInvocation getInvocation =
+        new MethodInvocation(getMethod, new SimpleName(listVariable));
+    getInvocation.addArgument(new SimpleName(indexVariable));
+    Expression loopVariableValue = getInvocation;
+    if (!typeUtil.isBoxedType(elementType)) {
+      // Like array elements, keep the element alive if the body removes it from the list.
+      FunctionElement autoReleaseElement =
+          new FunctionElement("RETAIN_AND_AUTORELEASE", elementType, null);
+      FunctionInvocation autoReleaseInvocation =
+          new FunctionInvocation(autoReleaseElement, elementType);
+      autoReleaseInvocation.addArgument(loopVariableValue);
+      loopVariableValue = autoReleaseInvocation;
+    }
+    newLoopBody.addStatement(0, new VariableDeclarationStatement(loopVariable, loopVariableValue));
+
+    Block block = new Block();
+    List<Statement> stmts = block.getStatements();
+    stmts.add(listDecl);
+    stmts.add(sizeDecl);
+    stmts.add(loop);
+    replaceLoop(node, block, loop);
+    indexedLoopCount++;
   }
 
   private void convertToJavaIteratorLoop(EnhancedForStatement node) {
@@ -49,6 +49,7 @@ import com.google.devtools.j2objc.types.FunctionElement;
 import com.google.devtools.j2objc.types.GeneratedExecutableElement;
 import com.google.devtools.j2objc.types.GeneratedVariableElement;
 import com.google.devtools.j2objc.util.CaptureInfo;
+import com.google.devtools.j2objc.util.ClassHierarchy;
 import com.google.devtools.j2objc.util.ElementUtil;
 import com.google.devtools.j2objc.util.NameTable;
 import com.google.devtools.j2objc.util.TypeUtil;
@@ -60,6 +61,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.logging.Logger;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
@@ -68,29 +70,52 @@ import javax.lang.model.type.TypeMirror;
 /**
  * Converts methods that don't need dynamic dispatch to C functions. This optimization initially
  * just targets private methods, but will be expanded to include final methods that don't override
- * superclass methods.
+ * superclass methods. When a whole-program class hierarchy is available, methods that no class in
+ * the program overrides are treated as final.
  *
  * @author Tom Ball
  */
 @SuppressWarnings("UngroupedOverloads")
 public class Functionizer extends UnitTreeVisitor {
 
+  private static final Logger logger = Logger.getLogger(Functionizer.class.getName());
+
   private final CaptureInfo captureInfo;
+  private final ClassHierarchy classHierarchy;
   private Set<ExecutableElement> functionizableMethods;
+  private int devirtualizedCount = 0;
 
   public Functionizer(CompilationUnit unit) {
     super(unit);
     captureInfo = unit.getEnv().captureInfo();
+    classHierarchy = options.classHierarchy();
   }
 
   @Override
   public boolean visit(CompilationUnit node) {
-    FunctionizableFinder finder = new FunctionizableFinder();
+    FunctionizableFinder finder = new FunctionizableFinder(this);
     node.accept(finder);
     functionizableMethods = finder.getFunctionizableMethods();
     return true;
   }
 
+  @Override
+  public void endVisit(CompilationUnit node) {
+    if (classHierarchy != null) {
+      logger.fine(String.format(
+          "%s: devirtualized %d call sites", node.getSourceFilePath(), devirtualizedCount));
+    }
+  }
+
+  /**
+   * Returns true if a method can't be overridden, either because it is declared final or
+   * because no class in the program overrides it.
+   */
+  private boolean isEffectivelyFinal(ExecutableElement method) {
+    return ElementUtil.isFinal(method)
+        || (classHierarchy != null && classHierarchy.isEffectivelyFinal(method, elementUtil));
+  }
+
   static class MethodInfo {
 
     private Boolean functionizable = null;
@@ -120,11 +145,16 @@ public class Functionizer extends UnitTreeVisitor {
 
   private static class FunctionizableFinder extends TreeVisitor {
 
+    private final Functionizer functionizer;
     // Don't need a stack here because local types have already been extracted.
     private MethodInfo currentMethod = null;
     private Map<ExecutableElement, MethodInfo> infoMap = new HashMap<>();
     private Set<ExecutableElement> invocations = new HashSet<>();
 
+    FunctionizableFinder(Functionizer functionizer) {
+      this.functionizer = functionizer;
+    }
+
     @Override
     public boolean visit(MethodDeclaration node) {
       if (isFunctionizingCandidate(node)) {
@@ -144,7 +174,7 @@ public class Functionizer extends UnitTreeVisitor {
       // Regular invocations can only be functionized if the target is private or final, otherwise
       // the target method might be overridden by a subclass. Private methods are always
       // functionized so we only check for final methods here.
-      if (ElementUtil.isFinal(method)) {
+      if (functionizer.isEffectivelyFinal(method)) {
         invocations.add(method);
       }
     }
@@ -248,8 +278,12 @@ public class Functionizer extends UnitTreeVisitor {
   @Override
   public void endVisit(MethodInvocation node) {
     ExecutableElement method = node.getExecutableElement();
-    if (ElementUtil.isStatic(method) || ElementUtil.isPrivate(method)
-        || (functionizableMethods.contains(method) && ElementUtil.isFinal(method))) {
+    if (ElementUtil.isStatic(method) || ElementUtil.isPrivate(method)) {
+      functionizeInvocation(node, method, node.getExpression(), node.getArguments());
+    } else if (functionizableMethods.contains(method) && isEffectivelyFinal(method)) {
+      if (!ElementUtil.isFinal(method)) {
+        devirtualizedCount++;
+      }
       functionizeInvocation(node, method, node.getExpression(), node.getArguments());
     }
   }
@@ -16,30 +16,40 @@ package com.google.devtools.j2objc.translate;
 
 import com.google.devtools.j2objc.ast.ArrayCreation;
 import com.google.devtools.j2objc.ast.Block;
+import com.google.devtools.j2objc.ast.BodyDeclaration;
 import com.google.devtools.j2objc.ast.CastExpression;
 import com.google.devtools.j2objc.ast.ClassInstanceCreation;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.ast.CreationReference;
+import com.google.devtools.j2objc.ast.DoStatement;
+import com.google.devtools.j2objc.ast.EnhancedForStatement;
 import com.google.devtools.j2objc.ast.Expression;
 import com.google.devtools.j2objc.ast.ExpressionMethodReference;
 import com.google.devtools.j2objc.ast.ExpressionStatement;
 import com.google.devtools.j2objc.ast.FieldDeclaration;
+import com.google.devtools.j2objc.ast.ForStatement;
 import com.google.devtools.j2objc.ast.FunctionalExpression;
+import com.google.devtools.j2objc.ast.LabeledStatement;
 import com.google.devtools.j2objc.ast.LambdaExpression;
 import com.google.devtools.j2objc.ast.MethodDeclaration;
 import com.google.devtools.j2objc.ast.MethodInvocation;
+import com.google.devtools.j2objc.ast.MethodReference;
 import com.google.devtools.j2objc.ast.ReturnStatement;
 import com.google.devtools.j2objc.ast.SimpleName;
 import com.google.devtools.j2objc.ast.SingleVariableDeclaration;
+import com.google.devtools.j2objc.ast.Statement;
 import com.google.devtools.j2objc.ast.SuperConstructorInvocation;
 import com.google.devtools.j2objc.ast.SuperMethodInvocation;
 import com.google.devtools.j2objc.ast.SuperMethodReference;
+import com.google.devtools.j2objc.ast.ThisExpression;
 import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
 import com.google.devtools.j2objc.ast.TypeDeclaration;
 import com.google.devtools.j2objc.ast.TypeMethodReference;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
 import com.google.devtools.j2objc.ast.VariableDeclaration;
+import com.google.devtools.j2objc.ast.VariableDeclarationStatement;
+import com.google.devtools.j2objc.ast.WhileStatement;
 import com.google.devtools.j2objc.types.ExecutablePair;
 import com.google.devtools.j2objc.types.GeneratedExecutableElement;
 import com.google.devtools.j2objc.types.GeneratedVariableElement;
@@ -47,8 +57,13 @@ import com.google.devtools.j2objc.util.CaptureInfo;
 import com.google.devtools.j2objc.util.ElementUtil;
 import com.google.devtools.j2objc.util.TypeUtil;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
@@ -63,8 +78,22 @@ import javax.lang.model.type.TypeMirror;
  */
 public class LambdaRewriter extends UnitTreeVisitor {
 
+  static final String REFERENCES_SHARED = "Method references shared";
+  static final String REFERENCES_HOISTED = "Method references hoisted from loops";
+
   private final CaptureInfo captureInfo;
 
+  // The instances of non-capturing method references, by the reference they implement.
+  private final Map<List<Object>, VariableElement> sharedInstances = new HashMap<>();
+
+  // The locals that method references bound to "this" are hoisted to, by loop
+  // and by the reference they implement.
+  private final Map<Statement, Map<List<Object>, VariableElement>> hoistedReferences =
+      new HashMap<>();
+
+  private int sharedCount = 0;
+  private int hoistedCount = 0;
+
   public LambdaRewriter(CompilationUnit unit) {
     super(unit);
     this.captureInfo = unit.getEnv().captureInfo();
@@ -79,6 +108,7 @@ public class LambdaRewriter extends UnitTreeVisitor {
     private GeneratedExecutableElement implElement;
     private MethodDeclaration implDecl;
     private ClassInstanceCreation creation;
+    private VariableElement instanceVar;
 
     private RewriteContext(FunctionalExpression node) {
       this.node = node;
@@ -134,7 +164,7 @@ public class LambdaRewriter extends UnitTreeVisitor {
         node.replaceWith(creation);
       } else {
         // For non-capturing lambdas, create a static final instance.
-        VariableElement instanceVar = GeneratedVariableElement.newField(
+        instanceVar = GeneratedVariableElement.newField(
             "instance", lambdaType.asType(), lambdaType)
             .addModifiers(Modifier.STATIC, Modifier.FINAL);
         typeDecl.addBodyDeclaration(new FieldDeclaration(instanceVar, creation));
@@ -254,12 +284,32 @@ public class LambdaRewriter extends UnitTreeVisitor {
 
   @Override
   public void endVisit(CreationReference node) {
-    new RewriteContext(node).rewriteCreationReference(node);
+    List<Object> key = getReferenceKey(node);
+    if (!reuseInstance(node, key)) {
+      RewriteContext context = new RewriteContext(node);
+      context.rewriteCreationReference(node);
+      addSharedInstance(context, key);
+    }
   }
 
   @Override
   public void endVisit(ExpressionMethodReference node) {
-    new RewriteContext(node).rewriteExpressionMethodReference(node);
+    List<Object> key = getReferenceKey(node);
+    if (reuseInstance(node, key)) {
+      return;
+    }
+    Statement loop = TreeUtil.trimParentheses(node.getExpression()) instanceof ThisExpression
+        ? getOutermostLoop(node) : null;
+    if (loop != null && reuseHoistedReference(node, loop, key)) {
+      return;
+    }
+    RewriteContext context = new RewriteContext(node);
+    context.rewriteExpressionMethodReference(node);
+    if (loop != null) {
+      hoistReference(context, ElementUtil.getName(node.getExecutableElement()), loop, key);
+    } else {
+      addSharedInstance(context, key);
+    }
   }
 
   @Override
@@ -269,7 +319,141 @@ public class LambdaRewriter extends UnitTreeVisitor {
 
   @Override
   public void endVisit(TypeMethodReference node) {
-    new RewriteContext(node).rewriteTypeMethodReference(node);
+    List<Object> key = getReferenceKey(node);
+    if (!reuseInstance(node, key)) {
+      RewriteContext context = new RewriteContext(node);
+      context.rewriteTypeMethodReference(node);
+      addSharedInstance(context, key);
+    }
+  }
+
+  @Override
+  public void endVisit(CompilationUnit node) {
+    if (sharedCount > 0) {
+      options.statistics().add(REFERENCES_SHARED, sharedCount);
+    }
+    if (hoistedCount > 0) {
+      options.statistics().add(REFERENCES_HOISTED, hoistedCount);
+    }
+  }
+
+  /**
+   * Returns a key that is equal for method references that can share an
+   * implementation: references to the same method, with the same functional
+   * type, descriptor and varargs handling. Returns null for array constructor
+   * references, which have no method to tell them apart.
+   */
+  private static List<Object> getReferenceKey(MethodReference node) {
+    if (node.getExecutableElement() == null) {
+      return null;
+    }
+    return Arrays.asList(
+        node.getKind(),
+        node.getExecutableElement(),
+        node.getTypeMirror().toString(),
+        node.getDescriptor().type().toString(),
+        String.valueOf(node.getVarargsType()));
+  }
+
+  /**
+   * Replaces a non-capturing method reference with the instance of an
+   * identical one in this unit, returning false if there isn't one.
+   */
+  private boolean reuseInstance(MethodReference node, List<Object> key) {
+    if (key == null || captureInfo.isCapturing(node.getTypeElement())) {
+      return false;
+    }
+    VariableElement instanceVar = sharedInstances.get(key);
+    if (instanceVar == null) {
+      return false;
+    }
+    replaceReference(node, new SimpleName(instanceVar));
+    sharedCount++;
+    return true;
+  }
+
+  private void addSharedInstance(RewriteContext context, List<Object> key) {
+    if (key != null && context.instanceVar != null) {
+      sharedInstances.put(key, context.instanceVar);
+    }
+  }
+
+  /**
+   * Returns the outermost loop that a node is evaluated in, within the same
+   * method or lambda body, or null if it isn't in a loop.
+   */
+  private static Statement getOutermostLoop(TreeNode node) {
+    Statement loop = null;
+    for (TreeNode n = node.getParent(); n != null; n = n.getParent()) {
+      if (n instanceof ForStatement || n instanceof EnhancedForStatement
+          || n instanceof WhileStatement || n instanceof DoStatement) {
+        loop = (Statement) n;
+      } else if (n instanceof BodyDeclaration || n instanceof LambdaExpression) {
+        break;
+      }
+    }
+    return loop;
+  }
+
+  /**
+   * Replaces a method reference bound to "this" with the local that an
+   * identical one in the same loop was hoisted to, returning false if there
+   * isn't one.
+   */
+  private boolean reuseHoistedReference(MethodReference node, Statement loop, List<Object> key) {
+    Map<List<Object>, VariableElement> hoistedVars = hoistedReferences.get(loop);
+    VariableElement var = hoistedVars != null ? hoistedVars.get(key) : null;
+    if (var == null) {
+      return false;
+    }
+    replaceReference(node, new SimpleName(var));
+    hoistedCount++;
+    return true;
+  }
+
+  /**
+   * Moves the creation of a method reference bound to "this" to a local
+   * declared before the loop it is evaluated in, since its receiver can't
+   * change between iterations. Java doesn't require each evaluation of a
+   * method reference to create a new instance.
+   */
+  private void hoistReference(
+      RewriteContext context, String methodName, Statement loop, List<Object> key) {
+    Statement target = loop.getParent() instanceof LabeledStatement
+        ? (Statement) loop.getParent() : loop;
+    Map<List<Object>, VariableElement> hoistedVars = hoistedReferences.get(loop);
+    if (hoistedVars == null) {
+      Block block = new Block();
+      target.replaceWith(block);
+      block.addStatement(target);
+      hoistedVars = new HashMap<>();
+      hoistedReferences.put(loop, hoistedVars);
+    }
+    String name = methodName + "Ref";
+    Set<String> names = new HashSet<>();
+    for (VariableElement var : hoistedVars.values()) {
+      names.add(ElementUtil.getName(var));
+    }
+    for (int i = 2; names.contains(name + "__"); i++) {
+      name = methodName + "Ref" + i;
+    }
+    ClassInstanceCreation creation = context.creation;
+    VariableElement var = GeneratedVariableElement.newLocalVar(
+        name + "__", creation.getTypeMirror(), null);
+    creation.replaceWith(new SimpleName(var));
+    List<Statement> stmts = ((Block) target.getParent()).getStatements();
+    stmts.add(stmts.size() - 1, new VariableDeclarationStatement(var, creation));
+    hoistedVars.put(key, var);
+    hoistedCount++;
+  }
+
+  private static void replaceReference(MethodReference node, Expression replacement) {
+    TreeNode parent = node.getParent();
+    if (parent instanceof CastExpression) {
+      parent.replaceWith(replacement);
+    } else {
+      node.replaceWith(replacement);
+    }
   }
 
   private static String getParamName(int i) {
@@ -0,0 +1,341 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.translate;
+
+import com.google.devtools.j2objc.ast.AbstractTypeDeclaration;
+import com.google.devtools.j2objc.ast.Assignment;
+import com.google.devtools.j2objc.ast.Block;
+import com.google.devtools.j2objc.ast.BreakStatement;
+import com.google.devtools.j2objc.ast.ClassInstanceCreation;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.ast.ContinueStatement;
+import com.google.devtools.j2objc.ast.DoStatement;
+import com.google.devtools.j2objc.ast.Expression;
+import com.google.devtools.j2objc.ast.ExpressionStatement;
+import com.google.devtools.j2objc.ast.ForStatement;
+import com.google.devtools.j2objc.ast.FunctionDeclaration;
+import com.google.devtools.j2objc.ast.InfixExpression;
+import com.google.devtools.j2objc.ast.LabeledStatement;
+import com.google.devtools.j2objc.ast.MethodDeclaration;
+import com.google.devtools.j2objc.ast.MethodInvocation;
+import com.google.devtools.j2objc.ast.SimpleName;
+import com.google.devtools.j2objc.ast.SingleVariableDeclaration;
+import com.google.devtools.j2objc.ast.Statement;
+import com.google.devtools.j2objc.ast.TreeNode;
+import com.google.devtools.j2objc.ast.TreeUtil;
+import com.google.devtools.j2objc.ast.TreeVisitor;
+import com.google.devtools.j2objc.ast.TryStatement;
+import com.google.devtools.j2objc.ast.UnitTreeVisitor;
+import com.google.devtools.j2objc.ast.VariableDeclarationFragment;
+import com.google.devtools.j2objc.ast.VariableDeclarationStatement;
+import com.google.devtools.j2objc.ast.WhileStatement;
+import com.google.devtools.j2objc.types.ExecutablePair;
+import com.google.devtools.j2objc.types.GeneratedVariableElement;
+import com.google.devtools.j2objc.util.ElementUtil;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Rewrites String locals that are built up by concatenation inside a loop, so
+ * that the loop appends to a StringBuilder declared before it instead of
+ * creating a new string on each iteration. For example:
+ *
+ * <pre>
+ * for (...) { s += a + ":" + b; }
+ * </pre>
+ *
+ * becomes:
+ *
+ * <pre>
+ * {
+ *   StringBuilder sBuilder__ = new StringBuilder().append(s);
+ *   for (...) { sBuilder__.append(a).append(":").append(b); }
+ *   s = sBuilder__.toString();
+ * }
+ * </pre>
+ *
+ * A local is only rewritten when every reference to it in the loop is such an
+ * append, so the loop never observes the partially built string, and when the
+ * loop can't leave to code that might read it other than by completing.
+ */
+public class LoopStringConcatRewriter extends UnitTreeVisitor {
+
+  private static final Logger logger = Logger.getLogger(LoopStringConcatRewriter.class.getName());
+
+  static final String LOCALS_REWRITTEN = "Loop string concatenations rewritten";
+
+  private final TypeElement builderType;
+  private int rewrittenCount = 0;
+
+  public LoopStringConcatRewriter(CompilationUnit unit) {
+    super(unit);
+    builderType = typeUtil.resolveJavaType("java.lang.StringBuilder");
+  }
+
+  @Override
+  public boolean visit(ForStatement node) {
+    rewriteLoop(node);
+    return true;
+  }
+
+  @Override
+  public boolean visit(WhileStatement node) {
+    rewriteLoop(node);
+    return true;
+  }
+
+  @Override
+  public boolean visit(DoStatement node) {
+    rewriteLoop(node);
+    return true;
+  }
+
+  @Override
+  public void endVisit(CompilationUnit node) {
+    if (rewrittenCount > 0) {
+      options.statistics().add(LOCALS_REWRITTEN, rewrittenCount);
+      logger.fine(String.format("%s: %d loop string concatenations rewritten",
+          node.getSourceFilePath(), rewrittenCount));
+    }
+  }
+
+  private void rewriteLoop(Statement loop) {
+    if (builderType == null || mayCatchExceptions(loop)) {
+      return;
+    }
+    AppendScanner scanner = new AppendScanner();
+    loop.accept(scanner);
+    if (scanner.hasLabeledJump) {
+      return;
+    }
+    Map<VariableElement, List<ExpressionStatement>> appends = scanner.appends;
+    appends.keySet().removeAll(scanner.otherUses);
+    appends.keySet().removeAll(scanner.declaredVars);
+    if (appends.isEmpty()) {
+      return;
+    }
+
+    // Labels stay on the loop, so that any continue statements still apply to it.
+    Statement target = loop.getParent() instanceof LabeledStatement
+        ? (Statement) loop.getParent() : loop;
+    Block block = new Block();
+    target.replaceWith(block);
+    List<Statement> stmts = block.getStatements();
+    List<Statement> results = new ArrayList<>();
+    for (Map.Entry<VariableElement, List<ExpressionStatement>> entry : appends.entrySet()) {
+      VariableElement var = entry.getKey();
+      VariableElement builder = GeneratedVariableElement.newLocalVar(
+          ElementUtil.getName(var) + "Builder__", builderType.asType(), null);
+      ExecutablePair constructor = new ExecutablePair(ElementUtil.findConstructor(builderType));
+      Expression initialValue = newAppend(
+          new ClassInstanceCreation(constructor, builderType.asType()), new SimpleName(var));
+      stmts.add(new VariableDeclarationStatement(builder, initialValue));
+      for (ExpressionStatement append : entry.getValue()) {
+        Expression appended = new SimpleName(builder);
+        for (Expression operand : getAppendedOperands((Assignment) append.getExpression())) {
+          appended = newAppend(appended, operand);
+        }
+        append.setExpression(appended);
+      }
+      ExecutablePair toString = new ExecutablePair(ElementUtil.findMethod(builderType, "toString"));
+      results.add(new ExpressionStatement(new Assignment(
+          new SimpleName(var), new MethodInvocation(toString, new SimpleName(builder)))));
+      rewrittenCount++;
+    }
+    stmts.add(target);
+    stmts.addAll(results);
+  }
+
+  /**
+   * Returns true if an exception thrown by the loop may be caught within the
+   * same method, where the local could then be read before it is assigned.
+   */
+  private static boolean mayCatchExceptions(Statement loop) {
+    for (TreeNode node = loop.getParent(); node != null; node = node.getParent()) {
+      if (node instanceof TryStatement) {
+        return true;
+      }
+      if (node instanceof MethodDeclaration || node instanceof FunctionDeclaration
+          || node instanceof AbstractTypeDeclaration) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  private MethodInvocation newAppend(Expression builder, Expression operand) {
+    TypeMirror type = operand.getTypeMirror();
+    String paramType;
+    switch (type.getKind()) {
+      case BOOLEAN:
+        paramType = "boolean";
+        break;
+      case CHAR:
+        paramType = "char";
+        break;
+      case BYTE:
+      case SHORT:
+      case INT:
+        paramType = "int";
+        break;
+      case LONG:
+        paramType = "long";
+        break;
+      case FLOAT:
+        paramType = "float";
+        break;
+      case DOUBLE:
+        paramType = "double";
+        break;
+      default:
+        // Other references, including char arrays, are appended by their
+        // String.valueOf() value, as they are concatenated.
+        paramType = typeUtil.isString(type) ? "java.lang.String" : "java.lang.Object";
+    }
+    ExecutablePair append =
+        new ExecutablePair(ElementUtil.findMethod(builderType, "append", paramType));
+    MethodInvocation invocation = new MethodInvocation(append, builder);
+    invocation.addArgument(operand);
+    return invocation;
+  }
+
+  /**
+   * Returns the operands that an append statement concatenates to its local,
+   * detaching them from the tree.
+   */
+  private List<Expression> getAppendedOperands(Assignment node) {
+    Expression rhs = node.getRightHandSide();
+    List<Expression> operands = new ArrayList<>();
+    if (node.getOperator() == Assignment.Operator.ASSIGN) {
+      // s = s + a + b
+      List<Expression> infixOperands = ((InfixExpression) rhs).getOperands();
+      for (int i = 1; i < infixOperands.size(); i++) {
+        operands.add(infixOperands.get(i));
+      }
+    } else if (isStringConcatenation(rhs)) {
+      // s += a + b
+      operands.addAll(((InfixExpression) rhs).getOperands());
+    } else {
+      // s += a
+      operands.add(rhs);
+    }
+    for (Expression operand : operands) {
+      operand.remove();
+    }
+    return operands;
+  }
+
+  private boolean isStringConcatenation(Expression expr) {
+    return expr instanceof InfixExpression
+        && ((InfixExpression) expr).getOperator() == InfixExpression.Operator.PLUS
+        && typeUtil.isString(expr.getTypeMirror());
+  }
+
+  /**
+   * Returns the String local that a statement appends to, or null if the
+   * statement isn't "s += ..." or "s = s + ...".
+   */
+  private VariableElement getAppendedVariable(ExpressionStatement stmt) {
+    if (!(stmt.getExpression() instanceof Assignment)) {
+      return null;
+    }
+    Assignment assignment = (Assignment) stmt.getExpression();
+    VariableElement var = TreeUtil.getVariableElement(assignment.getLeftHandSide());
+    if (var == null || !ElementUtil.isLocalVariable(var) || !typeUtil.isString(var.asType())
+        || !(assignment.getLeftHandSide() instanceof SimpleName)) {
+      return null;
+    }
+    if (assignment.getOperator() == Assignment.Operator.PLUS_ASSIGN) {
+      return var;
+    }
+    Expression rhs = assignment.getRightHandSide();
+    if (assignment.getOperator() == Assignment.Operator.ASSIGN && isStringConcatenation(rhs)) {
+      Expression first = ((InfixExpression) rhs).getOperands().get(0);
+      if (first instanceof SimpleName && TreeUtil.getVariableElement(first) == var) {
+        return var;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Collects the append statements of a loop, and its other uses and
+   * declarations of local variables.
+   */
+  private class AppendScanner extends TreeVisitor {
+
+    private final Map<VariableElement, List<ExpressionStatement>> appends = new LinkedHashMap<>();
+    private final Set<VariableElement> otherUses = new HashSet<>();
+    private final Set<VariableElement> declaredVars = new HashSet<>();
+    private boolean hasLabeledJump = false;
+
+    @Override
+    public boolean visit(ExpressionStatement node) {
+      VariableElement var = getAppendedVariable(node);
+      if (var == null) {
+        return true;
+      }
+      appends.computeIfAbsent(var, v -> new ArrayList<>()).add(node);
+      Assignment assignment = (Assignment) node.getExpression();
+      Expression rhs = assignment.getRightHandSide();
+      if (assignment.getOperator() == Assignment.Operator.ASSIGN) {
+        List<Expression> operands = ((InfixExpression) rhs).getOperands();
+        for (int i = 1; i < operands.size(); i++) {
+          operands.get(i).accept(this);
+        }
+      } else {
+        rhs.accept(this);
+      }
+      return false;
+    }
+
+    @Override
+    public boolean visit(SimpleName node) {
+      VariableElement var = TreeUtil.getVariableElement(node);
+      if (var != null) {
+        otherUses.add(var);
+      }
+      return false;
+    }
+
+    @Override
+    public void endVisit(VariableDeclarationFragment node) {
+      declaredVars.add(node.getVariableElement());
+    }
+
+    @Override
+    public void endVisit(SingleVariableDeclaration node) {
+      declaredVars.add(node.getVariableElement());
+    }
+
+    @Override
+    public void endVisit(BreakStatement node) {
+      hasLabeledJump |= node.getLabel() != null;
+    }
+
+    @Override
+    public void endVisit(ContinueStatement node) {
+      hasLabeledJump |= node.getLabel() != null;
+    }
+  }
+}
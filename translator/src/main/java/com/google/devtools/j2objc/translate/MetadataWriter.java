@@ -72,6 +72,9 @@ public class MetadataWriter extends UnitTreeVisitor {
   // Metadata structure version. Increment it when any structure changes are made.
   public static final int METADATA_VERSION = 7;
 
+  static final String TYPES_OMITTED = "Unreachable metadata types omitted";
+  static final String MEMBERS_OMITTED = "Unreachable metadata members omitted";
+
   private static final NativeType CLASS_INFO_TYPE = new NativeType("const J2ObjcClassInfo *");
   private final ArrayType annotationArray;
   private final ArrayType annotationArray2D;
@@ -112,6 +115,15 @@ public class MetadataWriter extends UnitTreeVisitor {
     if (!translationUtil.needsReflection(type)) {
       return;
     }
+    // When only reachable metadata is requested, a type that isn't a reflection
+    // root only describes its reachable members, and is omitted if it has none.
+    // Enums are always described, since their constant names are read from
+    // their field metadata by JreEnumConstantName.
+    boolean allMembers = !options.reachableMetadataOnly() || translationUtil.isReflectionRoot(type);
+    if (!allMembers && !(node instanceof EnumDeclaration) && !hasReachableMembers(node)) {
+      options.statistics().increment(TYPES_OMITTED);
+      return;
+    }
 
     ExecutableElement metadataElement =
         GeneratedExecutableElement.newMethodWithSelector("__metadata", CLASS_INFO_TYPE, type)
@@ -122,11 +134,26 @@ public class MetadataWriter extends UnitTreeVisitor {
     Block body = new Block();
     metadataDecl.setBody(body);
 
-    new MetadataGenerator(node, body.getStatements()).generateClassMetadata(metadataElement);
+    new MetadataGenerator(node, body.getStatements(), allMembers)
+        .generateClassMetadata(metadataElement);
 
     node.addBodyDeclaration(metadataDecl);
   }
 
+  private boolean hasReachableMembers(AbstractTypeDeclaration node) {
+    for (MethodDeclaration decl : TreeUtil.getMethodDeclarations(node)) {
+      if (translationUtil.isReflectionRoot(decl.getExecutableElement())) {
+        return true;
+      }
+    }
+    for (FieldDeclaration decl : TreeUtil.getFieldDeclarations(node)) {
+      if (translationUtil.isReflectionRoot(decl.getFragment().getVariableElement())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Generates the metadata contents for a single type.
    */
@@ -136,15 +163,26 @@ public class MetadataWriter extends UnitTreeVisitor {
     private final TypeElement type;
     private final String className;
     private final List<Statement> stmts;
+    private final boolean allMembers;
     // Use a LinkedHashMap so that we can de-dupe values that are added to the pointer table.
     private final LinkedHashMap<String, Integer> pointers = new LinkedHashMap<>();
     private int annotationFuncCount = 0;
 
-    private MetadataGenerator(AbstractTypeDeclaration typeNode, List<Statement> stmts) {
+    private MetadataGenerator(
+        AbstractTypeDeclaration typeNode, List<Statement> stmts, boolean allMembers) {
       this.typeNode = typeNode;
       type = typeNode.getTypeElement();
       className = nameTable.getFullName(type);
       this.stmts = stmts;
+      this.allMembers = allMembers;
+    }
+
+    private boolean isReachable(Element member) {
+      if (allMembers || translationUtil.isReflectionRoot(member)) {
+        return true;
+      }
+      options.statistics().increment(MEMBERS_OMITTED);
+      return false;
     }
 
     private void generateClassMetadata(ExecutableElement element) {
@@ -203,7 +241,8 @@ public class MetadataWriter extends UnitTreeVisitor {
         ExecutableElement element = decl.getExecutableElement();
         // Skip synthetic methods and enum constructors.
         if (ElementUtil.isSynthetic(element)
-            || (ElementUtil.isEnum(type) && ElementUtil.isConstructor(element))) {
+            || (ElementUtil.isEnum(type) && ElementUtil.isConstructor(element))
+            || !isReachable(element)) {
           continue;
         }
         String annotationsFunc = createAnnotationsFunction(decl, element);
@@ -218,6 +257,9 @@ public class MetadataWriter extends UnitTreeVisitor {
       if (typeNode instanceof AnnotationTypeDeclaration) {
         // Add property accessor and static default methods.
         for (AnnotationTypeMemberDeclaration decl : TreeUtil.getAnnotationMembers(typeNode)) {
+          if (!isReachable(decl.getExecutableElement())) {
+            continue;
+          }
           String name = nameTable.getMethodSelector(decl.getExecutableElement());
           String returnType = getTypeName(decl.getExecutableElement().getReturnType());
           String metadata = UnicodeUtils.format("    { NULL, %s, 0x%x, -1, -1, -1, -1, -1, -1 },\n",
@@ -286,9 +328,12 @@ public class MetadataWriter extends UnitTreeVisitor {
         }
       }
       for (FieldDeclaration decl : TreeUtil.getFieldDeclarations(typeNode)) {
+        VariableDeclarationFragment f = decl.getFragment();
+        if (!isReachable(f.getVariableElement())) {
+          continue;
+        }
         // Fields that share a declaration can share an annotations function.
         String annotationsFunc = createAnnotationsFunction(decl, null);
-        VariableDeclarationFragment f = decl.getFragment();
         String metadata = generateFieldMetadata(f.getVariableElement(), annotationsFunc);
         if (metadata != null) {
           fieldMetadata.add(metadata);
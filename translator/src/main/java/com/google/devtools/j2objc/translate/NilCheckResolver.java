@@ -105,8 +105,26 @@ public class NilCheckResolver extends UnitTreeVisitor {
 
   private static final Set<VariableElement> EMPTY_VARS = Collections.emptySet();
 
+  static final String NONNULL_FIELDS_ELIDED = "Nil checks elided for non-null fields";
+  static final String NONNULL_PARAMETERS_ELIDED = "Nil checks elided for non-null parameters";
+  static final String NONNULL_RESULTS_ELIDED = "Nil checks elided for non-null method results";
+
+  private final NonnullAnalysis nonnullAnalysis;
+
+  // The method whose body is being visited, and the types whose instance or
+  // static fields may not be initialized yet.
+  private ExecutableElement currentMethod = null;
+  private TypeElement constructedType = null;
+  private TypeElement initializedType = null;
+
+  // The nil checks elided by the NonnullAnalysis, and the counter of each.
+  // Loop bodies are visited twice, so a check is counted once the whole unit
+  // has been visited.
+  private final Map<Expression, String> elidedChecks = new HashMap<>();
+
   public NilCheckResolver(CompilationUnit unit) {
     super(unit);
+    nonnullAnalysis = new NonnullAnalysis(unit, this::isKnownNonnullResult);
   }
 
   /**
@@ -339,6 +357,12 @@ public class NilCheckResolver extends UnitTreeVisitor {
   }
 
   private boolean isSafeVar(VariableElement var) {
+    Boolean result = getVarState(var);
+    return result != null && result;
+  }
+
+  // Returns whether a variable is safe or not safe, or null if it is unknown.
+  private Boolean getVarState(VariableElement var) {
     Scope curScope = scope;
     while (curScope != null) {
       Boolean result = curScope.vars.get(var);
@@ -347,7 +371,7 @@ public class NilCheckResolver extends UnitTreeVisitor {
       }
       curScope = curScope.next;
     }
-    return false;
+    return null;
   }
 
   private String getStatementLabel(Statement stmt) {
@@ -389,16 +413,21 @@ public class NilCheckResolver extends UnitTreeVisitor {
     return false;
   }
 
+  // Checks for some common cases where a method's result is known not to be null.
+  private boolean isKnownNonnullResult(ExecutableElement method) {
+    return ElementUtil.isConstructor(method) || ElementUtil.getName(method).equals("getClass")
+        || isBoxingMethod(method);
+  }
+
   private boolean needsNilCheck(Expression e) {
     VariableElement sym = TreeUtil.getVariableElement(e);
     if (sym != null) {
-      return !ElementUtil.isNonnull(sym) && (ElementUtil.isVolatile(sym) || !isSafeVar(sym));
+      return !ElementUtil.isNonnull(sym) && (ElementUtil.isVolatile(sym) || !isSafeVar(sym))
+          && getElisionCounter(e) == null;
     }
     ExecutableElement method = TreeUtil.getExecutableElement(e);
     if (method != null) {
-      // Check for some common cases where the result is known not to be null.
-      return !ElementUtil.isConstructor(method) && !ElementUtil.getName(method).equals("getClass")
-          && !isBoxingMethod(method);
+      return !isKnownNonnullResult(method) && getElisionCounter(e) == null;
     }
     switch (e.getKind()) {
       case CAST_EXPRESSION:
@@ -414,10 +443,58 @@ public class NilCheckResolver extends UnitTreeVisitor {
     }
   }
 
+  // Returns the counter of a nil check that the NonnullAnalysis elides, or
+  // null if the check isn't elided by it.
+  private String getElisionCounter(Expression e) {
+    VariableElement var = TreeUtil.getVariableElement(e);
+    if (var != null) {
+      // Only trust variables that aren't known to be safe or unsafe here.
+      if (ElementUtil.isNonnull(var) || ElementUtil.isVolatile(var) || getVarState(var) != null) {
+        return null;
+      }
+      if (nonnullAnalysis.isNonnullField(var) && isInitialized(var)) {
+        return NONNULL_FIELDS_ELIDED;
+      }
+      // Lambda parameters aren't trusted, since a functional interface's type
+      // arguments may be nullable.
+      if (currentMethod != null && currentMethod.getParameters().contains(var)
+          && nonnullAnalysis.isNonnullParameter(var)) {
+        return NONNULL_PARAMETERS_ELIDED;
+      }
+      return null;
+    }
+    ExecutableElement method = TreeUtil.getExecutableElement(e);
+    if (method != null) {
+      return !isKnownNonnullResult(method) && nonnullAnalysis.isNonnullResult(method)
+          ? NONNULL_RESULTS_ELIDED : null;
+    }
+    switch (e.getKind()) {
+      case CAST_EXPRESSION:
+        return getElisionCounter(((CastExpression) e).getExpression());
+      case PARENTHESIZED_EXPRESSION:
+        return getElisionCounter(((ParenthesizedExpression) e).getExpression());
+      default:
+        return null;
+    }
+  }
+
+  // Returns false within the constructors or class initializer of a field's
+  // declaring class, where the field may not be initialized yet.
+  private boolean isInitialized(VariableElement field) {
+    TypeElement declaringClass = ElementUtil.getDeclaringClass(field);
+    return declaringClass != (ElementUtil.isStatic(field) ? initializedType : constructedType);
+  }
+
   private void addNilCheck(Expression node) {
     if (!needsNilCheck(node)) {
+      String counter = getElisionCounter(node);
+      if (counter != null) {
+        elidedChecks.putIfAbsent(node, counter);
+      }
       return;
     }
+    // A loop body's first visit may have elided this check.
+    elidedChecks.remove(node);
     VariableElement var = TreeUtil.getVariableElement(node);
     if (var != null) {
       addSafeVar(var);
@@ -502,9 +579,15 @@ public class NilCheckResolver extends UnitTreeVisitor {
   public boolean visit(MethodDeclaration node) {
     Block body = node.getBody();
     if (body != null) {
+      currentMethod = node.getExecutableElement();
+      if (ElementUtil.isConstructor(currentMethod)) {
+        constructedType = ElementUtil.getDeclaringClass(currentMethod);
+      }
       pushFirstScope();
       body.accept(this);
       popLastScope();
+      currentMethod = null;
+      constructedType = null;
     }
     return false;
   }
@@ -520,14 +603,23 @@ public class NilCheckResolver extends UnitTreeVisitor {
     for (BodyDeclaration decl : node.getBodyDeclarations()) {
       decl.accept(this);
     }
+    initializedType = node.getTypeElement();
     pushFirstScope();
     for (Statement stmt : node.getClassInitStatements()) {
       stmt.accept(this);
     }
     popLastScope();
+    initializedType = null;
     return false;
   }
 
+  @Override
+  public void endVisit(CompilationUnit node) {
+    for (String counter : elidedChecks.values()) {
+      options.statistics().increment(counter);
+    }
+  }
+
   @Override
   public boolean visit(AnnotationTypeDeclaration node) {
     return visitType(node);
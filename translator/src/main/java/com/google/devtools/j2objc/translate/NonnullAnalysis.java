@@ -0,0 +1,311 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.translate;
+
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.ast.ArrayCreation;
+import com.google.devtools.j2objc.ast.Assignment;
+import com.google.devtools.j2objc.ast.CastExpression;
+import com.google.devtools.j2objc.ast.ClassInstanceCreation;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.ast.ConditionalExpression;
+import com.google.devtools.j2objc.ast.Expression;
+import com.google.devtools.j2objc.ast.FieldDeclaration;
+import com.google.devtools.j2objc.ast.InfixExpression;
+import com.google.devtools.j2objc.ast.LambdaExpression;
+import com.google.devtools.j2objc.ast.MethodDeclaration;
+import com.google.devtools.j2objc.ast.MethodReference;
+import com.google.devtools.j2objc.ast.ReturnStatement;
+import com.google.devtools.j2objc.ast.SimpleName;
+import com.google.devtools.j2objc.ast.StringLiteral;
+import com.google.devtools.j2objc.ast.ThisExpression;
+import com.google.devtools.j2objc.ast.TreeUtil;
+import com.google.devtools.j2objc.ast.TreeVisitor;
+import com.google.devtools.j2objc.ast.TypeLiteral;
+import com.google.devtools.j2objc.ast.VariableDeclarationFragment;
+import com.google.devtools.j2objc.util.ClassHierarchy;
+import com.google.devtools.j2objc.util.ElementUtil;
+import com.google.devtools.j2objc.util.TranslationUtil;
+import com.google.devtools.j2objc.util.TypeUtil;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Finds the fields and method results of a compilation unit that are never
+ * null, for NilCheckResolver:
+ * <ul>
+ * <li>final fields whose every initialization in the unit is a non-null value,
+ * if -Xnonnull-final-fields is set,
+ * <li>methods that can't be overridden and only return non-null values, and
+ * <li>methods and parameters annotated as non-null, or in null-marked code.
+ * </ul>
+ * Values such as "new" expressions, literals, "this" and string concatenations
+ * are non-null, as are results of the above methods and effectively final
+ * locals initialized with non-null values.
+ *
+ * <p>A final field is null until it is initialized, so callers must not trust
+ * it within the constructors or class initializer of its declaring class. It
+ * can still be read before then by a method that a superclass constructor
+ * calls, or through a leaked "this", which is why fields are only trusted
+ * when requested.
+ */
+final class NonnullAnalysis {
+
+  private final ElementUtil elementUtil;
+  private final TypeUtil typeUtil;
+  private final Options options;
+  private final Predicate<ExecutableElement> isKnownNonnullResult;
+
+  // The values each final field of the unit is initialized with.
+  private final Map<VariableElement, List<Expression>> fieldValues = new HashMap<>();
+  // The values each non-overridable method of the unit returns.
+  private final Map<ExecutableElement, List<Expression>> methodResults = new HashMap<>();
+  private final Map<VariableElement, Expression> localInitializers = new HashMap<>();
+  private final Set<VariableElement> reassignedLocals = new HashSet<>();
+
+  private final Set<VariableElement> nonnullFields = new HashSet<>();
+  private final Set<ExecutableElement> nonnullMethods = new HashSet<>();
+
+  NonnullAnalysis(CompilationUnit unit, Predicate<ExecutableElement> isKnownNonnullResult) {
+    this.elementUtil = unit.getEnv().elementUtil();
+    this.typeUtil = unit.getEnv().typeUtil();
+    this.options = unit.getEnv().options();
+    this.isKnownNonnullResult = isKnownNonnullResult;
+    unit.accept(new Collector());
+    solve();
+  }
+
+  /**
+   * Returns true if a final field of the unit is never null once initialized.
+   */
+  boolean isNonnullField(VariableElement field) {
+    return nonnullFields.contains(field);
+  }
+
+  /**
+   * Returns true if a method never returns null.
+   */
+  boolean isNonnullResult(ExecutableElement method) {
+    return nonnullMethods.contains(method) || isAnnotatedNonnull(method);
+  }
+
+  /**
+   * Returns true if a parameter is annotated as non-null, or is in null-marked
+   * code.
+   */
+  boolean isNonnullParameter(VariableElement param) {
+    return isAnnotatedNonnull(param);
+  }
+
+  private boolean isAnnotatedNonnull(Element element) {
+    if (ElementUtil.hasNonnullAnnotation(element)) {
+      return true;
+    }
+    TypeMirror type = ElementUtil.isMethod(element)
+        ? ((ExecutableElement) element).getReturnType() : element.asType();
+    return (type.getKind() == TypeKind.DECLARED || type.getKind() == TypeKind.ARRAY)
+        && !ElementUtil.hasNullableAnnotation(element)
+        && elementUtil.isNullMarked(element, options);
+  }
+
+  // Grows the sets of non-null fields and methods until they're stable. Since
+  // they start empty, a field or method is only added if it is proven
+  // non-null, and not if it only depends on itself.
+  private void solve() {
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (Map.Entry<VariableElement, List<Expression>> entry : fieldValues.entrySet()) {
+        if (!nonnullFields.contains(entry.getKey()) && areNonnull(entry.getValue())) {
+          changed |= nonnullFields.add(entry.getKey());
+        }
+      }
+      for (Map.Entry<ExecutableElement, List<Expression>> entry : methodResults.entrySet()) {
+        if (!nonnullMethods.contains(entry.getKey()) && areNonnull(entry.getValue())) {
+          changed |= nonnullMethods.add(entry.getKey());
+        }
+      }
+    }
+  }
+
+  private boolean areNonnull(List<Expression> values) {
+    if (values.isEmpty()) {
+      return false;
+    }
+    for (Expression value : values) {
+      if (!isNonnullValue(value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isNonnullValue(Expression expr) {
+    if (expr == null) {
+      return false;
+    }
+    expr = TreeUtil.trimParentheses(expr);
+    if (expr instanceof ClassInstanceCreation || expr instanceof ArrayCreation
+        || expr instanceof StringLiteral || expr instanceof TypeLiteral
+        || expr instanceof ThisExpression || expr instanceof LambdaExpression
+        || expr instanceof MethodReference) {
+      return true;
+    }
+    if (expr instanceof CastExpression) {
+      return isNonnullValue(((CastExpression) expr).getExpression());
+    }
+    if (expr instanceof ConditionalExpression) {
+      ConditionalExpression conditional = (ConditionalExpression) expr;
+      return isNonnullValue(conditional.getThenExpression())
+          && isNonnullValue(conditional.getElseExpression());
+    }
+    if (expr instanceof InfixExpression) {
+      // String concatenation.
+      return ((InfixExpression) expr).getOperator() == InfixExpression.Operator.PLUS
+          && typeUtil.isString(expr.getTypeMirror());
+    }
+    ExecutableElement method = TreeUtil.getExecutableElement(expr);
+    if (method != null) {
+      return isKnownNonnullResult.test(method) || isNonnullResult(method);
+    }
+    VariableElement var = TreeUtil.getVariableElement(expr);
+    if (var != null) {
+      if (ElementUtil.isNonnull(var) || nonnullFields.contains(var)) {
+        return true;
+      }
+      if (ElementUtil.isParameter(var)) {
+        return !reassignedLocals.contains(var) && isMethodParameter(var)
+            && isNonnullParameter(var);
+      }
+      return ElementUtil.isLocalVariable(var) && !reassignedLocals.contains(var)
+          && isNonnullValue(localInitializers.get(var));
+    }
+    return false;
+  }
+
+  // Returns false for lambda parameters, whose nullness depends on the type
+  // arguments of their functional interface.
+  private static boolean isMethodParameter(VariableElement param) {
+    Element owner = param.getEnclosingElement();
+    return owner instanceof ExecutableElement
+        && ((ExecutableElement) owner).getParameters().contains(param);
+  }
+
+  // Returns true if a method can't be overridden, so that its results are the
+  // values returned by its declaration.
+  private boolean isNonOverridable(MethodDeclaration node) {
+    ExecutableElement method = node.getExecutableElement();
+    if (ElementUtil.isStatic(method) || ElementUtil.isPrivate(method) || ElementUtil.isFinal(method)
+        || ElementUtil.isFinal(ElementUtil.getDeclaringClass(method))) {
+      return true;
+    }
+    ClassHierarchy classHierarchy = options.classHierarchy();
+    return classHierarchy != null && classHierarchy.isEffectivelyFinal(method, elementUtil);
+  }
+
+  private class Collector extends TreeVisitor {
+
+    private List<Expression> currentResults = null;
+
+    // A final field can only be initialized by its own class, so every value
+    // it's assigned is in this unit.
+    private void addFieldValue(VariableElement field, Expression value) {
+      if (options.nonnullFinalFields() && field.getKind().isField()
+          && ElementUtil.isFinal(field) && !field.asType().getKind().isPrimitive()) {
+        List<Expression> values = fieldValues.computeIfAbsent(field, k -> new ArrayList<>());
+        if (value != null) {
+          values.add(value);
+        }
+      }
+    }
+
+    @Override
+    public boolean visit(FieldDeclaration node) {
+      VariableDeclarationFragment fragment = node.getFragment();
+      addFieldValue(fragment.getVariableElement(), fragment.getInitializer());
+      return false;
+    }
+
+    @Override
+    public boolean visit(MethodDeclaration node) {
+      ExecutableElement method = node.getExecutableElement();
+      TypeKind returnKind = method.getReturnType().getKind();
+      if (node.getBody() != null && !ElementUtil.isNative(method)
+          && (returnKind == TypeKind.DECLARED || returnKind == TypeKind.ARRAY)
+          && isNonOverridable(node)) {
+        currentResults = methodResults.computeIfAbsent(method, k -> new ArrayList<>());
+      }
+      return true;
+    }
+
+    @Override
+    public void endVisit(MethodDeclaration node) {
+      currentResults = null;
+    }
+
+    @Override
+    public boolean visit(LambdaExpression node) {
+      // A lambda's return statements don't return from the enclosing method.
+      List<Expression> results = currentResults;
+      currentResults = null;
+      node.getBody().accept(this);
+      currentResults = results;
+      return false;
+    }
+
+    @Override
+    public void endVisit(ReturnStatement node) {
+      if (currentResults != null) {
+        // A null expression is a void return, which the method's type excludes.
+        currentResults.add(node.getExpression());
+      }
+    }
+
+    @Override
+    public void endVisit(Assignment node) {
+      VariableElement var = TreeUtil.getVariableElement(node.getLeftHandSide());
+      if (var != null) {
+        addFieldValue(var, node.getRightHandSide());
+      }
+    }
+
+    @Override
+    public void endVisit(VariableDeclarationFragment node) {
+      VariableElement var = node.getVariableElement();
+      if (ElementUtil.isLocalVariable(var) && node.getInitializer() != null) {
+        localInitializers.put(var, node.getInitializer());
+      }
+    }
+
+    @Override
+    public void endVisit(SimpleName node) {
+      VariableElement var = TreeUtil.getVariableElement(node);
+      if (var != null && (ElementUtil.isLocalVariable(var) || ElementUtil.isParameter(var))
+          && TranslationUtil.isAssigned(node)) {
+        reassignedLocals.add(var);
+      }
+    }
+  }
+}
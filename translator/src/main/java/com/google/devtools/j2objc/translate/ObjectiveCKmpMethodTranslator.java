@@ -170,6 +170,10 @@ public final class ObjectiveCKmpMethodTranslator extends UnitTreeVisitor {
   @Override
   public void run() {
     Set<AbstractTypeDeclaration> existingTypes = new HashSet<>(unit.getTypes());
+    Set<BodyDeclaration> existingDecls = new HashSet<>();
+    for (AbstractTypeDeclaration type : existingTypes) {
+      existingDecls.addAll(type.getBodyDeclarations());
+    }
     super.run();
     new LambdaTypeElementAdder(unit).run();
     new LambdaRewriter(unit).run();
@@ -198,7 +202,21 @@ public final class ObjectiveCKmpMethodTranslator extends UnitTreeVisitor {
           }
         });
 
-    new StaticVarRewriter(unit).run();
+    // Only rewrite the static variable accesses of generated declarations.
+    // StaticVarRewriter leaves some accesses of the existing code without a
+    // static load, which must not be added by a second run.
+    StaticVarRewriter staticVarRewriter = new StaticVarRewriter(unit);
+    for (AbstractTypeDeclaration type : unit.getTypes()) {
+      if (!existingTypes.contains(type)) {
+        type.accept(staticVarRewriter);
+        continue;
+      }
+      for (BodyDeclaration decl : type.getBodyDeclarations()) {
+        if (!existingDecls.contains(decl)) {
+          decl.accept(staticVarRewriter);
+        }
+      }
+    }
     new PrivateDeclarationResolver(unit).run();
   }
 
@@ -15,6 +15,7 @@
 package com.google.devtools.j2objc.translate;
 
 import com.google.common.collect.Lists;
+import com.google.devtools.j2objc.ast.AbstractTypeDeclaration;
 import com.google.devtools.j2objc.ast.Assignment;
 import com.google.devtools.j2objc.ast.BooleanLiteral;
 import com.google.devtools.j2objc.ast.CStringLiteral;
@@ -42,6 +43,7 @@ import com.google.devtools.j2objc.ast.SynchronizedStatement;
 import com.google.devtools.j2objc.ast.ThisExpression;
 import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
+import com.google.devtools.j2objc.ast.TreeVisitor;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
 import com.google.devtools.j2objc.ast.VariableDeclaration;
 import com.google.devtools.j2objc.ast.VariableDeclarationFragment;
@@ -78,6 +80,8 @@ import org.jspecify.annotations.Nullable;
  */
 public class OperatorRewriter extends UnitTreeVisitor {
 
+  static final String CONCATENATIONS_FOLDED = "String concatenations folded";
+
   private final LinkedList<Set<VariableElement>> retainedLocalCandidateStack = new LinkedList<>();
   private Set<VariableElement> retainedLocalCandidates = new HashSet<>();
   private boolean maybeRetainMethodReturn = false;
@@ -715,15 +719,41 @@ public class OperatorRewriter extends UnitTreeVisitor {
   }
 
   private void rewriteStringConcatenation(InfixExpression node) {
+    Object constantValue = node.getConstantValue();
+    if (constantValue instanceof String
+        && UnicodeUtils.hasValidCppCharacters((String) constantValue)
+        && hasOnlyUnitConstants(node)) {
+      // Its operands may have been rewritten already, such as int additions.
+      node.replaceWith(new StringLiteral((String) constantValue, typeUtil));
+      options.statistics().increment(CONCATENATIONS_FOLDED);
+      return;
+    }
     List<Expression> childOperands = node.getOperands();
     List<Expression> operands = Lists.newArrayListWithCapacity(childOperands.size());
     TreeUtil.moveList(childOperands, operands);
 
     operands = coalesceStringLiterals(operands);
-    if (operands.size() == 1 && typeUtil.isString(operands.get(0).getTypeMirror())) {
-      node.replaceWith(operands.get(0));
+    if (operands.isEmpty()) {
+      node.replaceWith(new StringLiteral("", typeUtil));
+      options.statistics().increment(CONCATENATIONS_FOLDED);
       return;
     }
+    if (operands.size() == 1) {
+      Expression operand = operands.get(0);
+      if (operand instanceof CharacterLiteral) {
+        // All operands were constants that coalesced to a single character.
+        node.replaceWith(new StringLiteral(
+            String.valueOf(((CharacterLiteral) operand).charValue()), typeUtil));
+        options.statistics().increment(CONCATENATIONS_FOLDED);
+        return;
+      } else if (typeUtil.isString(operand.getTypeMirror())) {
+        if (operand instanceof StringLiteral) {
+          options.statistics().increment(CONCATENATIONS_FOLDED);
+        }
+        node.replaceWith(operand);
+        return;
+      }
+    }
 
     TypeMirror stringType = typeUtil.getJavaString().asType();
     FunctionElement element = new FunctionElement("JreStrcat", stringType, null)
@@ -798,7 +828,7 @@ public class OperatorRewriter extends UnitTreeVisitor {
     }
   }
 
-  private static @Nullable String getLiteralStringValue(Expression expr) {
+  private @Nullable String getLiteralStringValue(Expression expr) {
     switch (expr.getKind()) {
       case STRING_LITERAL:
         String literalValue = ((StringLiteral) expr).getLiteralValue();
@@ -813,9 +843,48 @@ public class OperatorRewriter extends UnitTreeVisitor {
         return String.valueOf(((CharacterLiteral) expr).charValue());
       case NUMBER_LITERAL:
         return ((NumberLiteral) expr).getValue().toString();
+      case PARENTHESIZED_EXPRESSION:
+        return getLiteralStringValue(((ParenthesizedExpression) expr).getExpression());
       default:
-        return null;
+        // Constant variables and other compile-time constant expressions.
+        Object constantValue = expr.getConstantValue();
+        if (constantValue == null || !hasOnlyUnitConstants(expr)) {
+          return null;
+        }
+        String value = String.valueOf(constantValue);
+        return UnicodeUtils.hasValidCppCharacters(value) ? value : null;
+    }
+  }
+
+  /**
+   * Returns true if a constant expression only names constants declared in
+   * this unit. Folding another class's constant would drop the unit's
+   * reference to that class, which the translation cache uses to find the
+   * unit's dependencies.
+   */
+  private boolean hasOnlyUnitConstants(Expression expr) {
+    boolean[] result = { true };
+    expr.accept(new TreeVisitor() {
+      @Override
+      public boolean visit(SimpleName node) {
+        VariableElement var = TreeUtil.getVariableElement(node);
+        if (var != null && ElementUtil.isField(var)
+            && !isDeclaredInUnit(ElementUtil.getDeclaringClass(var))) {
+          result[0] = false;
+        }
+        return false;
+      }
+    });
+    return result[0];
+  }
+
+  private boolean isDeclaredInUnit(TypeElement type) {
+    for (AbstractTypeDeclaration decl : unit.getTypes()) {
+      if (decl.getTypeElement() == type) {
+        return true;
+      }
     }
+    return false;
   }
 
   /**
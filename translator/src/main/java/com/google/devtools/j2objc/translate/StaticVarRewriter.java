@@ -14,22 +14,37 @@
 
 package com.google.devtools.j2objc.translate;
 
+import com.google.devtools.j2objc.ast.Block;
 import com.google.devtools.j2objc.ast.CommaExpression;
 import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.ast.ConditionalExpression;
 import com.google.devtools.j2objc.ast.Expression;
+import com.google.devtools.j2objc.ast.ExpressionStatement;
 import com.google.devtools.j2objc.ast.FieldAccess;
+import com.google.devtools.j2objc.ast.FunctionDeclaration;
+import com.google.devtools.j2objc.ast.FunctionInvocation;
+import com.google.devtools.j2objc.ast.InfixExpression;
+import com.google.devtools.j2objc.ast.MethodDeclaration;
 import com.google.devtools.j2objc.ast.NativeExpression;
 import com.google.devtools.j2objc.ast.Pattern;
 import com.google.devtools.j2objc.ast.PrefixExpression;
 import com.google.devtools.j2objc.ast.QualifiedName;
 import com.google.devtools.j2objc.ast.SimpleName;
+import com.google.devtools.j2objc.ast.Statement;
 import com.google.devtools.j2objc.ast.SwitchCase;
+import com.google.devtools.j2objc.ast.SwitchExpression;
 import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
+import com.google.devtools.j2objc.ast.VariableDeclarationStatement;
 import com.google.devtools.j2objc.types.PointerType;
 import com.google.devtools.j2objc.util.ElementUtil;
 import com.google.devtools.j2objc.util.TranslationUtil;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
@@ -37,10 +52,30 @@ import javax.lang.model.type.TypeMirror;
 /**
  * Converts static variable access to static method calls where necessary.
  *
+ * <p>A static load initializes the variable's class, so it isn't needed where
+ * the class is known to be initialized: within instance methods of the class
+ * or a subclass, and in the statements of a block that follow a load or
+ * initialization of the class. Knowledge from a statement is only used by
+ * later statements of the same block or its nested blocks, and only if the
+ * statement always initializes the class when it completes.
+ *
  * @author Keith Stanger
  */
 public class StaticVarRewriter extends UnitTreeVisitor {
 
+  static final String INIT_CHECKS_ELIMINATED = "Class initialization checks eliminated";
+
+  private static final Logger logger = Logger.getLogger(StaticVarRewriter.class.getName());
+
+  // The classes known to be initialized before the current statement.
+  private Set<TypeElement> initializedTypes = new HashSet<>();
+  // The classes that the current statement initializes when it completes, or
+  // null if the statement isn't directly in a block.
+  private Set<TypeElement> initializedByStatement = null;
+  // The depth of conditionally evaluated expressions within the statement.
+  private int conditionalDepth = 0;
+  private int eliminatedCount = 0;
+
   public StaticVarRewriter(CompilationUnit unit) {
     super(unit);
   }
@@ -53,6 +88,23 @@ public class StaticVarRewriter extends UnitTreeVisitor {
     return enclosingType == null || !enclosingType.equals(ElementUtil.getDeclaringClass(var));
   }
 
+  // Adds a class and its superclasses, which Java initializes first.
+  private static void addInitializedType(Set<TypeElement> types, TypeElement type) {
+    types.add(type);
+    if (!ElementUtil.isInterface(type)) {
+      for (TypeElement superclass = ElementUtil.getSuperclass(type); superclass != null;
+          superclass = ElementUtil.getSuperclass(superclass)) {
+        types.add(superclass);
+      }
+    }
+  }
+
+  private void setInitializedByStatement(TypeElement type) {
+    if (initializedByStatement != null && conditionalDepth == 0) {
+      addInitializedType(initializedByStatement, type);
+    }
+  }
+
   private void rewriteStaticAccess(Expression node) {
     VariableElement var = TreeUtil.getVariableElement(node);
     if (var == null || !needsStaticLoad(node, var)) {
@@ -60,6 +112,11 @@ public class StaticVarRewriter extends UnitTreeVisitor {
     }
 
     TypeElement declaringClass = ElementUtil.getDeclaringClass(var);
+    if (initializedTypes.contains(declaringClass)) {
+      eliminatedCount++;
+      return;
+    }
+    setInitializedByStatement(declaringClass);
     boolean assignable = TranslationUtil.isAssigned(node);
     StringBuilder code = new StringBuilder(
         ElementUtil.isEnumConstant(var) ? "JreLoadEnum" : "JreLoadStatic");
@@ -82,6 +139,127 @@ public class StaticVarRewriter extends UnitTreeVisitor {
     node.replaceWith(newNode);
   }
 
+  @Override
+  public boolean visit(CompilationUnit node) {
+    eliminatedCount = 0;
+    return true;
+  }
+
+  @Override
+  public void endVisit(CompilationUnit node) {
+    options.statistics().add(INIT_CHECKS_ELIMINATED, eliminatedCount);
+    logger.fine(String.format("%s: eliminated %d class initialization checks",
+        node.getSourceFilePath(), eliminatedCount));
+  }
+
+  @Override
+  public boolean visit(MethodDeclaration node) {
+    visitBody(node.getExecutableElement(), node.getBody());
+    return false;
+  }
+
+  @Override
+  public boolean visit(FunctionDeclaration node) {
+    visitBody(node.getExecutableElement(), node.getBody());
+    return false;
+  }
+
+  private void visitBody(ExecutableElement method, Block body) {
+    if (body == null) {
+      return;
+    }
+    // An instance exists, so its class has been initialized. Interfaces are
+    // not initialized by their implementations.
+    initializedTypes = new HashSet<>();
+    // Generated functions may not have a method element.
+    if (method != null && !ElementUtil.isStatic(method)) {
+      TypeElement declaringClass = ElementUtil.getDeclaringClass(method);
+      if (!ElementUtil.isInterface(declaringClass)) {
+        addInitializedType(initializedTypes, declaringClass);
+      }
+    }
+    body.accept(this);
+    initializedTypes = new HashSet<>();
+  }
+
+  @Override
+  public boolean visit(Block node) {
+    Set<TypeElement> outerInitializedTypes = initializedTypes;
+    Set<TypeElement> outerInitializedByStatement = initializedByStatement;
+    int outerConditionalDepth = conditionalDepth;
+    initializedTypes = new HashSet<>(outerInitializedTypes);
+    conditionalDepth = 0;
+    List<Statement> stmts = node.getStatements();
+    for (int i = 0; i < stmts.size(); i++) {
+      Statement stmt = stmts.get(i);
+      initializedByStatement = new HashSet<>();
+      stmt.accept(this);
+      if (isSimpleStatement(stmt)) {
+        initializedTypes.addAll(initializedByStatement);
+      }
+    }
+    initializedTypes = outerInitializedTypes;
+    initializedByStatement = outerInitializedByStatement;
+    conditionalDepth = outerConditionalDepth;
+    return false;
+  }
+
+  // Returns true for statements that evaluate all of their unconditional
+  // expressions when they complete normally. Compound statements may skip
+  // them with break or continue.
+  private static boolean isSimpleStatement(Statement stmt) {
+    return stmt instanceof ExpressionStatement || stmt instanceof VariableDeclarationStatement;
+  }
+
+  @Override
+  public void endVisit(FunctionInvocation node) {
+    // The class initialization that Functionizer adds to static functions.
+    TypeElement declaringClass = node.getFunctionElement().getDeclaringClass();
+    if (declaringClass != null && node.getFunctionElement().getName().equals(
+        nameTable.getFullName(declaringClass) + "_initialize")) {
+      setInitializedByStatement(declaringClass);
+    }
+  }
+
+  @Override
+  public boolean visit(ConditionalExpression node) {
+    node.getExpression().accept(this);
+    conditionalDepth++;
+    node.getThenExpression().accept(this);
+    node.getElseExpression().accept(this);
+    conditionalDepth--;
+    return false;
+  }
+
+  @Override
+  public boolean visit(InfixExpression node) {
+    InfixExpression.Operator op = node.getOperator();
+    if (op != InfixExpression.Operator.CONDITIONAL_AND
+        && op != InfixExpression.Operator.CONDITIONAL_OR) {
+      return true;
+    }
+    // Only the first operand is always evaluated.
+    List<Expression> operands = node.getOperands();
+    operands.get(0).accept(this);
+    conditionalDepth++;
+    for (int i = 1; i < operands.size(); i++) {
+      operands.get(i).accept(this);
+    }
+    conditionalDepth--;
+    return false;
+  }
+
+  @Override
+  public boolean visit(SwitchExpression node) {
+    node.getExpression().accept(this);
+    conditionalDepth++;
+    for (Statement stmt : node.getStatements()) {
+      stmt.accept(this);
+    }
+    conditionalDepth--;
+    return false;
+  }
+
   @Override
   public boolean visit(FieldAccess node) {
     VariableElement var = node.getVariableElement();
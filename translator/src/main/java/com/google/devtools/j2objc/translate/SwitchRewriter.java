@@ -24,9 +24,11 @@ import com.google.devtools.j2objc.ast.ExpressionStatement;
 import com.google.devtools.j2objc.ast.FunctionInvocation;
 import com.google.devtools.j2objc.ast.MethodInvocation;
 import com.google.devtools.j2objc.ast.NativeExpression;
+import com.google.devtools.j2objc.ast.NativeStatement;
 import com.google.devtools.j2objc.ast.NumberLiteral;
 import com.google.devtools.j2objc.ast.SimpleName;
 import com.google.devtools.j2objc.ast.Statement;
+import com.google.devtools.j2objc.ast.StringLiteral;
 import com.google.devtools.j2objc.ast.SwitchCase;
 import com.google.devtools.j2objc.ast.SwitchExpression;
 import com.google.devtools.j2objc.ast.SwitchStatement;
@@ -37,6 +39,10 @@ import com.google.devtools.j2objc.ast.VariableDeclarationStatement;
 import com.google.devtools.j2objc.types.ExecutablePair;
 import com.google.devtools.j2objc.types.FunctionElement;
 import com.google.devtools.j2objc.util.TypeUtil;
+import com.google.devtools.j2objc.util.UnicodeUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.VariableElement;
@@ -56,6 +62,9 @@ import org.jspecify.annotations.Nullable;
  */
 public class SwitchRewriter extends UnitTreeVisitor {
 
+  // Numbers the static tables of string switches, which may be nested.
+  private int switchTableCount = 0;
+
   public SwitchRewriter(CompilationUnit unit) {
     super(unit);
   }
@@ -146,11 +155,16 @@ public class SwitchRewriter extends UnitTreeVisitor {
     }
   }
 
-  private @Nullable Expression fixStringValue(Expression expr, List<Statement> statements) {
+  private @Nullable Expression fixStringValue(
+      Expression expr, List<Statement> statements, Statement enclosingStmt) {
     TypeMirror type = expr.getTypeMirror();
     if (!typeUtil.isString(type)) {
       return null;
     }
+    Expression hashedInvocation = newHashedIndexOfStr(expr, statements, enclosingStmt);
+    if (hashedInvocation != null) {
+      return hashedInvocation;
+    }
     ArrayType arrayType = typeUtil.getArrayType(type);
     ArrayInitializer arrayInit = new ArrayInitializer(arrayType);
     int idx = 0;
@@ -175,15 +189,91 @@ public class SwitchRewriter extends UnitTreeVisitor {
     return invocation;
   }
 
+  /**
+   * Returns a JreIndexOfStrHashed call that looks up the switch value in
+   * static tables of the case values and their Java hash codes, sorted by
+   * hash code. Each case is relabeled with its index in the tables. Returns
+   * null if a case value isn't a string constant that can be a static
+   * Objective-C literal, such as a null case.
+   */
+  private @Nullable Expression newHashedIndexOfStr(
+      Expression expr, List<Statement> statements, Statement enclosingStmt) {
+    List<Expression> caseExprs = new ArrayList<>();
+    List<String> caseValues = new ArrayList<>();
+    for (Statement stmt : statements) {
+      if (stmt instanceof SwitchCase caseStmt && !caseStmt.isDefault()) {
+        for (Expression caseExpr : caseStmt.getExpressions()) {
+          String value = getStringConstant(caseExpr);
+          if (value == null) {
+            return null;
+          }
+          caseExprs.add(caseExpr);
+          caseValues.add(value);
+        }
+      }
+    }
+    if (caseValues.isEmpty()) {
+      return null;
+    }
+    // A stable sort, so that values with the same hash stay in case order.
+    Integer[] order = new Integer[caseValues.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingInt(i -> caseValues.get(i).hashCode()));
+    StringBuilder hashes = new StringBuilder();
+    StringBuilder values = new StringBuilder();
+    for (int i = 0; i < order.length; i++) {
+      String value = caseValues.get(order[i]);
+      hashes.append(i == 0 ? " " : ", ").append(value.hashCode());
+      values.append(i == 0 ? " " : ", ")
+          .append("@\"").append(UnicodeUtils.escapeStringLiteral(value)).append('"');
+      caseExprs.get(order[i]).replaceWith(NumberLiteral.newIntLiteral(i, typeUtil));
+    }
+    int tableIndex = switchTableCount++;
+    String hashesName = "switchHashes$" + tableIndex;
+    String valuesName = "switchValues$" + tableIndex;
+    TreeUtil.insertBefore(enclosingStmt, new NativeStatement(
+        UnicodeUtils.format("static const int32_t %s[] = {%s };", hashesName, hashes)));
+    TreeUtil.insertBefore(enclosingStmt, new NativeStatement(
+        UnicodeUtils.format("static NSString * const %s[] = {%s };", valuesName, values)));
+
+    TypeMirror type = expr.getTypeMirror();
+    TypeMirror intType = typeUtil.getInt();
+    ArrayType hashesType = typeUtil.getArrayType(intType);
+    ArrayType valuesType = typeUtil.getArrayType(type);
+    FunctionElement indexOfFunc = new FunctionElement("JreIndexOfStrHashed", intType, null)
+        .addParameters(type, hashesType, valuesType, intType);
+    FunctionInvocation invocation = new FunctionInvocation(indexOfFunc, intType);
+    invocation.addArgument(TreeUtil.remove(expr))
+        .addArgument(new NativeExpression(hashesName, hashesType))
+        .addArgument(new NativeExpression(valuesName, valuesType))
+        .addArgument(NumberLiteral.newIntLiteral(order.length, typeUtil));
+    return invocation;
+  }
+
+  // Returns the value of a case that can be a static Objective-C string
+  // literal, or null.
+  private static @Nullable String getStringConstant(Expression expr) {
+    Object value = expr instanceof StringLiteral literal
+        ? literal.getLiteralValue() : expr.getConstantValue();
+    // Strings with "??" are split to avoid trigraphs, and strings with other
+    // characters are created at runtime.
+    return value instanceof String s && UnicodeUtils.hasValidCppCharacters(s)
+        && !s.contains("??") ? s : null;
+  }
+
   private void fixStringValue(SwitchStatement node) {
-    Expression expr = fixStringValue(node.getExpression(), node.getStatements());
+    Expression expr = fixStringValue(node.getExpression(), node.getStatements(), node);
     if (expr != null) {
       SwitchStatement unused = node.setExpression(expr);
     }
   }
 
   private void fixStringValue(SwitchExpression node) {
-    Expression expr = fixStringValue(node.getExpression(), node.getStatements());
+    Expression expr = fixStringValue(
+        node.getExpression(), node.getStatements(),
+        TreeUtil.getNearestAncestorWithType(Statement.class, node));
     if (expr != null) {
       SwitchExpression unused = node.setExpression(expr);
     }
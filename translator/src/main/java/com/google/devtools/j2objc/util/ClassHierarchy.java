@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The class hierarchy of a whole program, as written by the tree shaker's
+ * --output-class-hierarchy flag. Each line lists a type's binary name, the
+ * binary name of its superclass, and the names of the instance methods it
+ * declares, separated by spaces. Blank lines and lines starting with '#' are
+ * ignored.
+ *
+ * <p>The hierarchy is assumed to be closed: every subclass in the program is
+ * listed. Methods are matched by name only, so an overload in a subclass is
+ * conservatively treated as an override.
+ */
+public final class ClassHierarchy {
+
+  private static final Splitter SPLITTER = Splitter.on(' ').omitEmptyStrings();
+
+  private final Map<String, Set<String>> methodNames = new HashMap<>();
+  private final Map<String, List<String>> subclasses = new HashMap<>();
+
+  // Whether a method name is declared by any subclass of a type, keyed by
+  // type and method name.
+  private final Map<String, Boolean> overridden = new HashMap<>();
+
+  private ClassHierarchy() {}
+
+  public static ClassHierarchy load(File file) throws IOException {
+    ClassHierarchy hierarchy = new ClassHierarchy();
+    int lineNumber = 0;
+    for (String line : Files.readAllLines(file.toPath(), UTF_8)) {
+      lineNumber++;
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      List<String> fields = SPLITTER.splitToList(line);
+      if (fields.size() < 2) {
+        throw new IOException(
+            String.format("%s:%d: expected a type and its superclass", file, lineNumber));
+      }
+      String type = fields.get(0);
+      hierarchy.methodNames
+          .computeIfAbsent(type, k -> new HashSet<>())
+          .addAll(fields.subList(2, fields.size()));
+      hierarchy.subclasses.computeIfAbsent(fields.get(1), k -> new ArrayList<>()).add(type);
+    }
+    return hierarchy;
+  }
+
+  /**
+   * Returns true if an instance method of a class isn't overridden anywhere in
+   * the program, so that it can be invoked without dynamic dispatch.
+   */
+  public boolean isEffectivelyFinal(ExecutableElement method, ElementUtil elementUtil) {
+    TypeElement type = ElementUtil.getDeclaringClass(method);
+    if (!ElementUtil.isInstanceMethod(method) || ElementUtil.isAbstract(method)
+        || ElementUtil.isInterface(type)) {
+      return false;
+    }
+    String typeName = elementUtil.getBinaryName(type);
+    if (!methodNames.containsKey(typeName)) {
+      // Not part of the program, so it may have unknown subclasses.
+      return false;
+    }
+    return ElementUtil.isFinal(type) || !isOverridden(typeName, ElementUtil.getName(method));
+  }
+
+  private boolean isOverridden(String type, String methodName) {
+    String key = type + '#' + methodName;
+    Boolean result = overridden.get(key);
+    if (result == null) {
+      result = false;
+      for (String subclass : subclasses.getOrDefault(type, Collections.emptyList())) {
+        if (methodNames.get(subclass).contains(methodName) || isOverridden(subclass, methodName)) {
+          result = true;
+          break;
+        }
+      }
+      overridden.put(key, result);
+    }
+    return result;
+  }
+}
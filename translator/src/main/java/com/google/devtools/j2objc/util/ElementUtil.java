@@ -31,6 +31,7 @@ import com.sun.tools.javac.code.Attribute;
 import com.sun.tools.javac.code.Flags;
 import com.sun.tools.javac.code.Symbol;
 import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.PackageSymbol;
 import com.sun.tools.javac.code.Symbol.VarSymbol;
 import com.sun.tools.javac.code.SymbolMetadata;
 import java.lang.reflect.Method;
@@ -981,6 +982,23 @@ public final class ElementUtil {
     return null;
   }
 
+  /**
+   * Returns the source file javac read a type or a package's package-info
+   * from. Returns null if the element isn't a javac symbol, or if it was read
+   * from a classfile.
+   */
+  public static JavaFileObject getParsedSourceFile(Element element) {
+    if (element instanceof ClassSymbol) {
+      ClassSymbol type = (ClassSymbol) element;
+      if (type.classfile == null || type.classfile.getKind() == JavaFileObject.Kind.SOURCE) {
+        return type.sourcefile;
+      }
+    } else if (element instanceof PackageSymbol) {
+      return ((PackageSymbol) element).sourcefile;
+    }
+    return null;
+  }
+
   public TypeElement getTypeElement(String fullyQualifiedName) {
     return javacElements.getTypeElement(fullyQualifiedName);
   }
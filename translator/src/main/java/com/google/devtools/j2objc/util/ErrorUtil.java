@@ -32,7 +32,10 @@ import javax.tools.DiagnosticListener;
 import javax.tools.JavaFileObject;
 
 /**
- * Provides convenient static error and warning methods.
+ * Provides convenient static error and warning methods. Errors and warnings
+ * may be reported from the threads that strip J2ObjCIncompatible sources and
+ * look up build closure dependencies, so the counts and message lists are only
+ * updated while holding the class lock.
  *
  * @author Tom Ball, Keith Stanger
  */
@@ -52,18 +55,18 @@ public class ErrorUtil implements DiagnosticListener<JavaFileObject> {
   private static final boolean CLANG_STYLE_ERROR_MSG = (null != System.getenv("DEVELOPER_DIR"));
   private static Pattern pathAndLinePattern = null;
 
-  public static void reset() {
+  public static synchronized void reset() {
     errorCount = 0;
     warningCount = 0;
     errorMessages = Lists.newArrayList();
     warningMessages = Lists.newArrayList();
   }
 
-  public static int errorCount() {
+  public static synchronized int errorCount() {
     return errorCount;
   }
 
-  public static int warningCount() {
+  public static synchronized int warningCount() {
     return warningCount;
   }
 
@@ -86,6 +89,14 @@ public class ErrorUtil implements DiagnosticListener<JavaFileObject> {
     });
   }
 
+  /**
+   * Sets the stream that errors and warnings are printed to, such as a
+   * persistent worker's per-request output.
+   */
+  public static synchronized void setErrorStream(PrintStream stream) {
+    errorStream = stream;
+  }
+
   public static String getFullMessage(String tag, String message, boolean clangStyle) {
     String fullMessage = null;
     if (clangStyle) {
@@ -107,7 +118,8 @@ public class ErrorUtil implements DiagnosticListener<JavaFileObject> {
     return fullMessage;
   }
 
-  public static void parserDiagnostic(Diagnostic<? extends JavaFileObject> diagnostic) {
+  public static synchronized void parserDiagnostic(
+      Diagnostic<? extends JavaFileObject> diagnostic) {
     Kind kind = diagnostic.getKind();
     if (kind == Kind.ERROR) {
       errorMessages.add(diagnostic.getMessage(null));
@@ -129,13 +141,13 @@ public class ErrorUtil implements DiagnosticListener<JavaFileObject> {
   }
 
   // TODO(tball): Consider more ways to associate errors with GenerationUnits to aid debugging.
-  public static void error(String message) {
+  public static synchronized void error(String message) {
     errorMessages.add(message);
     errorStream.println(getFullMessage("error: ", message, CLANG_STYLE_ERROR_MSG));
     errorCount++;
   }
 
-  public static void warning(String message) {
+  public static synchronized void warning(String message) {
     warningMessages.add(message);
     errorStream.println(getFullMessage("warning: ", message, CLANG_STYLE_ERROR_MSG));
     warningCount++;
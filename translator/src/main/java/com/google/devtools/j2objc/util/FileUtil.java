@@ -52,6 +52,7 @@ public class FileUtil {
   private File headerOutputDirectory = null;
   private String fileEncoding = System.getProperty("file.encoding", "UTF-8");
   private Charset charset = Charset.forName(fileEncoding);
+  private final PathEntryIndex pathIndex = new PathEntryIndex();
 
   public void setSourcePathEntries(List<String> sourcePathEntries) {
     this.sourcePathEntries = sourcePathEntries;
@@ -127,7 +128,8 @@ public class FileUtil {
 
   public static String getMainTypeName(JavaFileObject file) {
     String path = file.getName();
-    String basename = path.substring(path.lastIndexOf('/') + 1);
+    // Sources read from jars are named by their jar URLs.
+    String basename = path.substring(Math.max(path.lastIndexOf('/'), path.lastIndexOf('!')) + 1);
     return removeFileSuffix(basename);
   }
 
@@ -169,7 +171,7 @@ public class FileUtil {
     return findTypeOnPaths(qualifiedName, classPathEntries, ".class");
   }
 
-  private static InputFile findTypeOnPaths(
+  private InputFile findTypeOnPaths(
       String qualifiedName, List<String> paths, String extension) throws IOException {
     String sourceFileName = qualifiedName.replace('.', File.separatorChar) + extension;
     return findFileOnPaths(sourceFileName, paths);
@@ -186,13 +188,12 @@ public class FileUtil {
     return findFileOnPaths(sourceFileName, sourcePathEntries);
   }
 
-  private static InputFile findFileOnPaths(
+  private InputFile findFileOnPaths(
       String sourceFileName, List<String> paths) throws IOException {
     // Zip/jar files always use forward slashes.
     String jarEntryName = sourceFileName.replace(File.separatorChar, '/');
     for (String pathEntry : paths) {
-      File f = new File(pathEntry);
-      if (f.isDirectory()) {
+      if (pathIndex.isDirectory(pathEntry)) {
         RegularInputFile regularFile = new RegularInputFile(
             pathEntry + File.separatorChar + sourceFileName, sourceFileName);
         if (regularFile.exists()) {
@@ -200,9 +201,8 @@ public class FileUtil {
         }
       } else {
         // Assume it's a jar file
-        JarredInputFile jarFile = new JarredInputFile(pathEntry, jarEntryName);
-        if (jarFile.exists()) {
-          return jarFile;
+        if (pathIndex.jarContains(pathEntry, jarEntryName)) {
+          return new JarredInputFile(pathEntry, jarEntryName);
         }
       }
     }
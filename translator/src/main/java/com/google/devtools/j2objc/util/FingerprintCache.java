@@ -0,0 +1,221 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.devtools.j2objc.file.InputFile;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The on-disk store shared by the translation and tree shaker caches. Each
+ * entry is keyed by a hash of its inputs, and starts with a fingerprint of
+ * each type it depends on: the hash of the type's file on the sourcepath or
+ * classpath. An entry is only read if none of those files changed.
+ *
+ * <p>Dependencies that are only known to javac because their file was parsed
+ * as an input, such as another input when no sourcepath is set, or a type
+ * declared in a file named for another type, can't be fingerprinted. Entries
+ * with such dependencies aren't stored, so changes to them are never missed.
+ */
+public class FingerprintCache {
+
+  private static final Logger logger = Logger.getLogger(FingerprintCache.class.getName());
+
+  private static final String NOT_FOUND = "-";
+  private static final String PACKAGE_INFO = "package-info";
+
+  /** Writes an entry's contents after its dependencies. */
+  public interface EntryWriter {
+    void write(DataOutputStream out) throws IOException;
+  }
+
+  /** Reads an entry's contents after its dependencies were checked. */
+  public interface EntryReader<T> {
+    T read(DataInputStream in) throws IOException;
+  }
+
+  private final FileUtil fileUtil;
+  private final File cacheDir;
+  private final String entrySuffix;
+  private final int formatVersion;
+  private final Map<String, String> dependencyHashes = new ConcurrentHashMap<>();
+
+  public FingerprintCache(FileUtil fileUtil, File cacheDir, String entrySuffix,
+      int formatVersion) {
+    this.fileUtil = fileUtil;
+    this.cacheDir = cacheDir;
+    this.entrySuffix = entrySuffix;
+    this.formatVersion = formatVersion;
+  }
+
+  /**
+   * Adds the top-level types declaring a type and all of its supertypes, since
+   * changes to any of them may change what depends on the type. The
+   * package-info of each type's package is also added, since its annotations
+   * may change the type's name prefix, nullability or reflection support.
+   */
+  public static void addTypeHierarchy(TypeElement type, Map<String, Element> elements) {
+    if (type == null) {
+      return;
+    }
+    TypeElement topLevelType = type;
+    for (Element e = type.getEnclosingElement(); e instanceof TypeElement;
+         e = e.getEnclosingElement()) {
+      topLevelType = (TypeElement) e;
+    }
+    if (elements.putIfAbsent(ElementUtil.getQualifiedName(topLevelType), topLevelType) != null
+        && topLevelType == type) {
+      return;
+    }
+    PackageElement pkg = ElementUtil.getPackage(topLevelType);
+    if (pkg != null && !pkg.isUnnamed()) {
+      elements.putIfAbsent(pkg.getQualifiedName() + "." + PACKAGE_INFO, pkg);
+    }
+    addTypeHierarchy(ElementUtil.getSuperclass(type), elements);
+    for (TypeElement intrface : ElementUtil.getInterfaces(type)) {
+      addTypeHierarchy(intrface, elements);
+    }
+  }
+
+  /** Adds a file's path, size and modification time to a hash. */
+  public static void addFileStamp(Hasher hasher, String path) {
+    File f = new File(path);
+    hasher.putString(path, UTF_8).putLong(f.length()).putLong(f.lastModified());
+  }
+
+  /**
+   * Returns the fingerprints of the dependencies named by a map's keys, or
+   * null if a dependency was parsed from a source that isn't on the
+   * sourcepath, in which case the entry must not be stored.
+   */
+  @Nullable
+  public Map<String, String> fingerprint(Map<String, Element> dependencies) {
+    Map<String, String> hashes = new TreeMap<>();
+    for (Map.Entry<String, Element> entry : dependencies.entrySet()) {
+      String name = entry.getKey();
+      String hash = getDependencyHash(name);
+      if (hash.equals(NOT_FOUND) && ElementUtil.getParsedSourceFile(entry.getValue()) != null) {
+        logger.fine("Source of " + name + " isn't on the sourcepath");
+        return null;
+      }
+      hashes.put(name, hash);
+    }
+    return hashes;
+  }
+
+  /**
+   * Returns the contents of an entry, or null if there is no entry for the
+   * key, it was written by another format version, or any of its
+   * dependencies changed.
+   */
+  @Nullable
+  public <T> T read(String key, EntryReader<T> reader) {
+    File entryFile = getEntryFile(key);
+    if (!entryFile.exists()) {
+      return null;
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(entryFile)))) {
+      if (in.readInt() != formatVersion) {
+        return null;
+      }
+      int nDependencies = in.readInt();
+      for (int i = 0; i < nDependencies; i++) {
+        String name = in.readUTF();
+        String hash = in.readUTF();
+        if (!hash.equals(getDependencyHash(name))) {
+          return null;
+        }
+      }
+      return reader.read(in);
+    } catch (IOException e) {
+      logger.fine("Failed reading cache entry " + entryFile + ": " + e);
+      return null;
+    }
+  }
+
+  /**
+   * Writes an entry with the fingerprints returned by {@link #fingerprint}.
+   */
+  public void write(String key, Map<String, String> fingerprints, EntryWriter writer) {
+    File entryFile = getEntryFile(key);
+    try {
+      entryFile.getParentFile().mkdirs();
+      File tempFile = File.createTempFile("entry", ".tmp", entryFile.getParentFile());
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        out.writeInt(formatVersion);
+        out.writeInt(fingerprints.size());
+        for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+          out.writeUTF(entry.getKey());
+          out.writeUTF(entry.getValue());
+        }
+        writer.write(out);
+      }
+      // Rename, so that concurrent processes never see a partial entry.
+      Files.move(tempFile.toPath(), entryFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.fine("Failed writing cache entry " + entryFile + ": " + e);
+    }
+  }
+
+  private File getEntryFile(String key) {
+    return new File(new File(cacheDir, key.substring(0, 2)), key + entrySuffix);
+  }
+
+  private String getDependencyHash(String qualifiedName) {
+    return dependencyHashes.computeIfAbsent(qualifiedName, this::hashDependency);
+  }
+
+  private String hashDependency(String qualifiedName) {
+    try {
+      InputFile file = fileUtil.findTypeOnSourcePath(qualifiedName);
+      if (file == null) {
+        file = fileUtil.findTypeOnClassPath(qualifiedName);
+      }
+      if (file != null) {
+        try (InputStream in = file.getInputStream()) {
+          return Hashing.sha256().hashBytes(ByteStreams.toByteArray(in)).toString();
+        }
+      }
+    } catch (IOException e) {
+      // Treat as not found, which is safe since the entry will not match later.
+    }
+    return NOT_FOUND;
+  }
+}
@@ -130,6 +130,14 @@ public class HeaderMap {
     }
   }
 
+  /**
+   * Returns the names of the header mapping files, or null if the default
+   * mapping is used.
+   */
+  public List<String> getMappingFiles() {
+    return inputMappingFiles;
+  }
+
   public void setOutputMappingFile(File outputMappingFile) {
     this.outputMappingFile = outputMappingFile;
   }
@@ -19,8 +19,10 @@ import com.google.common.collect.ImmutableMap;
 import com.google.devtools.j2objc.J2ObjC;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import javax.lang.model.element.ExecutableElement;
@@ -67,8 +69,12 @@ public class Mappings {
 
   private static final String JRE_MAPPINGS_FILE = "JRE.mappings";
 
+  // The JRE mappings are a resource, so they are only parsed once per process.
+  private static Properties jreMappings = null;
+
   private final Map<String, String> classMappings = new HashMap<>();
   private final Map<String, String> methodMappings = new HashMap<>();
+  private final List<String> mappingsFiles = new ArrayList<>();
   {
     methodMappings.putAll(STRING_CONSTRUCTOR_TO_METHOD_MAPPINGS);
   }
@@ -90,13 +96,28 @@ public class Mappings {
     for (String filename : filenames) {
       if (!filename.isEmpty()) {
         addMappingsProperties(FileUtil.loadProperties(filename));
+        mappingsFiles.add(filename);
       }
     }
   }
 
+  /**
+   * Returns the names of the mapping files added with --mapping.
+   */
+  public List<String> getMappingsFiles() {
+    return mappingsFiles;
+  }
+
   public void addJreMappings() throws IOException {
-    InputStream stream = J2ObjC.class.getResourceAsStream(JRE_MAPPINGS_FILE);
-    addMappingsProperties(FileUtil.loadProperties(stream));
+    addMappingsProperties(getJreMappings());
+  }
+
+  private static synchronized Properties getJreMappings() throws IOException {
+    if (jreMappings == null) {
+      InputStream stream = J2ObjC.class.getResourceAsStream(JRE_MAPPINGS_FILE);
+      jreMappings = FileUtil.loadProperties(stream);
+    }
+    return jreMappings;
   }
 
   private void addMappingsProperties(Properties mappings) {
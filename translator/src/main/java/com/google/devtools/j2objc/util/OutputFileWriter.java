@@ -0,0 +1,207 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the generated output files of a translation.
+ *
+ * <p>A file whose content is identical to the existing file isn't rewritten,
+ * so its modification time is preserved and build systems that compare mtimes
+ * don't recompile it. Other files are written on background threads, so
+ * generation can continue while they are written. When too many writes are
+ * queued, the generating thread writes its file itself, which bounds the
+ * memory held by pending content.
+ *
+ * <p>Writes may not have completed until {@link #flush()} returns. The SHA-256
+ * hash of every output is recorded, and can be written as a manifest.
+ */
+public class OutputFileWriter {
+
+  static final String FILES_WRITTEN = "Output files written";
+  static final String FILES_UNCHANGED = "Output files unchanged";
+
+  private static final int MAX_QUEUED_WRITES = 64;
+
+  private final TranslationStatistics statistics;
+  private final Map<File, byte[]> pendingContents = new ConcurrentHashMap<>();
+  private final Map<File, String> hashes = new ConcurrentHashMap<>();
+  private final List<Future<?>> pendingWrites = new ArrayList<>();
+  private final List<String> writeErrors = new ArrayList<>();
+  // Serializes the writes of each file, so that a queued write can't finish
+  // after a later write of the same file.
+  private final Map<File, Object> fileLocks = new ConcurrentHashMap<>();
+  private ThreadPoolExecutor executor = null;
+  private int threadCount = 1;
+
+  public OutputFileWriter(TranslationStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  /**
+   * Sets the number of threads that write files. Takes effect for the writes
+   * after the next {@link #flush()}.
+   */
+  public synchronized void setThreadCount(int n) {
+    threadCount = n;
+  }
+
+  /**
+   * Writes an output file, unless it already has the specified content.
+   */
+  public void write(File file, byte[] content) throws IOException {
+    hashes.put(file, Hashing.sha256().hashBytes(content).toString());
+    byte[] pending = pendingContents.get(file);
+    if (pending != null ? Arrays.equals(pending, content) : hasContent(file, content)) {
+      statistics.increment(FILES_UNCHANGED);
+      return;
+    }
+    File dir = file.getParentFile();
+    if (dir != null && !dir.exists()) {
+      if (!dir.mkdirs()) {
+        throw new IOException("cannot create output directory: " + dir);
+      }
+    }
+    pendingContents.put(file, content);
+    synchronized (this) {
+      pendingWrites.add(getExecutor().submit(() -> writeFile(file, content)));
+    }
+  }
+
+  public void write(File file, String content, Charset charset) throws IOException {
+    write(file, content.getBytes(charset));
+  }
+
+  /**
+   * Returns the content of an output file, including a write that may still be
+   * pending.
+   */
+  public byte[] read(File file) throws IOException {
+    byte[] content = pendingContents.get(file);
+    return content != null ? content : Files.toByteArray(file);
+  }
+
+  /**
+   * Waits for all pending writes, and reports any that failed.
+   */
+  public void flush() {
+    List<Future<?>> writes;
+    ThreadPoolExecutor oldExecutor;
+    synchronized (this) {
+      writes = new ArrayList<>(pendingWrites);
+      pendingWrites.clear();
+      oldExecutor = executor;
+      executor = null;
+    }
+    for (Future<?> write : writes) {
+      try {
+        Uninterruptibles.getUninterruptibly(write);
+      } catch (ExecutionException e) {
+        // writeFile() reports I/O errors, so this is an unexpected failure.
+        synchronized (writeErrors) {
+          writeErrors.add("failed writing output: " + e.getCause());
+        }
+      }
+    }
+    if (oldExecutor != null) {
+      oldExecutor.shutdown();
+    }
+    List<String> errors;
+    synchronized (writeErrors) {
+      errors = new ArrayList<>(writeErrors);
+      writeErrors.clear();
+    }
+    for (String error : errors) {
+      ErrorUtil.error(error);
+    }
+  }
+
+  /**
+   * Writes the hashes of all outputs, one "hash  path" line per file, sorted
+   * by path.
+   */
+  public void writeManifest(File manifestFile) throws IOException {
+    Map<String, String> sorted = new TreeMap<>();
+    for (Map.Entry<File, String> entry : hashes.entrySet()) {
+      sorted.put(entry.getKey().getPath(), entry.getValue());
+    }
+    File dir = manifestFile.getParentFile();
+    if (dir != null) {
+      dir.mkdirs();
+    }
+    try (PrintWriter out = new PrintWriter(Files.newWriter(manifestFile, UTF_8))) {
+      for (Map.Entry<String, String> entry : sorted.entrySet()) {
+        out.println(entry.getValue() + "  " + entry.getKey());
+      }
+    }
+  }
+
+  private static boolean hasContent(File file, byte[] content) throws IOException {
+    return file.isFile() && file.length() == content.length
+        && Arrays.equals(Files.toByteArray(file), content);
+  }
+
+  private void writeFile(File file, byte[] content) {
+    synchronized (fileLocks.computeIfAbsent(file, f -> new Object())) {
+      // Skip the write if the file was written again since it was queued.
+      if (pendingContents.get(file) != content) {
+        return;
+      }
+      try {
+        Files.write(content, file);
+        statistics.increment(FILES_WRITTEN);
+      } catch (IOException | RuntimeException e) {
+        synchronized (writeErrors) {
+          writeErrors.add("failed writing " + file + ": " + e.getMessage());
+        }
+      } finally {
+        pendingContents.remove(file, content);
+      }
+    }
+  }
+
+  private synchronized ThreadPoolExecutor getExecutor() {
+    if (executor == null) {
+      // When the queue is full, the caller runs the write itself.
+      executor = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<>(MAX_QUEUED_WRITES), r -> {
+            Thread t = new Thread(r, "j2objc-output-writer");
+            t.setDaemon(true);
+            return t;
+          }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+    return executor;
+  }
+}
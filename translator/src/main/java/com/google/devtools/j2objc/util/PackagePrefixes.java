@@ -61,6 +61,7 @@ public final class PackagePrefixes {
   // Too bad there's no available equivalent to android.util.ArrayMap.
   private List<Pattern> wildcardKeys = Lists.newArrayList();
   private List<String> wildcardValues = Lists.newArrayList();
+  private final List<String> prefixesFiles = Lists.newArrayList();
 
   public PackagePrefixes(PackageInfoLookup packageLookup) {
     this.packageLookup = packageLookup;
@@ -143,6 +144,14 @@ public final class PackagePrefixes {
     try (Reader r = Files.newBufferedReader(Paths.get(filename), StandardCharsets.UTF_8)) {
       addPrefixProperties(r);
     }
+    prefixesFiles.add(filename);
+  }
+
+  /**
+   * Returns the names of the files added with addPrefixesFile().
+   */
+  public List<String> getPrefixesFiles() {
+    return prefixesFiles;
   }
 
   @VisibleForTesting
@@ -55,6 +55,15 @@ public abstract class Parser implements Closeable {
    */
   public interface Handler {
     void handleParsedUnit(String path, CompilationUnit unit);
+
+    /**
+     * Returns true if the handler still uses the units it was passed, such as
+     * to generate them later. When a batch is parsed in several chunks, a
+     * chunk's javac resources are only released once this returns false.
+     */
+    default boolean retainsUnits() {
+      return true;
+    }
   }
 
   /**
@@ -139,6 +148,8 @@ public abstract class Parser implements Closeable {
 
   /**
    * Parse one or more source files, calling a handler with a compilation unit.
+   * A path is either a file path, or the "jar:file:" URL of a source file in a
+   * jar, as returned by {@link InputFile#getOriginalLocation()}.
    */
   public abstract void parseFiles(
       Collection<String> paths, Parser.Handler handler, SourceVersion sourceVersion);
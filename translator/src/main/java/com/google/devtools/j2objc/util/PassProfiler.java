@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Records the wall time, thread CPU time and allocated bytes of each
+ * translation pass for every unit, and writes them as a Chrome trace-event
+ * file. Besides the trace events, the file has a "summary" object with each
+ * pass's totals and percentiles, and the slowest files.
+ *
+ * <p>Events are recorded by the {@link TimeTracker} tickers returned for
+ * options with a profiler, so passes are named the same as in the
+ * --timing-info output.
+ */
+public class PassProfiler {
+
+  private static final int SLOWEST_FILES = 20;
+
+  private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+  private static final com.sun.management.ThreadMXBean allocationBean =
+      threadBean instanceof com.sun.management.ThreadMXBean
+          && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()
+      ? (com.sun.management.ThreadMXBean) threadBean : null;
+
+  private final File outputFile;
+  private final long startNanos = System.nanoTime();
+  private final List<Event> events = new ArrayList<>();
+
+  public PassProfiler(File outputFile) {
+    this.outputFile = outputFile;
+  }
+
+  /**
+   * A sample of the current thread's clocks.
+   */
+  static class Sample {
+
+    final long wallNanos = System.nanoTime();
+    final long cpuNanos = threadBean.isCurrentThreadCpuTimeSupported()
+        ? threadBean.getCurrentThreadCpuTime() : 0;
+    final long allocatedBytes = allocationBean != null
+        ? allocationBean.getCurrentThreadAllocatedBytes() : 0;
+  }
+
+  private static class Event {
+
+    private final String name;
+    private final String file;
+    private final int level;
+    private final long threadId;
+    private final long startNanos;
+    private final long wallNanos;
+    private final long cpuNanos;
+    private final long allocatedBytes;
+
+    private Event(String name, String file, int level, Sample start, Sample end) {
+      this.name = name;
+      this.file = file;
+      this.level = level;
+      this.threadId = Thread.currentThread().threadId();
+      this.startNanos = start.wallNanos;
+      this.wallNanos = end.wallNanos - start.wallNanos;
+      this.cpuNanos = end.cpuNanos - start.cpuNanos;
+      this.allocatedBytes = end.allocatedBytes - start.allocatedBytes;
+    }
+  }
+
+  /**
+   * Records a pass, or a whole step when level is zero, between two samples
+   * taken on the current thread.
+   */
+  synchronized void record(String name, String file, int level, Sample start, Sample end) {
+    events.add(new Event(name, file, level, start, end));
+  }
+
+  /**
+   * Writes the recorded events and their summary to the output file.
+   */
+  public synchronized void write() throws IOException {
+    File dir = outputFile.getAbsoluteFile().getParentFile();
+    if (dir != null && !dir.mkdirs() && !dir.isDirectory()) {
+      throw new IOException("cannot create directory " + dir);
+    }
+    try (PrintWriter out = new PrintWriter(
+        Files.newBufferedWriter(outputFile.toPath(), StandardCharsets.UTF_8))) {
+      out.println("{\"traceEvents\": [");
+      for (int i = 0; i < events.size(); i++) {
+        Event e = events.get(i);
+        out.print(String.format(Locale.ROOT,
+            "  {\"name\": %s, \"cat\": \"%s\", \"ph\": \"X\", \"pid\": 1, \"tid\": %d,"
+            + " \"ts\": %.3f, \"dur\": %.3f, \"args\": {\"file\": %s, \"cpu_ns\": %d,"
+            + " \"alloc_bytes\": %d}}",
+            quote(e.name), e.level == 0 ? "step" : "pass", e.threadId,
+            (e.startNanos - startNanos) / 1000.0, e.wallNanos / 1000.0, quote(e.file),
+            e.cpuNanos, e.allocatedBytes));
+        out.println(i + 1 < events.size() ? "," : "");
+      }
+      out.println("],");
+      out.println("\"summary\": {");
+      writePassSummaries(out);
+      out.println(",");
+      writeSlowestFiles(out);
+      out.println("}}");
+    }
+  }
+
+  private void writePassSummaries(PrintWriter out) {
+    Map<String, List<Event>> passes = new LinkedHashMap<>();
+    for (Event e : events) {
+      passes.computeIfAbsent(e.name, k -> new ArrayList<>()).add(e);
+    }
+    out.println("  \"passes\": [");
+    int n = 0;
+    for (Map.Entry<String, List<Event>> entry : passes.entrySet()) {
+      List<Event> passEvents = entry.getValue();
+      long[] wallTimes = new long[passEvents.size()];
+      long totalWall = 0;
+      long totalCpu = 0;
+      long totalAllocated = 0;
+      for (int i = 0; i < wallTimes.length; i++) {
+        Event e = passEvents.get(i);
+        wallTimes[i] = e.wallNanos;
+        totalWall += e.wallNanos;
+        totalCpu += e.cpuNanos;
+        totalAllocated += e.allocatedBytes;
+      }
+      Arrays.sort(wallTimes);
+      out.print(String.format(Locale.ROOT,
+          "    {\"name\": %s, \"count\": %d, \"wall_ns\": %d, \"cpu_ns\": %d,"
+          + " \"alloc_bytes\": %d, \"p50_wall_ns\": %d, \"p99_wall_ns\": %d}",
+          quote(entry.getKey()), wallTimes.length, totalWall, totalCpu, totalAllocated,
+          percentile(wallTimes, 50), percentile(wallTimes, 99)));
+      out.println(++n < passes.size() ? "," : "");
+    }
+    out.print("  ]");
+  }
+
+  private void writeSlowestFiles(PrintWriter out) {
+    // A file's time is the sum of its top-level steps, such as its tree
+    // mutations and its source generation.
+    Map<String, Long> fileTimes = new LinkedHashMap<>();
+    for (Event e : events) {
+      if (e.level == 0) {
+        fileTimes.merge(e.file, e.wallNanos, Long::sum);
+      }
+    }
+    List<Map.Entry<String, Long>> files = new ArrayList<>(fileTimes.entrySet());
+    Collections.sort(files, Comparator.comparing(Map.Entry<String, Long>::getValue).reversed());
+    out.println("  \"slowest_files\": [");
+    int n = Math.min(files.size(), SLOWEST_FILES);
+    for (int i = 0; i < n; i++) {
+      out.print(String.format(Locale.ROOT, "    {\"file\": %s, \"wall_ns\": %d}",
+          quote(files.get(i).getKey()), files.get(i).getValue()));
+      out.println(i + 1 < n ? "," : "");
+    }
+    out.print("  ]");
+  }
+
+  // Nearest-rank percentile of a sorted array.
+  private static long percentile(long[] sorted, int percent) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+    return sorted[Math.max(rank, 1) - 1];
+  }
+
+  private static String quote(String s) {
+    StringBuilder sb = new StringBuilder("\"");
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c < 0x20) {
+        sb.append(String.format("\\u%04x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append('"').toString();
+  }
+}
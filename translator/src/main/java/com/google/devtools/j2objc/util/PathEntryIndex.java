@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import com.google.devtools.j2objc.file.JarCache;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indexes the source and class path entries searched by {@link FileUtil}, so
+ * that testing whether a jar contains a file is a hash lookup, instead of
+ * opening the jar and reading its central directory on every probe.
+ *
+ * <p>The entry names of each jar are read through {@link JarCache}, which
+ * shares them with all translations in the process. Each index checks a jar's
+ * size and modification time only the first time it probes that jar.
+ */
+class PathEntryIndex {
+
+  // The entry names of the jars this index has read, and the path entries it
+  // found to be directories.
+  private final Map<String, Set<String>> jars = new ConcurrentHashMap<>();
+  private final Set<String> directories = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Returns true if a path entry is a directory, otherwise it is assumed to be
+   * a jar file.
+   */
+  boolean isDirectory(String pathEntry) {
+    if (directories.contains(pathEntry)) {
+      return true;
+    }
+    if (jars.containsKey(pathEntry)) {
+      return false;
+    }
+    if (new File(pathEntry).isDirectory()) {
+      directories.add(pathEntry);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if the jar file at a path entry contains an entry with the
+   * specified name.
+   *
+   * @throws IOException if the jar can't be read
+   */
+  boolean jarContains(String jarPath, String entryName) throws IOException {
+    Set<String> entryNames = jars.get(jarPath);
+    if (entryNames == null) {
+      entryNames = JarCache.getEntryNames(jarPath);
+      jars.put(jarPath, entryNames);
+    }
+    return entryNames.contains(entryName);
+  }
+}
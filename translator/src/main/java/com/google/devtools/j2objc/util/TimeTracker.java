@@ -15,6 +15,7 @@
 package com.google.devtools.j2objc.util;
 
 import com.google.common.collect.Lists;
+import com.google.devtools.j2objc.Options;
 import com.google.devtools.j2objc.Options.TimingLevel;
 import java.io.PrintStream;
 import java.util.Arrays;
@@ -36,6 +37,16 @@ public class TimeTracker {
     }
   }
 
+  /**
+   * Returns a ticker for the timing level of the options, which also records
+   * each tick in the options' {@link PassProfiler}, if there is one.
+   */
+  public static TimeTracker getTicker(String name, Options options) {
+    TimeTracker ticker = getTicker(name, options.timingLevel());
+    PassProfiler profiler = options.profiler();
+    return profiler != null ? new ProfilingTimeTracker(name, profiler, ticker) : ticker;
+  }
+
   public static TimeTracker noop() {
     return new TimeTracker();
   }
@@ -106,4 +117,46 @@ public class TimeTracker {
       }
     }
   }
+
+  private static class ProfilingTimeTracker extends TimeTracker {
+
+    private final String name;
+    private final PassProfiler profiler;
+    private final TimeTracker delegate;
+    private final PassProfiler.Sample[] lastSamples = new PassProfiler.Sample[16];
+    private int currentLevel = 0;
+
+    private ProfilingTimeTracker(String name, PassProfiler profiler, TimeTracker delegate) {
+      this.name = name;
+      this.profiler = profiler;
+      this.delegate = delegate;
+      lastSamples[currentLevel] = new PassProfiler.Sample();
+    }
+
+    @Override
+    public void tick(String event) {
+      PassProfiler.Sample now = new PassProfiler.Sample();
+      profiler.record(event, name, currentLevel, lastSamples[currentLevel], now);
+      lastSamples[currentLevel] = now;
+      delegate.tick(event);
+    }
+
+    @Override
+    public void push() {
+      currentLevel++;
+      lastSamples[currentLevel] = new PassProfiler.Sample();
+      delegate.push();
+    }
+
+    @Override
+    public void pop() {
+      currentLevel--;
+      delegate.pop();
+    }
+
+    @Override
+    public void printResults(PrintStream out) {
+      delegate.printResults(out);
+    }
+  }
 }
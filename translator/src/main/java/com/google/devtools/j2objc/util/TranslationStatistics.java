@@ -0,0 +1,55 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the code that translation passes optimized, such as eliminated
+ * checks, across all units of a translation. The counts are printed with the
+ * --timing-info output. With --jobs, output files are written on several
+ * threads, so the counters are concurrent.
+ */
+public class TranslationStatistics {
+
+  private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+  /**
+   * Adds to a named counter.
+   */
+  public void add(String counter, long n) {
+    counters.computeIfAbsent(counter, k -> new LongAdder()).add(n);
+  }
+
+  public void increment(String counter) {
+    add(counter, 1);
+  }
+
+  public long get(String counter) {
+    LongAdder adder = counters.get(counter);
+    return adder != null ? adder.sum() : 0;
+  }
+
+  public void printResults(PrintStream out) {
+    Map<String, LongAdder> sorted = new TreeMap<>(counters);
+    for (Map.Entry<String, LongAdder> entry : sorted.entrySet()) {
+      out.println(String.format("%8d - %s", entry.getValue().sum(), entry.getKey()));
+    }
+  }
+}
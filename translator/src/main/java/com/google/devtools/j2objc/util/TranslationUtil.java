@@ -39,6 +39,7 @@ import com.google.devtools.j2objc.ast.TypeDeclaration;
 import com.google.devtools.j2objc.ast.TypeLiteral;
 import com.google.devtools.j2objc.types.FunctionElement;
 import com.google.j2objc.annotations.ReflectionSupport;
+import com.google.j2objc.annotations.UsedByReflection;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -139,6 +140,53 @@ public final class TranslationUtil {
     return needsReflection(level);
   }
 
+  /**
+   * Returns true if all of a type's reflection metadata is generated when only
+   * the metadata reachable by reflection is requested. This is the case for
+   * types marked with UsedByReflection or listed in the reflection roots, and
+   * for types that explicitly request full reflection support.
+   */
+  public boolean isReflectionRoot(TypeElement type) {
+    if (isJUnitTestClass(type) || ElementUtil.isRuntimeAnnotation(type)
+        || ElementUtil.hasAnnotation(type, UsedByReflection.class)) {
+      return true;
+    }
+    CodeReferenceMap roots = options.reflectionRoots();
+    if (roots != null && roots.containsClass(type, elementUtil)) {
+      return true;
+    }
+    PackageElement packageElement = ElementUtil.getPackage(type);
+    while (type != null) {
+      ReflectionSupport.Level level =
+          getReflectionSupportLevel(ElementUtil.getAnnotation(type, ReflectionSupport.class));
+      if (level != null) {
+        return level == ReflectionSupport.Level.FULL;
+      }
+      type = ElementUtil.getDeclaringClass(type);
+    }
+    return getReflectionSupportLevelOnPackage(packageElement) == ReflectionSupport.Level.FULL;
+  }
+
+  /**
+   * Returns true if a method or field is marked with UsedByReflection or listed
+   * in the reflection roots.
+   */
+  public boolean isReflectionRoot(Element member) {
+    if (ElementUtil.hasAnnotation(member, UsedByReflection.class)) {
+      return true;
+    }
+    CodeReferenceMap roots = options.reflectionRoots();
+    if (roots == null) {
+      return false;
+    }
+    if (ElementUtil.isExecutableElement(member)) {
+      return roots.containsMethod((ExecutableElement) member, typeUtil);
+    }
+    return roots.containsField(
+        elementUtil.getBinaryName(ElementUtil.getDeclaringClass(member)),
+        ElementUtil.getName(member));
+  }
+
   private boolean needsReflection(ReflectionSupport.Level level) {
     if (level != null) {
       return level == ReflectionSupport.Level.FULL;
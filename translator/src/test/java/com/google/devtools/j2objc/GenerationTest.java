@@ -627,6 +627,7 @@ public abstract class GenerationTest extends TestCase {
     genUnit.incrementInputs();
     genUnit.addCompilationUnit(unit);
     TranslationProcessor.generateObjectiveCSource(genUnit, new HashMap<>());
+    options.outputWriter().flush();
     return getTranslatedFile(filename);
   }
 
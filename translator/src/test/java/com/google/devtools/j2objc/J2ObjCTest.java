@@ -14,6 +14,7 @@
 
 package com.google.devtools.j2objc;
 
+import com.google.devtools.j2objc.file.JarCache;
 import com.google.devtools.j2objc.util.FileUtil;
 import com.google.devtools.j2objc.util.HeaderMap;
 import com.google.devtools.j2objc.util.SourceVersion;
@@ -109,6 +110,16 @@ public class J2ObjCTest extends GenerationTest {
     makeAssertionsForJar();
   }
 
+  // Sources are read from the jar, instead of being extracted to a temporary
+  // directory, and the jar is closed when the translation finishes.
+  public void testCompilingFromJarWithoutExtraction() throws Exception {
+    J2ObjC.run(Collections.singletonList(jarPath), options);
+    assertTrue(options.fileUtil().getTempDirs().isEmpty());
+    assertEquals(0, JarCache.openJarCount());
+    assertTrue(options.fileUtil().getSourcePathEntries().contains(jarPath));
+    makeAssertionsForJar();
+  }
+
   // Make assertions for java files with default output locations.
   private void makeAssertionsForJavaFiles() throws Exception {
     String exampleH = getTranslatedFile("com/google/devtools/j2objc/util/Example.h");
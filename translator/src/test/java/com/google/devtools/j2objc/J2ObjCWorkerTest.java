@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link J2ObjCWorker}.
+ */
+public class J2ObjCWorkerTest extends GenerationTest {
+
+  public void testWorkRequests() throws IOException {
+    String good = addSourceFile("class Good { }", "Good.java");
+    String bad = addSourceFile("class Bad { int i = \"\"; }", "Bad.java");
+    String tempPath = tempDir.getAbsolutePath();
+    J2ObjCWorker worker = new J2ObjCWorker(Arrays.asList("-d", tempPath, "-q"));
+
+    String requests =
+        "{\"arguments\": [\"-sourcepath\", \"" + tempPath + "\", \"" + good + "\"],"
+        + " \"requestId\": 0}\n"
+        + "{\"arguments\": [\"" + bad + "\"], \"requestId\": 0}\n"
+        + "{\"arguments\": [\"--no-such-flag\"], \"requestId\": 0}\n";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    worker.run(new ByteArrayInputStream(requests.getBytes(UTF_8)), out);
+
+    List<Map<?, ?>> responses = readResponses(out.toString(UTF_8.name()));
+    assertEquals(3, responses.size());
+    assertEquals(0L, responses.get(0).get("exitCode"));
+    assertInTranslation(getTranslatedFile("Good.h"), "@interface Good : NSObject");
+    // The first request's errors must not leak into later requests.
+    assertTrue((Long) responses.get(1).get("exitCode") > 0);
+    assertTrue(((String) responses.get(1).get("output")).contains("error:"));
+    assertEquals(1L, responses.get(2).get("exitCode"));
+    assertTrue(((String) responses.get(2).get("output")).contains("--no-such-flag"));
+  }
+
+  public void testJsonRoundTrip() throws IOException {
+    String s = "quote \" backslash \\ newline \n tab \t";
+    String json = J2ObjCWorker.Json.write(Collections.singletonMap("s", s));
+    PushbackReader reader = new PushbackReader(new StringReader(
+        json + " {\"a\": [1, 2.5, true, null, {}], \"b\": \"\\u0041\"}"));
+    assertEquals(s, ((Map<?, ?>) J2ObjCWorker.Json.read(reader)).get("s"));
+    Map<?, ?> map = (Map<?, ?>) J2ObjCWorker.Json.read(reader);
+    assertEquals(Arrays.asList(1L, 2.5, true, null, Collections.emptyMap()), map.get("a"));
+    assertEquals("A", map.get("b"));
+    assertNull(J2ObjCWorker.Json.read(reader));
+  }
+
+  private static List<Map<?, ?>> readResponses(String output) throws IOException {
+    PushbackReader reader = new PushbackReader(new StringReader(output));
+    List<Map<?, ?>> responses = new ArrayList<>();
+    Object response;
+    while ((response = J2ObjCWorker.Json.read(reader)) != null) {
+      responses.add((Map<?, ?>) response);
+    }
+    return responses;
+  }
+}
@@ -17,6 +17,7 @@
 package com.google.devtools.j2objc;
 
 import com.google.devtools.j2objc.ast.AnnotationTest;
+import com.google.devtools.j2objc.ast.FusedTreeVisitorTest;
 import com.google.devtools.j2objc.ast.InfixExpressionTest;
 import com.google.devtools.j2objc.ast.LambdaExpressionTest;
 import com.google.devtools.j2objc.ast.MethodReferenceTest;
@@ -45,6 +46,7 @@ import com.google.devtools.j2objc.pipeline.TranslationProcessorTest;
 import com.google.devtools.j2objc.translate.AbstractMethodRewriterTest;
 import com.google.devtools.j2objc.translate.AnnotationRewriterTest;
 import com.google.devtools.j2objc.translate.AnonymousClassConverterTest;
+import com.google.devtools.j2objc.translate.ArrayBoundsCheckEliminatorTest;
 import com.google.devtools.j2objc.translate.ArrayRewriterTest;
 import com.google.devtools.j2objc.translate.AutoboxerTest;
 import com.google.devtools.j2objc.translate.CastResolverTest;
@@ -65,6 +67,7 @@ import com.google.devtools.j2objc.translate.JavaCloneWriterTest;
 import com.google.devtools.j2objc.translate.JavaToIOSMethodTranslatorTest;
 import com.google.devtools.j2objc.translate.LambdaTypeElementAdderTest;
 import com.google.devtools.j2objc.translate.LogSiteInjectorTest;
+import com.google.devtools.j2objc.translate.LoopStringConcatRewriterTest;
 import com.google.devtools.j2objc.translate.MetadataWriterTest;
 import com.google.devtools.j2objc.translate.NilCheckResolverTest;
 import com.google.devtools.j2objc.translate.NumberMethodRewriterTest;
@@ -117,6 +120,7 @@ public class SmallTests {
         AnnotationTest.class,
         AnonymousClassConverterTest.class,
         ArrayAccessTest.class,
+        ArrayBoundsCheckEliminatorTest.class,
         ArrayCreationTest.class,
         ArrayGenericsTest.class,
         ArrayRewriterTest.class,
@@ -138,6 +142,7 @@ public class SmallTests {
         ExternalAnnotationInjectorTest.class,
         FileUtilTest.class,
         FunctionizerTest.class,
+        FusedTreeVisitorTest.class,
         GenerateObjCCompanionTest.class,
         GenerateObjectiveCGenericsTest.class,
         GwtConverterTest.class,
@@ -149,6 +154,7 @@ public class SmallTests {
         InstanceOfPatternRewriterTest.class,
         J2ObjCIncompatibleStripperTest.class,
         J2ObjCTest.class,
+        J2ObjCWorkerTest.class,
         JavaCloneWriterTest.class,
         JavacParserTest.class,
         JavacTreeConverterTest.class,
@@ -159,6 +165,7 @@ public class SmallTests {
         LineDirectivesTest.class,
         LiteralGeneratorTest.class,
         LogSiteInjectorTest.class,
+        LoopStringConcatRewriterTest.class,
         MetadataWriterTest.class,
         MethodReferenceTest.class,
         NameTableTest.class,
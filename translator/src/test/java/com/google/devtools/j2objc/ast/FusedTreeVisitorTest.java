@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.ast;
+
+import com.google.devtools.j2objc.GenerationTest;
+import com.google.devtools.j2objc.util.ElementUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link FusedTreeVisitor}.
+ */
+public class FusedTreeVisitorTest extends GenerationTest {
+
+  private static final String SOURCE =
+      "class Test { int f; void a() { f++; } void b(int i) { if (i > 0) { f = i; } } "
+      + "void c() { a(); b(1); } }";
+
+  /**
+   * Records the calls it receives.
+   */
+  private static class Recorder extends TreeVisitor {
+
+    final List<String> calls = new ArrayList<>();
+
+    @Override
+    public boolean preVisit(TreeNode node) {
+      calls.add("preVisit " + node.getKind());
+      return true;
+    }
+
+    @Override
+    public void postVisit(TreeNode node) {
+      calls.add("postVisit " + node.getKind());
+    }
+
+    @Override
+    public boolean visit(MethodDeclaration node) {
+      calls.add("visit " + ElementUtil.getName(node.getExecutableElement()));
+      return true;
+    }
+
+    @Override
+    public void endVisit(MethodDeclaration node) {
+      calls.add("endVisit " + ElementUtil.getName(node.getExecutableElement()));
+    }
+  }
+
+  // Only records method visits.
+  private static class MethodRecorder extends Recorder {
+    @Override
+    public boolean preVisit(TreeNode node) {
+      return true;
+    }
+
+    @Override
+    public void postVisit(TreeNode node) {}
+  }
+
+  // Skips the children of method a.
+  private static class SkipMethodA extends Recorder {
+    @Override
+    public boolean visit(MethodDeclaration node) {
+      super.visit(node);
+      return !ElementUtil.getName(node.getExecutableElement()).equals("a");
+    }
+  }
+
+  // Skips every block.
+  private static class SkipBlocks extends Recorder {
+    @Override
+    public boolean preVisit(TreeNode node) {
+      super.preVisit(node);
+      return !(node instanceof Block);
+    }
+  }
+
+  // Removes method b.
+  private static class RemoveMethodB extends Recorder {
+    @Override
+    public boolean visit(MethodDeclaration node) {
+      super.visit(node);
+      if (ElementUtil.getName(node.getExecutableElement()).equals("b")) {
+        node.remove();
+      }
+      return true;
+    }
+  }
+
+  public void testSameCallsAsSeparateTraversals() {
+    assertSameCalls(() -> Arrays.asList(new SkipMethodA(), new SkipBlocks(), new Recorder()));
+  }
+
+  public void testRemovedNodeIsHiddenFromLaterVisitors() {
+    assertSameCalls(() -> Arrays.asList(new Recorder(), new RemoveMethodB(), new MethodRecorder()));
+  }
+
+  // DebugASTPrinter overrides the visit methods of nearly every node type.
+  public void testCallsEachNodeTypesOverloads() {
+    CompilationUnit unit = compileType("Test", SOURCE);
+    DebugASTPrinter printer = new DebugASTPrinter();
+    unit.accept(new FusedTreeVisitor(Arrays.asList(new Recorder(), printer)));
+    assertEquals(DebugASTPrinter.toString(unit), printer.sb.toString());
+  }
+
+  private interface RecorderFactory {
+    List<Recorder> create();
+  }
+
+  // Checks that fused traversal of a unit makes the same calls on each
+  // visitor as traversing it with each of them in turn.
+  private void assertSameCalls(RecorderFactory factory) {
+    CompilationUnit unit = compileType("Test", SOURCE);
+    List<Recorder> separate = factory.create();
+    for (Recorder recorder : separate) {
+      unit.accept(recorder);
+    }
+
+    unit = compileType("Test", SOURCE);
+    List<Recorder> fused = factory.create();
+    unit.accept(new FusedTreeVisitor(fused));
+
+    for (int i = 0; i < separate.size(); i++) {
+      assertFalse(separate.get(i).calls.isEmpty());
+      assertEquals(separate.get(i).calls, fused.get(i).calls);
+    }
+  }
+}
@@ -477,11 +477,14 @@ public class MethodReferenceTest extends GenerationTest {
             interface Foo {
               void f(Test t);
             }
+            interface Bar {
+              void f(Test t);
+            }
             class Test {
               void foo() {}
               void test() {
                 Foo f1 = Test::foo;
-                Foo f2 = Test::foo;
+                Bar f2 = Test::foo;
               }
             }
             """,
@@ -530,4 +533,55 @@ public class MethodReferenceTest extends GenerationTest {
     // Make sure the receiver field is initialized.
     assertInTranslation(translation, "JreStrongAssign(&self->target$_, outer$);");
   }
+
+  public void testIdenticalNonCapturingReferencesShareInstance() throws IOException {
+    String translation =
+        translateSourceFile(
+            """
+            interface Fun {
+              int apply(String s);
+            }
+            interface Fun2 {
+              int apply(String s);
+            }
+            class Test {
+              Fun f1 = String::length;
+              Fun f2 = String::length;
+              Fun2 f3 = String::length;
+              static Fun f4() {
+                return String::length;
+              }
+            }
+            """,
+            "Test",
+            "Test.m");
+    // One class for the three Fun references, and one for the Fun2 reference.
+    assertOccurrences(translation, "@interface Test_$Lambda$", 2);
+    assertOccurrences(translation, "nil_chk(a)) java_length]", 2);
+  }
+
+  public void testBoundReferenceHoistedFromLoop() throws IOException {
+    String translation =
+        translateSourceFile(
+            """
+            import java.util.List;
+            class Test {
+              void add(String s) {}
+              void test(List<String> l, int n) {
+                for (int i = 0; i < n; i++) {
+                  l.forEach(this::add);
+                  l.forEach(this::add);
+                }
+              }
+            }
+            """,
+            "Test",
+            "Test.m");
+    assertTranslatedLines(translation,
+        "{",
+        "  Test_$Lambda$1 *addRef__ = create_Test_$Lambda$1_initWithTest_(self);",
+        "  for (int32_t i = 0; i < n; JrePostIncInt(&i)) {");
+    assertOccurrences(translation, "forEachWithJavaUtilFunctionConsumer:addRef__]", 2);
+    assertOccurrences(translation, "@interface Test_$Lambda$", 1);
+  }
 }
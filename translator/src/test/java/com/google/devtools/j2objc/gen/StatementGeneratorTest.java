@@ -365,7 +365,7 @@ public class StatementGeneratorTest extends GenerationTest {
     assertInTranslation(
         translation, "JreStrongAssign(&self->b1_, JreLoadStatic(JavaLangBoolean, TRUE))");
     assertInTranslation(
-        translation, "JreStrongAssign(&self->b2_, JreLoadStatic(JavaLangBoolean, FALSE))");
+        translation, "JreStrongAssign(&self->b2_, JavaLangBoolean_FALSE)");
   }
 
   public void testStringConcatenation() throws IOException {
@@ -1281,6 +1281,7 @@ public class StatementGeneratorTest extends GenerationTest {
             public class Test {
               public void foo() {
                 Double d = Double.NEGATIVE_INFINITY;
+                System.out.println(d);
               }
             }
             """,
@@ -2015,7 +2016,7 @@ public class StatementGeneratorTest extends GenerationTest {
             "A",
             "A.m");
     assertInTranslation(
-        translation, "[NSString stringWithString:JreStrcat(\"@$\", o, B_separator)]");
+        translation, "[NSString stringWithString:JreStrcat(\"@C\", o, '/')]");
   }
 
   public void testStringConcatWithBoolean() throws IOException {
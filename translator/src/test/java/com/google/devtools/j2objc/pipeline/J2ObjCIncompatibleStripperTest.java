@@ -96,4 +96,36 @@ public class J2ObjCIncompatibleStripperTest extends GenerationTest {
     // ... but B wasn't.
     assertInTranslation(translation, "Test_Enum_B");
   }
+
+  public void testStrippedInParallel() throws IOException {
+    addSourceFile(
+        "import com.google.j2objc.annotations.J2ObjCIncompatible; "
+        + "import non.existent.pkg.Garbage; "
+        + "class A { @J2ObjCIncompatible Garbage g; B b; }", "A.java");
+    addSourceFile(
+        "class B { @com.google.j2objc.annotations.J2ObjCIncompatible void garbage() {} }",
+        "B.java");
+    addSourceFile("class C { A a; }", "C.java");
+    options.setJobs(3);
+    runPipeline("A.java", "B.java", "C.java");
+    assertNotInTranslation(getTranslatedFile("A.h"), "Garbage");
+    assertNotInTranslation(getTranslatedFile("B.h"), "garbage");
+    assertInTranslation(getTranslatedFile("C.h"), "A *a_;");
+  }
+
+  public void testMayUseIncompatibleAnnotation() {
+    assertFalse(IncompatibleSourceStripper.mayUseIncompatibleAnnotation("class Test {}"));
+    assertFalse(IncompatibleSourceStripper.mayUseIncompatibleAnnotation(
+        "/** Not @J2ObjCIncompatible. */ class Test { // J2ObjCIncompatible\n"
+        + " String s = \"@J2ObjCIncompatible\"; char c = '\\''; "
+        + " String t = \"\"\"\n J2ObjCIncompatible \\\"\"\" \"\"\"; }"));
+    assertFalse(IncompatibleSourceStripper.mayUseIncompatibleAnnotation(
+        "class Test { @J2ObjCIncompatibleHelper void m() {} }"));
+    assertTrue(IncompatibleSourceStripper.mayUseIncompatibleAnnotation(
+        "class Test { /* */ @J2ObjCIncompatible void m() {} }"));
+    assertTrue(IncompatibleSourceStripper.mayUseIncompatibleAnnotation(
+        "class Test { @com.google.j2objc.annotations.J2ObjCIncompatible void m() {} }"));
+    assertTrue(IncompatibleSourceStripper.mayUseIncompatibleAnnotation(
+        "class Test { @ J2ObjCIncompatible String s = \"\\\"\"; }"));
+  }
 }
@@ -16,11 +16,18 @@ package com.google.devtools.j2objc.pipeline;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
 import com.google.devtools.j2objc.GenerationTest;
 import com.google.devtools.j2objc.J2ObjC;
 import com.google.devtools.j2objc.file.RegularInputFile;
+import com.google.devtools.j2objc.javac.JavacParser;
+import com.google.devtools.j2objc.util.ErrorUtil;
+import com.google.devtools.j2objc.util.PassProfiler;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Tests for {@link TranslationProcessor}.
@@ -45,6 +52,28 @@ public class TranslationProcessorTest extends GenerationTest {
     assertNoWarnings();
   }
 
+  public void testBuildClosureDependencies() throws IOException {
+    options.setBuildClosure(true);
+    options.setBatchTranslateMaximum(2);
+    String fileA = addSourceFile("class A { B b; C c; D d; E e; }", "A.java");
+    addSourceFile("class B { C c; }", "B.java");
+    addSourceFile("class C { }", "C.java");
+    addSourceFile("class D { E e; }", "D.java");
+    addSourceFile("class E { }", "E.java");
+    translateFiles(fileA);
+    for (String type : new String[] {"A", "B", "C", "D", "E"}) {
+      assertInTranslation(getTranslatedFile(type + ".h"), "@interface " + type);
+    }
+
+    // A dependency whose header is newer than its source isn't translated again.
+    String fileE = addSourceFile("class E { int n; }", "E.java");
+    assertTrue(new File(fileE).setLastModified(1000L));
+    translateFiles(fileA);
+    assertNotInTranslation(getTranslatedFile("E.h"), "n_");
+    assertNoErrors();
+    assertNoWarnings();
+  }
+
   public void testDuplicateSourceFileOnSourcepath() throws IOException {
     options.setBuildClosure(true);
 
@@ -118,6 +147,276 @@ public class TranslationProcessorTest extends GenerationTest {
     processor.processInputs(batch.getInputs());
   }
 
+  // Translates a set of interdependent units several times with --jobs, which
+  // strips sources and writes outputs in parallel, and checks that the outputs
+  // match a serial run.
+  public void testParallelJobsMatchSerial() throws IOException {
+    int count = 24;
+    List<String> files = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      String next = "T" + ((i + 1) % count);
+      files.add("p/T" + i + ".java");
+      addSourceFile(
+          "package p; import java.util.ArrayList; import java.util.List; "
+          + "import java.util.function.Supplier; "
+          + "import com.google.j2objc.annotations.J2ObjCIncompatible; "
+          + "public class T" + i + " extends Base<" + next + "> { enum Kind { A, B } "
+          + next + " next; List<Integer> values = new ArrayList<>(); "
+          + "@J2ObjCIncompatible void incompatible() {} "
+          + "Supplier<String> name = () -> \"T" + i + ":\" + next + Kind.B.name(); "
+          + "int sum() { int n = 0; for (int v : values) { n += v; } return n; } "
+          + "class Inner { int get() { return sum() + next.sum(); } } }",
+          files.get(i));
+    }
+    files.add("p/Base.java");
+    addSourceFile("package p; public class Base<T> { T t; }", "p/Base.java");
+
+    List<String> outputs = new ArrayList<>();
+    for (String file : files) {
+      String name = file.substring(0, file.length() - ".java".length());
+      outputs.add(name + ".h");
+      outputs.add(name + ".m");
+    }
+    runPipeline(files.toArray(new String[0]));
+    List<String> serial = new ArrayList<>();
+    for (String output : outputs) {
+      serial.add(getTranslatedFile(output));
+    }
+    assertNotInTranslation(serial.get(0), "incompatible");
+
+    options.setJobs(8);
+    for (int run = 0; run < 3; run++) {
+      for (String output : outputs) {
+        assertTrue(new File(getTempDir(), output).delete());
+      }
+      runPipeline(files.toArray(new String[0]));
+      for (int i = 0; i < outputs.size(); i++) {
+        assertEquals(outputs.get(i), serial.get(i), getTranslatedFile(outputs.get(i)));
+      }
+    }
+  }
+
+  public void testBatchTranslateMaximum() throws IOException {
+    String fileA = addSourceFile("package foo; class A { B b; C c; }", "foo/A.java");
+    String fileB = addSourceFile("package foo; class B { A a; }", "foo/B.java");
+    String fileC = addSourceFile("package foo; class C extends B { }", "foo/C.java");
+
+    options.setBatchTranslateMaximum(1);
+    translateFiles(fileA, fileB, fileC);
+
+    assertInTranslation(getTranslatedFile("foo/A.h"), "@interface FooA");
+    assertInTranslation(getTranslatedFile("foo/B.h"), "@interface FooB");
+    assertInTranslation(getTranslatedFile("foo/C.h"), "@interface FooC : FooB");
+    assertEquals(3, options.statistics().get(JavacParser.PARSE_BATCHES));
+    assertNoErrors();
+    assertNoWarnings();
+  }
+
+  // A chunk only resolves the batch's files from the other chunks' package
+  // roots, like a single javac task without a sourcepath.
+  public void testBatchTranslateMaximumHidesOtherSources() throws IOException {
+    String fileA = addSourceFile("package foo; class A { B b; }", "foo/A.java");
+    String fileB = addSourceFile("package foo; class B { D d; }", "foo/B.java");
+    addSourceFile("package foo; class D { }", "foo/D.java");
+    options.fileUtil().getSourcePathEntries().clear();
+
+    options.setBatchTranslateMaximum(1);
+    translateFiles(fileA, fileB);
+
+    assertTrue(ErrorUtil.errorCount() > 0);
+    assertErrorRegex("(?s)cannot find symbol.*class D.*");
+    assertEquals(2, options.statistics().get(JavacParser.PARSE_BATCHES));
+  }
+
+  public void testBatchTranslateMaximumIgnoredWithoutPackageDirectories() throws IOException {
+    String fileA = addSourceFile("package foo; class A { B b; }", "A.java");
+    String fileB = addSourceFile("package foo; class B { }", "B.java");
+
+    options.setBatchTranslateMaximum(1);
+    translateFiles(fileA, fileB);
+
+    assertInTranslation(getTranslatedFile("foo/A.h"), "@interface FooA");
+    assertWarning("--batch-translate-max ignored, since an input file isn't in a directory"
+        + " matching its package; parsing all files as a single batch");
+    assertEquals(1, options.statistics().get(JavacParser.PARSE_BATCHES));
+  }
+
+  public void testTranslationCache() throws IOException {
+    String fileB = addSourceFile("class B { String name; }", "B.java");
+    String fileC = addSourceFile("class C extends B { }", "C.java");
+    options.setTranslationCacheDir(new File(getTempDir(), "cache"));
+
+    TranslationCache cache = translateFiles(fileB, fileC).getTranslationCache();
+    assertEquals(0, cache.hitCount());
+    assertEquals(2, cache.missCount());
+    String header = getTranslatedFile("C.h");
+
+    // Restored outputs are identical to the translated ones.
+    assertTrue(new File(getTempDir(), "C.h").delete());
+    cache = translateFiles(fileB, fileC).getTranslationCache();
+    assertEquals(2, cache.hitCount());
+    assertEquals(0, cache.missCount());
+    assertEquals(header, getTranslatedFile("C.h"));
+
+    // Changing B invalidates both B and its subclass C.
+    addSourceFile("class B { String name; int id; }", "B.java");
+    cache = translateFiles(fileB, fileC).getTranslationCache();
+    assertEquals(0, cache.hitCount());
+    assertEquals(2, cache.missCount());
+    assertNoErrors();
+    assertNoWarnings();
+  }
+
+  // Without a sourcepath, a changed input couldn't be detected by the units
+  // that reference it, so those units aren't cached.
+  public void testTranslationCacheWithoutSourcepath() throws IOException {
+    String fileB = addSourceFile("class B { void foo(int x) {} }", "B.java");
+    String fileC = addSourceFile("class C { void test(B b) { b.foo(1); } }", "C.java");
+    options.fileUtil().getSourcePathEntries().clear();
+    options.setTranslationCacheDir(new File(getTempDir(), "cache"));
+
+    TranslationCache cache = translateFiles(fileB, fileC).getTranslationCache();
+    assertEquals(2, cache.missCount());
+    assertInTranslation(getTranslatedFile("C.m"), "[((B *) nil_chk(b)) fooWithInt:1];");
+
+    addSourceFile("class B { void foo(long x) {} }", "B.java");
+    cache = translateFiles(fileB, fileC).getTranslationCache();
+    assertEquals(0, cache.hitCount());
+    assertEquals(2, cache.missCount());
+    assertInTranslation(getTranslatedFile("C.m"), "[((B *) nil_chk(b)) fooWithLong:1];");
+    assertNoErrors();
+  }
+
+  // A type declared in a file named for another type isn't found on the
+  // sourcepath, so the units that declare or reference it aren't cached.
+  public void testTranslationCacheSkipsTypesInOtherFiles() throws IOException {
+    String fileB = addSourceFile("class B { } class D { int n; }", "B.java");
+    String fileC = addSourceFile("class C { D d; }", "C.java");
+    String fileE = addSourceFile("class E { B b; }", "E.java");
+    options.setTranslationCacheDir(new File(getTempDir(), "cache"));
+
+    TranslationCache cache = translateFiles(fileB, fileC, fileE).getTranslationCache();
+    assertEquals(3, cache.missCount());
+    cache = translateFiles(fileB, fileC, fileE).getTranslationCache();
+    assertEquals(1, cache.hitCount());
+    assertEquals(2, cache.missCount());
+    assertNoErrors();
+  }
+
+  public void testTranslationCacheHashesReflectionRoots() throws IOException {
+    String fileA = addSourceFile("class A { int n; }", "A.java");
+    options.setTranslationCacheDir(new File(getTempDir(), "cache"));
+    options.setReflectionRootsFile(new File(addSourceFile("A\n", "roots.txt")));
+
+    TranslationCache cache = translateFiles(fileA).getTranslationCache();
+    assertEquals(1, cache.missCount());
+    cache = translateFiles(fileA).getTranslationCache();
+    assertEquals(1, cache.hitCount());
+
+    // Changing the roots may change the metadata of any unit.
+    options.setReflectionRootsFile(new File(addSourceFile("A:\n    int n\n", "roots.txt")));
+    cache = translateFiles(fileA).getTranslationCache();
+    assertEquals(0, cache.hitCount());
+    assertEquals(1, cache.missCount());
+    assertNoErrors();
+  }
+
+  public void testTranslationCacheTracksPackageInfo() throws IOException {
+    String fileA = addSourceFile("package foo; class A { int n; }", "foo/A.java");
+    addSourceFile("/** Version 1. */ package foo;", "foo/package-info.java");
+    options.setTranslationCacheDir(new File(getTempDir(), "cache"));
+
+    TranslationCache cache = translateFiles(fileA).getTranslationCache();
+    assertEquals(1, cache.missCount());
+    cache = translateFiles(fileA).getTranslationCache();
+    assertEquals(1, cache.hitCount());
+
+    // Package annotations may change the translation of the package's units.
+    addSourceFile("/** Version 2. */ package foo;", "foo/package-info.java");
+    cache = translateFiles(fileA).getTranslationCache();
+    assertEquals(0, cache.hitCount());
+    assertEquals(1, cache.missCount());
+    assertNoErrors();
+  }
+
+  public void testTranslationCacheHashesPrefixesFile() throws IOException {
+    String fileA = addSourceFile("package foo; class A { int n; }", "foo/A.java");
+    options.setTranslationCacheDir(new File(getTempDir(), "cache"));
+    String prefixes = addSourceFile("foo: FX\n", "prefixes.properties");
+    options.getPackagePrefixes().addPrefixesFile(prefixes);
+
+    TranslationCache cache = translateFiles(fileA).getTranslationCache();
+    assertEquals(1, cache.missCount());
+    cache = translateFiles(fileA).getTranslationCache();
+    assertEquals(1, cache.hitCount());
+
+    addSourceFile("foo: FY\n", "prefixes.properties");
+    cache = translateFiles(fileA).getTranslationCache();
+    assertEquals(0, cache.hitCount());
+    assertEquals(1, cache.missCount());
+    assertNoErrors();
+  }
+
+  public void testUnchangedOutputsNotRewritten() throws IOException {
+    String fileA = addSourceFile("class A { int n; }", "A.java");
+    translateFiles(fileA);
+    File header = new File(getTempDir(), "A.h");
+    File impl = new File(getTempDir(), "A.m");
+    assertTrue(header.setLastModified(1000L));
+    assertTrue(impl.setLastModified(1000L));
+
+    translateFiles(fileA);
+    assertEquals(1000L, header.lastModified());
+    assertEquals(1000L, impl.lastModified());
+
+    // Only the files whose content changed are written.
+    addSourceFile("class A { int n; private void m() {} }", "A.java");
+    translateFiles(fileA);
+    assertEquals(1000L, header.lastModified());
+    assertTrue(impl.lastModified() != 1000L);
+    assertNoErrors();
+  }
+
+  public void testOutputManifest() throws IOException {
+    String fileA = addSourceFile("class A { int n; }", "A.java");
+    translateFiles(fileA);
+    File manifestFile = new File(getTempDir(), "manifest.txt");
+    options.outputWriter().writeManifest(manifestFile);
+
+    String manifest = getTranslatedFile("manifest.txt");
+    for (String output : new String[] {"A.h", "A.m"}) {
+      File file = new File(getTempDir(), output);
+      String hash = Hashing.sha256().hashBytes(Files.readAllBytes(file.toPath())).toString();
+      assertTrue(manifest.contains(hash + "  " + file.getPath() + "\n"));
+    }
+  }
+
+  public void testProfileOutput() throws IOException {
+    String fileA = addSourceFile("class A { String s; int n() { return s.length(); } }", "A.java");
+    File profileFile = new File(getTempDir(), "profile.json");
+    options.setProfiler(new PassProfiler(profileFile));
+    translateFiles(fileA);
+    options.profiler().write();
+
+    String profile = getTranslatedFile("profile.json");
+    assertTrue(profile.startsWith("{\"traceEvents\": ["));
+    assertTrue(profile.contains("{\"name\": \"NilCheckResolver\", \"cat\": \"pass\""));
+    assertTrue(profile.contains("{\"name\": \"Header generation\", \"count\": 1,"));
+    assertTrue(profile.contains("\"p99_wall_ns\": "));
+    assertTrue(profile.contains("\"slowest_files\": ["));
+    assertTrue(profile.contains("A.java\", \"wall_ns\": "));
+  }
+
+  private TranslationProcessor translateFiles(String... files) {
+    GenerationBatch batch = new GenerationBatch(options);
+    for (String file : files) {
+      batch.addSource(new RegularInputFile(file, file.substring(getTempDir().length() + 1)));
+    }
+    TranslationProcessor processor = new TranslationProcessor(J2ObjC.createParser(options), null);
+    processor.processInputs(batch.getInputs());
+    return processor;
+  }
+
   public void testCheckNoIncludeCyclesWithoutCycles() {
     TranslationProcessor.checkNoIncludeCycles(
         ImmutableMap.of(
@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.translate;
+
+import com.google.devtools.j2objc.GenerationTest;
+import java.io.IOException;
+
+/**
+ * Unit tests for {@link ArrayBoundsCheckEliminator}.
+ */
+public class ArrayBoundsCheckEliminatorTest extends GenerationTest {
+
+  public void testAscendingLoop() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { int sum(int[] a) { int n = 0; "
+        + "for (int i = 0; i < a.length; i++) { n += a[i]; a[i] = n; } return n; } }",
+        "Test", "Test.m");
+    assertInTranslation(translation, "IOSIntArray_GetUnchecked(a, i)");
+    assertInTranslation(translation, "*IOSIntArray_GetRefUnchecked(a, i) = n;");
+    assertEquals(2, options.statistics().get(ArrayRewriter.BOUNDS_CHECKS_ELIMINATED));
+  }
+
+  public void testDescendingLoop() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { Object last(Object[] a) { Object o = null; "
+        + "for (int i = a.length - 1; i >= 0 && o == null; i--) { o = a[i]; } return o; } }",
+        "Test", "Test.m");
+    assertInTranslation(translation, "o = IOSObjectArray_GetUnchecked(a, i);");
+  }
+
+  public void testParenthesizedStart() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { int sum(int[] a) { int n = 0; "
+        + "for (int i = (0); i < a.length; i++) { n += a[i]; } return n; } }",
+        "Test", "Test.m");
+    assertInTranslation(translation, "IOSIntArray_GetUnchecked(a, i)");
+  }
+
+  public void testObjectArrayAssignmentIsChecked() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { void test(Object[] a) { "
+        + "for (int i = 0; i < a.length; i++) { Object o = a[i]; a[i] = null; } } }",
+        "Test", "Test.m");
+    assertInTranslation(translation, "id o = IOSObjectArray_GetUnchecked(a, i);");
+    assertInTranslation(translation, "IOSObjectArray_Set(a, i, nil);");
+  }
+
+  public void testMultipleArrays() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { void copy(char[] a, char[] b, char[] c) { "
+        + "for (int i = 1; i < a.length && i < b.length; ++i) { a[i] = b[i]; c[i] = a[i]; } } }",
+        "Test", "Test.m");
+    assertInTranslation(translation,
+        "*IOSCharArray_GetRefUnchecked(a, i) = IOSCharArray_GetUnchecked(nil_chk(b), i);");
+    // c isn't compared with the index.
+    assertInTranslation(translation, "IOSCharArray_GetRef(nil_chk(c), i)");
+  }
+
+  public void testAssignedIndexOrArrayIsChecked() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { void test(int[] a, int[] b) { "
+        + "for (int i = 0; i < a.length; i++) { a[i] = 0; i++; } "
+        + "for (int j = 0; j < b.length; j++) { b[j] = 0; b = new int[0]; } } }",
+        "Test", "Test.m");
+    assertNotInTranslation(translation, "Unchecked");
+  }
+
+  public void testFieldArrayIsChecked() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { int[] a; void test() { "
+        + "for (int i = 0; i < a.length; i++) { a[i] = 0; } } }",
+        "Test", "Test.m");
+    assertNotInTranslation(translation, "Unchecked");
+  }
+
+  public void testOtherIndexIsChecked() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { void test(int[] a) { "
+        + "for (int i = 0; i <= a.length; i++) { a[i] = 0; } "
+        + "for (int i = -1; i < a.length; i++) { a[i] = 0; } "
+        + "for (int i = 0; i < a.length; i += 2) { a[i] = 0; } "
+        + "for (int i = 0; i < a.length; i++) { a[i + 1] = 0; } } }",
+        "Test", "Test.m");
+    assertNotInTranslation(translation, "Unchecked");
+  }
+}
@@ -67,110 +67,120 @@ public class AutoboxerTest extends GenerationTest {
   }
 
   public void testBooleanAssignment() throws IOException {
-    String source = "boolean b = true; Boolean foo = Boolean.FALSE; b = foo;";
+    String source =
+        "boolean b = true; Boolean foo = Boolean.FALSE; b = foo; System.out.println(foo);";
     List<Statement> stmts = translateStatements(source);
     String result = generateStatement(stmts.get(2));
     assertEquals("b = [((JavaLangBoolean *) nil_chk(foo)) booleanValue];", result);
 
-    source = "boolean b = true; Boolean foo = Boolean.FALSE; foo = b;";
+    source = "boolean b = true; Boolean foo = Boolean.FALSE; foo = b; System.out.println(foo);";
     stmts = translateStatements(source);
     result = generateStatement(stmts.get(2));
     assertEquals("foo = JavaLangBoolean_valueOfWithBoolean_(b);", result);
   }
 
   public void testByteAssignment() throws IOException {
-    String source = "byte b = 5; Byte foo = Byte.valueOf((byte) 3); b = foo;";
+    String source =
+        "byte b = 5; Byte foo = Byte.valueOf((byte) 3); b = foo; System.out.println(foo);";
     List<Statement> stmts = translateStatements(source);
     String result = generateStatement(stmts.get(2));
     assertEquals("b = [foo charValue];", result);
 
-    source = "byte b = 5; Byte foo = Byte.valueOf((byte) 3); foo = b;";
+    source = "byte b = 5; Byte foo = Byte.valueOf((byte) 3); foo = b; System.out.println(foo);";
     stmts = translateStatements(source);
     result = generateStatement(stmts.get(2));
     assertEquals("foo = JavaLangByte_valueOfWithByte_(b);", result);
   }
 
   public void testCharAssignment() throws IOException {
-    String source = "char c = 'a'; Character foo = Character.valueOf('b'); c = foo;";
+    String source =
+        "char c = 'a'; Character foo = Character.valueOf('b'); c = foo; System.out.println(foo);";
     List<Statement> stmts = translateStatements(source);
     String result = generateStatement(stmts.get(2));
     assertEquals("c = [foo charValue];", result);
 
-    source = "char c = 'a'; Character foo = Character.valueOf('b'); foo = c;";
+    source =
+        "char c = 'a'; Character foo = Character.valueOf('b'); foo = c; System.out.println(foo);";
     stmts = translateStatements(source);
     result = generateStatement(stmts.get(2));
     assertEquals("foo = JavaLangCharacter_valueOfWithChar_(c);", result);
   }
 
   public void testShortAssignment() throws IOException {
-    String source = "short s = 5; Short foo = Short.valueOf((short) 3); s = foo;";
+    String source =
+        "short s = 5; Short foo = Short.valueOf((short) 3); s = foo; System.out.println(foo);";
     List<Statement> stmts = translateStatements(source);
     String result = generateStatement(stmts.get(2));
     assertEquals("s = [foo shortValue];", result);
 
-    source = "short s = 5; Short foo = Short.valueOf((short) 3); foo = s;";
+    source = "short s = 5; Short foo = Short.valueOf((short) 3); foo = s; System.out.println(foo);";
     stmts = translateStatements(source);
     result = generateStatement(stmts.get(2));
     assertEquals("foo = JavaLangShort_valueOfWithShort_(s);", result);
   }
 
   public void testIntAssignment() throws IOException {
-    String source = "int i = 5; Integer foo = Integer.valueOf(3); i = foo;";
+    String source =
+        "int i = 5; Integer foo = Integer.valueOf(3); i = foo; System.out.println(foo);";
     List<Statement> stmts = translateStatements(source);
     String result = generateStatement(stmts.get(2));
     assertEquals("i = [foo intValue];", result);
 
-    source = "int i = 5; Integer foo = Integer.valueOf(3); foo = i;";
+    source = "int i = 5; Integer foo = Integer.valueOf(3); foo = i; System.out.println(foo);";
     stmts = translateStatements(source);
     result = generateStatement(stmts.get(2));
     assertEquals("foo = JavaLangInteger_valueOfWithInt_(i);", result);
   }
 
   public void testLongAssignment() throws IOException {
-    String source = "long l = 5; Long foo = Long.valueOf(3L); l = foo;";
+    String source = "long l = 5; Long foo = Long.valueOf(3L); l = foo; System.out.println(foo);";
     List<Statement> stmts = translateStatements(source);
     String result = generateStatement(stmts.get(2));
     assertEquals("l = [foo longLongValue];", result);
 
-    source = "long l = 5; Long foo = Long.valueOf(3L); foo = l;";
+    source = "long l = 5; Long foo = Long.valueOf(3L); foo = l; System.out.println(foo);";
     stmts = translateStatements(source);
     result = generateStatement(stmts.get(2));
     assertEquals("foo = JavaLangLong_valueOfWithLong_(l);", result);
   }
 
   public void testFloatAssignment() throws IOException {
-    String source = "float f = 5.0f; Float foo = Float.valueOf(3.0f); f = foo;";
+    String source =
+        "float f = 5.0f; Float foo = Float.valueOf(3.0f); f = foo; System.out.println(foo);";
     List<Statement> stmts = translateStatements(source);
     String result = generateStatement(stmts.get(2));
     assertEquals("f = [foo floatValue];", result);
 
-    source = "float f = 5.0f; Float foo = Float.valueOf(3.0f); foo = f;";
+    source = "float f = 5.0f; Float foo = Float.valueOf(3.0f); foo = f; System.out.println(foo);";
     stmts = translateStatements(source);
     result = generateStatement(stmts.get(2));
     assertEquals("foo = JavaLangFloat_valueOfWithFloat_(f);", result);
   }
 
   public void testDoubleAssignment() throws IOException {
-    String source = "double d = 5.0; Double foo = Double.valueOf(3.0); d = foo;";
+    String source =
+        "double d = 5.0; Double foo = Double.valueOf(3.0); d = foo; System.out.println(foo);";
     List<Statement> stmts = translateStatements(source);
     String result = generateStatement(stmts.get(2));
     assertEquals("d = [foo doubleValue];", result);
 
-    source = "double d = 5.0; Double foo = Double.valueOf(3.0); foo = d;";
+    source = "double d = 5.0; Double foo = Double.valueOf(3.0); foo = d; System.out.println(foo);";
     stmts = translateStatements(source);
     result = generateStatement(stmts.get(2));
     assertEquals("foo = JavaLangDouble_valueOfWithDouble_(d);", result);
   }
 
   public void testInfixLeftOperand() throws IOException {
-    String source = "Integer test = new Integer(5); int result = test + 3;";
+    String source =
+        "Integer test = new Integer(5); int result = test + 3; System.out.println(test);";
     List<Statement> stmts = translateStatements(source);
     String result = generateStatement(stmts.get(1));
     assertEquals("int32_t result = JreIntPlus([test intValue], 3);", result);
   }
 
   public void testInfixRightOperand() throws IOException {
-    String source = "Integer test = new Integer(5); int result = 3 + test;";
+    String source =
+        "Integer test = new Integer(5); int result = 3 + test; System.out.println(test);";
     List<Statement> stmts = translateStatements(source);
     String result = generateStatement(stmts.get(1));
     assertEquals("int32_t result = JreIntPlus(3, [test intValue]);", result);
@@ -178,7 +188,8 @@ public class AutoboxerTest extends GenerationTest {
 
   public void testInfixBothOperands() throws IOException {
     String source =
-        "Integer foo = new Integer(5); Integer bar = new Integer(3); int result = foo + bar;";
+        "Integer foo = new Integer(5); Integer bar = new Integer(3); int result = foo + bar;"
+            + " System.out.println(foo); System.out.println(bar);";
     List<Statement> stmts = translateStatements(source);
     String result = generateStatement(stmts.get(2));
     assertEquals("int32_t result = JreIntPlus([foo intValue], [bar intValue]);", result);
@@ -193,7 +204,7 @@ public class AutoboxerTest extends GenerationTest {
   }
 
   public void testVariableDeclaration() throws IOException {
-    String source = "Integer test = 3;";
+    String source = "Integer test = 3; System.out.println(test);";
     List<Statement> stmts = translateStatements(source);
     String result = generateStatement(stmts.get(0));
     assertEquals("JavaLangInteger *test = JavaLangInteger_valueOfWithInt_(3);", result);
@@ -220,6 +231,7 @@ public class AutoboxerTest extends GenerationTest {
             public class Test {
              void test() {
                Boolean b = true ? false : null;
+               System.out.println(b);
               }
             }
             """,
@@ -524,6 +536,8 @@ public class AutoboxerTest extends GenerationTest {
             Double iSeconds = new Double(0);
             iMinutes = -iMinutes;
             iSeconds = -iSeconds;
+            System.out.println(iMinutes);
+            System.out.println(iSeconds);
           }
         }
         """;
@@ -560,6 +574,8 @@ public class AutoboxerTest extends GenerationTest {
                 Integer i1 = new Integer(2);
                 Integer i2 = new Integer(3);
                 int i3 = 1 + 2 + i1 + i2;
+                System.out.println(i1);
+                System.out.println(i2);
               }
             }
             """,
@@ -582,6 +598,7 @@ public class AutoboxerTest extends GenerationTest {
                   case 2:
                   case 3:
                 }
+                System.out.println(i);
               }
             }
             """,
@@ -621,6 +638,8 @@ public class AutoboxerTest extends GenerationTest {
                 Byte b = 3;
                 Short s;
                 s = 4;
+                System.out.println(b);
+                System.out.println(s);
               }
             }
             """,
@@ -640,6 +659,10 @@ public class AutoboxerTest extends GenerationTest {
                 Byte b = 2; b--;
                 Character c = 'a'; ++c;
                 Double d = 3.0; --d;
+                System.out.println(i);
+                System.out.println(b);
+                System.out.println(c);
+                System.out.println(d);
               }
             }
             """,
@@ -651,8 +674,26 @@ public class AutoboxerTest extends GenerationTest {
     assertInTranslation(translation, "PreDecrDouble(&d);");
   }
 
-  // Verify that passing a new Double to a method that takes a double is unboxed.
+  // Verify that passing a Double to a method that takes a double is unboxed.
   public void testUnboxedDoubleParameter() throws Exception {
+    String translation =
+        translateSourceFile(
+            """
+            class Test {
+              void takesDouble(double d) {}
+              void test(Double d) {
+                takesDouble(d);
+              }
+            }
+            """,
+            "Test",
+            "Test.m");
+    assertInTranslation(
+        translation, "[self takesDoubleWithDouble:[((JavaLangDouble *) nil_chk(d)) doubleValue]];");
+  }
+
+  // Verify that passing a new Double to a method that takes a double isn't boxed.
+  public void testUnboxedNewDoubleParameter() throws Exception {
     String translation =
         translateSourceFile(
             """
@@ -665,9 +706,142 @@ public class AutoboxerTest extends GenerationTest {
             """,
             "Test",
             "Test.m");
+    assertInTranslation(translation, "[self takesDoubleWithDouble:1.2];");
+  }
+
+  public void testBoxUnboxRoundTrip() throws IOException {
+    String translation =
+        translateSourceFile(
+            """
+            class Test {
+              int test1(int i) { return Integer.valueOf(i).intValue(); }
+              double test2(float f) { return (double) Float.valueOf(f); }
+              long test3(int i) { return (long) (Integer) i; }
+            }
+            """,
+            "Test",
+            "Test.m");
+    assertInTranslation(translation, "return i;");
+    assertInTranslation(translation, "return (double) f;");
+    assertInTranslation(translation, "return (int64_t) i;");
+    assertEquals(3, options.statistics().get(Autoboxer.ROUND_TRIPS_ELIMINATED));
+  }
+
+  public void testNonEscapingBoxedLocal() throws IOException {
+    String translation =
+        translateSourceFile(
+            """
+            import java.util.Map;
+            class Test {
+              int test(Map<String, Integer> map, String k) {
+                Integer count = map.get(k);
+                count++;
+                Integer total = 0;
+                for (int i = 0; i < count; i++) {
+                  total += i;
+                }
+                return total;
+              }
+            }
+            """,
+            "Test",
+            "Test.m");
+    assertTranslatedLines(
+        translation,
+        """
+        int32_t count = [((JavaLangInteger *) nil_chk([((id<JavaUtilMap>) nil_chk(map)) \
+        getWithId:k])) intValue];
+        JrePostIncInt(&count);
+        int32_t total = 0;
+        for (int32_t i = 0; i < count; JrePostIncInt(&i)) {
+          JrePlusAssignIntI(&total, i);
+        }
+        return total;
+        """);
+    assertEquals(2, options.statistics().get(Autoboxer.BOXED_LOCALS_ELIMINATED));
+  }
+
+  public void testNonEscapingBoxedLocalsArePrimitive() throws IOException {
+    String translation =
+        translateSourceFile(
+            """
+            class Test {
+              long test(boolean z, int n) {
+                Boolean foo = Boolean.FALSE;
+                z = foo;
+                Byte b = 3;
+                Short s;
+                s = 4;
+                Integer i = (Integer) 12;
+                i = n;
+                i = -i;
+                int sum = 1 + 2 + i + b;
+                switch (i) {
+                  case 1:
+                }
+                i++;
+                b--;
+                Character c = 'a';
+                ++c;
+                Double d = 3.0;
+                --d;
+                return (long) i + s + c + sum + (z ? 1 : 0) + Math.round(d);
+              }
+            }
+            """,
+            "Test",
+            "Test.m");
     assertInTranslation(
         translation,
-        "[self takesDoubleWithDouble:[create_JavaLangDouble_initWithDouble_(1.2) doubleValue]];");
+        "bool foo = [((JavaLangBoolean *) nil_chk(JreLoadStatic(JavaLangBoolean, FALSE))) "
+            + "booleanValue];");
+    assertInTranslation(translation, "z = foo;");
+    assertInTranslation(translation, "int8_t b = 3;");
+    assertInTranslation(translation, "s = 4;");
+    assertInTranslation(translation, "int32_t i = 12;");
+    assertInTranslation(translation, "i = n;");
+    assertInTranslation(translation, "i = -i;");
+    assertInTranslation(translation, "int32_t sum = JreIntPlus(JreIntPlus(JreIntPlus(1, 2), i), b);");
+    assertInTranslation(translation, "switch (i) {");
+    assertInTranslation(translation, "JrePostIncInt(&i);");
+    assertInTranslation(translation, "JrePostDecByte(&b);");
+    assertInTranslation(translation, "JrePreIncChar(&c);");
+    assertInTranslation(translation, "--d;");
+    assertInTranslation(translation, "(int64_t) i");
+    assertNotInTranslation(translation, "valueOf");
+    assertEquals(6, options.statistics().get(Autoboxer.BOXED_LOCALS_ELIMINATED));
+  }
+
+  public void testEscapingBoxedLocalsAreBoxed() throws IOException {
+    String translation =
+        translateSourceFile(
+            """
+            import java.util.Map;
+            class Test {
+              Object o;
+              void test(Map<String, Integer> map) {
+                Integer a = 1;
+                o = a;
+                Integer b = map.get("b");
+                o = null;
+                b++;
+                Integer c = 2;
+                Runnable r = () -> System.out.println(c + 1);
+                Integer d = null;
+                if (d == null) {
+                  d = 3;
+                }
+              }
+            }
+            """,
+            "Test",
+            "Test.m");
+    assertInTranslation(translation, "JavaLangInteger *a = JavaLangInteger_valueOfWithInt_(1);");
+    assertInTranslation(translation, "JavaLangInteger *b = ");
+    assertInTranslation(translation, "JreBoxedPostIncrInt(&b);");
+    assertInTranslation(translation, "JavaLangInteger *c = JavaLangInteger_valueOfWithInt_(2);");
+    assertInTranslation(translation, "JavaLangInteger *d = nil;");
+    assertEquals(0, options.statistics().get(Autoboxer.BOXED_LOCALS_ELIMINATED));
   }
 
   public void testWildcardBoxType() throws IOException {
@@ -701,6 +875,7 @@ public class AutoboxerTest extends GenerationTest {
               void test() {
                 Integer i;
                 i = (Integer) 12;
+                System.out.println(i);
               }
             }
             """,
@@ -759,6 +934,7 @@ public class AutoboxerTest extends GenerationTest {
                 Character toChar = 'A', toInt = 'A', toLong = 'A', toFlt = 'A', toDbl = 'A';
                 Object[] arr =
                     {(char) toChar, (int) toInt, (long) toLong, (float) toFlt, (double) toDbl};
+                Object[] boxes = {toChar, toInt, toLong, toFlt, toDbl};
               }
             }
             """,
@@ -915,6 +1091,7 @@ public class AutoboxerTest extends GenerationTest {
               void test() {
                 Integer tmp_int = new Integer(100);
                 long tmp_long = (long)tmp_int;
+                System.out.println(tmp_int);
               }
             }
             """,
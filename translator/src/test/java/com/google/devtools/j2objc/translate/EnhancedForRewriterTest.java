@@ -102,4 +102,114 @@ public class EnhancedForRewriterTest extends GenerationTest {
         "  break_testLabel2: ;",
         "}");
   }
+
+  public void testRandomAccessListIndexedLoop() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { int test(java.util.Vector<String> v, java.util.Vector<Integer> ints) { "
+        + "for (String s : v) {} int sum = 0; for (int i : ints) { sum += i; } return sum; } }",
+        "Test", "Test.m");
+    assertTranslatedLines(translation,
+        "{",
+        "  JavaUtilVector *l__ = v;",
+        "  int32_t n__ = [((JavaUtilVector *) nil_chk(l__)) size];",
+        "  for (int32_t i__ = 0; i__ < n__; JrePostIncInt(&i__)) {",
+        "    NSString *s = RETAIN_AND_AUTORELEASE([l__ getWithInt:i__]);",
+        "  }",
+        "}");
+    assertInTranslation(translation,
+        "int32_t i = [((JavaLangInteger *) nil_chk([l__ getWithInt:i__])) intValue];");
+  }
+
+  public void testIndexedLoopAnnotation() throws IOException {
+    String translation = translateSourceFile(
+        "import com.google.j2objc.annotations.LoopTranslation;"
+        + "import com.google.j2objc.annotations.LoopTranslation.LoopStyle;"
+        + "class Test { void test(java.util.List<String> l, Iterable<String> strings) { "
+        + "for (@LoopTranslation(LoopStyle.INDEXED) String s : l) {}"
+        + "for (@LoopTranslation(LoopStyle.INDEXED) String s : strings) {} } }",
+        "Test", "Test.m");
+    assertTranslatedLines(translation,
+        "id<JavaUtilList> l__ = l;",
+        "int32_t n__ = [((id<JavaUtilList>) nil_chk(l__)) size];");
+    assertInTranslation(translation, "[l__ getWithInt:i__]");
+    // Only lists can be indexed.
+    assertInTranslation(translation, "for (NSString * __strong s in nil_chk(strings)) {");
+    assertWarningRegex(".*LoopStyle.INDEXED requires a java.util.List expression.");
+  }
+
+  public void testFastEnumerationKeptForModifiedOrNativeLists() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { void test(java.util.ArrayList<String> a, java.util.Vector<String> v) { "
+        + "for (String s : a) {} for (String s : v) { v.remove(s); } } }",
+        "Test", "Test.m");
+    assertInTranslation(translation, "for (NSString * __strong s in nil_chk(a)) {");
+    assertInTranslation(translation, "for (NSString * __strong s in nil_chk(v)) {");
+    assertNotInTranslation(translation, "getWithInt:");
+  }
+
+  public void testFastEnumerationKeptForPossibleListModifications() throws IOException {
+    String translation = translateSourceFile(
+        "import java.util.*; class Test { Vector<String> f = new Vector<>(); "
+        + "void helper(List<String> l) { l.clear(); } void clearField() { f.clear(); } "
+        + "void test(Vector<String> v) { "
+        + "for (String s : v) { helper(v); } "
+        + "for (String s : v) { Collections.sort(v); } "
+        + "for (String s : v) { List<String> alias = v; alias.clear(); } "
+        + "for (String s : f) { this.f.remove(s); } "
+        + "for (String s : f) { clearField(); } "
+        + "for (String s : v) { if (v.contains(s)) { helper(f); } } "
+        + "int n = 0; for (String s : v) { if (v.contains(s)) { n++; } } } }",
+        "Test", "Test.m");
+    // Only the last loop reads v without making calls that may modify it.
+    assertOccurrences(translation, "int32_t n__ = ", 1);
+    assertInTranslation(translation, "JavaUtilVector *l__ = v;");
+  }
+
+  public void testFastEnumerationKeptForCallsThroughAliases() throws IOException {
+    String translation = translateSourceFile(
+        "import java.util.*; class Test { List<String> alias; "
+        + "void test(Vector<String> v) { alias = v; "
+        + "for (String s : v) { alias.clear(); } "
+        + "for (String s : v) { new ArrayList<>(alias).clear(); } } }",
+        "Test", "Test.m");
+    // Modifying the list through an alias must still raise the iterator's
+    // ConcurrentModificationException.
+    assertNotInTranslation(translation, "getWithInt:");
+  }
+
+  public void testUnknownLoopStyle() throws IOException {
+    addSourceFile(
+        "package com.google.j2objc.annotations; "
+        + "import java.lang.annotation.*; "
+        + "@Target(ElementType.LOCAL_VARIABLE) @Retention(RetentionPolicy.CLASS) "
+        + "public @interface LoopTranslation { "
+        + "enum LoopStyle { JAVA_ITERATOR, FAST_ENUMERATION, INDEXED, UNROLLED } "
+        + "LoopStyle value(); }",
+        "com/google/j2objc/annotations/LoopTranslation.java");
+    translateSourceFile(
+        "import com.google.j2objc.annotations.LoopTranslation;"
+        + "import com.google.j2objc.annotations.LoopTranslation.LoopStyle;"
+        + "class Test { void test(java.util.List<String> l) { "
+        + "for (@LoopTranslation(LoopStyle.UNROLLED) String s : l) {} } }",
+        "Test", "Test.m");
+    assertError("Test.java:1: Unknown LoopStyle: UNROLLED");
+  }
+
+  public void testIndexedLoopOnlyForKnownListTypes() throws IOException {
+    addSourceFile(
+        "package com.google.common.collect; "
+        + "public abstract class ImmutableList<E> extends java.util.AbstractList<E> "
+        + "implements java.util.RandomAccess {}",
+        "com/google/common/collect/ImmutableList.java");
+    String translation = translateSourceFile(
+        "import com.google.common.collect.ImmutableList; import java.util.*; class Test { "
+        + "static class L extends AbstractList<String> implements RandomAccess { "
+        + "public String get(int i) { return null; } public int size() { return 0; } } "
+        + "ImmutableList<String> immutable; void clear() {} "
+        + "void test(L l) { for (String s : l) {} for (String s : immutable) { clear(); } } }",
+        "Test", "Test.m");
+    // L may override iterator(). ImmutableList can't be modified.
+    assertInTranslation(translation, "for (NSString * __strong s in nil_chk(l)) {");
+    assertInTranslation(translation, "ComGoogleCommonCollectImmutableList *l__ = immutable_;");
+  }
 }
@@ -16,6 +16,7 @@ package com.google.devtools.j2objc.translate;
 
 import com.google.devtools.j2objc.GenerationTest;
 import com.google.devtools.j2objc.Options.MemoryManagementOption;
+import java.io.File;
 import java.io.IOException;
 
 /**
@@ -78,6 +79,34 @@ public class FunctionizerTest extends GenerationTest {
         translation, "return [self strWithNSString:msg withIOSClass:[self java_getClass]];");
   }
 
+  // Verify that a method no class in the program overrides is called as a function.
+  public void testEffectivelyFinalMethod() throws IOException {
+    options.setClassHierarchyFile(new File(addSourceFile(
+        "A java.lang.Object test str\nB java.lang.Object str", "hierarchy.txt")));
+    String translation = translateSourceFile(
+        "class A { String test(String msg) { return str(msg, getClass()); } "
+        + "  String str(String msg, Class<?> cls) { return msg + cls; }}",
+        "A", "A.m");
+    assertInTranslation(
+        translation, "return A_strWithNSString_withIOSClass_(self, msg, [self java_getClass]);");
+    assertTranslatedLines(translation,
+        "- (NSString *)strWithNSString:(NSString *)msg",
+        "withIOSClass:(IOSClass *)cls {",
+        "return A_strWithNSString_withIOSClass_(self, msg, cls);");
+  }
+
+  // Verify that a method overridden by a subclass in the program is still called dynamically.
+  public void testOverriddenMethodInClassHierarchy() throws IOException {
+    options.setClassHierarchyFile(new File(addSourceFile(
+        "A java.lang.Object test str\nB A str", "hierarchy.txt")));
+    String translation = translateSourceFile(
+        "class A { String test(String msg) { return str(msg, getClass()); } "
+        + "  String str(String msg, Class<?> cls) { return msg + cls; }}",
+        "A", "A.m");
+    assertInTranslation(
+        translation, "return [self strWithNSString:msg withIOSClass:[self java_getClass]];");
+  }
+
   // Verify instance field access in function.
   public void testFieldAccessInFunction() throws IOException {
     String translation = translateSourceFile(
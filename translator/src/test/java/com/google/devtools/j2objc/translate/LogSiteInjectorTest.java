@@ -57,7 +57,7 @@ public class LogSiteInjectorTest extends GenerationTest {
     assertInTranslation(
         translation,
         "[TestHello_logger "
-            + "logpWithJavaUtilLoggingLevel:JreLoadStatic(JavaUtilLoggingLevel, INFO) "
+            + "logpWithJavaUtilLoggingLevel:JavaUtilLoggingLevel_INFO "
             + "withNSString:@\"test.Hello\" "
             + "withNSString:@\"f\" "
             + "withNSString:msg withNSObjectArray:args];");
@@ -66,7 +66,7 @@ public class LogSiteInjectorTest extends GenerationTest {
     assertInTranslation(
         translation,
         "[TestHello_logger "
-            + "logpWithJavaUtilLoggingLevel:JreLoadStatic(JavaUtilLoggingLevel, INFO) "
+            + "logpWithJavaUtilLoggingLevel:JavaUtilLoggingLevel_INFO "
             + "withNSString:@\"test.Hello\" "
             + "withNSString:@\"f\" "
             + "withNSString:msg "
@@ -124,19 +124,19 @@ public class LogSiteInjectorTest extends GenerationTest {
             + "logpWithJavaUtilLoggingLevel:JreLoadStatic(JavaUtilLoggingLevel, FINE) "
             + "withNSString:@\"test.Hello3\" withNSString:@\"f\" withNSString:msg];",
         "[TestHello3_logger "
-            + "logpWithJavaUtilLoggingLevel:JreLoadStatic(JavaUtilLoggingLevel, FINER) "
+            + "logpWithJavaUtilLoggingLevel:JavaUtilLoggingLevel_FINER "
             + "withNSString:@\"test.Hello3\" withNSString:@\"f\" withNSString:msg];",
         "[TestHello3_logger "
-            + "logpWithJavaUtilLoggingLevel:JreLoadStatic(JavaUtilLoggingLevel, SEVERE) "
+            + "logpWithJavaUtilLoggingLevel:JavaUtilLoggingLevel_SEVERE "
             + "withNSString:@\"test.Hello3\" withNSString:@\"f\" withNSString:msg];",
         "[TestHello3_logger "
-            + "logpWithJavaUtilLoggingLevel:JreLoadStatic(JavaUtilLoggingLevel, WARNING) "
+            + "logpWithJavaUtilLoggingLevel:JavaUtilLoggingLevel_WARNING "
             + "withNSString:@\"test.Hello3\" withNSString:@\"f\" withNSString:msg];",
         "[TestHello3_logger "
-            + "logpWithJavaUtilLoggingLevel:JreLoadStatic(JavaUtilLoggingLevel, CONFIG) "
+            + "logpWithJavaUtilLoggingLevel:JavaUtilLoggingLevel_CONFIG "
             + "withNSString:@\"test.Hello3\" withNSString:@\"f\" withNSString:msg];",
         "[TestHello3_logger "
-            + "logpWithJavaUtilLoggingLevel:JreLoadStatic(JavaUtilLoggingLevel, INFO) "
+            + "logpWithJavaUtilLoggingLevel:JavaUtilLoggingLevel_INFO "
             + "withNSString:@\"test.Hello3\" withNSString:@\"f\" withNSString:msg];");
   }
 
@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.translate;
+
+import com.google.devtools.j2objc.GenerationTest;
+import java.io.IOException;
+
+/**
+ * Unit tests for {@link LoopStringConcatRewriter}.
+ */
+public class LoopStringConcatRewriterTest extends GenerationTest {
+
+  public void testAppendInLoop() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { String test(int n) { String s = \"n:\"; "
+        + "for (int i = 0; i < n; i++) { s += i; } return s; } }", "Test", "Test.m");
+    assertInTranslation(translation, "JavaLangStringBuilder *sBuilder__ = ");
+    assertInTranslation(translation, "create_JavaLangStringBuilder_init() appendWithNSString:s]");
+    assertInTranslation(translation, "[sBuilder__ appendWithInt:i];");
+    assertTranslatedLines(translation,
+        "s = [sBuilder__ description];",
+        "}",
+        "return s;");
+    assertNotInTranslation(translation, "JreStrAppend");
+  }
+
+  public void testConcatenationInLoop() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { String test(java.util.Iterator<Object> it) { String s = \"\"; "
+        + "while (it.hasNext()) { s = s + \",\" + it.next(); } return s; } }", "Test", "Test.m");
+    assertInTranslation(translation, "[sBuilder__ appendWithNSString:@\",\"]");
+    assertInTranslation(translation, "appendWithId:");
+    assertInTranslation(translation, "s = [sBuilder__ description];");
+    assertNotInTranslation(translation, "JreStrcat");
+  }
+
+  public void testLocalReadInLoopNotRewritten() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { String test(int n) { String s = \"\"; "
+        + "for (int i = 0; i < n; i++) { s += i; if (s.length() > 10) break; } return s; } }",
+        "Test", "Test.m");
+    assertInTranslation(translation, "JreStrAppend(&s, \"I\", i);");
+    assertNotInTranslation(translation, "StringBuilder");
+  }
+
+  public void testLoopInTryNotRewritten() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { String test(int n) { String s = \"\"; "
+        + "try { for (int i = 0; i < n; i++) { s += i; } } catch (RuntimeException e) {} "
+        + "return s; } }",
+        "Test", "Test.m");
+    assertInTranslation(translation, "JreStrAppend(&s, \"I\", i);");
+    assertNotInTranslation(translation, "StringBuilder");
+  }
+}
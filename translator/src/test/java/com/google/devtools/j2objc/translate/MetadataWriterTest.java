@@ -15,6 +15,7 @@
 package com.google.devtools.j2objc.translate;
 
 import com.google.devtools.j2objc.GenerationTest;
+import java.io.File;
 import java.io.IOException;
 
 /**
@@ -297,6 +298,64 @@ public class MetadataWriterTest extends GenerationTest {
         "};");
   }
 
+  public void testReachableMetadataOnly() throws IOException {
+    options.setReachableMetadataOnly(true);
+    String translation = translateSourceFile(
+        "import com.google.j2objc.annotations.UsedByReflection; "
+        + "class Test { int a; @UsedByReflection int b; void foo() {} "
+        + "  @UsedByReflection void bar() {} "
+        + "  static class Unused { void baz() {} } "
+        + "  @UsedByReflection static class Root { void qux() {} } }",
+        "Test", "Test.m");
+    assertInTranslation(translation, "static const J2ObjcClassInfo _Test = {");
+    assertInTranslation(translation, "methods[0].selector = @selector(bar)");
+    assertNotInTranslation(translation, "@selector(foo)");
+    assertTranslatedLines(translation,
+        "static const J2ObjcFieldInfo fields[] = {",
+        "  { \"b_\", \"I\", .constantValue.asLong = 0, 0x0, -1, -1, -1, -1 },",
+        "};");
+    // Types without reachable members have no metadata.
+    assertNotInTranslation(translation, "_Test_Unused = {");
+    // All members of a type used by reflection are reachable.
+    assertInTranslation(translation, "static const J2ObjcClassInfo _Test_Root = {");
+    assertInTranslation(translation, "methods[1].selector = @selector(qux)");
+  }
+
+  // Enum constant names are read from the enum's metadata, so it's needed even
+  // if the enum isn't a reflection root.
+  public void testReachableMetadataOnlyKeepsEnumConstants() throws IOException {
+    options.setReachableMetadataOnly(true);
+    String translation = translateSourceFile(
+        "class Test { enum Color { RED, GREEN; void foo() {} } "
+        + "  String test() { return Color.GREEN.name(); } }",
+        "Test", "Test.m");
+    assertInTranslation(translation,
+        "Test_Color_initWithNSString_withInt_(e, JreEnumConstantName(Test_Color_class_(), i), i);");
+    assertInTranslation(translation, "static const J2ObjcClassInfo _Test_Color = {");
+    assertTranslatedLines(translation,
+        "static const J2ObjcFieldInfo fields[] = {",
+        "  { \"RED\", \"LTest_Color;\", .constantValue.asLong = 0, 0x4019, -1, 0, -1, -1 },",
+        "  { \"GREEN\", \"LTest_Color;\", .constantValue.asLong = 0, 0x4019, -1, 1, -1, -1 },",
+        "};");
+    assertNotInTranslation(translation, "@selector(foo)");
+  }
+
+  public void testReflectionRootsFile() throws IOException {
+    options.setReflectionRootsFile(new File(addSourceFile(
+        "Test:\n    void foo()\n    int a\nTest$Other\n", "roots.txt")));
+    String translation = translateSourceFile(
+        "class Test { int a; int b; void foo() {} void bar() {} "
+        + "  static class Other { void baz() {} } "
+        + "  static class Unused { void qux() {} } }",
+        "Test", "Test.m");
+    assertInTranslation(translation, "methods[0].selector = @selector(foo)");
+    assertNotInTranslation(translation, "@selector(bar)");
+    assertInTranslation(translation, "\"a_\"");
+    assertNotInTranslation(translation, "\"b_\"");
+    assertInTranslation(translation, "methods[1].selector = @selector(baz)");
+    assertNotInTranslation(translation, "_Test_Unused = {");
+  }
+
   // Verify that the stub NS types, such as NSFastEnumeration, are not included in metadata.
   public void testNSTypesNotInMetadata() throws IOException {
     String translation = translateSourceFile(
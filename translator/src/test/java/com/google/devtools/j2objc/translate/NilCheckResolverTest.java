@@ -355,4 +355,60 @@ public class NilCheckResolverTest extends GenerationTest {
     assertInTranslation(translation, "@throw nil_chk(e);");
     assertInTranslation(translation, "@throw create_JavaLangRuntimeException_init();");
   }
+
+  public void testNonnullFinalField() throws IOException {
+    options.setNonnullFinalFields(true);
+    String translation = translateSourceFile(
+        "class Test { private final Object a = new Object(); private final Object b; "
+        + "private Object c = new Object(); "
+        + "Test(boolean flag) { b = flag ? \"b\" : new Object(); } "
+        + "int test() { return a.hashCode() + b.hashCode() + c.hashCode(); } }",
+        "Test", "Test.m");
+    assertInTranslation(translation, "[a_ hash]");
+    assertInTranslation(translation, "[b_ hash]");
+    // c isn't final.
+    assertInTranslation(translation, "[nil_chk(c_) hash]");
+    assertEquals(2, options.statistics().get(NilCheckResolver.NONNULL_FIELDS_ELIDED));
+  }
+
+  public void testNonnullFinalFieldCheckedByDefault() throws IOException {
+    // A superclass constructor may call get() before a is assigned.
+    String translation = translateSourceFile(
+        "class Test extends Base { private final Object a = new Object(); "
+        + "@Override int get() { return a.hashCode(); } } "
+        + "class Base { Base() { get(); } int get() { return 0; } }",
+        "Test", "Test.m");
+    assertInTranslation(translation, "[nil_chk(a_) hash]");
+    assertEquals(0, options.statistics().get(NilCheckResolver.NONNULL_FIELDS_ELIDED));
+  }
+
+  public void testNonnullMethodResult() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { "
+        + "private static Test create() { return new Test().self(); } "
+        + "final Test self() { return this; } "
+        + "private Object maybe(boolean flag) { return flag ? new Object() : null; } "
+        + "Test other() { return this; } "
+        + "int test(boolean flag) { return create().hashCode() + maybe(flag).hashCode() "
+        + "+ other().hashCode(); } }",
+        "Test", "Test.m");
+    assertInTranslation(translation, "[Test_create() hash]");
+    assertInTranslation(translation, "[nil_chk(Test_maybeWithBoolean_(self, flag)) hash]");
+    // other() may be overridden.
+    assertInTranslation(translation, "[((Test *) nil_chk([self other])) hash]");
+    assertEquals(1, options.statistics().get(NilCheckResolver.NONNULL_RESULTS_ELIDED));
+  }
+
+  public void testNonnullParameter() throws IOException {
+    String translation = translateSourceFile(
+        "import javax.annotation.Nonnull; class Test { "
+        + "int test(@Nonnull Object a, Object b) { return a.hashCode() + b.hashCode(); } "
+        + "int test2(@Nonnull Object a) { a = null; return a.hashCode(); } }",
+        "Test", "Test.m");
+    assertInTranslation(translation, "[a hash]");
+    assertInTranslation(translation, "[nil_chk(b) hash]");
+    // a may be null once it's assigned.
+    assertInTranslation(translation, "[nil_chk(a) hash]");
+    assertEquals(1, options.statistics().get(NilCheckResolver.NONNULL_PARAMETERS_ELIDED));
+  }
 }
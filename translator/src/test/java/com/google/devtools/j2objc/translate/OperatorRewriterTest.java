@@ -235,6 +235,30 @@ public class OperatorRewriterTest extends GenerationTest {
     assertInTranslation(translation, "JreStrAppend(&str, \"$I\", @\"bar\", x);");
   }
 
+  public void testStringConcatenationConstantFolding() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { static final String PREFIX = \"foo\"; static final int N = 2; "
+        + "String test1(int i) { return PREFIX + ':' + N + i; } "
+        + "String test2() { return \"n=\" + (N + 1); } "
+        + "String test3() { return \"\" + ':'; } }", "Test", "Test.m");
+    assertInTranslation(translation, "return JreStrcat(\"$I\", @\"foo:2\", i);");
+    assertInTranslation(translation, "return @\"n=3\";");
+    assertInTranslation(translation, "return @\":\";");
+  }
+
+  // Constants of other units aren't folded, so that the unit keeps referring to
+  // their class.
+  public void testStringConcatenationOtherUnitConstantsNotFolded() throws IOException {
+    addSourceFile("class Constants { static final String PREFIX = \"foo\"; }", "Constants.java");
+    String translation = translateSourceFile(
+        "class Test { String test1(int i) { return Constants.PREFIX + ':' + i; } "
+        + "String test2() { return \"n=\" + Constants.PREFIX; } }", "Test", "Test.m");
+    assertInTranslation(translation,
+        "return JreStrcat(\"$CI\", Constants_PREFIX, ':', i);");
+    assertInTranslation(translation,
+        "return JreStrcat(\"$$\", @\"n=\", Constants_PREFIX);");
+  }
+
   public void testRetainedWithAnnotation() throws IOException {
     String translation = translateSourceFile(
         "import com.google.j2objc.annotations.RetainedWith;"
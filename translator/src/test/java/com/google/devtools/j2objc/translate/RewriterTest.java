@@ -210,9 +210,16 @@ public class RewriterTest extends GenerationTest {
   }
 
   public void testAdditionWithinStringConcatenation() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { void test(int i, float f) { String s = i + f + \"foo\"; } }",
+        "Test", "Test.m");
+    assertInTranslation(translation, "NSString *s = JreStrcat(\"F$\", i + f, @\"foo\");");
+  }
+
+  public void testConstantAdditionWithinStringConcatenation() throws IOException {
     String translation = translateSourceFile(
         "class Test { void test() { String s = 1 + 2.3f + \"foo\"; } }", "Test", "Test.m");
-    assertInTranslation(translation, "NSString *s = JreStrcat(\"F$\", 1 + 2.3f, @\"foo\");");
+    assertInTranslation(translation, "NSString *s = @\"3.3foo\";");
   }
 
   public void testMethodCollisionWithSuperclassField() throws IOException {
@@ -31,7 +31,8 @@ public class StaticVarRewriterTest extends GenerationTest {
         "Test", "Test.m");
     assertTranslatedLines(translation,
         "[nil_chk(((Test *) nil_chk(JreLoadStatic(Test, test)))->obj_) description];",
-        "[nil_chk(((Test *) nil_chk(JreLoadStatic(Test, test)))->obj_) description];");
+        // Test is initialized by the first statement.
+        "[nil_chk(((Test *) nil_chk(Test_test))->obj_) description];");
   }
 
   public void testAssignmentToNewObject() throws IOException {
@@ -74,9 +75,9 @@ public class StaticVarRewriterTest extends GenerationTest {
     assertTranslatedLines(
         translation,
         "int32_t a = JreLoadStatic(Test, i);",
-        "int32_t b = (Test_Inner_getTest(), JreLoadStatic(Test, i));",
-        "int32_t c = JrePostIncInt((Test_Inner_getTest(), JreLoadStaticRef(Test, i)));",
-        "int32_t d = *(Test_Inner_getTest(), JreLoadStaticRef(Test, i)) = 6;");
+        "int32_t b = (Test_Inner_getTest(), Test_i);",
+        "int32_t c = JrePostIncInt((Test_Inner_getTest(), &Test_i));",
+        "int32_t d = *(Test_Inner_getTest(), &Test_i) = 6;");
   }
 
   public void testStaticLoadWithArrayAccess() throws IOException {
@@ -87,8 +88,8 @@ public class StaticVarRewriterTest extends GenerationTest {
     assertTranslatedLines(
         translation,
         "*IOSIntArray_GetRef(nil_chk(JreLoadStatic(Test_Inner, ints)), 0) = 1;",
-        "JrePlusAssignIntI(IOSIntArray_GetRef(JreLoadStatic(Test_Inner, ints), 0), 2);",
-        "return IOSIntArray_Get(JreLoadStatic(Test_Inner, ints), 0);");
+        "JrePlusAssignIntI(IOSIntArray_GetRef(Test_Inner_ints, 0), 2);",
+        "return IOSIntArray_Get(Test_Inner_ints, 0);");
   }
 
   public void testStaticLoadWithArrayAccessStrictField() throws IOException {
@@ -104,9 +105,8 @@ public class StaticVarRewriterTest extends GenerationTest {
         translation,
         "*IOSIntArray_GetRef(nil_chk(JreStrictFieldStrongLoad(JreLoadStaticRef(Test_Inner, ints))),"
             + " 0) = 1;",
-        "JrePlusAssignIntI(IOSIntArray_GetRef(JreStrictFieldStrongLoad("
-            + "JreLoadStaticRef(Test_Inner, ints)), 0), 2);",
-        "return IOSIntArray_Get(JreStrictFieldStrongLoad(JreLoadStaticRef(Test_Inner, ints)), 0);");
+        "JrePlusAssignIntI(IOSIntArray_GetRef(JreStrictFieldStrongLoad(&Test_Inner_ints), 0), 2);",
+        "return IOSIntArray_Get(JreStrictFieldStrongLoad(&Test_Inner_ints), 0);");
   }
 
   // Verify that Class.CONSTANT_FIELD.CONSTANT translates correctly.
@@ -135,4 +135,30 @@ public class StaticVarRewriterTest extends GenerationTest {
         "- (int32_t)test {",
         "return (JreStrictFieldStrongLoad(JreLoadStaticRef(Foo_BarHolder, BAR)), Bar_N);");
   }
+
+  public void testRepeatedStaticLoads() throws IOException {
+    addSourceFile("class A { static int i; static int j; }", "A.java");
+    String translation = translateSourceFile(
+        "class Test { static int test(boolean b) { int x = b ? A.i : 0; int y = A.i; "
+        + "if (b) { y += A.j; } return x + y + A.j; } }", "Test", "Test.m");
+    assertTranslatedLines(translation,
+        "int32_t x = b ? JreLoadStatic(A, i) : 0;",
+        "int32_t y = JreLoadStatic(A, i);",
+        "if (b) {",
+        "JrePlusAssignIntI(&y, A_j);",
+        "}",
+        "return JreIntPlus(JreIntPlus(x, y), A_j);");
+    assertEquals(2, options.statistics().get(StaticVarRewriter.INIT_CHECKS_ELIMINATED));
+  }
+
+  public void testSuperclassStaticLoad() throws IOException {
+    addSourceFile("class A { static int i; }", "A.java");
+    String translation = translateSourceFile(
+        "class Test extends A { int test() { return i; } "
+        + "static int test2() { return i; } }", "Test", "Test.m");
+    // An instance exists, so its superclass is initialized.
+    assertTranslatedLines(translation, "- (int32_t)test {", "return A_i;");
+    assertTranslatedLines(translation,
+        "int32_t Test_test2() {", "Test_initialize();", "return A_i;");
+  }
 }
@@ -217,12 +217,14 @@ public class SwitchRewriterTest extends GenerationTest {
     assertTranslatedLines(
         translation,
         """
-        switch (JreIndexOfStr(s, (id[]){ @"foo", @"bar", Test_constant, Foo_TEST, Bar_TEST }, 5)) {
-          case 0:
+        static const int32_t switchHashes$0[] = { -1062993034, 97299, 101574, 110251487, 110251488 };
+        static NSString * const switchValues$0[] = { @"mumble", @"bar", @"foo", @"test1", @"test2" };
+        switch (JreIndexOfStrHashed(s, switchHashes$0, switchValues$0, 5)) {
+          case 2:
           return 42;
           case 1:
           return 666;
-          case 2:
+          case 0:
           return -1;
           case 3:
           return -2;
@@ -234,6 +236,16 @@ public class SwitchRewriterTest extends GenerationTest {
         """);
   }
 
+  // Verify that switches with values that can't be static literals use a linear search.
+  public void testStringSwitchWithNonLiteralValues() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { int test(String s) { switch (s) { "
+        + "case \"a??=b\": return 1; case \"c\": return 2; default: return 0; } } }",
+        "Test", "Test.m");
+    assertNotInTranslation(translation, "JreIndexOfStrHashed");
+    assertInTranslation(translation, "JreIndexOfStr(s, (id[]){ @\"a?\" \"?=b\", @\"c\" }, 2)");
+  }
+
   /**
    * Verify that when a the last switch case is empty (no statement),
    * an empty statement is added.  Java doesn't require an empty statement
@@ -698,7 +710,9 @@ public class SwitchRewriterTest extends GenerationTest {
     assertTranslatedLines(
         translation,
         """
-        switch (JreIndexOfStr(component, (id[]){ @".", @".." }, 2)) {
+        static const int32_t switchHashes$0[] = { 46, 1472 };
+        static NSString * const switchValues$0[] = { @".", @".." };
+        switch (JreIndexOfStrHashed(component, switchHashes$0, switchValues$0, 2)) {
           case 0:
           {
             continue;
@@ -15,6 +15,7 @@
 package com.google.devtools.j2objc.util;
 
 import com.google.devtools.j2objc.GenerationTest;
+import com.google.devtools.j2objc.file.InputFile;
 import com.google.devtools.j2objc.file.JarredInputFile;
 import java.io.File;
 import java.io.IOException;
@@ -46,6 +47,25 @@ public class FileUtilTest extends GenerationTest {
     assertTrue(jarEntry.exists());
   }
   
+  // Verify that types are found in source path jars, and that a jar is
+  // reindexed when it changes.
+  public void testFindTypeOnSourcePathInJar() throws IOException {
+    addJarFile("src.jar", "foo/A.java", "package foo; class A {}");
+    InputFile file = options.fileUtil().findTypeOnSourcePath("foo.A");
+    assertNotNull(file);
+    assertEquals("foo/A.java", file.getUnitName());
+    assertNull(options.fileUtil().findTypeOnSourcePath("foo.B"));
+
+    options.fileUtil().getSourcePathEntries().clear();
+    addJarFile("src.jar", "foo/A.java", "package foo; class A {}",
+        "foo/B.java", "package foo; class B {}");
+    getTempFile("src.jar").setLastModified(System.currentTimeMillis() + 2000);
+    assertNull(options.fileUtil().findTypeOnSourcePath("foo.B"));
+    FileUtil newFileUtil = new FileUtil();
+    newFileUtil.appendSourcePath(getTempFile("src.jar").getPath());
+    assertNotNull(newFileUtil.findTypeOnSourcePath("foo.B"));
+  }
+
   // Verify that a classes.jar file is extracted from an Android AAR file.
   public void testExtractClassesJarFromAarFile() throws IOException {
     File aarFile = new File(getResourceAsFile("hello.aar"));
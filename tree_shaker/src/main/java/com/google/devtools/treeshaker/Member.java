@@ -15,6 +15,7 @@ package com.google.devtools.treeshaker;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 final class Member {
   static Member buildFrom(MemberInfo memberInfo, Type declaringType) {
@@ -34,8 +35,14 @@ final class Member {
   private final boolean isExported;
   private final String signature;
 
-  private boolean fullyTraversed;
-  private boolean live;
+  // Marking flags, which may be set concurrently by the RapidTypeAnalyser.
+  private static final AtomicIntegerFieldUpdater<Member> stateUpdater =
+      AtomicIntegerFieldUpdater.newUpdater(Member.class, "state");
+  private static final int LIVE = 1;
+  private static final int TRAVERSED = 2;
+  private static final int TRAVERSED_BY_ORIGINAL_SIGNATURE = 4;
+  private volatile int state;
+
   private final List<Type> referencedTypes = new ArrayList<>();
   private final List<Member> referencedMembers = new ArrayList<>();
   private Member originalMember;
@@ -77,19 +84,34 @@ final class Member {
   }
 
   boolean isLive() {
-    return live;
-  }
-
-  void markLive() {
-    this.live = true;
-  }
-
-  boolean isFullyTraversed() {
-    return fullyTraversed;
-  }
-
-  void markFullyTraversed() {
-    this.fullyTraversed = true;
+    return (state & LIVE) != 0;
+  }
+
+  /**
+   * Marks this member live, returning false if it already was.
+   */
+  boolean markLive() {
+    return setFlag(LIVE);
+  }
+
+  /**
+   * Marks the overriding chain of this member as traversed for a signature,
+   * returning false if it already was. The signature is either this member's
+   * or its original member's.
+   */
+  boolean markTraversed(String signature) {
+    return setFlag(signature.equals(this.signature) ? TRAVERSED : TRAVERSED_BY_ORIGINAL_SIGNATURE);
+  }
+
+  private boolean setFlag(int flag) {
+    int current;
+    do {
+      current = state;
+      if ((current & flag) != 0) {
+        return false;
+      }
+    } while (!stateUpdater.compareAndSet(this, current, current | flag));
+    return true;
   }
 
   List<Type> getReferencedTypes() {
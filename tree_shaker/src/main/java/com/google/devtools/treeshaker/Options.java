@@ -69,7 +69,10 @@ class Options {
   private boolean treatWarningsAsErrors = false;
   private boolean useClassHierarchyAnalyzer = false;
   private boolean stripReflection = false;
+  private int jobs = Runtime.getRuntime().availableProcessors();
   private File treeShakerRoots;
+  private File summaryCacheDir;
+  private File classHierarchyOutputFile;
   private File outputFile = new File("tree-shaker-report.txt");
   private LibraryInfo summary;
   private String summaryOutputFile;
@@ -129,6 +132,14 @@ class Options {
     this.useClassHierarchyAnalyzer = useClassHierarchyAnalyzer;
   }
 
+  public int jobs() {
+    return jobs;
+  }
+
+  public void setJobs(int jobs) {
+    this.jobs = jobs;
+  }
+
   public File getTreeShakerRoots() {
     return treeShakerRoots;
   }
@@ -137,6 +148,22 @@ class Options {
     this.treeShakerRoots = treeShakerRoots;
   }
 
+  public File getSummaryCacheDir() {
+    return summaryCacheDir;
+  }
+
+  public void setSummaryCacheDir(File summaryCacheDir) {
+    this.summaryCacheDir = summaryCacheDir;
+  }
+
+  public File getClassHierarchyOutputFile() {
+    return classHierarchyOutputFile;
+  }
+
+  public void setClassHierarchyOutputFile(File classHierarchyOutputFile) {
+    this.classHierarchyOutputFile = classHierarchyOutputFile;
+  }
+
   public File getOutputFile() {
     return outputFile;
   }
@@ -300,6 +327,16 @@ class Options {
           usage("--output-summary");
         }
         options.summaryOutputFile = args[nArg];
+      } else if (arg.equals("--output-class-hierarchy")) {
+        if (++nArg == args.length) {
+          usage("--output-class-hierarchy requires an argument");
+        }
+        options.classHierarchyOutputFile = new File(args[nArg]);
+      } else if (arg.equals("--summary-cache")) {
+        if (++nArg == args.length) {
+          usage("--summary-cache requires an argument");
+        }
+        options.summaryCacheDir = new File(args[nArg]);
       } else if (arg.startsWith(XBOOTCLASSPATH)) {
         // TODO(malvania): Enable the bootclasspath option when we have a class file AST
         //                 parser that can use class jars.
@@ -326,6 +363,18 @@ class Options {
         options.useClassHierarchyAnalyzer = true;
       } else if (arg.equals("--use-rapid-type-analyser")) {
         options.useClassHierarchyAnalyzer = false;
+      } else if (arg.equals("--jobs")) {
+        if (++nArg == args.length) {
+          usage("--jobs requires an argument");
+        }
+        try {
+          options.jobs = Integer.parseInt(args[nArg]);
+        } catch (NumberFormatException e) {
+          usage("invalid --jobs argument: " + args[nArg]);
+        }
+        if (options.jobs < 1) {
+          usage("--jobs must be at least 1");
+        }
       } else if (arg.equals("-Xprint-args")) {
         printArgs = true;
       } else if (arg.equals("--strip-reflection")) {
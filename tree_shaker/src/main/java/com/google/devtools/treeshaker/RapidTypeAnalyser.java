@@ -20,24 +20,52 @@ import static com.google.devtools.treeshaker.UsedCodeMarker.PSEUDO_CONSTRUCTOR_P
 import static com.google.devtools.treeshaker.UsedCodeMarker.SIGNATURE_PREFIX;
 
 import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
 import com.google.common.flogger.GoogleLogger;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.devtools.j2objc.util.CodeReferenceMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Finds the unused code of an app by rapid type analysis: the live members
+ * are found by following references from the exported types and members,
+ * and only the overrides in instantiated types are live for a polymorphic
+ * reference.
+ *
+ * <p>Marking uses a worklist instead of recursion, so that long reference
+ * chains don't overflow the stack, and its work is spread across a
+ * fork-join pool. Types and members are marked with atomic flags, so the
+ * result doesn't depend on the order in which work is done.
+ */
 final class RapidTypeAnalyser {
   private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
 
-  static CodeReferenceMap analyse(Collection<Type> types) {
-    types.stream().filter(Type::isExported).forEach(RapidTypeAnalyser::markTypeLive);
+  private final ForkJoinPool pool;
+  // Scheduled work that hasn't finished, and a latch released when there is none.
+  private final AtomicLong pending = new AtomicLong();
+  private final CountDownLatch done = new CountDownLatch(1);
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  private RapidTypeAnalyser(ForkJoinPool pool) {
+    this.pool = pool;
+  }
 
-    // Go over the entry points to start the traversal.
-    types.stream()
-        .flatMap(t -> t.getMembers().stream())
-        .filter(Member::isExported)
-        .forEach(m -> onMemberReference(m));
+  static CodeReferenceMap analyse(Collection<Type> types, int jobs) {
+    ForkJoinPool pool = new ForkJoinPool(jobs);
+    try {
+      new RapidTypeAnalyser(pool).markLiveCode(types);
+    } finally {
+      pool.shutdown();
+    }
 
     CodeReferenceMap.Builder unusedBuilder = CodeReferenceMap.builder();
     List<String> uninstantiated = new ArrayList<>();
@@ -84,42 +112,93 @@ final class RapidTypeAnalyser {
     return unusedBuilder.build();
   }
 
-  private static void onMemberReference(Member member) {
+  private void markLiveCode(Collection<Type> types) {
+    schedule(() -> {
+      types.stream().filter(Type::isExported).forEach(this::markTypeLive);
+
+      // Go over the entry points to start the traversal.
+      types.stream()
+          .flatMap(t -> t.getMembers().stream())
+          .filter(Member::isExported)
+          .forEach(this::onMemberReference);
+    });
+    Uninterruptibles.awaitUninterruptibly(done);
+    Throwable t = failure.get();
+    if (t != null) {
+      Throwables.throwIfUnchecked(t);
+      throw new RuntimeException(t);
+    }
+  }
+
+  /**
+   * Runs work in the pool. Work that finds new live code schedules more work
+   * rather than recursing.
+   */
+  private void schedule(Runnable work) {
+    pending.incrementAndGet();
+    ForkJoinTask<?> task = new RecursiveAction() {
+      @Override
+      protected void compute() {
+        try {
+          if (failure.get() == null) {
+            work.run();
+          }
+        } catch (Throwable t) {
+          failure.compareAndSet(null, t);
+        } finally {
+          finished();
+        }
+      }
+    };
+    if (ForkJoinTask.getPool() == pool) {
+      task.fork();
+    } else {
+      pool.execute(task);
+    }
+  }
+
+  private void finished() {
+    if (pending.decrementAndGet() == 0) {
+      done.countDown();
+    }
+  }
+
+  private void onMemberReference(Member member) {
     if (member.isPolymorphic()) {
-      traversePolymorphicReference(member.getDeclaringType(), member.getSignature());
+      schedule(
+          () -> traversePolymorphicReference(member.getDeclaringType(), member.getSignature()));
     } else {
       markTypeLive(member.getDeclaringType());
     }
     markMemberLive(member);
   }
 
-  private static void markMemberLive(Member member) {
-    if (member.isLive()) {
-      return;
-    }
-
-    member.markLive();
-    if (member.isConstructor()) {
-      markInstantiated(member.getDeclaringType());
+  private void markMemberLive(Member member) {
+    if (member.markLive()) {
+      schedule(() -> {
+        if (member.isConstructor()) {
+          markInstantiated(member.getDeclaringType());
+        }
+        member.getReferencedMembers().forEach(this::onMemberReference);
+        member.getReferencedTypes().forEach(this::markTypeLive);
+      });
     }
-    member.getReferencedMembers().forEach(RapidTypeAnalyser::onMemberReference);
-    member.getReferencedTypes().forEach(RapidTypeAnalyser::markTypeLive);
   }
 
-  private static void markInstantiated(Type type) {
-    if (type.isInstantiated()) {
+  private void markInstantiated(Type type) {
+    List<Member> potentiallyLiveMembers = type.instantiate();
+    if (potentiallyLiveMembers == null) {
       return;
     }
 
-    type.instantiate();
-    markMemberLive(type.getMemberByName(INITIALIZER_NAME));
-    type.getPotentiallyLiveMembers().forEach(RapidTypeAnalyser::markMemberLive);
-    for (Type iface : type.getSuperInterfaces()) {
-      markInstantiated(iface);
-    }
+    schedule(() -> {
+      markMemberLive(type.getMemberByName(INITIALIZER_NAME));
+      potentiallyLiveMembers.forEach(this::markMemberLive);
+      type.getSuperInterfaces().forEach(this::markInstantiated);
+    });
   }
 
-  private static void traversePolymorphicReference(Type type, String memberSignature) {
+  private void traversePolymorphicReference(Type type, String memberSignature) {
     Member member = type.getMemberBySignature(memberSignature);
     if (member == null) {
       // If no member found, check for a member which original member matches the signature.
@@ -139,18 +218,20 @@ final class RapidTypeAnalyser {
       // potentially live since it might be an accidental override.
       markOverriddenMembersPotentiallyLive(type, memberSignature);
     } else if (member.isPolymorphic()) {
-      if (member.isFullyTraversed()) {
+      // The traversal is tracked per signature, since a member that matches by
+      // its original member's signature can also be reached by its own.
+      if (!member.markTraversed(memberSignature)) {
         return;
       }
-      member.markFullyTraversed();
       markMemberPotentiallyLive(member);
     }
-    // Recursively unfold the overriding chain.
-    type.getImmediateSubtypes()
-        .forEach(subtype -> traversePolymorphicReference(subtype, memberSignature));
+    // Unfold the overriding chain.
+    for (Type subtype : type.getImmediateSubtypes()) {
+      schedule(() -> traversePolymorphicReference(subtype, memberSignature));
+    }
   }
 
-  private static void markOverriddenMembersPotentiallyLive(Type type, String memberSignature) {
+  private void markOverriddenMembersPotentiallyLive(Type type, String memberSignature) {
     while ((type = type.getSuperClass()) != null) {
       Member member = type.getMemberBySignature(memberSignature);
       if (member != null && member.isPolymorphic()) {
@@ -160,45 +241,42 @@ final class RapidTypeAnalyser {
     }
   }
 
-  private static void markMemberPotentiallyLive(Member member) {
-    Type declaringType = member.getDeclaringType();
-    if (declaringType.isInstantiated()) {
+  private void markMemberPotentiallyLive(Member member) {
+    // If the type is not instantiated, making the member live is deferred
+    // until it is.
+    if (!member.getDeclaringType().addPotentiallyLiveMember(member)) {
       markMemberLive(member);
-    } else {
-      // Type is not instantiated, defer making it live until the type is instantiated.
-      declaringType.addPotentiallyLiveMember(member);
     }
   }
 
-  private static void markTypeLive(Type type) {
-    if (type.isLive()) {
+  private void markTypeLive(Type type) {
+    if (!type.markLive()) {
       return;
     }
 
-    type.markLive();
-    markMemberLive(type.getMemberByName(CLASS_INITIALIZER_NAME));
-
-    // TODO(tball): remove when dead fields are reported (b/225384453).
-    markMemberLive(type.getMemberByName(INITIALIZER_NAME));
-
-    type.getMembers()
-        .forEach(
-            member -> {
-              // Mark members where the original method is from an external type. Mark members
-              // that have the UsedByNative or UsedByReflection annotations if the type is used.
-              if (member.getOriginalMember() == null
-                  || member.hasUsedByNativeOrReflectionAnnotation()) {
-                markMemberLive(member);
-              }
-            });
-
-    if (type.getSuperClass() != null) {
-      markTypeLive(type.getSuperClass());
-    }
-    // When a type is marked as live, we need to explicitly mark the super interfaces as live since
-    // we need markImplementor call (which are not tracked in AST).
-    type.getSuperInterfaces().forEach(RapidTypeAnalyser::markTypeLive);
-  }
+    schedule(() -> {
+      markMemberLive(type.getMemberByName(CLASS_INITIALIZER_NAME));
 
-  private RapidTypeAnalyser() {}
+      // TODO(tball): remove when dead fields are reported (b/225384453).
+      markMemberLive(type.getMemberByName(INITIALIZER_NAME));
+
+      type.getMembers()
+          .forEach(
+              member -> {
+                // Mark members where the original method is from an external type. Mark members
+                // that have the UsedByNative or UsedByReflection annotations if the type is used.
+                if (member.getOriginalMember() == null
+                    || member.hasUsedByNativeOrReflectionAnnotation()) {
+                  markMemberLive(member);
+                }
+              });
+
+      if (type.getSuperClass() != null) {
+        markTypeLive(type.getSuperClass());
+      }
+      // When a type is marked as live, we need to explicitly mark the super interfaces as live
+      // since we need markImplementor call (which are not tracked in AST).
+      type.getSuperInterfaces().forEach(this::markTypeLive);
+    });
+  }
 }
@@ -0,0 +1,197 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.treeshaker;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.flogger.GoogleLogger;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.devtools.j2objc.ast.AbstractTypeDeclaration;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.pipeline.ProcessingContext;
+import com.google.devtools.j2objc.util.ElementUtil;
+import com.google.devtools.j2objc.util.FingerprintCache;
+import com.google.protobuf.ExtensionRegistry;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * An on-disk cache of library summaries. Entries are keyed by the contents of a library's sources
+ * and the flags that affect its summary, and record a fingerprint of each type the library
+ * referenced. An entry is only reused if none of those types changed on the sourcepath or
+ * classpath, so an unchanged library isn't parsed again. Like the translation cache, a library
+ * that references a source type outside of the library that isn't on the sourcepath is not
+ * cached.
+ */
+final class SummaryCache {
+  private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
+
+  // Increment when the entry format or the summaries change, or when entries recorded by earlier
+  // versions may be invalid.
+  private static final int FORMAT_VERSION = 2;
+  private static final String ENTRY_SUFFIX = ".summary";
+  private static final String PACKAGE_INFO = "package-info";
+  private static final String PACKAGE_INFO_FILE = PACKAGE_INFO + ".java";
+
+  private final FingerprintCache entries;
+  private final String flagsHash;
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  SummaryCache(Options options, com.google.devtools.j2objc.Options j2objcOptions)
+      throws IOException {
+    this.entries =
+        new FingerprintCache(
+            j2objcOptions.fileUtil(), options.getSummaryCacheDir(), ENTRY_SUFFIX, FORMAT_VERSION);
+    this.flagsHash = hashFlags(options);
+  }
+
+  int hitCount() {
+    return hits.get();
+  }
+
+  int missCount() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the key of a library's entry, or null if its sources can't be read.
+   */
+  @Nullable String getKey(List<ProcessingContext> library) {
+    List<ProcessingContext> inputs = new ArrayList<>(library);
+    inputs.sort(Comparator.comparing(ProcessingContext::getOriginalSourcePath));
+    Hasher hasher = Hashing.sha256().newHasher().putString(flagsHash, UTF_8);
+    for (ProcessingContext input : inputs) {
+      try (InputStream in = input.getFile().getInputStream()) {
+        byte[] content = ByteStreams.toByteArray(in);
+        hasher.putString(input.getOriginalSourcePath(), UTF_8).putInt(content.length);
+        hasher.putBytes(content);
+      } catch (IOException e) {
+        return null;
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Returns the cached summary of a library, or null if the cache has no valid entry.
+   */
+  @Nullable LibraryInfo restore(String key) {
+    LibraryInfo summary = entries.read(key, SummaryCache::readEntry);
+    if (summary != null) {
+      hits.incrementAndGet();
+      return summary;
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * The types a library's code referenced, and the types it declares, which are fingerprinted by
+   * the entry's key instead.
+   */
+  static final class Dependencies {
+    private final Map<String, Element> referenced = new LinkedHashMap<>();
+    private final Set<String> declared = new HashSet<>();
+    private int typesSeen = 0;
+
+    /**
+     * Adds the top-level types declaring the types a unit referenced, and their supertypes. Only
+     * the type names added since the last call are looked up, so that each name is resolved once
+     * per library.
+     */
+    void add(CompilationUnit unit, List<String> typeNames) {
+      ElementUtil elementUtil = unit.getEnv().elementUtil();
+      for (int i = typesSeen; i < typeNames.size(); i++) {
+        // Type names are binary names.
+        String name = typeNames.get(i).replace('$', '.');
+        FingerprintCache.addTypeHierarchy(elementUtil.getTypeElement(name), referenced);
+      }
+      typesSeen = typeNames.size();
+      for (AbstractTypeDeclaration type : unit.getTypes()) {
+        declared.add(ElementUtil.getQualifiedName(type.getTypeElement()));
+      }
+      PackageElement pkg = unit.getPackage().getPackageElement();
+      if (unit.getSourceFilePath().endsWith(PACKAGE_INFO_FILE) && pkg != null) {
+        declared.add(pkg.getQualifiedName() + "." + PACKAGE_INFO);
+      }
+    }
+  }
+
+  /**
+   * Stores the summary of a library that missed the cache.
+   */
+  void store(String key, LibraryInfo summary, Dependencies dependencies) {
+    Map<String, Element> referenced = new LinkedHashMap<>(dependencies.referenced);
+    referenced.keySet().removeAll(dependencies.declared);
+    Map<String, String> fingerprints = entries.fingerprint(referenced);
+    if (fingerprints == null) {
+      logger.atFine().log("Not caching library %s", key);
+      return;
+    }
+    entries.write(key, fingerprints, out -> {
+      byte[] bytes = summary.toByteArray();
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    });
+  }
+
+  // Hashes everything besides the sources that affects a summary: the tool itself, its flags,
+  // the tree shaker roots and the boot classpath.
+  private static String hashFlags(Options options) throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher().putInt(FORMAT_VERSION);
+    FingerprintCache.addFileStamp(
+        hasher, TreeShaker.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+    hasher.putString(options.sourceVersion().flag(), UTF_8);
+    hasher.putString(options.fileEncoding(), UTF_8);
+    hasher.putBoolean(options.stripReflection());
+    for (String flag : options.getPlatformModuleSystemOptions()) {
+      hasher.putString(flag, UTF_8).putByte((byte) 0);
+    }
+    File roots = options.getTreeShakerRoots();
+    if (roots != null) {
+      hasher.putBytes(Files.readAllBytes(roots.toPath()));
+    }
+    String bootclasspath = options.getBootclasspath();
+    if (bootclasspath != null) {
+      for (String path : bootclasspath.split(File.pathSeparator)) {
+        FingerprintCache.addFileStamp(hasher, path);
+      }
+    }
+    hasher.putString(System.getProperty("java.version", ""), UTF_8);
+    return hasher.hash().toString();
+  }
+
+  private static LibraryInfo readEntry(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return LibraryInfo.parseFrom(bytes, ExtensionRegistry.getEmptyRegistry());
+  }
+}
@@ -15,18 +15,23 @@
 package com.google.devtools.treeshaker;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Table.Cell;
 import com.google.common.flogger.GoogleLogger;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.devtools.j2objc.ast.CompilationUnit;
-import com.google.devtools.j2objc.file.RegularInputFile;
+import com.google.devtools.j2objc.file.JarCache;
 import com.google.devtools.j2objc.pipeline.GenerationBatch;
+import com.google.devtools.j2objc.pipeline.IncompatibleSourceStripper;
+import com.google.devtools.j2objc.pipeline.ProcessingContext;
 import com.google.devtools.j2objc.util.CodeReferenceMap;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.FileUtil;
@@ -39,7 +44,13 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.jspecify.annotations.Nullable;
@@ -50,6 +61,7 @@ public class TreeShaker {
   private static final GoogleLogger logger = GoogleLogger.forEnclosingClass();
   private final Options options;
   private final com.google.devtools.j2objc.Options j2objcOptions;
+  private final @Nullable SummaryCache summaryCache;
 
   static {
     // Enable assertions in the tree shaker.
@@ -82,6 +94,13 @@ public class TreeShaker {
     list.addAll(options.getPlatformModuleSystemOptions());
     j2objcOptions.load(list.toArray(new String[0]));
     j2objcOptions.setStripReflection(options.stripReflection());
+    summaryCache =
+        options.getSummaryCacheDir() != null ? new SummaryCache(options, j2objcOptions) : null;
+  }
+
+  @VisibleForTesting
+  @Nullable SummaryCache getSummaryCache() {
+    return summaryCache;
   }
 
   private Parser createParser(Options options) throws IOException {
@@ -129,32 +148,6 @@ public class TreeShaker {
     }
   }
 
-  private File stripIncompatible(List<String> sourceFileNames, Parser parser) throws IOException {
-    File strippedDir = null;
-    for (int i = 0; i < sourceFileNames.size(); i++) {
-      String fileName = sourceFileNames.get(i);
-      RegularInputFile file = new RegularInputFile(fileName);
-      String source = j2objcOptions.fileUtil().readFile(file);
-      if (!source.contains("J2ObjCIncompatible")) {
-        continue;
-      }
-      if (strippedDir == null) {
-        strippedDir = Files.createTempDir();
-        parser.prependSourcepathEntry(strippedDir.getPath());
-      }
-      Parser.ParseResult parseResult = parser.parseWithoutBindings(file, source);
-      String qualifiedName = parseResult.mainTypeName();
-      parseResult.stripIncompatibleSource();
-      String relativePath = qualifiedName.replace('.', File.separatorChar) + ".java";
-      File strippedFile = new File(strippedDir, relativePath);
-      Files.createParentDirs(strippedFile);
-      Files.asCharSink(strippedFile, j2objcOptions.fileUtil().getCharset())
-          .write(parseResult.getSource());
-      sourceFileNames.set(i, strippedFile.getPath());
-    }
-    return strippedDir;
-  }
-
   @VisibleForTesting
   @Nullable CodeReferenceMap findUnusedCode() throws IOException {
     TypeGraphBuilder tgb = createTypeGraphBuilder();
@@ -171,62 +164,210 @@ public class TreeShaker {
     if (options.useClassHierarchyAnalyzer()) {
       return ClassHierarchyAnalyzer.analyze(tgb.getTypes());
     } else {
-      return RapidTypeAnalyser.analyse(tgb.getTypes());
+      return RapidTypeAnalyser.analyse(tgb.getTypes(), options.jobs());
     }
   }
 
-  private TypeGraphBuilder createTypeGraphBuilder() throws IOException {
+  private @Nullable TypeGraphBuilder createTypeGraphBuilder() throws IOException {
+    ImmutableList<LibraryInfo> libraryInfos;
     if (options.getSummary() != null) {
       LibraryInfo info = options.getSummary();
-      LibraryInfo markedInfo = UsedCodeMarker.mark(info, options.getTreeShakerRoots());
-      return new TypeGraphBuilder(ImmutableList.of(markedInfo));
+      libraryInfos = ImmutableList.of(UsedCodeMarker.mark(info, options.getTreeShakerRoots()));
     } else if (!options.getSummaries().isEmpty()) {
-    ImmutableList<LibraryInfo> markedInfo =
-        options.getSummaries().stream()
-            .map(summary -> UsedCodeMarker.mark(summary, options.getTreeShakerRoots()))
-            .collect(toImmutableList());
-    return new TypeGraphBuilder(markedInfo);
+      // Parse the roots once, and mark each summary in parallel.
+      CodeReferenceMap rootSet =
+          ProGuardUsageParser.parseDeadCodeFile(options.getTreeShakerRoots());
+      libraryInfos =
+          options.getSummaries().parallelStream()
+              .map(summary -> UsedCodeMarker.mark(summary, rootSet))
+              .collect(toImmutableList());
     } else {
-      return new TypeGraphBuilder(ImmutableList.of(createLibraryInfo()));
+      libraryInfos = createLibraryInfos();
+      if (libraryInfos == null) {
+        return null;
+      }
+    }
+    if (options.getClassHierarchyOutputFile() != null) {
+      writeClassHierarchy(libraryInfos, options.getClassHierarchyOutputFile());
+    }
+    return new TypeGraphBuilder(libraryInfos);
+  }
+
+  /**
+   * Writes the class hierarchy of the program for the translator's --class-hierarchy flag: a
+   * line per type with its name, its superclass name and the names of its instance methods.
+   */
+  @VisibleForTesting
+  static void writeClassHierarchy(List<LibraryInfo> libraryInfos, File file) throws IOException {
+    try (BufferedWriter writer = Files.newWriter(file, UTF_8)) {
+      for (LibraryInfo libraryInfo : libraryInfos) {
+        List<String> typeMap = libraryInfo.getTypeMapList();
+        for (TypeInfo type : libraryInfo.getTypeList()) {
+          writer.write(typeMap.get(type.getTypeId()));
+          writer.write(' ');
+          writer.write(typeMap.get(type.getExtendsType()));
+          Set<String> methodNames = new LinkedHashSet<>();
+          for (MemberInfo member : type.getMemberList()) {
+            if (member.getStatic() || member.getConstructor()) {
+              continue;
+            }
+            String name = member.getName();
+            int i = name.indexOf(UsedCodeMarker.SIGNATURE_PREFIX);
+            name = i < 0 ? name : name.substring(0, i);
+            // Skip instance initializers.
+            if (!name.startsWith("<")) {
+              methodNames.add(name);
+            }
+          }
+          for (String name : methodNames) {
+            writer.write(' ');
+            writer.write(name);
+          }
+          writer.write('\n');
+        }
+      }
     }
   }
 
   @Nullable LibraryInfo createLibraryInfo() throws IOException {
-    UsedCodeMarker.Context context;
-    if (options.getTreeShakerRoots() == null) {
-      context = new UsedCodeMarker.Context();
+    ImmutableList<LibraryInfo> libraryInfos = createLibraryInfos();
+    return libraryInfos == null ? null : UsedCodeMarker.merge(libraryInfos);
+  }
+
+  /**
+   * Returns the summaries of the libraries in the source files, summarizing the libraries in
+   * parallel, or null if there were errors.
+   */
+  private @Nullable ImmutableList<LibraryInfo> createLibraryInfos() throws IOException {
+    CodeReferenceMap rootSet =
+        options.getTreeShakerRoots() == null
+            ? null
+            : ProGuardUsageParser.parseDeadCodeFile(options.getTreeShakerRoots());
+    List<List<ProcessingContext>> libraries = getLibraries();
+    if (ErrorUtil.errorCount() > 0) {
+      return null;
+    }
+    ImmutableList<LibraryInfo> libraryInfos;
+    int threads = Math.min(options.jobs(), libraries.size());
+    if (threads <= 1) {
+      ImmutableList.Builder<LibraryInfo> builder = ImmutableList.builder();
+      for (List<ProcessingContext> library : libraries) {
+        LibraryInfo libraryInfo = createLibraryInfo(library, rootSet);
+        if (libraryInfo != null) {
+          builder.add(libraryInfo);
+        }
+      }
+      libraryInfos = builder.build();
     } else {
-      context = new UsedCodeMarker.Context(ProGuardUsageParser.parseDeadCodeFile(options.getTreeShakerRoots()));
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+        List<Future<LibraryInfo>> futures = new ArrayList<>();
+        for (List<ProcessingContext> library : libraries) {
+          futures.add(executor.submit(() -> createLibraryInfo(library, rootSet)));
+        }
+        ImmutableList.Builder<LibraryInfo> builder = ImmutableList.builder();
+        for (Future<LibraryInfo> future : futures) {
+          LibraryInfo libraryInfo = Uninterruptibles.getUninterruptibly(future);
+          if (libraryInfo != null) {
+            builder.add(libraryInfo);
+          }
+        }
+        libraryInfos = builder.build();
+      } catch (ExecutionException e) {
+        Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new AssertionError(e.getCause());
+      } finally {
+        executor.shutdownNow();
+      }
     }
-    Parser parser = createParser(options);
-    List<String> sourceFiles = getSourceFiles();
     if (ErrorUtil.errorCount() > 0) {
       return null;
     }
-    File strippedDir = stripIncompatible(sourceFiles, parser);
+    if (summaryCache != null) {
+      logger.atFine().log(
+          "Summary cache: %d hits, %d misses", summaryCache.hitCount(), summaryCache.missCount());
+    }
+    return libraryInfos;
+  }
+
+  /**
+   * Returns the source files of each library to summarize. Each source jar is a library of its
+   * own, so that it can be cached and summarized independently of the others. Loose source files
+   * may depend on each other without being on the sourcepath, so if there are any, all of the
+   * source files are summarized as one library.
+   */
+  private List<List<ProcessingContext>> getLibraries() {
+    List<String> sourceFiles = options.getSourceFiles();
+    boolean allJars =
+        sourceFiles.stream().allMatch(f -> f.endsWith(".jar") || f.endsWith(".srcjar"));
+    if (!allJars || sourceFiles.size() == 1) {
+      return ImmutableList.of(getSourceFiles(sourceFiles));
+    }
+    // Extracting each jar also adds it to the sourcepath, so that each library's parser can
+    // resolve the types of the others.
+    List<List<ProcessingContext>> libraries = new ArrayList<>();
+    for (String jar : sourceFiles) {
+      List<ProcessingContext> library = getSourceFiles(ImmutableList.of(jar));
+      if (!library.isEmpty()) {
+        libraries.add(library);
+      }
+    }
+    return libraries;
+  }
+
+  private @Nullable LibraryInfo createLibraryInfo(
+      List<ProcessingContext> library, @Nullable CodeReferenceMap rootSet) throws IOException {
+    String key = summaryCache != null ? summaryCache.getKey(library) : null;
+    if (key != null) {
+      LibraryInfo cached = summaryCache.restore(key);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    UsedCodeMarker.Context context =
+        rootSet == null ? new UsedCodeMarker.Context() : new UsedCodeMarker.Context(rootSet);
+    SummaryCache.Dependencies dependencies = new SummaryCache.Dependencies();
+    Parser parser = createParser(options);
+    List<String> sourceFiles =
+        library.stream()
+            .map(input -> input.getFile().getAbsolutePath())
+            .collect(Collectors.toList());
+    IncompatibleSourceStripper stripper = new IncompatibleSourceStripper(parser);
+    stripper.stripSourcePaths(sourceFiles);
+    File strippedDir = stripper.getStrippedSourcesDir();
+    if (strippedDir != null) {
+      parser.prependSourcepathEntry(strippedDir.getPath());
+    }
     Parser.Handler handler =
         new Parser.Handler() {
           @Override
           public void handleParsedUnit(String path, CompilationUnit unit) {
             new UsedCodeMarker(unit, context).run();
+            if (key != null) {
+              dependencies.add(unit, context.getTypeNames());
+            }
           }
         };
 
     parser.parseFiles(sourceFiles, handler, options.sourceVersion());
     FileUtil.deleteTempDir(strippedDir);
     parser.close();
+    JarCache.closeAll();
     if (ErrorUtil.errorCount() > 0) {
       return null;
     }
-    return context.getLibraryInfo();
+    LibraryInfo libraryInfo = context.getLibraryInfo();
+    if (key != null) {
+      summaryCache.store(key, libraryInfo, dependencies);
+    }
+    return libraryInfo;
   }
 
-  private List<String> getSourceFiles() {
+  private List<ProcessingContext> getSourceFiles(List<String> sourceFiles) {
     GenerationBatch batch = new GenerationBatch(j2objcOptions);
-    batch.processFileArgs(options.getSourceFiles());
-    return batch.getInputs().stream()
-        .map(input -> input.getFile().getAbsolutePath())
-        .collect(Collectors.toList());
+    batch.processFileArgs(sourceFiles);
+    return batch.getInputs();
   }
 
   private static void writeToFile(Options options, CodeReferenceMap unused) {
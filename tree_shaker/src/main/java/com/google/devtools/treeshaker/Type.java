@@ -22,6 +22,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import org.jspecify.annotations.Nullable;
 
 final class Type {
   static Type buildFrom(TypeInfo typeInfo, String name) {
@@ -36,8 +38,12 @@ final class Type {
   private Type superClass;
   private final List<Type> superInterfaces = new ArrayList<>();
   private final List<Type> immediateSubtypes = new ArrayList<>();
-  private boolean live;
-  private boolean instantiated;
+
+  // Marking state, which may be updated concurrently by the RapidTypeAnalyser.
+  private static final AtomicIntegerFieldUpdater<Type> liveUpdater =
+      AtomicIntegerFieldUpdater.newUpdater(Type.class, "live");
+  private volatile int live;
+  private volatile boolean instantiated;
   private final Set<Member> potentiallyLiveMembers = new HashSet<>();
 
   private Type(String name, boolean isExported, Collection<MemberInfo> members) {
@@ -96,29 +102,48 @@ final class Type {
     immediateSubtypes.add(type);
   }
 
-  void markLive() {
-    this.live = true;
+  /**
+   * Marks this type live, returning false if it already was.
+   */
+  boolean markLive() {
+    return liveUpdater.compareAndSet(this, 0, 1);
   }
 
   boolean isLive() {
-    return live;
+    return live != 0;
   }
 
   boolean isInstantiated() {
     return instantiated;
   }
 
-  void instantiate() {
-    this.instantiated = true;
+  /**
+   * Marks this type instantiated, returning the potentially live members that
+   * now need to be marked live, or null if it already was instantiated.
+   */
+  synchronized @Nullable List<Member> instantiate() {
+    if (instantiated) {
+      return null;
+    }
+    instantiated = true;
+    return new ArrayList<>(potentiallyLiveMembers);
   }
 
   // Returns the list of members that need to mark as live when the type becomes live.
-  Collection<Member> getPotentiallyLiveMembers() {
-    return potentiallyLiveMembers;
-  }
-
-  void addPotentiallyLiveMember(Member member) {
-    checkState(!isInstantiated());
+  synchronized Collection<Member> getPotentiallyLiveMembers() {
+    return new ArrayList<>(potentiallyLiveMembers);
+  }
+
+  /**
+   * Defers marking a member live until this type is instantiated. Returns
+   * false if the type already is instantiated, in which case the member needs
+   * to be marked live now.
+   */
+  synchronized boolean addPotentiallyLiveMember(Member member) {
+    if (instantiated) {
+      return false;
+    }
     potentiallyLiveMembers.add(member);
+    return true;
   }
 }
@@ -15,10 +15,12 @@ package com.google.devtools.treeshaker;
 
 import com.google.common.collect.ImmutableList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /** Give information about inheritance relationships between types. */
 class TypeGraphBuilder {
@@ -28,19 +30,29 @@ class TypeGraphBuilder {
 
   TypeGraphBuilder(ImmutableList<LibraryInfo> libraryInfos) {
     Map<String, Type> typesByName = new LinkedHashMap<>();
-    externalTypeReferences = new HashSet<>();
-    unknownMethodReferences = new HashSet<>();
+    externalTypeReferences = ConcurrentHashMap.newKeySet();
+    unknownMethodReferences = ConcurrentHashMap.newKeySet();
     for (LibraryInfo libraryInfo : libraryInfos) {
-      for (TypeInfo typeInfo : libraryInfo.getTypeList()) {
-        Type type = Type.buildFrom(typeInfo, libraryInfo.getTypeMap(typeInfo.getTypeId()));
+      List<Type> libraryTypes =
+          libraryInfo.getTypeList().parallelStream()
+              .map(
+                  typeInfo ->
+                      Type.buildFrom(typeInfo, libraryInfo.getTypeMap(typeInfo.getTypeId())))
+              .collect(Collectors.toList());
+      for (Type type : libraryTypes) {
         typesByName.put(
             type.getName(), type); // Type names are fully qualified, no risk of overriding.
       }
     }
 
-    // Build cross-references between types and members
+    // Build cross-references between types and members. Only the references of a type's own
+    // members are resolved in parallel, so that the order of subtypes stays deterministic.
     for (LibraryInfo libraryInfo : libraryInfos) {
-      buildCrossReferences(libraryInfo, typesByName);
+      buildTypeHierarchy(libraryInfo, typesByName);
+    }
+    for (LibraryInfo libraryInfo : libraryInfos) {
+      libraryInfo.getTypeList().parallelStream()
+          .forEach(typeInfo -> buildMemberReferences(libraryInfo, typeInfo, typesByName));
     }
 
     types = typesByName.values();
@@ -58,7 +70,7 @@ class TypeGraphBuilder {
     return unknownMethodReferences;
   }
 
-  private void buildCrossReferences(LibraryInfo libraryInfo, Map<String, Type> typesByName) {
+  private void buildTypeHierarchy(LibraryInfo libraryInfo, Map<String, Type> typesByName) {
     for (TypeInfo typeInfo : libraryInfo.getTypeList()) {
       Type type = typesByName.get(libraryInfo.getTypeMap(typeInfo.getTypeId()));
       String superClassName = libraryInfo.getTypeMap(typeInfo.getExtendsType());
@@ -80,7 +92,14 @@ class TypeGraphBuilder {
         superInterface.addImmediateSubtype(type);
         type.addSuperInterface(superInterface);
       }
+    }
+  }
 
+  private void buildMemberReferences(
+      LibraryInfo libraryInfo, TypeInfo typeInfo, Map<String, Type> typesByName) {
+    Type type = typesByName.get(libraryInfo.getTypeMap(typeInfo.getTypeId()));
+    // Only this type's members are changed, but the same type may be in more than one library.
+    synchronized (type) {
       for (MemberInfo memberInfo : typeInfo.getMemberList()) {
         Member member = type.getMemberByName(memberInfo.getName());
 
@@ -103,7 +122,8 @@ class TypeGraphBuilder {
           Type enclosingType =
               typesByName.get(libraryInfo.getTypeMap(methodInvocation.getEnclosingType()));
           if (enclosingType == null) {
-            externalTypeReferences.add(libraryInfo.getTypeMap(methodInvocation.getEnclosingType()));
+            externalTypeReferences.add(
+                libraryInfo.getTypeMap(methodInvocation.getEnclosingType()));
             continue;
           }
           Member referencedMember = enclosingType.getMemberByName(methodInvocation.getMethod());
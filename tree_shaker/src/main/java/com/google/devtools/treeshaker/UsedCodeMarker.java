@@ -68,6 +68,7 @@ import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -745,11 +746,58 @@ final class UsedCodeMarker extends UnitTreeVisitor {
   }
 
   static LibraryInfo mark(LibraryInfo summary, File roots) {
-    CodeReferenceMap rootSet = ProGuardUsageParser.parseDeadCodeFile(roots);
+    return mark(summary, ProGuardUsageParser.parseDeadCodeFile(roots));
+  }
+
+  static LibraryInfo mark(LibraryInfo summary, CodeReferenceMap rootSet) {
     return markEntryClasses(
         summary, getExportedClasses(rootSet), UsedCodeMarker.getExportedMethods(rootSet));
   }
 
+  /*
+   * Merges summaries into one, renumbering the types of each into a shared type map.
+   */
+  static LibraryInfo merge(List<LibraryInfo> summaries) {
+    if (summaries.size() == 1) {
+      return summaries.get(0);
+    }
+    Map<String, Integer> typeIds = new LinkedHashMap<>();
+    LibraryInfo.Builder merged = LibraryInfo.newBuilder();
+    for (LibraryInfo summary : summaries) {
+      int[] ids = new int[summary.getTypeMapCount()];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = typeIds.computeIfAbsent(summary.getTypeMap(i), k -> typeIds.size());
+      }
+      for (TypeInfo type : summary.getTypeList()) {
+        TypeInfo.Builder typeBuilder =
+            type.toBuilder()
+                .setTypeId(ids[type.getTypeId()])
+                .setExtendsType(ids[type.getExtendsType()])
+                .clearImplementsType()
+                .clearInnerTypes()
+                .clearMember();
+        type.getImplementsTypeList().forEach(id -> typeBuilder.addImplementsType(ids[id]));
+        type.getInnerTypesList().forEach(id -> typeBuilder.addInnerTypes(ids[id]));
+        for (MemberInfo member : type.getMemberList()) {
+          MemberInfo.Builder memberBuilder =
+              member.toBuilder()
+                  .setOriginalType(ids[member.getOriginalType()])
+                  .clearInvokedMethods()
+                  .clearReferencedTypes();
+          for (com.google.devtools.treeshaker.MethodInvocation invocation :
+              member.getInvokedMethodsList()) {
+            memberBuilder.addInvokedMethods(
+                invocation.toBuilder().setEnclosingType(ids[invocation.getEnclosingType()]));
+          }
+          member.getReferencedTypesList().forEach(id -> memberBuilder.addReferencedTypes(ids[id]));
+          typeBuilder.addMember(memberBuilder);
+        }
+        merged.addType(typeBuilder);
+      }
+    }
+    return merged.addAllTypeMap(typeIds.keySet()).build();
+  }
+
   static final class Context {
     // Map of type names to unique integer.
     private int typeCount;
@@ -789,5 +837,10 @@ final class UsedCodeMarker extends UnitTreeVisitor {
     LibraryInfo getLibraryInfo() {
       return libraryInfoBuilder.build();
     }
+
+    // The names of the types seen so far, in the order they were assigned IDs.
+    List<String> getTypeNames() {
+      return libraryInfoBuilder.getTypeMapList();
+    }
   }
 }
@@ -16,6 +16,7 @@ package com.google.devtools.treeshaker;
 
 import static com.google.common.base.StandardSystemProperty.JAVA_CLASS_PATH;
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Joiner;
@@ -26,10 +27,13 @@ import com.google.common.io.Files;
 import com.google.devtools.j2objc.util.CodeReferenceMap;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import junit.framework.TestCase;
 
 /** System tests for the TreeShaker. */
@@ -40,6 +44,9 @@ public class TreeShakerTest extends TestCase {
 
   File tempDir;
   File treeShakerRoots;
+  File summaryCacheDir;
+  File classHierarchyFile;
+  SummaryCache summaryCache;
   List<String> inputFiles;
 
   static {
@@ -51,6 +58,8 @@ public class TreeShakerTest extends TestCase {
   protected void setUp() throws IOException {
     tempDir = createTempDir();
     treeShakerRoots = null;
+    summaryCacheDir = null;
+    classHierarchyFile = null;
     inputFiles = new ArrayList<>();
   }
 
@@ -64,12 +73,20 @@ public class TreeShakerTest extends TestCase {
   }
 
   private CodeReferenceMap findUnusedCode(boolean stripReflection) throws IOException {
+    return findUnusedCode(stripReflection, Runtime.getRuntime().availableProcessors());
+  }
+
+  private CodeReferenceMap findUnusedCode(boolean stripReflection, int jobs) throws IOException {
     Options options = new Options();
+    options.setJobs(jobs);
     options.setClasspath(System.getProperty(JAVA_CLASS_PATH.value()));
     options.setTreeShakerRoots(treeShakerRoots);
     options.setSourceFiles(inputFiles);
     options.setStripReflection(stripReflection);
+    options.setSummaryCacheDir(summaryCacheDir);
+    options.setClassHierarchyOutputFile(classHierarchyFile);
     TreeShaker shaker = new TreeShaker(options);
+    summaryCache = shaker.getSummaryCache();
     CodeReferenceMap unused = shaker.findUnusedCode();
     if (ErrorUtil.errorCount() > 0) {
       fail("TreeShaker failed with errors:\n" + Joiner.on("\n").join(ErrorUtil.getErrorMessages()));
@@ -1916,6 +1933,125 @@ public class TreeShakerTest extends TestCase {
     assertThat(output).isEmpty();
   }
 
+  public void testDeepReferenceChain() throws IOException {
+    // Long enough to overflow the stack if live code were marked recursively.
+    int length = 10000;
+    StringBuilder source = new StringBuilder("package p; class A { static void main() { m0(); }");
+    for (int i = 0; i < length; i++) {
+      source.append(" static void m").append(i).append("() {");
+      if (i + 1 < length) {
+        source.append(" m").append(i + 1).append("();");
+      }
+      source.append(" }");
+    }
+    source.append(" static void unused() {} }");
+    addTreeShakerRootsFile("p.A:\n    main()");
+    addSourceFile("A.java", source.toString());
+    CodeReferenceMap unused = findUnusedCode();
+
+    assertThat(getUnusedClasses(unused)).isEmpty();
+    assertThat(getUnusedMethods(unused))
+        .containsExactly(getMethodName("p.A", "A", "()V"), getMethodName("p.A", "unused", "()V"));
+  }
+
+  public void testParallelAnalysisMatchesSequential() throws IOException {
+    addTreeShakerRootsFile("p.Main:\n    main()");
+    StringBuilder main = new StringBuilder("package p; class Main { static void main() {");
+    for (int i = 0; i < 40; i++) {
+      String superclass = i == 0 ? "" : " extends C" + (i - 1);
+      String interfaces = i % 3 == 0 ? " implements I" : "";
+      addSourceFile("C" + i + ".java",
+          "package p; class C" + i + superclass + interfaces + " {",
+          " public void f() { g" + i + "(); } void g" + i + "() {} public void h() {} }");
+      if (i % 4 == 1) {
+        main.append(" I i").append(i).append(" = new C").append(i).append("(); i").append(i)
+            .append(".f();");
+      }
+    }
+    addSourceFile("I.java", "package p; interface I { void f(); }");
+    addSourceFile("Main.java", main.append(" } }").toString());
+
+    CodeReferenceMap sequential = findUnusedCode(false, 1);
+    CodeReferenceMap parallel = findUnusedCode(false, 4);
+    assertThat(getUnusedMethods(sequential)).isNotEmpty();
+    assertEquals(getUnusedClasses(sequential), getUnusedClasses(parallel));
+    assertEquals(getUnusedMethods(sequential), getUnusedMethods(parallel));
+  }
+
+  public void testSummaryCache() throws IOException {
+    summaryCacheDir = new File(tempDir, "cache");
+    addTreeShakerRootsFile("p.A:\n    main()");
+    addSourceFile("A.java", "package p; class A { static void main() { B.used(); } }");
+    addSourceFile("B.java", "package p; class B { static void used() {} static void unused() {} }");
+    CodeReferenceMap unused = findUnusedCode();
+    assertEquals(0, summaryCache.hitCount());
+    assertEquals(1, summaryCache.missCount());
+    assertThat(getUnusedMethods(unused)).contains(getMethodName("p.B", "unused", "()V"));
+
+    CodeReferenceMap cached = findUnusedCode();
+    assertEquals(1, summaryCache.hitCount());
+    assertEquals(getUnusedClasses(unused), getUnusedClasses(cached));
+    assertEquals(getUnusedMethods(unused), getUnusedMethods(cached));
+
+    Files.asCharSink(new File(tempDir, "B.java"), Charset.defaultCharset())
+        .write("package p; class B { static void used() {} static void unused2() {} }");
+    CodeReferenceMap changed = findUnusedCode();
+    assertEquals(0, summaryCache.hitCount());
+    assertThat(getUnusedMethods(changed))
+        .doesNotContain(getMethodName("p.B", "unused", "()V"));
+    assertThat(getUnusedMethods(changed)).contains(getMethodName("p.B", "unused2", "()V"));
+  }
+
+  public void testOutputClassHierarchy() throws IOException {
+    classHierarchyFile = new File(tempDir, "hierarchy.txt");
+    addTreeShakerRootsFile("p.A:\n    main()");
+    addSourceFile("A.java",
+        "package p; class A { static void main() { new B().f(); } void f() {} void g() {} }");
+    addSourceFile("B.java",
+        "package p; class B extends A { B() {} void f() {} void f(int i) {} static void h() {} }");
+    findUnusedCode();
+    assertThat(Files.readLines(classHierarchyFile, UTF_8))
+        .containsAtLeast("p.A java.lang.Object f g", "p.B p.A f");
+  }
+
+  public void testSourceJarLibraries() throws IOException {
+    summaryCacheDir = new File(tempDir, "cache");
+    addTreeShakerRootsFile("p.A:\n    main()");
+    addSourceJar("a.jar", "p/A.java", "package p; class A { static void main() { q.B.used(); } }");
+    addSourceJar("b.jar", "q/B.java",
+        "package q; public class B {",
+        " public static void used() {} public static void unused() {} }");
+    CodeReferenceMap unused = findUnusedCode();
+    assertEquals(2, summaryCache.missCount());
+    assertThat(getUnusedMethods(unused)).contains(getMethodName("q.B", "unused", "()V"));
+    assertThat(getUnusedMethods(unused)).doesNotContain(getMethodName("q.B", "used", "()V"));
+
+    // Only the changed library is summarized again.
+    inputFiles.remove(0);
+    addSourceJar("a.jar", "p/A.java",
+        "package p; class A { static void main() { q.B.used(); q.B.unused(); } }");
+    CodeReferenceMap changed = findUnusedCode();
+    assertEquals(1, summaryCache.hitCount());
+    assertEquals(1, summaryCache.missCount());
+    assertThat(getUnusedMethods(changed)).doesNotContain(getMethodName("q.B", "unused", "()V"));
+  }
+
+  public void testSummaryCacheSkipsTypesInOtherFiles() throws IOException {
+    summaryCacheDir = new File(tempDir, "cache");
+    addTreeShakerRootsFile("q.A:\n    main()");
+    addSourceJar("a.jar", "q/A.java", "package q; class A { static void main() { C.used(); } }");
+    addSourceJar("b.jar", "q/B.java",
+        "package q; public class B {}",
+        " class C { static void used() {} }");
+    findUnusedCode();
+    assertEquals(2, summaryCache.missCount());
+
+    // q.C can't be fingerprinted since no file is named for it, so a.jar isn't cached.
+    findUnusedCode();
+    assertEquals(1, summaryCache.hitCount());
+    assertEquals(1, summaryCache.missCount());
+  }
+
   private static String writeUnused(CodeReferenceMap unused) {
     StringBuilder result = new StringBuilder();
     TreeShaker.writeUnused(unused, result::append);
@@ -1968,6 +2104,16 @@ public class TreeShakerTest extends TestCase {
     inputFiles.add(file.getAbsolutePath());
   }
 
+  private void addSourceJar(String jarName, String path, String... sources) throws IOException {
+    File jar = new File(tempDir, jarName);
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+      out.putNextEntry(new ZipEntry(path));
+      out.write(String.join("", sources).getBytes(Charset.defaultCharset()));
+      out.closeEntry();
+    }
+    inputFiles.add(jar.getAbsolutePath());
+  }
+
   private File createTempDir() throws IOException {
     File tempDir = File.createTempFile("treeshaker_testout", "");
     tempDir.delete();